@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.builder.ParserBuilder;
+
+/**
+ * Benchmarks alias expansion and command/option abbreviation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AliasAndAbbreviationBenchmark {
+
+    private static final int ALIASES = 100;
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int commands;
+
+    private Cli<BenchmarkCommand> aliased, abbreviated;
+    private String[] aliasArgs, abbreviatedArgs;
+
+    @Setup
+    public void setup() {
+        ParserBuilder<BenchmarkCommand> builder = new ParserBuilder<BenchmarkCommand>();
+        for (int i = 0; i < ALIASES; i++) {
+            builder.withAlias("alias" + i).withArguments(SyntheticCli.commandName(i % this.commands), "--name",
+                    "alias" + i);
+        }
+        this.aliased = new Cli<>(SyntheticCli.create(this.commands, builder.build()));
+        this.aliasArgs = new String[] { "alias" + (ALIASES - 1), "--tag", "a", "argument" };
+
+        this.abbreviated = new Cli<>(SyntheticCli.create(this.commands,
+                new ParserBuilder<BenchmarkCommand>().withCommandAbbreviation().withOptionAbbreviation().build()));
+        this.abbreviatedArgs = new String[] { SyntheticCli.UNIQUE_COMMAND.substring(0, 3), "--nam", "bench",
+                "--lev", "LOW", "--ta", "a", "argument" };
+    }
+
+    @Benchmark
+    public BenchmarkCommand alias() {
+        return this.aliased.parse(this.aliasArgs);
+    }
+
+    @Benchmark
+    public BenchmarkCommand abbreviation() {
+        return this.abbreviated.parse(this.abbreviatedArgs);
+    }
+}
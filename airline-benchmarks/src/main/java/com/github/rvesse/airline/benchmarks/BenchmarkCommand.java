@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.List;
+
+import javax.inject.Inject;
+
+import com.github.rvesse.airline.HelpOption;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.AllowedRawValues;
+import com.github.rvesse.airline.annotations.restrictions.MutuallyExclusiveWith;
+import com.github.rvesse.airline.annotations.restrictions.NotBlank;
+import com.github.rvesse.airline.annotations.restrictions.ranges.IntegerRange;
+import com.github.rvesse.airline.types.numerics.abbreviated.KiloAs1000;
+
+/**
+ * Synthetic command used by the benchmarks, it covers the common option types,
+ * type conversions and restrictions
+ */
+@Command(name = "bench", description = "Synthetic command used for benchmarking")
+public class BenchmarkCommand {
+
+    public static enum Level {
+        LOW, MEDIUM, HIGH
+    }
+
+    @Inject
+    public HelpOption<BenchmarkCommand> help = new HelpOption<>();
+
+    @Option(name = { "-n", "--number" }, description = "A number")
+    @IntegerRange(min = 0, max = 1000)
+    public int number;
+
+    @Option(name = "--size", description = "A size which may be abbreviated e.g. 10k", typeConverterProvider = KiloAs1000.class)
+    public long size;
+
+    @Option(name = "--name", description = "A name")
+    @NotBlank
+    public String name;
+
+    @Option(name = { "-v", "--verbose" }, description = "A flag")
+    public boolean verbose;
+
+    @Option(name = "--level", description = "An enum")
+    public Level level;
+
+    @Option(name = "--mode", description = "A value with restricted values")
+    @AllowedRawValues(allowedValues = { "fast", "slow", "auto" })
+    public String mode;
+
+    @Option(name = "--tag", description = "A repeatable option")
+    public List<String> tags;
+
+    @Option(name = "--first", description = "Mutually exclusive with --second")
+    @MutuallyExclusiveWith(tag = "exclusive")
+    public boolean first;
+
+    @Option(name = "--second", description = "Mutually exclusive with --first")
+    @MutuallyExclusiveWith(tag = "exclusive")
+    public boolean second;
+
+    @Arguments(description = "Arguments")
+    public List<String> arguments;
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.Accessor;
+import com.github.rvesse.airline.annotations.Group;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.help.sections.HelpSection;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.parser.command.SingleCommandParser;
+import com.github.rvesse.airline.restrictions.GlobalRestriction;
+
+/**
+ * Benchmarks binding parsed values for commands with many options, each of
+ * which is repeated several times
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BindingBenchmark {
+
+    /**
+     * Command whose options all bind to the same multi-valued field
+     */
+    public static class WideCommand {
+        public List<String> values;
+    }
+
+    @Param({ "10", "100", "1000" })
+    public int options;
+
+    @Param({ "1", "10" })
+    public int repeats;
+
+    private final SingleCommandParser<WideCommand> parser = new SingleCommandParser<>();
+    private ParserMetadata<WideCommand> parserConfig;
+    private CommandMetadata command;
+    private List<String> args;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        Field field = WideCommand.class.getField("values");
+        List<OptionMetadata> optionMetadata = new ArrayList<>();
+        for (int i = 0; i < this.options; i++) {
+            String name = "--option" + i;
+            optionMetadata.add(new OptionMetadata(OptionType.COMMAND, Collections.singletonList(name), name, null, 1,
+                    false, false, false, null, null, Collections.singletonList(field)));
+        }
+        //@formatter:off
+        this.command = new CommandMetadata("wide", 
+                                           null, 
+                                           false, 
+                                           Collections.<OptionMetadata> emptyList(),
+                                           Collections.<OptionMetadata> emptyList(), 
+                                           optionMetadata, 
+                                           null, 
+                                           null,
+                                           Collections.<Accessor> emptyList(), 
+                                           WideCommand.class, 
+                                           Collections.<String> emptyList(),
+                                           Collections.<Group> emptyList(), 
+                                           Collections.<HelpSection> emptyList());
+        //@formatter:on
+        this.parserConfig = ParserBuilder.<WideCommand> defaultConfiguration();
+
+        this.args = new ArrayList<>();
+        for (int r = 0; r < this.repeats; r++) {
+            for (int i = 0; i < this.options; i++) {
+                this.args.add("--option" + i);
+                this.args.add("value" + r);
+            }
+        }
+    }
+
+    @Benchmark
+    public WideCommand bind() {
+        return this.parser.parse(this.parserConfig, this.command, Collections.<GlobalRestriction> emptyList(),
+                this.args);
+    }
+}
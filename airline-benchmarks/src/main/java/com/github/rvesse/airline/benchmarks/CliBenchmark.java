@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.parser.ParseResult;
+
+/**
+ * Benchmarks parsing with CLIs of varying numbers of commands, argument vectors
+ * of varying sizes and each of the built-in error handlers
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CliBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int commands;
+
+    @Param({ "1", "100", "10000", "100000" })
+    public int tokens;
+
+    @Param({ "FailFast", "FailAll", "CollectAll" })
+    public String errorHandler;
+
+    private Cli<BenchmarkCommand> cli;
+    private String[] args;
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        this.cli = new Cli<>(SyntheticCli.create(this.commands, new ParserBuilder<BenchmarkCommand>()
+                .withErrorHandler(SingleCommandBenchmark.errorHandler(this.errorHandler)).build()));
+        // Use the last command so the command lookup is not trivially cheap
+        this.args = SyntheticCli.withCommand(SyntheticCli.commandName(this.commands - 1),
+                SyntheticCli.arguments(this.tokens));
+    }
+
+    @Benchmark
+    public BenchmarkCommand parse() {
+        return this.cli.parse(this.args);
+    }
+
+    @Benchmark
+    public ParseResult<BenchmarkCommand> parseWithResult() {
+        return this.cli.parseWithResult(this.args);
+    }
+}
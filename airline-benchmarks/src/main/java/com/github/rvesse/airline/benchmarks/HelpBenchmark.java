@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.help.cli.CliGlobalUsageGenerator;
+import com.github.rvesse.airline.help.man.ManGlobalUsageGenerator;
+import com.github.rvesse.airline.model.GlobalMetadata;
+
+/**
+ * Benchmarks rendering global help for CLIs of varying numbers of commands
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HelpBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int commands;
+
+    private GlobalMetadata<BenchmarkCommand> global;
+    private final CliGlobalUsageGenerator<BenchmarkCommand> cli = new CliGlobalUsageGenerator<>();
+    private final ManGlobalUsageGenerator<BenchmarkCommand> man = new ManGlobalUsageGenerator<>();
+
+    @Setup
+    public void setup() {
+        this.global = SyntheticCli.create(this.commands, ParserBuilder.<BenchmarkCommand> defaultConfiguration());
+    }
+
+    @Benchmark
+    public byte[] cliGlobalUsage() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.cli.usage(this.global, output);
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] manGlobalUsage() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        this.man.usage(this.global, output);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.SingleCommand;
+
+/**
+ * Benchmarks restriction validation with argument vectors dominated by
+ * restricted options
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RestrictionBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int tokens;
+
+    private SingleCommand<BenchmarkCommand> parser;
+    private String[] args;
+
+    @Setup
+    public void setup() {
+        this.parser = SingleCommand.singleCommand(BenchmarkCommand.class);
+
+        // Every value is subject to at least one restriction
+        List<String> args = new ArrayList<>();
+        args.add("--first");
+        while (args.size() + 6 <= this.tokens) {
+            args.add("--mode");
+            args.add("fast");
+            args.add("--name");
+            args.add("bench");
+            args.add("-n");
+            args.add("500");
+        }
+        this.args = args.toArray(new String[args.size()]);
+    }
+
+    @Benchmark
+    public BenchmarkCommand validate() {
+        return this.parser.parse(this.args);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.parser.ParseResult;
+import com.github.rvesse.airline.parser.ParserUtil;
+import com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler;
+
+/**
+ * Benchmarks parsing a single command with argument vectors of varying sizes
+ * and each of the built-in error handlers
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingleCommandBenchmark {
+
+    @Param({ "1", "100", "10000", "100000" })
+    public int tokens;
+
+    @Param({ "FailFast", "FailAll", "CollectAll" })
+    public String errorHandler;
+
+    private SingleCommand<BenchmarkCommand> parser;
+    private String[] args;
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        this.parser = SingleCommand.singleCommand(BenchmarkCommand.class,
+                new ParserBuilder<BenchmarkCommand>().withErrorHandler(errorHandler(this.errorHandler)).build());
+        this.args = SyntheticCli.arguments(this.tokens);
+    }
+
+    /**
+     * Creates one of the built-in error handlers by name
+     * 
+     * @param name
+     *            Handler name
+     * @return Error handler
+     * @throws ClassNotFoundException
+     *             Thrown if there is no such handler
+     */
+    static ParserErrorHandler errorHandler(String name) throws ClassNotFoundException {
+        return (ParserErrorHandler) ParserUtil
+                .createInstance(Class.forName("com.github.rvesse.airline.parser.errors.handlers." + name));
+    }
+
+    @Benchmark
+    public BenchmarkCommand parse() {
+        return this.parser.parse(this.args);
+    }
+
+    @Benchmark
+    public ParseResult<BenchmarkCommand> parseWithResult() {
+        return this.parser.parseWithResult(this.args);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.GlobalMetadata;
+import com.github.rvesse.airline.model.MetadataLoader;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.restrictions.GlobalRestriction;
+
+/**
+ * Helpers for building synthetic CLIs and argument vectors of a given size
+ */
+public final class SyntheticCli {
+
+    /**
+     * Name of an additional command that has a unique prefix, used for
+     * abbreviation benchmarks
+     */
+    public static final String UNIQUE_COMMAND = "zebra";
+
+    private SyntheticCli() {
+    }
+
+    /**
+     * Gets the name of the i'th synthetic command
+     * 
+     * @param i
+     *            Index
+     * @return Command name
+     */
+    public static String commandName(int i) {
+        return "command" + i;
+    }
+
+    /**
+     * Creates a CLI with the given number of commands, each is a copy of
+     * {@link BenchmarkCommand} under a different name
+     * 
+     * @param commands
+     *            Number of commands
+     * @param parserConfig
+     *            Parser configuration
+     * @return CLI meta-data
+     */
+    public static GlobalMetadata<BenchmarkCommand> create(int commands, ParserMetadata<BenchmarkCommand> parserConfig) {
+        CommandMetadata template = MetadataLoader.loadCommand(BenchmarkCommand.class);
+        List<CommandMetadata> metadata = new ArrayList<>();
+        for (int i = 0; i < commands; i++) {
+            metadata.add(copy(template, commandName(i)));
+        }
+        metadata.add(copy(template, UNIQUE_COMMAND));
+
+        //@formatter:off
+        return new GlobalMetadata<BenchmarkCommand>("bench", 
+                                                    "Synthetic CLI used for benchmarking", 
+                                                    Collections.<OptionMetadata> emptyList(), 
+                                                    null, 
+                                                    metadata, 
+                                                    Collections.<CommandGroupMetadata> emptyList(), 
+                                                    Collections.<GlobalRestriction> emptyList(), 
+                                                    parserConfig);
+        //@formatter:on
+    }
+
+    private static CommandMetadata copy(CommandMetadata template, String name) {
+        //@formatter:off
+        return new CommandMetadata(name, 
+                                   template.getDescription(), 
+                                   template.isHidden(), 
+                                   template.getGlobalOptions(),
+                                   template.getGroupOptions(), 
+                                   template.getCommandOptions(), 
+                                   template.getDefaultOption(),
+                                   template.getArguments(), 
+                                   template.getMetadataInjections(), 
+                                   template.getType(),
+                                   template.getGroupNames(), 
+                                   template.getGroups(), 
+                                   template.getHelpSections());
+        //@formatter:on
+    }
+
+    /**
+     * Creates an argument vector for {@link BenchmarkCommand} with exactly the
+     * given number of tokens
+     * <p>
+     * Vectors of ten or more tokens start with one of each of the single
+     * valued options, the remainder consists of repetitions of the
+     * {@code --tag} option followed by a single argument if needed to make up
+     * the required number of tokens.
+     * </p>
+     * 
+     * @param tokens
+     *            Number of tokens
+     * @return Argument vector
+     */
+    public static String[] arguments(int tokens) {
+        List<String> args = new ArrayList<>(tokens);
+        if (tokens >= 10) {
+            Collections.addAll(args, "--name", "bench", "-n", "42", "--size", "10k", "--level", "HIGH", "--mode",
+                    "fast");
+        }
+        for (int i = 0; args.size() + 2 <= tokens; i++) {
+            args.add("--tag");
+            args.add("tag" + i);
+        }
+        if (args.size() < tokens) {
+            args.add("argument");
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * Prefixes an argument vector with a command name
+     * 
+     * @param command
+     *            Command name
+     * @param args
+     *            Arguments
+     * @return Argument vector
+     */
+    public static String[] withCommand(String command, String[] args) {
+        String[] fullArgs = new String[args.length + 1];
+        fullArgs[0] = command;
+        System.arraycopy(args, 0, fullArgs, 1, args.length);
+        return fullArgs;
+    }
+}
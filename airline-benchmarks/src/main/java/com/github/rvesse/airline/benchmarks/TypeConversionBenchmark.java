@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.rvesse.airline.types.DefaultTypeConverter;
+import com.github.rvesse.airline.types.TypeConverter;
+import com.github.rvesse.airline.types.numerics.abbreviated.KiloAs1000;
+import com.github.rvesse.airline.types.numerics.abbreviated.KiloAs1024;
+
+/**
+ * Benchmarks type conversion through the {@link DefaultTypeConverter} and the
+ * abbreviated numeric converters
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypeConversionBenchmark {
+
+    private final TypeConverter converter = new DefaultTypeConverter();
+    private final TypeConverter kiloAs1000 = new DefaultTypeConverter(new KiloAs1000());
+    private final TypeConverter kiloAs1024 = new DefaultTypeConverter(new KiloAs1024());
+
+    @Benchmark
+    public Object convertString() {
+        return this.converter.convert("--name", String.class, "value");
+    }
+
+    @Benchmark
+    public Object convertInteger() {
+        return this.converter.convert("--number", Integer.class, "12345");
+    }
+
+    @Benchmark
+    public Object convertEnum() {
+        return this.converter.convert("--level", BenchmarkCommand.Level.class, "HIGH");
+    }
+
+    @Benchmark
+    public Object convertConstructor() {
+        // BigDecimal has no fromString() but does have a valueOf(long) which
+        // does not apply so this ends up using the string constructor
+        return this.converter.convert("--decimal", BigDecimal.class, "123.456");
+    }
+
+    @Benchmark
+    public Object convertKiloAs1000() {
+        return this.kiloAs1000.convert("--size", Long.class, "10m");
+    }
+
+    @Benchmark
+    public Object convertKiloAs1024() {
+        return this.kiloAs1024.convert("--size", Long.class, "10m");
+    }
+}
@@ -15,11 +15,17 @@
  */
 package com.github.rvesse.airline;
 
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.parser.ArgumentStream;
 import com.github.rvesse.airline.parser.ParserUtil;
 import com.github.rvesse.airline.parser.errors.ParseException;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -37,12 +43,28 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.collections4.ListUtils;
 
+/**
+ * Provides access to a field, possibly nested within other fields, of a
+ * command instance
+ * <p>
+ * When an accessor is created from fields the field path is compiled into
+ * method handles so that getting and setting values does not repeat
+ * reflective access checks on every use. Classes generated by the Airline
+ * annotation processor instead supply {@link FieldAccess} implementations
+ * that access the fields directly.
+ * </p>
+ */
 public class Accessor
 {
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class);
+
     private final String name;
     private final Class<?> javaType;
-    private final List<Field> path;
+    private final List<FieldAccess> path;
+    private volatile List<Field> fields;
+    private final MethodHandle collectionFactory;
     private boolean multiValued;
+    private final boolean streaming, primitiveArray;
 
     public Accessor(Field... path)
     {
@@ -59,22 +81,72 @@ public class Accessor
     }
     
     public Accessor(List<Field> path) {
-        if(path == null) throw new NullPointerException("path is null");
+        this(toFieldAccess(path), path);
+    }
+
+    private Accessor(List<FieldAccess> path, List<Field> fields) {
+        this(path, getItemType(nameOf(path), fields.get(fields.size() - 1)));
+        this.fields = ListUtils.unmodifiableList(fields);
+    }
+
+    /**
+     * Creates an accessor from field access that has already been resolved
+     * <p>
+     * This is intended for use by the classes generated by the Airline
+     * annotation processor which determine the item type of the field at
+     * compile time.
+     * </p>
+     * 
+     * @param path
+     *            Access for each field in the path
+     * @param javaType
+     *            Item type of the last field in the path, for collection and
+     *            iterator fields this is the type of the individual items. For
+     *            primitive array fields this is the component type if the
+     *            field is an option that accepts value sources, in which case
+     *            values are appended to the array, otherwise the array type
+     *            itself
+     */
+    public Accessor(List<FieldAccess> path, Class<?> javaType) {
+        if (path == null) throw new NullPointerException("path is null");
         if (path.size() == 0) throw new IllegalArgumentException("path is empty");
-        
-        this.path = ListUtils.unmodifiableList(path);
-        StringBuilder nameBuilder = new StringBuilder();
-        
+        if (javaType == null) throw new NullPointerException("javaType is null");
+
+        this.path = ListUtils.unmodifiableList(new ArrayList<>(path));
+        this.name = nameOf(this.path);
+        this.javaType = javaType;
+
+        Class<?> type = this.path.get(this.path.size() - 1).getType();
+        streaming = Iterator.class.equals(type) || ArgumentStream.class.equals(type);
+        // Only primitive arrays whose item type is their component type i.e.
+        // options accepting value sources are appended to, others are bound
+        // as a single value
+        primitiveArray = type.isArray() && type.getComponentType().isPrimitive()
+                && type.getComponentType().equals(javaType);
+        multiValued = streaming || primitiveArray || Collection.class.isAssignableFrom(type);
+        this.collectionFactory = multiValued && !streaming && !primitiveArray ? collectionFactoryFor(type) : null;
+    }
+
+    private static List<FieldAccess> toFieldAccess(List<Field> path) {
+        if (path == null) throw new NullPointerException("path is null");
+        if (path.size() == 0) throw new IllegalArgumentException("path is empty");
+
+        // Compile the path into method handles
+        List<FieldAccess> access = new ArrayList<>(path.size());
+        for (Field field : path) {
+            access.add(FieldAccess.forField(field));
+        }
+        return access;
+    }
+
+    private static String nameOf(List<FieldAccess> path) {
         // Build the name for the accessor
-        nameBuilder.append(this.path.get(0).getDeclaringClass().getSimpleName());
-        for (Field field : this.path) {
+        StringBuilder nameBuilder = new StringBuilder();
+        nameBuilder.append(path.get(0).getDeclaringClass().getSimpleName());
+        for (FieldAccess field : path) {
             nameBuilder.append('.').append(field.getName());
         }
-        this.name = nameBuilder.toString();
-
-        Field field = this.path.get(this.path.size() - 1);
-        multiValued = Collection.class.isAssignableFrom(field.getType());
-        javaType = getItemType(name, field.getGenericType());
+        return nameBuilder.toString();
     }
 
     public String getName()
@@ -92,61 +164,178 @@ public class Accessor
         return multiValued;
     }
 
-    public Object getValue(Object instance)
+    /**
+     * Gets whether the field is an {@link Iterator} or {@link ArgumentStream}
+     * whose values are produced lazily as they are consumed rather than being
+     * collected up front
+     * 
+     * @return True if streaming, false otherwise
+     */
+    public boolean isStreaming()
     {
-        StringBuilder pathName = new StringBuilder();
-        for (Field intermediateField : path.subList(0, path.size() - 1)) {
-            if (pathName.length() != 0) {
-                pathName.append(".");
+        return streaming;
+    }
+
+    /**
+     * Gets the path of fields that this accessor traverses
+     * <p>
+     * If the accessor was not created from fields then the fields are looked
+     * up reflectively the first time this is called.
+     * </p>
+     *
+     * @return Field path
+     */
+    public List<Field> getPath()
+    {
+        List<Field> fields = this.fields;
+        if (fields == null) {
+            fields = new ArrayList<>(path.size());
+            for (FieldAccess field : path) {
+                fields.add(field.getField());
             }
-            pathName.append(intermediateField.getName());
+            fields = ListUtils.unmodifiableList(fields);
+            this.fields = fields;
+        }
+        return fields;
+    }
 
+    /**
+     * Gets the access for each field in the path that this accessor traverses
+     *
+     * @return Field access path
+     */
+    public List<FieldAccess> getFieldAccessPath()
+    {
+        return path;
+    }
+
+    public Object getValue(Object instance)
+    {
+        for (int i = 0; i < path.size() - 1; i++) {
             try {
-                Object nextInstance = intermediateField.get(instance);
+                Object nextInstance = get(i, instance);
                 if (nextInstance == null) {
-                    nextInstance = ParserUtil.createInstance(intermediateField.getType());
-                    intermediateField.set(instance, nextInstance);
+                    nextInstance = ParserUtil.createInstance(path.get(i).getType());
+                    set(i, instance, nextInstance);
                 }
                 instance = nextInstance;
             }
             catch (Exception e) {
-                throw new ParseException(e, "Error getting value of %s", pathName);
+                throw new ParseException(e, "Error getting value of %s", getPathName(i));
             }
         }
         return instance;
     }
+
+    /**
+     * Gets the dotted name of the path up to and including the given index,
+     * only used when reporting errors
+     */
+    private String getPathName(int index)
+    {
+        StringBuilder pathName = new StringBuilder();
+        for (int i = 0; i <= index; i++) {
+            if (i > 0) {
+                pathName.append('.');
+            }
+            pathName.append(path.get(i).getName());
+        }
+        return pathName.toString();
+    }
     
     public <T extends Annotation> T getAnnotation(Class<T> annotationCls) {
-        Field lastField = path.get(path.size() - 1);
+        Field lastField = getPath().get(path.size() - 1);
         return lastField.getAnnotation(annotationCls);
     }
 
     public void addValues(Object commandInstance, Iterable<?> values)
     {
+        if (streaming) {
+            setStream(commandInstance, values);
+            return;
+        }
         if (!values.iterator().hasNext()) {
             return;
         }
+        if (primitiveArray) {
+            appendToArray(commandInstance, values);
+            return;
+        }
 
         // get the actual instance
         Object instance = getValue(commandInstance);
 
-        Field field = path.get(path.size() - 1);
-        field.setAccessible(true);
-        if (Collection.class.isAssignableFrom(field.getType())) {
-            Collection<Object> collection = getOrCreateCollectionField(name, instance, field);
+        int last = path.size() - 1;
+        if (multiValued) {
+            Collection<Object> collection = getOrCreateCollection(instance);
             CollectionUtils.addAll(collection, values);
         }
         else {
             try {
-                field.set(instance, AirlineUtils.last(values));
+                set(last, instance, AirlineUtils.last(values));
             }
             catch (Exception e) {
-                throw new ParseException(e, "Error setting %s for argument %s", field.getName(), name);
+                throw new ParseException(e, "Error setting %s for argument %s", path.get(last).getName(), name);
             }
         }
 
     }
 
+    private void setStream(Object commandInstance, Iterable<?> values)
+    {
+        // A stream is bound as-is, any other values can only be bound to a
+        // plain iterator field
+        FieldAccess field = path.get(path.size() - 1);
+        Object stream = values instanceof Iterator ? values : values.iterator();
+        if (!field.getType().isInstance(stream)) {
+            throw new ParseException("Field %s of type %s can only be bound to an argument stream", name, field.getType().getSimpleName());
+        }
+
+        Object instance = getValue(commandInstance);
+        try {
+            set(path.size() - 1, instance, stream);
+        }
+        catch (Exception e) {
+            throw new ParseException(e, "Error setting %s for argument %s", field.getName(), name);
+        }
+    }
+
+    private void appendToArray(Object commandInstance, Iterable<?> values)
+    {
+        // Values are either individual boxed values or primitive arrays read
+        // from a value source
+        Object instance = getValue(commandInstance);
+        int last = path.size() - 1;
+        Object existing = get(last, instance);
+        int length = existing != null ? Array.getLength(existing) : 0;
+        for (Object value : values) {
+            length += value != null && value.getClass().isArray() ? Array.getLength(value) : 1;
+        }
+
+        Object array = Array.newInstance(javaType, length);
+        int index = 0;
+        if (existing != null) {
+            index = Array.getLength(existing);
+            System.arraycopy(existing, 0, array, 0, index);
+        }
+        try {
+            for (Object value : values) {
+                if (value != null && value.getClass().isArray()) {
+                    int count = Array.getLength(value);
+                    System.arraycopy(value, 0, array, index, count);
+                    index += count;
+                }
+                else {
+                    Array.set(array, index++, value);
+                }
+            }
+            set(last, instance, array);
+        }
+        catch (Exception e) {
+            throw new ParseException(e, "Error setting %s for argument %s", path.get(last).getName(), name);
+        }
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -182,43 +371,41 @@ public class Accessor
     // Private reflection helper methods
     //
 
-    @SuppressWarnings({ "unchecked", "rawtypes" })
-    private static Collection<Object> newCollection(Class<?> type)
+    private Object get(int index, Object instance)
     {
-        if (Collection.class.equals(type) || List.class.equals(type)) {
-            return new ArrayList<Object>();
-        }
-        if (Set.class.equals(type)) {
-            return new HashSet<Object>();
-        }
-        if (SortedSet.class.equals(type)) {
-            return new TreeSet();
-        }
-
-        try {
-            return (Collection<Object>) type.getConstructor().newInstance();
-        }
-        catch (Exception ignored) {
-        }
+        return path.get(index).get(instance);
+    }
 
-        throw new ParseException("Parameters of Collection type '%s' are not supported. Please use List or Set instead.", type.getSimpleName());
+    private void set(int index, Object instance, Object value)
+    {
+        path.get(index).set(instance, value);
     }
 
     @SuppressWarnings("unchecked")
-    private static Collection<Object> getOrCreateCollectionField(String name, Object object, Field field)
+    private Collection<Object> getOrCreateCollection(Object object)
     {
+        FieldAccess field = path.get(path.size() - 1);
         Collection<Object> collection;
         try {
-            collection = (Collection<Object>) field.get(object);
+            collection = (Collection<Object>) get(path.size() - 1, object);
         }
         catch (Exception e) {
             throw new ParseException(e, "Error getting collection field %s for argument %s", field.getName(), name);
         }
 
         if (collection == null) {
-            collection = newCollection(field.getType());
+            if (collectionFactory == null) {
+                throw new ParseException("Parameters of Collection type '%s' are not supported. Please use List or Set instead.", field.getType().getSimpleName());
+            }
+            try {
+                Object created = collectionFactory.invokeExact();
+                collection = (Collection<Object>) created;
+            }
+            catch (Throwable e) {
+                throw new ParseException("Parameters of Collection type '%s' are not supported. Please use List or Set instead.", field.getType().getSimpleName());
+            }
             try {
-                field.set(object, collection);
+                set(path.size() - 1, object, collection);
             }
             catch (Exception e) {
                 throw new ParseException(e, "Error setting collection field %s for argument %s", field.getName(), name);
@@ -227,13 +414,55 @@ public class Accessor
         return collection;
     }
 
-    private static Class<?> getItemType(String name, Type type)
+    /**
+     * Gets a factory for creating new instances of the given collection type,
+     * {@code null} if the type is not supported
+     */
+    private static MethodHandle collectionFactoryFor(Class<?> type)
+    {
+        Class<?> implType = type;
+        if (Collection.class.equals(type) || List.class.equals(type)) {
+            implType = ArrayList.class;
+        }
+        else if (Set.class.equals(type)) {
+            implType = HashSet.class;
+        }
+        else if (SortedSet.class.equals(type)) {
+            implType = TreeSet.class;
+        }
+
+        try {
+            return MethodHandles.publicLookup().findConstructor(implType, MethodType.methodType(void.class)).asType(FACTORY_TYPE);
+        }
+        catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    private static Class<?> getItemType(String name, Field field)
     {
+        Type type = field.getGenericType();
         Class<?> rawClass = getRawType(type);
         if (rawClass == null) {
             throw new ParseException("Type of option %s be an exact type", name);
         }
 
+        if (rawClass.isArray() && rawClass.getComponentType().isPrimitive()) {
+            // Values from value sources are appended to the array
+            Option option = field.getAnnotation(Option.class);
+            if (option != null && option.valueSources()) {
+                return rawClass.getComponentType();
+            }
+        }
+
+        if (Iterator.class.equals(rawClass) || ArgumentStream.class.equals(rawClass)) {
+            Type[] types = getTypeParameters(Iterator.class, type);
+            if ((types == null) || (types.length != 1) || !(types[0] instanceof Class)) {
+                throw new ParseException("Streaming type option %s must have an exact item type", name);
+            }
+            return (Class<?>) types[0];
+        }
+
         if (!Collection.class.isAssignableFrom(rawClass)) {
             return rawClass;
         }
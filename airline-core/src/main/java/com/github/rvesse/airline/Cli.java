@@ -15,6 +15,8 @@
  */
 package com.github.rvesse.airline;
 
+import java.io.File;
+
 import org.apache.commons.collections4.ListUtils;
 
 import com.github.rvesse.airline.builder.CliBuilder;
@@ -59,6 +61,24 @@ public class Cli<C> {
         this(MetadataLoader.<C> loadGlobal(cliClass));
     }
 
+    /**
+     * Creates a new CLI from a class annotated with the
+     * {@link com.github.rvesse.airline.annotations.Cli} annotation using a
+     * meta-data snapshot file
+     * <p>
+     * See {@link MetadataLoader#loadGlobalWithSnapshot(Class, File)} for details of how the
+     * snapshot is used and maintained.
+     * </p>
+     * 
+     * @param cliClass
+     *            CLI class
+     * @param snapshotFile
+     *            Snapshot file
+     */
+    public Cli(Class<?> cliClass, File snapshotFile) {
+        this(MetadataLoader.<C> loadGlobalWithSnapshot(cliClass, snapshotFile));
+    }
+
     /**
      * Creates a new CLI
      * 
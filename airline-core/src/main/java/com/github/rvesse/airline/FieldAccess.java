@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline;
+
+import java.lang.reflect.Field;
+
+/**
+ * Provides access to a single field of a class
+ * <p>
+ * The Airline annotation processor generates subclasses that read and write
+ * the field directly so getting and setting values needs no reflection. Fields
+ * that generated code cannot access directly, e.g. private or final fields,
+ * use {@link #reflective(Class, String, Class)} which resolves the field the
+ * first time it is actually used.
+ * </p>
+ */
+public abstract class FieldAccess {
+
+    private final Class<?> declaringClass;
+    private final String name;
+    private final Class<?> type;
+    private volatile Field field;
+
+    /**
+     * Creates new field access
+     * 
+     * @param declaringClass
+     *            Class that declares the field
+     * @param name
+     *            Field name
+     * @param type
+     *            Field type
+     */
+    protected FieldAccess(Class<?> declaringClass, String name, Class<?> type) {
+        if (declaringClass == null)
+            throw new NullPointerException("declaringClass cannot be null");
+        if (name == null)
+            throw new NullPointerException("name cannot be null");
+        if (type == null)
+            throw new NullPointerException("type cannot be null");
+        this.declaringClass = declaringClass;
+        this.name = name;
+        this.type = type;
+    }
+
+    FieldAccess(Field field) {
+        this(field.getDeclaringClass(), field.getName(), field.getType());
+        this.field = field;
+    }
+
+    /**
+     * Creates access to a field via reflection, the field is made accessible
+     * immediately
+     * 
+     * @param field
+     *            Field
+     * @return Field access
+     */
+    public static FieldAccess forField(Field field) {
+        return new ReflectiveFieldAccess(field);
+    }
+
+    /**
+     * Creates access to a field via reflection, the field is only looked up
+     * and made accessible the first time that it is used
+     * 
+     * @param declaringClass
+     *            Class that declares the field
+     * @param name
+     *            Field name
+     * @param type
+     *            Field type
+     * @return Field access
+     */
+    public static FieldAccess reflective(Class<?> declaringClass, String name, Class<?> type) {
+        return new ReflectiveFieldAccess(declaringClass, name, type);
+    }
+
+    /**
+     * Gets the class that declares the field
+     * 
+     * @return Declaring class
+     */
+    public Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+
+    /**
+     * Gets the field name
+     * 
+     * @return Field name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the field type
+     * 
+     * @return Field type
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the field, this is looked up reflectively if this access was not
+     * created from a field
+     * 
+     * @return Field
+     * @throws IllegalStateException
+     *             Thrown if the declaring class has no such field, this
+     *             indicates that generated meta-data is out of date with
+     *             respect to the class
+     */
+    public Field getField() {
+        Field f = this.field;
+        if (f == null) {
+            try {
+                f = declaringClass.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(String.format(
+                        "Class %s has no field %s, generated meta-data may be out of date", declaringClass.getName(),
+                        name), e);
+            }
+            this.field = f;
+        }
+        return f;
+    }
+
+    /**
+     * Gets the value of the field
+     * 
+     * @param instance
+     *            Instance to get the value from
+     * @return Value
+     */
+    public abstract Object get(Object instance);
+
+    /**
+     * Sets the value of the field
+     * 
+     * @param instance
+     *            Instance to set the value on
+     * @param value
+     *            Value
+     */
+    public abstract void set(Object instance, Object value);
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof FieldAccess))
+            return false;
+        FieldAccess other = (FieldAccess) obj;
+        return declaringClass.equals(other.declaringClass) && name.equals(other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return declaringClass.getName().hashCode() ^ name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return declaringClass.getName() + "." + name;
+    }
+}
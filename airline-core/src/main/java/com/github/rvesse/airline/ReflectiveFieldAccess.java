@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Field access that compiles the field into method handles so that getting
+ * and setting values does not repeat reflective access checks on every use
+ */
+final class ReflectiveFieldAccess extends FieldAccess {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private volatile MethodHandle getter, setter;
+    private volatile boolean resolved;
+
+    ReflectiveFieldAccess(Field field) {
+        super(field);
+        resolve();
+    }
+
+    ReflectiveFieldAccess(Class<?> declaringClass, String name, Class<?> type) {
+        super(declaringClass, name, type);
+    }
+
+    private void resolve() {
+        if (resolved)
+            return;
+        Field field = getField();
+        field.setAccessible(true);
+        try {
+            this.getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Field %s is not accessible", field), e);
+        }
+        try {
+            this.setter = MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            // Final fields may not be able to provide a setter handle, fall
+            // back to reflective access if they are ever set
+            this.setter = null;
+        }
+        this.resolved = true;
+    }
+
+    @Override
+    public Object get(Object instance) {
+        resolve();
+        try {
+            return getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // Field getters cannot throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void set(Object instance, Object value) {
+        resolve();
+        if (setter == null) {
+            // No setter handle available e.g. final field
+            try {
+                getField().set(instance, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            return;
+        }
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            // Field setters cannot throw checked exceptions
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -81,6 +81,14 @@ public @interface Cli {
      */
     Class<?>[]commands() default {};
 
+    /**
+     * Defines top-level commands for the CLI whose classes are only loaded if
+     * the command is actually used
+     * 
+     * @return Lazily loaded top-level commands
+     */
+    LazyCommand[]lazyCommands() default {};
+
     /**
      * Defines the classes that provide global restrictions for the CLI
      * 
@@ -65,6 +65,12 @@ public @interface Group {
      */
     Class<?>[] commands() default {};
 
+    /**
+     * commands to add to the group whose classes are only loaded if the command
+     * is actually used (optional)
+     */
+    LazyCommand[] lazyCommands() default {};
+
     /**
      * Whether the group should be hidden
      */
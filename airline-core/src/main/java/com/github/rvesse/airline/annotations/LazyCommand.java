@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.annotations;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies a command by name and class name so that the command class is only
+ * loaded if the command is actually used
+ * <p>
+ * This annotation is used as arguments to the {@link Cli} and {@link Group}
+ * annotations, see
+ * {@link com.github.rvesse.airline.model.LazyCommandMetadata} for the
+ * limitations of lazily loaded commands.
+ * </p>
+ */
+@Target({})
+@Retention(RUNTIME)
+@Documented
+public @interface LazyCommand {
+
+    /**
+     * Name of the command, this must match the name declared by the
+     * {@link Command} annotation on the command class
+     * 
+     * @return Name
+     */
+    String name();
+
+    /**
+     * Fully qualified name of the command class
+     * 
+     * @return Class name
+     */
+    String className();
+}
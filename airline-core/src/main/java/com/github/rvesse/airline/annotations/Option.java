@@ -93,6 +93,28 @@ public @interface Option {
      */
     boolean sealed() default false;
 
+    /**
+     * If true a value of {@code -} reads the values for this option from
+     * standard input and a value of {@code @path} reads them from the given
+     * file. Values in a source are separated by whitespace and/or commas and
+     * are converted directly into the field which must be of type
+     * {@code int[]}, {@code long[]} or {@code double[]}.
+     * <p>
+     * Values read from a source are not subject to the per-value restrictions
+     * of the option.
+     * </p>
+     * <p>
+     * If the parser has arguments files enabled with the same {@code @} prefix
+     * then arguments files take precedence, {@code @path} is expanded into the
+     * arguments in the file before the option sees it. In that case
+     * {@code @@path} must be used to read values from a file, see
+     * {@link com.github.rvesse.airline.parser.ValueSources}.
+     * </p>
+     * 
+     * @return True if value sources are allowed, false otherwise
+     */
+    boolean valueSources() default false;
+
     /**
      * Sets an alternative type converter provider for the option. This allows
      * the type converter for an option to be customised appropriately. By
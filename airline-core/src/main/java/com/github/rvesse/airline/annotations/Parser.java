@@ -224,4 +224,19 @@ public @interface Parser {
      * @return Flag negation prefix
      */
     String flagNegationPrefix() default "";
+
+    /**
+     * Sets the arguments file prefix
+     * <p>
+     * If set then any token that starts with this prefix is treated as a
+     * reference to an arguments file and is replaced by the arguments read
+     * from that file. For example if the prefix is set to {@code @} and the
+     * user specifies {@code @args.txt} then the arguments in the file
+     * {@code args.txt} are used in place of that token. The default is empty
+     * which disables arguments files.
+     * </p>
+     * 
+     * @return Arguments file prefix
+     */
+    String argumentsFilePrefix() default "";
 }
@@ -63,4 +63,20 @@ public @interface Path {
      * @return Expected file kind
      */
     public PathKind kind() default PathKind.ANY;
+
+    /**
+     * Gets/Sets whether arguments should be validated as a batch once all
+     * arguments have been parsed, large batches are validated concurrently
+     * across the available processors
+     * <p>
+     * This only applies when the annotation is used on arguments, option
+     * values are always validated as they are parsed. When enabled the raw
+     * argument values are collected as they are parsed and every invalid path
+     * in the batch is reported to the parsers error handler.
+     * </p>
+     * 
+     * @return True if arguments are validated as a batch, false if they are
+     *         validated individually as they are parsed
+     */
+    public boolean concurrent() default false;
 }
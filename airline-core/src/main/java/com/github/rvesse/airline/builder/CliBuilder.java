@@ -16,11 +16,14 @@
 package com.github.rvesse.airline.builder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.collections4.ListUtils;
@@ -47,9 +50,11 @@ public class CliBuilder<C> extends AbstractBuilder<Cli<C>> {
     protected String optionSeparators;
     protected Class<? extends C> defaultCommand;
     protected final List<Class<? extends C>> defaultCommandGroupCommands = new ArrayList<>();
+    protected final Map<String, String> defaultCommandGroupLazyCommands = new LinkedHashMap<>();
     protected final Map<String, GroupBuilder<C>> groups = new HashMap<>();
     protected final List<GlobalRestriction> restrictions = new ArrayList<>();
     protected final ParserBuilder<C> parserBuilder = new ParserBuilder<C>();
+    protected ForkJoinPool pool;
 
     public CliBuilder(String name) {
         checkNotBlank(name, "Program name");
@@ -72,6 +77,28 @@ public class CliBuilder<C> extends AbstractBuilder<Cli<C>> {
         return this;
     }
 
+    /**
+     * Adds a command whose class is only loaded if the command is actually
+     * used
+     * <p>
+     * See {@link com.github.rvesse.airline.model.LazyCommandMetadata} for the
+     * limitations of lazily loaded commands.
+     * </p>
+     * 
+     * @param name
+     *            Command name, must match the name declared by the command
+     *            class
+     * @param className
+     *            Command class name
+     * @return Builder
+     */
+    public CliBuilder<C> withCommand(String name, String className) {
+        checkNotBlank(name, "Command name");
+        checkNotBlank(className, "Command class name");
+        this.defaultCommandGroupLazyCommands.put(name, className);
+        return this;
+    }
+
     @SuppressWarnings("unchecked")
     public CliBuilder<C> withCommands(Class<? extends C> command, Class<? extends C>... moreCommands) {
         this.defaultCommandGroupCommands.add(command);
@@ -136,20 +163,57 @@ public class CliBuilder<C> extends AbstractBuilder<Cli<C>> {
         return withDefaultRestrictions();
     }
 
+    /**
+     * Sets the pool used to load command meta-data concurrently when the CLI
+     * is built
+     * <p>
+     * By default commands are loaded sequentially, for CLIs with many commands
+     * loading them in parallel may significantly reduce the time taken to
+     * build the CLI. The resulting meta-data is identical regardless.
+     * </p>
+     * 
+     * @param pool
+     *            Fork join pool, if {@code null} commands are loaded
+     *            sequentially
+     * @return Builder
+     */
+    public CliBuilder<C> withParallelLoading(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
     public ParserBuilder<C> withParser() {
         return parserBuilder;
     }
 
     @Override
     public Cli<C> build() {
+        // Load all commands up front if loading concurrently
+        Map<Class<?>, CommandMetadata> preloaded = Collections.emptyMap();
+        if (pool != null) {
+            List<Class<?>> commandTypes = new ArrayList<Class<?>>();
+            if (defaultCommand != null)
+                commandTypes.add(defaultCommand);
+            commandTypes.addAll(defaultCommandGroupCommands);
+            for (GroupBuilder<C> groupBuilder : groups.values()) {
+                groupBuilder.collectCommandTypes(commandTypes);
+            }
+            preloaded = MetadataLoader.loadCommandsByType(commandTypes, pool);
+        }
+
         CommandMetadata defaultCommandMetadata = null;
         List<CommandMetadata> allCommands = new ArrayList<CommandMetadata>();
         if (defaultCommand != null) {
-            defaultCommandMetadata = MetadataLoader.loadCommand(defaultCommand);
+            defaultCommandMetadata = GroupBuilder.loadCommand(defaultCommand, preloaded);
         }
 
-        List<CommandMetadata> defaultCommandGroup = defaultCommandGroupCommands != null ? MetadataLoader
-                .loadCommands(defaultCommandGroupCommands) : new ArrayList<CommandMetadata>();
+        List<CommandMetadata> defaultCommandGroup = new ArrayList<CommandMetadata>();
+        for (Class<? extends C> command : defaultCommandGroupCommands) {
+            defaultCommandGroup.add(GroupBuilder.loadCommand(command, preloaded));
+        }
+        for (Map.Entry<String, String> lazyCommand : defaultCommandGroupLazyCommands.entrySet()) {
+            defaultCommandGroup.add(MetadataLoader.loadLazyCommand(lazyCommand.getKey(), lazyCommand.getValue(), null));
+        }
 
         allCommands.addAll(defaultCommandGroup);
         if (defaultCommandMetadata != null)
@@ -160,7 +224,7 @@ public class CliBuilder<C> extends AbstractBuilder<Cli<C>> {
         if (groups != null) {
             commandGroups = new ArrayList<CommandGroupMetadata>();
             for (GroupBuilder<C> groupBuilder : groups.values()) {
-                commandGroups.add(groupBuilder.build());
+                commandGroups.add(groupBuilder.build(preloaded));
             }
         } else {
             commandGroups = new ArrayList<>();
@@ -189,7 +253,7 @@ public class CliBuilder<C> extends AbstractBuilder<Cli<C>> {
         // annotations
         // rather than change the entire way metadata is loaded, I figured just
         // post-processing was an easier, yet uglier, way to go
-        MetadataLoader.loadCommandsIntoGroupsByAnnotation(allCommands, commandGroups, defaultCommandGroup);
+        MetadataLoader.loadCommandsIntoGroupsByAnnotation(allCommands, commandGroups, defaultCommandGroup, preloaded);
 
         // Build restrictions
         // Use defaults if none specified
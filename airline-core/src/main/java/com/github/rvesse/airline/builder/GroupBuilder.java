@@ -16,7 +16,10 @@
 package com.github.rvesse.airline.builder;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +40,7 @@ public class GroupBuilder<C> extends AbstractBuilder<CommandGroupMetadata> {
     protected final Map<String, GroupBuilder<C>> subGroups = new HashMap<>();
 
     private final List<Class<? extends C>> commands = new ArrayList<>();
+    private final Map<String, String> lazyCommands = new LinkedHashMap<>();
 
     GroupBuilder(String name) {
         if (StringUtils.isBlank(name))
@@ -104,6 +108,28 @@ public class GroupBuilder<C> extends AbstractBuilder<CommandGroupMetadata> {
         return this;
     }
 
+    /**
+     * Adds a command whose class is only loaded if the command is actually
+     * used
+     * <p>
+     * See {@link com.github.rvesse.airline.model.LazyCommandMetadata} for the
+     * limitations of lazily loaded commands.
+     * </p>
+     * 
+     * @param name
+     *            Command name, must match the name declared by the command
+     *            class
+     * @param className
+     *            Command class name
+     * @return Builder
+     */
+    public GroupBuilder<C> withCommand(String name, String className) {
+        checkNotBlank(name, "Command name");
+        checkNotBlank(className, "Command class name");
+        lazyCommands.put(name, className);
+        return this;
+    }
+
     @SuppressWarnings("unchecked")
     public GroupBuilder<C> withCommands(Class<? extends C> command, Class<? extends C>... moreCommands) {
         this.commands.add(command);
@@ -118,11 +144,44 @@ public class GroupBuilder<C> extends AbstractBuilder<CommandGroupMetadata> {
 
     @Override
     public CommandGroupMetadata build() {
-        CommandMetadata groupDefault = MetadataLoader.loadCommand(defaultCommand);
-        List<CommandMetadata> groupCommands = MetadataLoader.loadCommands(commands);
+        return build(Collections.<Class<?>, CommandMetadata> emptyMap());
+    }
+
+    /**
+     * Collects the command classes of this group and its sub-groups
+     * 
+     * @param commandTypes
+     *            Collection to add the command classes to
+     */
+    void collectCommandTypes(Collection<Class<?>> commandTypes) {
+        if (defaultCommand != null)
+            commandTypes.add(defaultCommand);
+        commandTypes.addAll(commands);
+        for (GroupBuilder<C> builder : this.subGroups.values()) {
+            builder.collectCommandTypes(commandTypes);
+        }
+    }
+
+    /**
+     * Builds the group using previously loaded command meta-data where
+     * available
+     * 
+     * @param preloaded
+     *            Previously loaded command meta-data
+     * @return Group meta-data
+     */
+    CommandGroupMetadata build(Map<Class<?>, CommandMetadata> preloaded) {
+        CommandMetadata groupDefault = loadCommand(defaultCommand, preloaded);
+        List<CommandMetadata> groupCommands = new ArrayList<CommandMetadata>();
+        for (Class<? extends C> command : commands) {
+            groupCommands.add(loadCommand(command, preloaded));
+        }
+        for (Map.Entry<String, String> lazyCommand : lazyCommands.entrySet()) {
+            groupCommands.add(MetadataLoader.loadLazyCommand(lazyCommand.getKey(), lazyCommand.getValue(), null));
+        }
         List<CommandGroupMetadata> subGroups = new ArrayList<CommandGroupMetadata>();
         for (GroupBuilder<C> builder : this.subGroups.values()) {
-            subGroups.add(builder.build());
+            subGroups.add(builder.build(preloaded));
         }
 
         CommandGroupMetadata group = MetadataLoader.loadCommandGroup(name, description, hidden, subGroups,
@@ -132,4 +191,9 @@ public class GroupBuilder<C> extends AbstractBuilder<CommandGroupMetadata> {
         }
         return group;
     }
+
+    static CommandMetadata loadCommand(Class<?> commandType, Map<Class<?>, CommandMetadata> preloaded) {
+        CommandMetadata command = preloaded.get(commandType);
+        return command != null ? command : MetadataLoader.loadCommand(commandType);
+    }
 }
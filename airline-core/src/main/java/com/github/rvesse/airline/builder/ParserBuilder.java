@@ -20,10 +20,12 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import com.github.rvesse.airline.CommandFactory;
 import com.github.rvesse.airline.DefaultCommandFactory;
 import com.github.rvesse.airline.model.AliasMetadata;
 import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.parser.ArgumentsFileIterator;
 import com.github.rvesse.airline.parser.aliases.UserAliasesSource;
 import com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler;
 import com.github.rvesse.airline.parser.options.ClassicGetOptParser;
@@ -49,9 +51,10 @@ public class ParserBuilder<C> extends AbstractBuilder<ParserMetadata<C>> {
     protected CommandFactory<C> commandFactory = new DefaultCommandFactory<C>();
     protected boolean allowAbbreviatedCommands, allowAbbreviatedOptions, aliasesOverrideBuiltIns, aliasesMayChain;
     protected final List<OptionParser<C>> optionParsers = new ArrayList<>();
-    protected String argsSeparator, flagNegationPrefix;
+    protected String argsSeparator, flagNegationPrefix, argumentsFilePrefix;
     protected UserAliasesSource<C> userAliases;
     protected ParserErrorHandler errorHandler;
+    protected Executor validationExecutor;
 
     public static <T> ParserMetadata<T> defaultConfiguration() {
         return new ParserBuilder<T>().build();
@@ -192,6 +195,27 @@ public class ParserBuilder<C> extends AbstractBuilder<ParserMetadata<C>> {
         return this;
     }
 
+    /**
+     * Reads in user aliases from the given source
+     * <p>
+     * This allows a custom source to be used e.g. a
+     * {@link com.github.rvesse.airline.parser.aliases.CachingUserAliasesSource}
+     * which only re-reads the configuration files when they change. See
+     * {@link #withUserAliases(String, String, String...)} for details of the
+     * configuration format.
+     * </p>
+     * 
+     * @param source
+     *            User aliases source
+     * @return Builder
+     */
+    public ParserBuilder<C> withUserAliases(UserAliasesSource<C> source) {
+        if (source == null)
+            throw new NullPointerException("source cannot be null");
+        this.userAliases = source;
+        return this;
+    }
+
     public ParserBuilder<C> withAliasesOverridingBuiltIns() {
         this.aliasesOverrideBuiltIns = true;
         return this;
@@ -367,6 +391,69 @@ public class ParserBuilder<C> extends AbstractBuilder<ParserMetadata<C>> {
         return this;
     }
 
+    /**
+     * Enables arguments files using the default prefix of {@code @} i.e. a
+     * token such as {@code @args.txt} will be replaced by the arguments read
+     * from the file {@code args.txt}
+     * 
+     * @return Builder
+     */
+    public ParserBuilder<C> withArgumentsFiles() {
+        return this.withArgumentsFilePrefix(ArgumentsFileIterator.DEFAULT_PREFIX);
+    }
+
+    /**
+     * Sets the arguments file prefix, tokens starting with this prefix are
+     * treated as references to files whose contents are expanded into
+     * arguments in place of the token. Setting this to {@code null} or an
+     * empty string disables arguments files which is the default.
+     * <p>
+     * This is useful when a command may need to be invoked with more arguments
+     * than the operating system permits on a command line. See
+     * {@link ArgumentsFileIterator} for details of the format of arguments
+     * files.
+     * </p>
+     * <p>
+     * Arguments files are expanded before any other processing of the tokens
+     * so they take precedence over options that allow value sources, see
+     * {@link com.github.rvesse.airline.parser.ValueSources}, which use the
+     * same default {@code @} prefix.
+     * </p>
+     * 
+     * @param prefix
+     *            Arguments file prefix
+     * @return Builder
+     */
+    public ParserBuilder<C> withArgumentsFilePrefix(String prefix) {
+        this.argumentsFilePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Sets the executor to which asynchronous restriction validations are
+     * submitted as values are parsed, setting this to {@code null} runs them
+     * immediately which is the default
+     * <p>
+     * This allows restrictions that implement
+     * {@link com.github.rvesse.airline.restrictions.AsyncOptionRestriction} or
+     * {@link com.github.rvesse.airline.restrictions.AsyncArgumentsRestriction}
+     * to carry out expensive validations while parsing continues, all
+     * outstanding validations are completed before final validation and any
+     * failures are passed to the error handler in the order in which the
+     * validations were submitted. If a parse is abandoned before then, e.g.
+     * because the error handler fails fast, any validations that have not yet
+     * completed are cancelled.
+     * </p>
+     * 
+     * @param executor
+     *            Validation executor
+     * @return Builder
+     */
+    public ParserBuilder<C> withValidationExecutor(Executor executor) {
+        this.validationExecutor = executor;
+        return this;
+    }
+
     @Override
     public ParserMetadata<C> build() {
         // Ensure we have some option parsers if none configured
@@ -405,6 +492,6 @@ public class ParserBuilder<C> extends AbstractBuilder<ParserMetadata<C>> {
 
         return new ParserMetadata<C>(commandFactory, optionParsers, typeConverter, errorHandler,
                 allowAbbreviatedCommands, allowAbbreviatedOptions, aliasData, userAliases, aliasesOverrideBuiltIns,
-                aliasesMayChain, argsSeparator, flagNegationPrefix);
+                aliasesMayChain, argsSeparator, flagNegationPrefix, argumentsFilePrefix, validationExecutor);
     }
 }
\ No newline at end of file
@@ -17,9 +17,6 @@ package com.github.rvesse.airline.help;
 
 import javax.inject.Inject;
 
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.Predicate;
-
 import com.github.rvesse.airline.annotations.Arguments;
 import com.github.rvesse.airline.annotations.Command;
 import com.github.rvesse.airline.annotations.Option;
@@ -30,10 +27,6 @@ import com.github.rvesse.airline.help.cli.CliGlobalUsageSummaryGenerator;
 import com.github.rvesse.airline.model.CommandGroupMetadata;
 import com.github.rvesse.airline.model.CommandMetadata;
 import com.github.rvesse.airline.model.GlobalMetadata;
-import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedCommandFinder;
-import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedGroupFinder;
-import com.github.rvesse.airline.utils.predicates.parser.CommandFinder;
-import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -189,18 +182,11 @@ public class Help<T> implements Runnable, Callable<Void> {
             return;
         }
 
-        // Predicates we may need
-        Predicate<CommandGroupMetadata> findGroupPredicate;
-        Predicate<CommandMetadata> findCommandPredicate;
-        //@formatter:off
-        findGroupPredicate = global.getParserConfiguration().allowsAbbreviatedCommands() 
-                             ? new AbbreviatedGroupFinder(name, global.getCommandGroups()) 
-                             : new GroupFinder(name);
-        //@formatter:on
+        boolean allowAbbreviation = global.getParserConfiguration().allowsAbbreviatedCommands();
 
         // A command in a group?
         CommandMetadata command;
-        CommandGroupMetadata group = CollectionUtils.find(global.getCommandGroups(), findGroupPredicate);
+        CommandGroupMetadata group = global.getCommandGroupsTrie().find(name, allowAbbreviation);
         if (group != null) {
             List<CommandGroupMetadata> groupPath = new ArrayList<CommandGroupMetadata>();
             groupPath.add(group);
@@ -219,12 +205,8 @@ public class Help<T> implements Runnable, Callable<Void> {
                 while (group.getSubGroups().size() > 0 && i < commandNames.size()) {
                     commandOrSubGroupName = commandNames.get(i);
 
-                    //@formatter:off
-                    findGroupPredicate = global.getParserConfiguration().allowsAbbreviatedCommands() 
-                                         ? new AbbreviatedGroupFinder(commandOrSubGroupName, group.getSubGroups()) 
-                                         : new GroupFinder(commandOrSubGroupName);
-                    //@formatter:on
-                    CommandGroupMetadata subGroup = CollectionUtils.find(group.getSubGroups(), findGroupPredicate);
+                    CommandGroupMetadata subGroup = group.getSubGroupsTrie().find(commandOrSubGroupName,
+                            allowAbbreviation);
                     if (subGroup != null) {
                         // Found a valid sub-group
                         groupPath.add(subGroup);
@@ -245,12 +227,7 @@ public class Help<T> implements Runnable, Callable<Void> {
                 // Look for a command in the current group/sub-group
                 commandOrSubGroupName = commandNames.get(i);
 
-                //@formatter:off
-                findCommandPredicate = global.getParserConfiguration().allowsAbbreviatedCommands() 
-                                       ? new AbbreviatedCommandFinder(commandOrSubGroupName, group.getCommands())
-                                       : new CommandFinder(commandOrSubGroupName);
-                //@formatter:on
-                command = CollectionUtils.find(group.getCommands(), findCommandPredicate);
+                command = group.getCommandsTrie().find(commandOrSubGroupName, allowAbbreviation);
                 if (command != null) {
                     new CliCommandUsageGenerator().usage(global.getName(), UsageHelper.toGroupNames(groupPath),
                             command.getName(), command, global.getParserConfiguration(), out);
@@ -268,12 +245,7 @@ public class Help<T> implements Runnable, Callable<Void> {
         }
 
         // A command in the default group?
-        //@formatter:off
-        findCommandPredicate = global.getParserConfiguration().allowsAbbreviatedCommands() 
-                               ? new AbbreviatedCommandFinder(name, global.getDefaultGroupCommands())
-                               : new CommandFinder(name);
-        //@formatter:on
-        command = CollectionUtils.find(global.getDefaultGroupCommands(), findCommandPredicate);
+        command = global.getDefaultGroupCommandsTrie().find(name, allowAbbreviation);
         if (command != null) {
             // Command in default group help
             new CliCommandUsageGenerator(includeHidden).usage(global.getName(), null, command.getName(), command,
@@ -16,6 +16,7 @@
 package com.github.rvesse.airline.help.sections.factories;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -25,11 +26,17 @@ import com.github.rvesse.airline.help.sections.HelpSection;
 
 /**
  * Registry which maps annotations to help sections
+ * <p>
+ * The registry holds an immutable snapshot of the annotation to factory
+ * mappings which is replaced wholesale whenever a factory is added, therefore
+ * lookups never lock and the registry may be safely accessed by multiple
+ * threads e.g. when command meta-data is loaded concurrently.
+ * </p>
  */
 public class HelpSectionRegistry {
 
-    private static final Map<Class<? extends Annotation>, HelpSectionFactory> FACTORIES = new HashMap<>();
-    private static boolean init = false;
+    private static volatile Map<Class<? extends Annotation>, HelpSectionFactory> factories = Collections.emptyMap();
+    private static volatile boolean init = false;
 
     static {
         init();
@@ -39,34 +46,51 @@ public class HelpSectionRegistry {
         if (init)
             return;
 
+        Map<Class<? extends Annotation>, HelpSectionFactory> loaded = new HashMap<>(factories);
         ServiceLoader<HelpSectionFactory> helpSectionFactories = ServiceLoader.load(HelpSectionFactory.class);
         for (HelpSectionFactory factory : helpSectionFactories) {
             for (Class<? extends Annotation> cls : factory.supportedAnnotations()) {
-                FACTORIES.put(cls, factory);
+                loaded.put(cls, factory);
             }
         }
 
+        factories = Collections.unmodifiableMap(loaded);
         init = true;
     }
 
     public static synchronized void reset() {
         init = false;
-        FACTORIES.clear();
+        factories = Collections.emptyMap();
         init();
     }
 
-    public static void addFactory(Class<? extends Annotation> cls, HelpSectionFactory factory) {
+    /**
+     * Adds a factory, replacing the current snapshot
+     * 
+     * @param cls
+     *            Annotation class
+     * @param factory
+     *            Factory, if {@code null} any existing factory for the
+     *            annotation is removed
+     */
+    public static synchronized void addFactory(Class<? extends Annotation> cls, HelpSectionFactory factory) {
         if (cls == null)
             throw new NullPointerException("cls cannot be null");
-        FACTORIES.put(cls, factory);
+        Map<Class<? extends Annotation>, HelpSectionFactory> copy = new HashMap<>(factories);
+        if (factory == null) {
+            copy.remove(cls);
+        } else {
+            copy.put(cls, factory);
+        }
+        factories = Collections.unmodifiableMap(copy);
     }
 
     public static Set<Class<? extends Annotation>> getAnnotationClasses() {
-        return FACTORIES.keySet();
+        return factories.keySet();
     }
 
     public static HelpSection getHelpSection(Class<? extends Annotation> cls, Annotation annotation) {
-        HelpSectionFactory factory = FACTORIES.get(cls);
+        HelpSectionFactory factory = factories.get(cls);
         if (factory != null)
             return factory.createSection(annotation);
         return null;
@@ -25,12 +25,35 @@ public class AliasMetadata {
 
     private final String name;
     private final List<String> arguments;
+    private final int[] positions;
+    private final int maxPosition;
 
     public AliasMetadata(String name, List<String> arguments) {
         if (StringUtils.isBlank(name))
             throw new IllegalArgumentException("Alias name cannot be null/empty/whitespace");
         this.name = name;
         this.arguments = AirlineUtils.unmodifiableListCopy(arguments);
+
+        // Precompile the positional parameters i.e. $1, $2 etc.
+        this.positions = new int[this.arguments.size()];
+        int max = -1;
+        for (int i = 0; i < this.positions.length; i++) {
+            this.positions[i] = parsePosition(this.arguments.get(i));
+            max = Math.max(max, this.positions[i]);
+        }
+        this.maxPosition = max;
+    }
+
+    private static int parsePosition(String arg) {
+        if (arg == null || !arg.startsWith("$"))
+            return -1;
+        try {
+            int num = Integer.parseInt(arg.substring(1));
+            return num > 0 ? num - 1 : -1;
+        } catch (NumberFormatException e) {
+            // Not a valid number so an ordinary parameter
+            return -1;
+        }
     }
 
     public String getName() {
@@ -41,6 +64,30 @@ public class AliasMetadata {
         return this.arguments;
     }
 
+    /**
+     * Gets the zero based position of the remaining input referenced by the
+     * given argument if it is a positional parameter e.g. {@code $1}
+     * 
+     * @param index
+     *            Argument index
+     * @return Position, or {@code -1} if the argument is not a positional
+     *         parameter
+     */
+    public int getPosition(int index) {
+        return this.positions[index];
+    }
+
+    /**
+     * Gets the highest zero based position referenced by any of the
+     * positional parameters of this alias
+     * 
+     * @return Highest position, or {@code -1} if there are no positional
+     *         parameters
+     */
+    public int getMaxPosition() {
+        return this.maxPosition;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -47,20 +47,34 @@ public class ArgumentsMetadata {
                              Iterable<ArgumentsRestriction> restrictions, 
                              TypeConverterProvider typeConverterProvider,
                              Iterable<Field> path) {
+        this(titles, description, restrictions, typeConverterProvider, toAccessor(path));
+    }
+
+    public ArgumentsMetadata(Iterable<String> titles, 
+                             String description, 
+                             Iterable<ArgumentsRestriction> restrictions, 
+                             TypeConverterProvider typeConverterProvider,
+                             Accessor accessor) {
     //@formatter:on
         if (titles == null)
             throw new NullPointerException("title cannot be null");
-        if (path == null)
-            throw new NullPointerException("path cannot be null");
-        if (!path.iterator().hasNext())
-            throw new IllegalArgumentException("path cannot be empty");
+        if (accessor == null)
+            throw new NullPointerException("accessor cannot be null");
 
         this.titles = ListUtils.unmodifiableList(IteratorUtils.toList(titles.iterator()));
         this.description = description;
         this.restrictions = restrictions != null ? AirlineUtils.unmodifiableListCopy(restrictions)
                 : Collections.<ArgumentsRestriction> emptyList();
         this.provider = typeConverterProvider != null ? typeConverterProvider : new DefaultTypeConverterProvider();
-        this.accessors = SetUtils.unmodifiableSet(AirlineUtils.singletonSet(new Accessor(path)));
+        this.accessors = SetUtils.unmodifiableSet(AirlineUtils.singletonSet(accessor));
+    }
+
+    private static Accessor toAccessor(Iterable<Field> path) {
+        if (path == null)
+            throw new NullPointerException("path cannot be null");
+        if (!path.iterator().hasNext())
+            throw new IllegalArgumentException("path cannot be empty");
+        return new Accessor(path);
     }
 
     public ArgumentsMetadata(Iterable<ArgumentsMetadata> arguments) {
@@ -107,6 +121,16 @@ public class ArgumentsMetadata {
         return accessors.iterator().next().isMultiValued();
     }
 
+    /**
+     * Gets whether the arguments are bound as a lazily consumed stream rather
+     * than being converted and collected while parsing
+     * 
+     * @return True if streaming, false otherwise
+     */
+    public boolean isStreaming() {
+        return accessors.iterator().next().isStreaming();
+    }
+
     public Class<?> getJavaType() {
         return accessors.iterator().next().getJavaType();
     }
@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
 /**
@@ -35,6 +36,8 @@ public class CommandGroupMetadata {
     private final List<CommandMetadata> commands;
     private final List<CommandGroupMetadata> subGroups;
     private CommandGroupMetadata parentGroup;
+    private volatile AbbreviationTrie<CommandMetadata> commandsTrie;
+    private volatile AbbreviationTrie<CommandGroupMetadata> subGroupsTrie;
 
     //@formatter:off
     public CommandGroupMetadata(String name, 
@@ -53,7 +56,7 @@ public class CommandGroupMetadata {
         this.name = name;
         this.description = description;
         this.hidden = hidden;
-        this.options = AirlineUtils.unmodifiableListCopy(options);
+        this.options = new IndexedOptions(options);
         this.subGroups = AirlineUtils.listCopy(subGroups);
         this.defaultCommand = defaultCommand;
         this.commands = AirlineUtils.listCopy(commands);
@@ -125,9 +128,25 @@ public class CommandGroupMetadata {
     public void addCommand(CommandMetadata command) {
         if (!commands.contains(command)) {
             commands.add(command);
+            commandsTrie = null;
         }
     }
 
+    /**
+     * Gets the trie used to resolve abbreviated command names for the commands
+     * in this group
+     * 
+     * @return Abbreviation trie
+     */
+    public AbbreviationTrie<CommandMetadata> getCommandsTrie() {
+        AbbreviationTrie<CommandMetadata> trie = this.commandsTrie;
+        if (trie == null) {
+            trie = AbbreviationTrie.forCommands(this.commands);
+            this.commandsTrie = trie;
+        }
+        return trie;
+    }
+
     /**
      * Gets the sub-groups of this group
      * 
@@ -146,7 +165,23 @@ public class CommandGroupMetadata {
     public void addSubGroup(CommandGroupMetadata subGroup) {
         if (!subGroups.contains(subGroup)) {
             subGroups.add(subGroup);
+            subGroupsTrie = null;
+        }
+    }
+
+    /**
+     * Gets the trie used to resolve abbreviated group names for the sub-groups
+     * of this group
+     * 
+     * @return Abbreviation trie
+     */
+    public AbbreviationTrie<CommandGroupMetadata> getSubGroupsTrie() {
+        AbbreviationTrie<CommandGroupMetadata> trie = this.subGroupsTrie;
+        if (trie == null) {
+            trie = AbbreviationTrie.forGroups(this.subGroups);
+            this.subGroupsTrie = trie;
         }
+        return trie;
     }
 
     /**
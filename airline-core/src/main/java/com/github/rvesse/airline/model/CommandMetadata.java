@@ -21,6 +21,7 @@ import com.github.rvesse.airline.help.sections.HelpSection;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.collections4.ListUtils;
@@ -33,6 +34,7 @@ public class CommandMetadata {
     private final List<OptionMetadata> globalOptions;
     private final List<OptionMetadata> groupOptions;
     private final List<OptionMetadata> commandOptions;
+    private final List<OptionMetadata> allOptions;
     private final OptionMetadata defaultOption;
     private final ArgumentsMetadata arguments;
     private final List<Accessor> metadataInjections;
@@ -64,9 +66,14 @@ public class CommandMetadata {
         this.name = name;
         this.description = description;
         this.hidden = hidden;
-        this.globalOptions = AirlineUtils.unmodifiableListCopy(globalOptions);
-        this.groupOptions = AirlineUtils.unmodifiableListCopy(groupOptions);
-        this.commandOptions = AirlineUtils.unmodifiableListCopy(commandOptions);
+        this.globalOptions = new IndexedOptions(globalOptions);
+        this.groupOptions = new IndexedOptions(groupOptions);
+        this.commandOptions = new IndexedOptions(commandOptions);
+        List<OptionMetadata> allOptions = new ArrayList<OptionMetadata>();
+        allOptions.addAll(this.globalOptions);
+        allOptions.addAll(this.groupOptions);
+        allOptions.addAll(this.commandOptions);
+        this.allOptions = ListUtils.unmodifiableList(allOptions);
         this.defaultOption = defaultOption;
         this.arguments = arguments;
 
@@ -82,6 +89,39 @@ public class CommandMetadata {
         this.sections = AirlineUtils.unmodifiableListCopy(sections);
     }
 
+    /**
+     * Creates command meta-data where only the name is known up front
+     * <p>
+     * Intended for use by sub-classes which defer loading the remainder of the
+     * meta-data, such sub-classes must override all the other getters e.g.
+     * {@link LazyCommandMetadata}.
+     * </p>
+     * 
+     * @param name
+     *            Command name
+     */
+    protected CommandMetadata(String name) {
+        if (StringUtils.isEmpty(name))
+            throw new IllegalArgumentException("Command name may not be null/empty");
+        if (StringUtils.containsWhitespace(name))
+            throw new IllegalArgumentException("Command name may not contain whitespace");
+
+        this.name = name;
+        this.description = null;
+        this.hidden = false;
+        this.globalOptions = Collections.emptyList();
+        this.groupOptions = Collections.emptyList();
+        this.commandOptions = Collections.emptyList();
+        this.allOptions = Collections.emptyList();
+        this.defaultOption = null;
+        this.arguments = null;
+        this.metadataInjections = Collections.emptyList();
+        this.type = null;
+        this.groupNames = Collections.emptyList();
+        this.groups = Collections.emptyList();
+        this.sections = Collections.emptyList();
+    }
+
     public String getName() {
         return name;
     }
@@ -95,11 +135,7 @@ public class CommandMetadata {
     }
 
     public List<OptionMetadata> getAllOptions() {
-        List<OptionMetadata> allOptions = new ArrayList<OptionMetadata>();
-        allOptions.addAll(globalOptions);
-        allOptions.addAll(groupOptions);
-        allOptions.addAll(commandOptions);
-        return ListUtils.unmodifiableList(allOptions);
+        return allOptions;
     }
 
     /**
@@ -172,6 +208,15 @@ public class CommandMetadata {
         CommandMetadata cmd = (CommandMetadata) other;
         
         // TODO This should ideally be more robust
-        return StringUtils.equals(this.name, cmd.name) && this.type.equals(cmd.type);
+        return StringUtils.equals(this.getName(), cmd.getName()) && this.getType().equals(cmd.getType());
+    }
+
+    @Override
+    public int hashCode() {
+        // Uses the type name rather than the type so that lazily loaded
+        // commands can compute an equal hash code without loading their class
+        int result = this.getName() != null ? this.getName().hashCode() : 0;
+        result = 31 * result + this.getType().getName().hashCode();
+        return result;
     }
 }
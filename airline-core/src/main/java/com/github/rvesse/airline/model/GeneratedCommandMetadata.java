@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+/**
+ * Interface implemented by the classes the Airline annotation processor
+ * generates for each {@link com.github.rvesse.airline.annotations.Command}
+ * annotated class
+ * <p>
+ * Generated classes construct the command meta-data directly from information
+ * captured at compile time rather than reflectively scanning every field of the
+ * command class hierarchy. Generated classes are named by appending
+ * {@link #CLASS_NAME_SUFFIX} to the binary name of the command class and are
+ * registered as providers of this interface in
+ * {@code META-INF/services/com.github.rvesse.airline.model.GeneratedCommandMetadata}.
+ * </p>
+ * <p>
+ * {@link MetadataLoader#loadCommand(Class)} discovers the registered providers
+ * via the {@link java.util.ServiceLoader} once per class loader and will
+ * automatically use the generated class for a command if one is registered.
+ * </p>
+ */
+public interface GeneratedCommandMetadata {
+
+    /**
+     * Suffix appended to the binary name of a command class to give the name
+     * of its generated meta-data class
+     */
+    public static final String CLASS_NAME_SUFFIX = "_AirlineMetadata";
+
+    /**
+     * Gets the command class whose meta-data this class generates
+     * 
+     * @return Command class
+     */
+    public abstract Class<?> getCommandType();
+
+    /**
+     * Loads the command meta-data
+     * 
+     * @return Command meta-data
+     */
+    public abstract CommandMetadata load();
+}
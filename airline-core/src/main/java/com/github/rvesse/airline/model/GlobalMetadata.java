@@ -21,6 +21,7 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.github.rvesse.airline.builder.ParserBuilder;
 import com.github.rvesse.airline.restrictions.GlobalRestriction;
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
 /**
@@ -36,6 +37,8 @@ public class GlobalMetadata<T> {
     private final List<CommandGroupMetadata> commandGroups;
     private final ParserMetadata<T> parserConfig;
     private final List<GlobalRestriction> restrictions;
+    private volatile AbbreviationTrie<CommandMetadata> defaultGroupCommandsTrie;
+    private volatile AbbreviationTrie<CommandGroupMetadata> commandGroupsTrie;
 
     public GlobalMetadata(String name, String description, Iterable<OptionMetadata> options,
             CommandMetadata defaultCommand, Iterable<CommandMetadata> defaultGroupCommands,
@@ -48,7 +51,7 @@ public class GlobalMetadata<T> {
 
         this.name = name;
         this.description = description;
-        this.options = AirlineUtils.unmodifiableListCopy(options);
+        this.options = new IndexedOptions(options);
         this.defaultCommand = defaultCommand;
         this.defaultGroupCommands = AirlineUtils.unmodifiableListCopy(defaultGroupCommands);
         this.commandGroups = AirlineUtils.unmodifiableListCopy(commandGroups);
@@ -79,6 +82,36 @@ public class GlobalMetadata<T> {
     public List<CommandGroupMetadata> getCommandGroups() {
         return commandGroups;
     }
+
+    /**
+     * Gets the trie used to resolve abbreviated command names for commands in
+     * the default group
+     * 
+     * @return Abbreviation trie
+     */
+    public AbbreviationTrie<CommandMetadata> getDefaultGroupCommandsTrie() {
+        AbbreviationTrie<CommandMetadata> trie = this.defaultGroupCommandsTrie;
+        if (trie == null) {
+            trie = AbbreviationTrie.forCommands(this.defaultGroupCommands);
+            this.defaultGroupCommandsTrie = trie;
+        }
+        return trie;
+    }
+
+    /**
+     * Gets the trie used to resolve abbreviated group names for the top level
+     * groups
+     * 
+     * @return Abbreviation trie
+     */
+    public AbbreviationTrie<CommandGroupMetadata> getCommandGroupsTrie() {
+        AbbreviationTrie<CommandGroupMetadata> trie = this.commandGroupsTrie;
+        if (trie == null) {
+            trie = AbbreviationTrie.forGroups(this.commandGroups);
+            this.commandGroupsTrie = trie;
+        }
+        return trie;
+    }
     
     public List<GlobalRestriction> getRestrictions() {
         return restrictions;
@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import com.github.rvesse.airline.utils.AbbreviationTrie;
+
+/**
+ * An immutable list of options which is indexed by option name
+ * <p>
+ * The meta-data classes use this to hold their option sets so that option
+ * parsers can resolve an option name in constant time rather than scanning all
+ * the options, see
+ * {@link com.github.rvesse.airline.parser.options.AbstractOptionParser}.
+ * Single character short options e.g. {@code -a} are additionally held in a
+ * table indexed directly by character.
+ * </p>
+ */
+public final class IndexedOptions extends AbstractList<OptionMetadata> implements RandomAccess {
+
+    private static final int SHORT_NAMES_TABLE_SIZE = 128;
+
+    private final OptionMetadata[] options;
+    private final Map<String, OptionMetadata> names = new HashMap<>();
+    private final OptionMetadata[] shortNames = new OptionMetadata[SHORT_NAMES_TABLE_SIZE];
+    private volatile AbbreviationTrie<OptionMetadata> abbreviations;
+
+    /**
+     * Creates a new indexed options list
+     * 
+     * @param options
+     *            Options
+     */
+    public IndexedOptions(Iterable<OptionMetadata> options) {
+        List<OptionMetadata> copy = new ArrayList<>();
+        if (options != null) {
+            for (OptionMetadata option : options) {
+                copy.add(option);
+            }
+        }
+        this.options = copy.toArray(new OptionMetadata[copy.size()]);
+
+        for (OptionMetadata option : this.options) {
+            if (option == null)
+                continue;
+            for (String name : option.getOptions()) {
+                // Where names are duplicated the first option wins, this is
+                // consistent with how a linear scan behaves
+                if (this.names.containsKey(name))
+                    continue;
+                this.names.put(name, option);
+                if (name.length() == 2 && name.charAt(0) == '-' && name.charAt(1) < SHORT_NAMES_TABLE_SIZE) {
+                    this.shortNames[name.charAt(1)] = option;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the option with the given name
+     * 
+     * @param name
+     *            Name
+     * @return Option or {@code null} if no option has the given name
+     */
+    public OptionMetadata find(String name) {
+        return this.names.get(name);
+    }
+
+    /**
+     * Finds the option with the given single character short name i.e. the
+     * option whose name is {@code -} followed by the given character
+     * 
+     * @param shortName
+     *            Short name character
+     * @return Option or {@code null} if no option has the given name
+     */
+    public OptionMetadata find(char shortName) {
+        if (shortName < SHORT_NAMES_TABLE_SIZE)
+            return this.shortNames[shortName];
+        return this.names.get("-" + shortName);
+    }
+
+    /**
+     * Gets the trie used to resolve abbreviated option names, this is built
+     * on first use since abbreviated options are not enabled by default
+     * 
+     * @return Abbreviation trie
+     */
+    public AbbreviationTrie<OptionMetadata> getAbbreviationTrie() {
+        AbbreviationTrie<OptionMetadata> trie = this.abbreviations;
+        if (trie == null) {
+            trie = AbbreviationTrie.forOptions(this);
+            this.abbreviations = trie;
+        }
+        return trie;
+    }
+
+    @Override
+    public OptionMetadata get(int index) {
+        return this.options[index];
+    }
+
+    @Override
+    public int size() {
+        return this.options.length;
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.github.rvesse.airline.Accessor;
+import com.github.rvesse.airline.annotations.Group;
+import com.github.rvesse.airline.help.sections.HelpSection;
+
+/**
+ * Command meta-data for a command registered by name and class name whose
+ * class and remaining meta-data are only loaded when first needed
+ * <p>
+ * The name is available immediately so parsers can resolve the command without
+ * loading it, every other getter causes the command class to be loaded via
+ * {@link MetadataLoader#loadCommand(Class)}. This means that the cost of
+ * loading a CLI with many commands scales with the commands actually used
+ * rather than the number of commands registered.
+ * </p>
+ * <p>
+ * Since global and group options are gathered from the commands when the
+ * global and group meta-data is created only commands that have been loaded
+ * contribute them. Global and group options declared by lazy commands are
+ * therefore only recognised if they are also declared by some command that is
+ * loaded up front. Similarly {@link Group} annotations on a lazy command class
+ * are not used, lazy commands must be explicitly placed into their groups.
+ * </p>
+ */
+public class LazyCommandMetadata extends CommandMetadata {
+
+    private final String className;
+    private final ClassLoader classLoader;
+    private volatile CommandMetadata loaded;
+
+    /**
+     * Creates new lazy command meta-data
+     * 
+     * @param name
+     *            Command name, this must match the name declared by the
+     *            command class
+     * @param className
+     *            Command class name
+     * @param classLoader
+     *            Class loader to load the command class from, if {@code null}
+     *            the thread context class loader at the time of creation is
+     *            used
+     */
+    public LazyCommandMetadata(String name, String className, ClassLoader classLoader) {
+        super(name);
+        if (StringUtils.isBlank(className))
+            throw new IllegalArgumentException("Command class name may not be null/empty/whitespace");
+        this.className = className;
+        if (classLoader == null)
+            classLoader = Thread.currentThread().getContextClassLoader();
+        this.classLoader = classLoader != null ? classLoader : LazyCommandMetadata.class.getClassLoader();
+    }
+
+    /**
+     * Gets the name of the command class
+     * 
+     * @return Class name
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Gets whether the command has been loaded
+     * 
+     * @return True if loaded, false otherwise
+     */
+    public boolean isLoaded() {
+        return loaded != null;
+    }
+
+    /**
+     * Loads the command meta-data if not already loaded
+     * 
+     * @return Command meta-data
+     * @throws IllegalArgumentException
+     *             Thrown if the command class cannot be loaded or declares a
+     *             different name
+     */
+    public CommandMetadata load() {
+        CommandMetadata command = loaded;
+        if (command != null)
+            return command;
+        synchronized (this) {
+            if (loaded == null) {
+                Class<?> type;
+                try {
+                    type = Class.forName(className, true, classLoader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    throw new IllegalArgumentException(
+                            String.format("Class %s for command %s could not be loaded", className, getName()), e);
+                }
+                command = MetadataLoader.loadCommand(type);
+                if (!getName().equals(command.getName()))
+                    throw new IllegalArgumentException(
+                            String.format("Command %s was registered with name %s but declares the name %s",
+                                    className, getName(), command.getName()));
+                loaded = command;
+            }
+            return loaded;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return load().getDescription();
+    }
+
+    @Override
+    public boolean isHidden() {
+        return load().isHidden();
+    }
+
+    @Override
+    public List<OptionMetadata> getAllOptions() {
+        return load().getAllOptions();
+    }
+
+    @Override
+    public List<HelpSection> getHelpSections() {
+        return load().getHelpSections();
+    }
+
+    @Override
+    public List<OptionMetadata> getGlobalOptions() {
+        return load().getGlobalOptions();
+    }
+
+    @Override
+    public List<OptionMetadata> getGroupOptions() {
+        return load().getGroupOptions();
+    }
+
+    @Override
+    public List<OptionMetadata> getCommandOptions() {
+        return load().getCommandOptions();
+    }
+
+    @Override
+    public OptionMetadata getDefaultOption() {
+        return load().getDefaultOption();
+    }
+
+    @Override
+    public ArgumentsMetadata getArguments() {
+        return load().getArguments();
+    }
+
+    @Override
+    public List<Accessor> getMetadataInjections() {
+        return load().getMetadataInjections();
+    }
+
+    @Override
+    public Class<?> getType() {
+        return load().getType();
+    }
+
+    @Override
+    public List<String> getGroupNames() {
+        return load().getGroupNames();
+    }
+
+    @Override
+    public List<Group> getGroups() {
+        return load().getGroups();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (other instanceof LazyCommandMetadata) {
+            // Avoid loading when comparing two lazy commands
+            LazyCommandMetadata cmd = (LazyCommandMetadata) other;
+            return StringUtils.equals(getName(), cmd.getName()) && className.equals(cmd.className);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        // Must be consistent with CommandMetadata.hashCode() but without
+        // loading the command class
+        int result = getName() != null ? getName().hashCode() : 0;
+        result = 31 * result + className.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        CommandMetadata command = loaded;
+        if (command != null)
+            return command.toString();
+        final StringBuilder sb = new StringBuilder();
+        sb.append("LazyCommandMetadata {").append('\n');
+        sb.append(" name='").append(getName()).append('\'').append('\n');
+        sb.append(" , className='").append(className).append('\'').append('\n');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -22,6 +22,7 @@ import com.github.rvesse.airline.annotations.Command;
 import com.github.rvesse.airline.annotations.DefaultOption;
 import com.github.rvesse.airline.annotations.Group;
 import com.github.rvesse.airline.annotations.Groups;
+import com.github.rvesse.airline.annotations.LazyCommand;
 import com.github.rvesse.airline.annotations.Option;
 import com.github.rvesse.airline.annotations.OptionType;
 import com.github.rvesse.airline.annotations.Parser;
@@ -32,6 +33,7 @@ import com.github.rvesse.airline.help.sections.HelpSection;
 import com.github.rvesse.airline.help.sections.factories.HelpSectionRegistry;
 import com.github.rvesse.airline.help.suggester.Suggester;
 import com.github.rvesse.airline.parser.ParserUtil;
+import com.github.rvesse.airline.parser.ValueSources;
 import com.github.rvesse.airline.parser.errors.handlers.FailFast;
 import com.github.rvesse.airline.parser.options.OptionParser;
 import com.github.rvesse.airline.restrictions.ArgumentsRestriction;
@@ -40,10 +42,12 @@ import com.github.rvesse.airline.restrictions.OptionRestriction;
 import com.github.rvesse.airline.restrictions.common.PartialRestriction;
 import com.github.rvesse.airline.restrictions.factories.RestrictionRegistry;
 import com.github.rvesse.airline.types.DefaultTypeConverter;
+import com.github.rvesse.airline.types.DefaultTypeConverterProvider;
 import com.github.rvesse.airline.types.TypeConverterProvider;
 import com.github.rvesse.airline.types.numerics.DefaultNumericConverter;
 import com.github.rvesse.airline.utils.AirlineUtils;
 import com.github.rvesse.airline.utils.comparators.StringHierarchyComparator;
+import com.github.rvesse.airline.utils.predicates.parser.CommandFinder;
 import com.github.rvesse.airline.utils.predicates.parser.CommandTypeFinder;
 import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
 
@@ -56,9 +60,13 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Helper for loading meta-data
@@ -66,6 +74,15 @@ import java.util.*;
  */
 public class MetadataLoader {
 
+    private static final TypeConverterProvider DEFAULT_TYPE_CONVERTER_PROVIDER = new DefaultTypeConverterProvider();
+
+    /**
+     * Generated command meta-data registered via the {@link ServiceLoader}
+     * indexed by command class, the index is built once per class loader and
+     * softly referenced so that it does not keep the class loader alive
+     */
+    private static final Map<ClassLoader, SoftReference<Map<Class<?>, GeneratedCommandMetadata>>> GENERATED_COMMANDS = new WeakHashMap<>();
+
     public static <C> ParserMetadata<C> loadParser(Class<?> cliClass) {
         if (cliClass == null)
             return ParserBuilder.<C> defaultConfiguration();
@@ -133,6 +150,7 @@ public class MetadataLoader {
 
         // Parsing options
         builder.withArgumentsSeparator(parserConfig.argumentsSeparator());
+        builder.withArgumentsFilePrefix(parserConfig.argumentsFilePrefix());
         if (parserConfig.defaultParsersFirst() && parserConfig.useDefaultOptionParsers()) {
             builder = builder.withDefaultOptionParsers();
         }
@@ -148,20 +166,89 @@ public class MetadataLoader {
     }
 
     public static <C> GlobalMetadata<C> loadGlobal(Class<?> cliClass) {
+        return loadGlobal(cliClass, null, null);
+    }
+
+    /**
+     * Loads global meta-data from a class annotated with the
+     * {@link com.github.rvesse.airline.annotations.Cli} annotation loading the
+     * command meta-data concurrently
+     * <p>
+     * The commands referenced by the annotation are loaded in parallel on the
+     * given pool, the resulting meta-data is identical to that produced by
+     * {@link #loadGlobal(Class)}.
+     * </p>
+     * 
+     * @param cliClass
+     *            CLI class
+     * @param pool
+     *            Fork join pool to load commands on, if {@code null} commands
+     *            are loaded sequentially
+     * @return Global meta-data
+     */
+    public static <C> GlobalMetadata<C> loadGlobalInParallel(Class<?> cliClass, ForkJoinPool pool) {
+        return loadGlobal(cliClass, null, pool);
+    }
+
+    /**
+     * Loads global meta-data from a class annotated with the
+     * {@link com.github.rvesse.airline.annotations.Cli} annotation using a
+     * meta-data snapshot file
+     * <p>
+     * If the snapshot file exists and was produced from the same versions of
+     * the contributing classes then command meta-data is rebuilt from the
+     * snapshot rather than by reflectively scanning the fields of the command
+     * classes. If the snapshot is missing, unreadable or out of date then
+     * meta-data is loaded as normal and the snapshot is rewritten, failure to
+     * write the snapshot is not considered an error.
+     * </p>
+     * 
+     * @param cliClass
+     *            CLI class
+     * @param snapshotFile
+     *            Snapshot file, if {@code null} then no snapshot is used
+     * @return Global meta-data
+     */
+    public static <C> GlobalMetadata<C> loadGlobalWithSnapshot(Class<?> cliClass, File snapshotFile) {
+        if (snapshotFile == null)
+            return loadGlobal(cliClass);
+
+        MetadataSnapshot snapshot = MetadataSnapshot.open(cliClass, snapshotFile);
+        GlobalMetadata<C> metadata = loadGlobal(cliClass, snapshot, null);
+        if (snapshot.isDirty()) {
+            try {
+                snapshot.write(snapshotFile);
+            } catch (IOException e) {
+                // Snapshots are only an optimisation so we'll just try again
+                // next time
+            }
+        }
+        return metadata;
+    }
+
+    private static <C> GlobalMetadata<C> loadGlobal(Class<?> cliClass, MetadataSnapshot snapshot,
+            ForkJoinPool pool) {
         Annotation annotation = cliClass.getAnnotation(com.github.rvesse.airline.annotations.Cli.class);
         if (annotation == null)
             throw new IllegalArgumentException(String.format("Class %s does not have the @Cli annotation", cliClass));
 
         com.github.rvesse.airline.annotations.Cli cliConfig = (com.github.rvesse.airline.annotations.Cli) annotation;
 
+        // Load commands up front if loading concurrently
+        Map<Class<?>, CommandMetadata> preloaded = pool != null ? preloadCommands(cliConfig, pool)
+                : Collections.<Class<?>, CommandMetadata> emptyMap();
+
         // Prepare commands
         CommandMetadata defaultCommand = null;
         if (!cliConfig.defaultCommand().equals(com.github.rvesse.airline.annotations.Cli.NO_DEFAULT.class)) {
-            defaultCommand = loadCommand(cliConfig.defaultCommand());
+            defaultCommand = loadCliCommand(cliConfig.defaultCommand(), snapshot, preloaded);
         }
         List<CommandMetadata> defaultGroupCommands = new ArrayList<CommandMetadata>();
         for (Class<?> cls : cliConfig.commands()) {
-            defaultGroupCommands.add(loadCommand(cls));
+            defaultGroupCommands.add(loadCliCommand(cls, snapshot, preloaded));
+        }
+        for (LazyCommand lazyCommand : cliConfig.lazyCommands()) {
+            defaultGroupCommands.add(loadLazyCommand(lazyCommand, cliClass.getClassLoader()));
         }
 
         // Prepare parser configuration
@@ -176,12 +263,9 @@ public class MetadataLoader {
         // 3 - Standard restrictions if the includeDefaultRestrctions field of
         // the @Cli annotation is true
         List<GlobalRestriction> restrictions = new ArrayList<GlobalRestriction>();
-        for (Class<? extends Annotation> annotationClass : RestrictionRegistry
-                .getGlobalRestrictionAnnotationClasses()) {
-            annotation = cliClass.getAnnotation(annotationClass);
-            if (annotation == null)
-                continue;
-            GlobalRestriction restriction = RestrictionRegistry.getGlobalRestriction(annotationClass, annotation);
+        for (Annotation restrictionAnnotation : cliClass.getAnnotations()) {
+            GlobalRestriction restriction = RestrictionRegistry
+                    .getGlobalRestriction(restrictionAnnotation.annotationType(), restrictionAnnotation);
             if (restriction != null)
                 restrictions.add(restriction);
         }
@@ -216,7 +300,10 @@ public class MetadataLoader {
 
             List<CommandMetadata> groupCommands = new ArrayList<CommandMetadata>();
             for (Class<?> cls : groupAnno.commands()) {
-                groupCommands.add(loadCommand(cls));
+                groupCommands.add(loadCliCommand(cls, snapshot, preloaded));
+            }
+            for (LazyCommand lazyCommand : groupAnno.lazyCommands()) {
+                groupCommands.add(loadLazyCommand(lazyCommand, cliClass.getClassLoader()));
             }
 
             if (group == null) {
@@ -226,7 +313,7 @@ public class MetadataLoader {
                                          groupAnno.description(),
                                          groupAnno.hidden(),
                                          Collections.<CommandGroupMetadata>emptyList(),
-                                         !groupAnno.defaultCommand().equals(Group.NO_DEFAULT.class) ? loadCommand(groupAnno.defaultCommand()) : null, 
+                                         !groupAnno.defaultCommand().equals(Group.NO_DEFAULT.class) ? loadCliCommand(groupAnno.defaultCommand(), snapshot, preloaded) : null, 
                                          groupCommands);
                 //@formatter:on
                 if (subGroupPath == null) {
@@ -268,12 +355,28 @@ public class MetadataLoader {
         }
 
         // Post-process to find possible further group assignments
-        loadCommandsIntoGroupsByAnnotation(allCommands, groups, defaultGroupCommands);
+        loadCommandsIntoGroupsByAnnotation(allCommands, groups, defaultGroupCommands, preloaded);
 
         return loadGlobal(cliConfig.name(), cliConfig.description(), defaultCommand, defaultGroupCommands, groups,
                 restrictions, parserConfig);
     }
 
+    private static Map<Class<?>, CommandMetadata> preloadCommands(com.github.rvesse.airline.annotations.Cli cliConfig,
+            ForkJoinPool pool) {
+        Set<Class<?>> commandTypes = new LinkedHashSet<>();
+        if (!cliConfig.defaultCommand().equals(com.github.rvesse.airline.annotations.Cli.NO_DEFAULT.class)) {
+            commandTypes.add(cliConfig.defaultCommand());
+        }
+        commandTypes.addAll(Arrays.asList(cliConfig.commands()));
+        for (Group groupAnno : cliConfig.groups()) {
+            if (!groupAnno.defaultCommand().equals(Group.NO_DEFAULT.class)) {
+                commandTypes.add(groupAnno.defaultCommand());
+            }
+            commandTypes.addAll(Arrays.asList(groupAnno.commands()));
+        }
+        return loadCommandsByType(commandTypes, pool);
+    }
+
     /**
      * Loads global meta-data
      * 
@@ -296,16 +399,19 @@ public class MetadataLoader {
     public static <C> GlobalMetadata<C> loadGlobal(String name, String description, CommandMetadata defaultCommand,
             Iterable<CommandMetadata> defaultGroupCommands, Iterable<CommandGroupMetadata> groups,
             Iterable<GlobalRestriction> restrictions, ParserMetadata<C> parserConfig) {
+        // Lazy commands which have yet to be loaded can't contribute options
         List<OptionMetadata> globalOptions = new ArrayList<>();
-        if (defaultCommand != null) {
+        if (defaultCommand != null && isLoaded(defaultCommand)) {
             globalOptions.addAll(defaultCommand.getGlobalOptions());
         }
         for (CommandMetadata command : defaultGroupCommands) {
-            globalOptions.addAll(command.getGlobalOptions());
+            if (isLoaded(command))
+                globalOptions.addAll(command.getGlobalOptions());
         }
         for (CommandGroupMetadata group : groups) {
             for (CommandMetadata command : group.getCommands()) {
-                globalOptions.addAll(command.getGlobalOptions());
+                if (isLoaded(command))
+                    globalOptions.addAll(command.getGlobalOptions());
             }
 
             // Remember to also search sub-groups for global options
@@ -314,7 +420,8 @@ public class MetadataLoader {
             while (subGroups.size() > 0) {
                 CommandGroupMetadata subGroup = subGroups.poll();
                 for (CommandMetadata command : subGroup.getCommands()) {
-                    globalOptions.addAll(command.getGlobalOptions());
+                    if (isLoaded(command))
+                        globalOptions.addAll(command.getGlobalOptions());
                 }
                 subGroups.addAll(subGroup.getSubGroups());
             }
@@ -348,12 +455,14 @@ public class MetadataLoader {
             name = names[names.length - 1];
         }
 
+        // Lazy commands which have yet to be loaded can't contribute options
         List<OptionMetadata> groupOptions = new ArrayList<OptionMetadata>();
-        if (defaultCommand != null) {
+        if (defaultCommand != null && isLoaded(defaultCommand)) {
             groupOptions.addAll(defaultCommand.getGroupOptions());
         }
         for (CommandMetadata command : commands) {
-            groupOptions.addAll(command.getGroupOptions());
+            if (isLoaded(command))
+                groupOptions.addAll(command.getGroupOptions());
         }
         groupOptions = ListUtils.unmodifiableList(mergeOptionSet(groupOptions));
         return new CommandGroupMetadata(name, description, hidden, groupOptions, subGroups, defaultCommand, commands);
@@ -375,6 +484,164 @@ public class MetadataLoader {
         return commandMetadata;
     }
 
+    /**
+     * Loads command meta-data concurrently
+     * <p>
+     * Each command is loaded as a separate task on the given pool, the
+     * resulting meta-data is returned in the same order as the command classes
+     * regardless of the order in which the tasks complete. If loading any
+     * command fails then that failure is thrown.
+     * </p>
+     * <p>
+     * Only the given commands are loaded, commands referenced solely by
+     * {@link Group} annotations on those commands are loaded later when the
+     * groups are built from the annotations. Use
+     * {@link #loadCommandsByType(Collection, ForkJoinPool)} to also load
+     * those concurrently.
+     * </p>
+     * 
+     * @param commands
+     *            Command classes
+     * @param pool
+     *            Fork join pool to load commands on, if {@code null} commands
+     *            are loaded sequentially
+     * @return Command meta-data
+     */
+    public static <T> List<CommandMetadata> loadCommands(Iterable<Class<? extends T>> commands, ForkJoinPool pool) {
+        if (pool == null)
+            return loadCommands(commands);
+
+        List<Class<?>> commandTypes = new ArrayList<Class<?>>();
+        for (Class<? extends T> commandType : commands) {
+            commandTypes.add(commandType);
+        }
+        return pool.invoke(new LoadCommandsTask(commandTypes));
+    }
+
+    /**
+     * Loads command meta-data concurrently
+     * <p>
+     * As well as the given commands this also loads any commands referenced
+     * by {@link Group} annotations on those commands, these are the commands
+     * that {@link #loadCommandsIntoGroupsByAnnotation(List, List, List, Map)}
+     * would otherwise have to load sequentially.
+     * </p>
+     * 
+     * @param commands
+     *            Command classes, duplicates are only loaded once
+     * @param pool
+     *            Fork join pool to load commands on, if {@code null} commands
+     *            are loaded sequentially
+     * @return Map from command classes to their meta-data
+     */
+    public static Map<Class<?>, CommandMetadata> loadCommandsByType(Collection<Class<?>> commands,
+            ForkJoinPool pool) {
+        Map<Class<?>, CommandMetadata> loaded = new HashMap<>();
+        loadCommandsByType(new LinkedHashSet<Class<?>>(commands), pool, loaded);
+
+        // Then load the commands referenced by their group annotations
+        Set<Class<?>> groupCommandTypes = new LinkedHashSet<>();
+        for (CommandMetadata command : loaded.values()) {
+            for (Group groupAnno : command.getGroups()) {
+                if (!groupAnno.defaultCommand().equals(Group.NO_DEFAULT.class)) {
+                    groupCommandTypes.add(groupAnno.defaultCommand());
+                }
+                groupCommandTypes.addAll(Arrays.asList(groupAnno.commands()));
+            }
+        }
+        groupCommandTypes.removeAll(loaded.keySet());
+        loadCommandsByType(groupCommandTypes, pool, loaded);
+        return loaded;
+    }
+
+    private static void loadCommandsByType(Set<Class<?>> commands, ForkJoinPool pool,
+            Map<Class<?>, CommandMetadata> loaded) {
+        List<Class<?>> commandTypes = new ArrayList<Class<?>>(commands);
+        List<CommandMetadata> commandMetadata = MetadataLoader.<Object> loadCommands(commandTypes, pool);
+        for (int i = 0; i < commandTypes.size(); i++) {
+            loaded.put(commandTypes.get(i), commandMetadata.get(i));
+        }
+    }
+
+    /**
+     * Task that loads several commands in parallel, one sub-task per command
+     */
+    private static final class LoadCommandsTask extends RecursiveTask<List<CommandMetadata>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Class<?>> commandTypes;
+
+        private LoadCommandsTask(List<Class<?>> commandTypes) {
+            this.commandTypes = commandTypes;
+        }
+
+        @Override
+        protected List<CommandMetadata> compute() {
+            List<LoadCommandTask> tasks = new ArrayList<>(commandTypes.size());
+            for (Class<?> commandType : commandTypes) {
+                tasks.add(new LoadCommandTask(commandType));
+            }
+            invokeAll(tasks);
+
+            List<CommandMetadata> commands = new ArrayList<>(tasks.size());
+            for (LoadCommandTask task : tasks) {
+                commands.add(task.join());
+            }
+            return commands;
+        }
+    }
+
+    /**
+     * Task that loads a single command
+     */
+    private static final class LoadCommandTask extends RecursiveTask<CommandMetadata> {
+        private static final long serialVersionUID = 1L;
+
+        private final Class<?> commandType;
+
+        private LoadCommandTask(Class<?> commandType) {
+            this.commandType = commandType;
+        }
+
+        @Override
+        protected CommandMetadata compute() {
+            return loadCommand(commandType);
+        }
+    }
+
+    /**
+     * Loads command meta-data for a command whose class is only loaded when
+     * the command is first used
+     * 
+     * @param name
+     *            Command name
+     * @param className
+     *            Command class name
+     * @param classLoader
+     *            Class loader to load the command class from, if {@code null}
+     *            the thread context class loader is used
+     * @return Lazy command meta-data
+     */
+    public static CommandMetadata loadLazyCommand(String name, String className, ClassLoader classLoader) {
+        return new LazyCommandMetadata(name, className, classLoader);
+    }
+
+    private static CommandMetadata loadLazyCommand(LazyCommand lazyCommand, ClassLoader classLoader) {
+        return loadLazyCommand(lazyCommand.name(), lazyCommand.className(), classLoader);
+    }
+
+    /**
+     * Gets whether the given command meta-data is fully loaded i.e. it is not
+     * a lazy command whose class has yet to be loaded
+     * 
+     * @param command
+     *            Command meta-data
+     * @return True if loaded, false otherwise
+     */
+    public static boolean isLoaded(CommandMetadata command) {
+        return !(command instanceof LazyCommandMetadata) || ((LazyCommandMetadata) command).isLoaded();
+    }
+
     /**
      * Loads command meta-data
      * 
@@ -386,9 +653,37 @@ public class MetadataLoader {
         if (commandType == null) {
             return null;
         }
+
+        // Prefer meta-data generated at build time by the annotation processor
+        // where available since this avoids the reflective field scan
+        CommandMetadata generated = loadGeneratedCommand(commandType);
+        if (generated != null) {
+            return generated;
+        }
+        return loadCommand(commandType, null);
+    }
+
+    /**
+     * Loads command meta-data using pre-computed injection meta-data
+     * <p>
+     * The command level annotations e.g. {@link Command}, {@link Group} and
+     * help sections are loaded from the class.
+     * </p>
+     * 
+     * @param commandType
+     *            Command class
+     * @param injectionMetadata
+     *            Injection meta-data, if {@code null} then this is loaded
+     *            reflectively from the command class
+     * @return Command meta-data
+     */
+    public static CommandMetadata loadCommand(Class<?> commandType, InjectionMetadata injectionMetadata) {
+        if (commandType == null) {
+            return null;
+        }
         Command command = null;
         List<Group> groups = new ArrayList<>();
-        Map<String, HelpSection> helpSections = new HashMap<>();
+        List<Annotation> annotations = new ArrayList<>();
 
         for (Class<?> cls = commandType; command == null && !Object.class.equals(cls); cls = cls.getSuperclass()) {
             command = cls.getAnnotation(Command.class);
@@ -405,24 +700,58 @@ public class MetadataLoader {
             throw new IllegalArgumentException(
                     String.format("Command %s is not annotated with @Command", commandType.getName()));
 
-        // Find help sections
         for (Class<?> cls = commandType; !Object.class.equals(cls); cls = cls.getSuperclass()) {
-            for (Class<? extends Annotation> helpAnnotationClass : HelpSectionRegistry.getAnnotationClasses()) {
-                Annotation annotation = cls.getAnnotation(helpAnnotationClass);
-                if (annotation == null)
-                    continue;
-                HelpSection section = HelpSectionRegistry.getHelpSection(helpAnnotationClass, annotation);
-                if (section == null)
-                    continue;
-
-                // Because we're going up the class hierarchy the titled section
-                // lowest down the hierarchy should win so if we've already seen
-                // a section with this title ignore it
-                if (helpSections.containsKey(section.getTitle().toLowerCase(Locale.ENGLISH)))
-                    continue;
-
-                helpSections.put(section.getTitle().toLowerCase(Locale.ENGLISH), section);
-            }
+            annotations.addAll(Arrays.asList(cls.getAnnotations()));
+        }
+
+        if (injectionMetadata == null) {
+            injectionMetadata = loadInjectionMetadata(commandType);
+        }
+        return loadCommand(commandType, command, groups, annotations, injectionMetadata);
+    }
+
+    /**
+     * Loads command meta-data from annotations and injection meta-data that
+     * have already been gathered
+     * <p>
+     * This is primarily intended for use by the classes generated by the
+     * Airline annotation processor which construct the annotations and compute
+     * the injection meta-data at compile time rather than reflectively
+     * scanning the command class.
+     * </p>
+     * 
+     * @param commandType
+     *            Command class
+     * @param command
+     *            Command annotation
+     * @param groups
+     *            Group annotations
+     * @param annotations
+     *            Annotations present on the command class and each of its
+     *            superclasses, starting from the command class, from which
+     *            help sections are loaded
+     * @param injectionMetadata
+     *            Injection meta-data
+     * @return Command meta-data
+     */
+    public static CommandMetadata loadCommand(Class<?> commandType, Command command, List<Group> groups,
+            Iterable<? extends Annotation> annotations, InjectionMetadata injectionMetadata) {
+        Map<String, HelpSection> helpSections = new HashMap<>();
+
+        // Find help sections, we look up the annotations actually present in
+        // the registry rather than looking for every registered annotation
+        for (Annotation annotation : annotations) {
+            HelpSection section = HelpSectionRegistry.getHelpSection(annotation.annotationType(), annotation);
+            if (section == null)
+                continue;
+
+            // Because we're going up the class hierarchy the titled section
+            // lowest down the hierarchy should win so if we've already seen
+            // a section with this title ignore it
+            if (helpSections.containsKey(section.getTitle().toLowerCase(Locale.ENGLISH)))
+                continue;
+
+            helpSections.put(section.getTitle().toLowerCase(Locale.ENGLISH), section);
         }
 
         String name = command.name();
@@ -430,7 +759,7 @@ public class MetadataLoader {
         List<String> groupNames = Arrays.asList(command.groupNames());
         boolean hidden = command.hidden();
 
-        InjectionMetadata injectionMetadata = loadInjectionMetadata(commandType);
+        injectionMetadata.compact();
 
         //@formatter:off
         CommandMetadata commandMetadata = new CommandMetadata(name, 
@@ -451,6 +780,73 @@ public class MetadataLoader {
         return commandMetadata;
     }
 
+    private static CommandMetadata loadCliCommand(Class<?> commandType, MetadataSnapshot snapshot,
+            Map<Class<?>, CommandMetadata> preloaded) {
+        CommandMetadata command = preloaded.get(commandType);
+        if (command != null) {
+            return command;
+        }
+        if (snapshot == null || commandType == null) {
+            return loadCommand(commandType);
+        }
+        CommandMetadata generated = loadGeneratedCommand(commandType);
+        if (generated != null) {
+            return generated;
+        }
+        return snapshot.loadCommand(commandType);
+    }
+
+    /**
+     * Tries to load command meta-data from a class generated by the Airline
+     * annotation processor
+     * 
+     * @param commandType
+     *            Command class
+     * @return Command meta-data or {@code null} if no generated meta-data is
+     *         available
+     */
+    private static CommandMetadata loadGeneratedCommand(Class<?> commandType) {
+        GeneratedCommandMetadata generated = getGeneratedCommands(commandType.getClassLoader()).get(commandType);
+        return generated != null ? generated.load() : null;
+    }
+
+    /**
+     * Gets the generated command meta-data registered with the given class
+     * loader
+     * 
+     * @param loader
+     *            Class loader
+     * @return Generated meta-data indexed by command class
+     */
+    private static Map<Class<?>, GeneratedCommandMetadata> getGeneratedCommands(ClassLoader loader) {
+        if (loader == null)
+            return Collections.emptyMap();
+
+        synchronized (GENERATED_COMMANDS) {
+            SoftReference<Map<Class<?>, GeneratedCommandMetadata>> ref = GENERATED_COMMANDS.get(loader);
+            Map<Class<?>, GeneratedCommandMetadata> index = ref != null ? ref.get() : null;
+            if (index != null)
+                return index;
+
+            index = new HashMap<>();
+            Iterator<GeneratedCommandMetadata> providers = ServiceLoader.load(GeneratedCommandMetadata.class, loader)
+                    .iterator();
+            while (true) {
+                try {
+                    if (!providers.hasNext())
+                        break;
+                    GeneratedCommandMetadata generated = providers.next();
+                    index.put(generated.getCommandType(), generated);
+                } catch (ServiceConfigurationError e) {
+                    // Stale registration, the affected command will be loaded
+                    // reflectively
+                }
+            }
+            GENERATED_COMMANDS.put(loader, new SoftReference<>(index));
+            return index;
+        }
+    }
+
     /**
      * Loads suggester meta-data
      * 
@@ -502,7 +898,7 @@ public class MetadataLoader {
                     if (field.getType().equals(GlobalMetadata.class)
                             || field.getType().equals(CommandGroupMetadata.class)
                             || field.getType().equals(CommandMetadata.class)) {
-                        injectionMetadata.metadataInjections.add(new Accessor(path));
+                        injectionMetadata.addMetadataInjection(new Accessor(path));
                     } else {
                         loadInjectionMetadata(field.getType(), injectionMetadata, path);
                     }
@@ -516,7 +912,7 @@ public class MetadataLoader {
                         if (field.getType().equals(GlobalMetadata.class)
                                 || field.getType().equals(CommandGroupMetadata.class)
                                 || field.getType().equals(CommandMetadata.class)) {
-                            injectionMetadata.metadataInjections.add(new Accessor(path));
+                            injectionMetadata.addMetadataInjection(new Accessor(path));
                         } else {
                             loadInjectionMetadata(field.getType(), injectionMetadata, path);
                         }
@@ -563,28 +959,18 @@ public class MetadataLoader {
                     boolean hidden = optionAnnotation.hidden();
                     boolean override = optionAnnotation.override();
                     boolean sealed = optionAnnotation.sealed();
+                    boolean valueSources = optionAnnotation.valueSources();
+                    if (valueSources && !ValueSources.isSupportedType(field.getType())) {
+                        throw new IllegalArgumentException(String.format(
+                                "Field %s annotated with @Option(valueSources = true) must be of type int[], long[] or double[]",
+                                field));
+                    }
 
                     // Find and create restrictions
-                    Map<Class<? extends Annotation>, Set<Integer>> partials = loadPartials(field);
-                    List<OptionRestriction> restrictions = new ArrayList<OptionRestriction>();
-                    for (Class<? extends Annotation> annotationClass : RestrictionRegistry
-                            .getOptionRestrictionAnnotationClasses()) {
-                        Annotation annotation = field.getAnnotation(annotationClass);
-                        if (annotation == null)
-                            continue;
-                        OptionRestriction restriction = RestrictionRegistry.getOptionRestriction(annotationClass,
-                                annotation);
-                        if (restriction != null) {
-                            // Adjust for partial if necessary
-                            if (partials.containsKey(annotationClass))
-                                restriction = new PartialRestriction(partials.get(annotationClass), restriction);
-
-                            restrictions.add(restriction);
-                        }
-                    }
-                    
+                    List<OptionRestriction> restrictions = loadOptionRestrictions(field);
+
                     // Type Converter provider
-                    TypeConverterProvider provider = ParserUtil.createInstance(optionAnnotation.typeConverterProvider());
+                    TypeConverterProvider provider = loadTypeConverterProvider(optionAnnotation.typeConverterProvider());
 
                     //@formatter:off
                     OptionMetadata optionMetadata = new OptionMetadata(optionType, 
@@ -595,49 +981,12 @@ public class MetadataLoader {
                                                                        hidden, 
                                                                        override, 
                                                                        sealed,
+                                                                       valueSources,
                                                                        restrictions,
                                                                        provider,
                                                                        path);
                     //@formatter:on
-                    switch (optionType) {
-                    case GLOBAL:
-                        if (defaultOptionAnnotation != null)
-                            throw new IllegalArgumentException(String.format(
-                                    "Field %s which defines a global option cannot be annotated with @DefaultOption as this may only be applied to command options",
-                                    field));
-                        injectionMetadata.globalOptions.add(optionMetadata);
-                        break;
-                    case GROUP:
-                        if (defaultOptionAnnotation != null)
-                            throw new IllegalArgumentException(String.format(
-                                    "Field %s which defines a global option cannot be annotated with @DefaultOption as this may only be applied to command options",
-                                    field));
-                        injectionMetadata.groupOptions.add(optionMetadata);
-                        break;
-                    case COMMAND:
-                        // Do we also have a @DefaultOption annotation
-
-                        if (defaultOptionAnnotation != null) {
-                            // Can't have both @DefaultOption and @Arguments
-                            if (injectionMetadata.arguments.size() > 0)
-                                throw new IllegalArgumentException(String.format(
-                                        "Field %s cannot be annotated with @DefaultOption because there are fields with @Arguments annotations present",
-                                        field));
-                            // Can't have more than one @DefaultOption
-                            if (injectionMetadata.defaultOption != null)
-                                throw new IllegalArgumentException(String.format(
-                                        "Command type %s has more than one field with @DefaultOption declared upon it",
-                                        type));
-                            // Arity of associated @Option must be 1
-                            if (optionMetadata.getArity() != 1)
-                                throw new IllegalArgumentException(String.format(
-                                        "Field %s annotated with @DefaultOption must also have an @Option annotation with an arity of 1",
-                                        field));
-                            injectionMetadata.defaultOption = optionMetadata;
-                        }
-                        injectionMetadata.commandOptions.add(optionMetadata);
-                        break;
-                    }
+                    injectionMetadata.addOption(optionMetadata, defaultOptionAnnotation != null, field);
                 }
 
                 if (optionAnnotation == null && defaultOptionAnnotation != null) {
@@ -648,12 +997,6 @@ public class MetadataLoader {
 
                 Arguments argumentsAnnotation = field.getAnnotation(Arguments.class);
                 if (field.isAnnotationPresent(Arguments.class)) {
-                    // Can't have both @DefaultOption and @Arguments
-                    if (injectionMetadata.defaultOption != null)
-                        throw new IllegalArgumentException(String.format(
-                                "Field %s cannot be annotated with @Arguments because there is a field with @DefaultOption present",
-                                field));
-
                     List<String> titles = new ArrayList<>();
 
                     if (!(argumentsAnnotation.title().length == 1 && argumentsAnnotation.title()[0].equals(""))) {
@@ -663,50 +1006,162 @@ public class MetadataLoader {
                     }
 
                     String description = argumentsAnnotation.description();
-                    TypeConverterProvider provider = ParserUtil.createInstance(argumentsAnnotation.typeConverterProvider());
-
-                    Map<Class<? extends Annotation>, Set<Integer>> partials = loadPartials(field);
-                    List<ArgumentsRestriction> restrictions = new ArrayList<>();
-                    for (Class<? extends Annotation> annotationClass : RestrictionRegistry
-                            .getArgumentsRestrictionAnnotationClasses()) {
-                        Annotation annotation = field.getAnnotation(annotationClass);
-                        if (annotation == null)
-                            continue;
-                        ArgumentsRestriction restriction = RestrictionRegistry.getArgumentsRestriction(annotationClass,
-                                annotation);
-                        if (restriction != null) {
-                            // Adjust for partial if necessary
-                            if (partials.containsKey(annotationClass))
-                                restriction = new PartialRestriction(partials.get(annotationClass), restriction);
-
-                            restrictions.add(restriction);
-                        }
-                    }
+                    TypeConverterProvider provider = loadTypeConverterProvider(argumentsAnnotation.typeConverterProvider());
+
+                    List<ArgumentsRestriction> restrictions = loadArgumentsRestrictions(field);
 
                     //@formatter:off
-                    injectionMetadata.arguments.add(new ArgumentsMetadata(titles, 
-                                                                          description,
-                                                                          restrictions,
-                                                                          provider,
-                                                                          path));
+                    injectionMetadata.addArguments(new ArgumentsMetadata(titles, 
+                                                                         description,
+                                                                         restrictions,
+                                                                         provider,
+                                                                         path), field);
                     //@formatter:on
                 }
             }
         }
     }
 
-    private static Map<Class<? extends Annotation>, Set<Integer>> loadPartials(Field field) {
-        Map<Class<? extends Annotation>, Set<Integer>> partials = new HashMap<>();
+    /**
+     * Loads a type converter provider
+     * <p>
+     * The {@link DefaultTypeConverterProvider} is stateless so a single shared
+     * instance of it is used, other providers are instantiated as normal.
+     * </p>
+     * 
+     * @param providerClass
+     *            Provider class
+     * @return Type converter provider
+     */
+    public static TypeConverterProvider loadTypeConverterProvider(
+            Class<? extends TypeConverterProvider> providerClass) {
+        if (DefaultTypeConverterProvider.class.equals(providerClass))
+            return DEFAULT_TYPE_CONVERTER_PROVIDER;
+        return ParserUtil.createInstance(providerClass);
+    }
+
+    /**
+     * Loads the option restrictions declared on a field
+     * 
+     * @param field
+     *            Field
+     * @return Option restrictions
+     */
+    public static List<OptionRestriction> loadOptionRestrictions(Field field) {
+        return loadOptionRestrictions(field.getDeclaredAnnotations());
+    }
+
+    /**
+     * Loads the option restrictions for the given annotations
+     * <p>
+     * This is primarily intended for use by the classes generated by the
+     * Airline annotation processor which construct the annotations declared on
+     * a field at compile time.
+     * </p>
+     * 
+     * @param annotations
+     *            Annotations declared on the field
+     * @return Option restrictions
+     */
+    public static List<OptionRestriction> loadOptionRestrictions(Annotation... annotations) {
+        Map<Class<? extends Annotation>, Set<Integer>> partials = loadPartials(annotations);
+        List<OptionRestriction> restrictions = new ArrayList<OptionRestriction>();
+        for (Annotation annotation : annotations) {
+            Class<? extends Annotation> annotationClass = annotation.annotationType();
+            OptionRestriction restriction = RestrictionRegistry.getOptionRestriction(annotationClass, annotation);
+            if (restriction != null) {
+                // Adjust for partial if necessary
+                if (partials.containsKey(annotationClass))
+                    restriction = new PartialRestriction(partials.get(annotationClass), restriction);
 
-        Annotation partialsAnnotation = field.getAnnotation(Partials.class);
-        if (partialsAnnotation != null) {
-            for (Partial partial : ((Partials) partialsAnnotation).value()) {
-                collectPartial(partials, partial);
+                restrictions.add(restriction);
+            }
+        }
+        return restrictions;
+    }
+
+    /**
+     * Loads the arguments restrictions declared on a field
+     * 
+     * @param field
+     *            Field
+     * @return Arguments restrictions
+     */
+    public static List<ArgumentsRestriction> loadArgumentsRestrictions(Field field) {
+        return loadArgumentsRestrictions(field.getDeclaredAnnotations());
+    }
+
+    /**
+     * Loads the arguments restrictions for the given annotations
+     * <p>
+     * This is primarily intended for use by the classes generated by the
+     * Airline annotation processor which construct the annotations declared on
+     * a field at compile time.
+     * </p>
+     * 
+     * @param annotations
+     *            Annotations declared on the field
+     * @return Arguments restrictions
+     */
+    public static List<ArgumentsRestriction> loadArgumentsRestrictions(Annotation... annotations) {
+        Map<Class<? extends Annotation>, Set<Integer>> partials = loadPartials(annotations);
+        List<ArgumentsRestriction> restrictions = new ArrayList<>();
+        for (Annotation annotation : annotations) {
+            Class<? extends Annotation> annotationClass = annotation.annotationType();
+            ArgumentsRestriction restriction = RestrictionRegistry.getArgumentsRestriction(annotationClass,
+                    annotation);
+            if (restriction != null) {
+                // Adjust for partial if necessary
+                if (partials.containsKey(annotationClass))
+                    restriction = new PartialRestriction(partials.get(annotationClass), restriction);
+
+                restrictions.add(restriction);
             }
         }
-        Annotation partialAnnotation = field.getAnnotation(Partial.class);
-        if (partialAnnotation != null) {
-            collectPartial(partials, (Partial) partialAnnotation);
+        return restrictions;
+    }
+
+    /**
+     * Loads a declared field of a class making it accessible
+     * <p>
+     * Intended for use when rebuilding meta-data from a snapshot which records
+     * the names of the fields it needs up front and so can avoid scanning all
+     * the fields of a class.
+     * </p>
+     * 
+     * @param cls
+     *            Declaring class
+     * @param name
+     *            Field name
+     * @return Field
+     * @throws IllegalStateException
+     *             Thrown if no such field exists, this indicates that generated
+     *             meta-data is out of date with respect to the class
+     */
+    public static Field loadField(Class<?> cls, String name) {
+        try {
+            Field field = cls.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(
+                    String.format("Class %s has no field %s, generated meta-data may be out of date", cls.getName(),
+                            name),
+                    e);
+        }
+    }
+
+    private static Map<Class<? extends Annotation>, Set<Integer>> loadPartials(Annotation[] annotations) {
+        Map<Class<? extends Annotation>, Set<Integer>> partials = new HashMap<>();
+
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Partials) {
+                for (Partial partial : ((Partials) annotation).value()) {
+                    collectPartial(partials, partial);
+                }
+            } else if (annotation instanceof Partial) {
+                collectPartial(partials, (Partial) annotation);
+            }
         }
 
         return partials;
@@ -820,14 +1275,41 @@ public class MetadataLoader {
 
     public static void loadCommandsIntoGroupsByAnnotation(List<CommandMetadata> allCommands,
             List<CommandGroupMetadata> commandGroups, List<CommandMetadata> defaultCommandGroup) {
+        loadCommandsIntoGroupsByAnnotation(allCommands, commandGroups, defaultCommandGroup,
+                Collections.<Class<?>, CommandMetadata> emptyMap());
+    }
+
+    /**
+     * Adds commands to groups based on their {@link Group} and {@link Command}
+     * annotations, using already loaded meta-data for any commands referenced
+     * by the group annotations where available
+     * 
+     * @param allCommands
+     *            All commands
+     * @param commandGroups
+     *            Command groups
+     * @param defaultCommandGroup
+     *            Default command group
+     * @param preloaded
+     *            Already loaded command meta-data e.g. from
+     *            {@link #loadCommandsByType(Collection, ForkJoinPool)}
+     */
+    public static void loadCommandsIntoGroupsByAnnotation(List<CommandMetadata> allCommands,
+            List<CommandGroupMetadata> commandGroups, List<CommandMetadata> defaultCommandGroup,
+            Map<Class<?>, CommandMetadata> preloaded) {
         List<CommandMetadata> newCommands = new ArrayList<CommandMetadata>();
 
         // first, create any groups explicitly annotated
-        createGroupsFromAnnotations(allCommands, newCommands, commandGroups, defaultCommandGroup);
+        createGroupsFromAnnotations(allCommands, newCommands, commandGroups, defaultCommandGroup, preloaded);
 
         for (CommandMetadata command : allCommands) {
             boolean addedToGroup = false;
 
+            // Lazy commands are explicitly placed in groups, loading them
+            // just to check for further groups would defeat their purpose
+            if (!isLoaded(command))
+                continue;
+
             // now add the command to any groupNames specified in the Command
             // annotation
             for (String groupName : command.getGroupNames()) {
@@ -892,7 +1374,7 @@ public class MetadataLoader {
     @SuppressWarnings("rawtypes")
     private static void createGroupsFromAnnotations(List<CommandMetadata> allCommands,
             List<CommandMetadata> newCommands, List<CommandGroupMetadata> commandGroups,
-            List<CommandMetadata> defaultCommandGroup) {
+            List<CommandMetadata> defaultCommandGroup, Map<Class<?>, CommandMetadata> preloaded) {
 
         // We sort sub-groups by name length then lexically
         // This means that when we build the groups hierarchy we'll ensure we
@@ -901,6 +1383,8 @@ public class MetadataLoader {
                 new StringHierarchyComparator());
         for (CommandMetadata command : allCommands) {
             boolean addedToGroup = false;
+            if (!isLoaded(command))
+                continue;
 
             // first, create any groups explicitly annotated
             for (Group groupAnno : command.getGroups()) {
@@ -912,7 +1396,7 @@ public class MetadataLoader {
                     defaultCommandClass = groupAnno.defaultCommand();
                     defaultCommand = CollectionUtils.find(allCommands, new CommandTypeFinder(defaultCommandClass));
                     if (null == defaultCommand) {
-                        defaultCommand = loadCommand(defaultCommandClass);
+                        defaultCommand = loadPreloadedCommand(defaultCommandClass, preloaded);
                         newCommands.add(defaultCommand);
                     }
                 }
@@ -923,7 +1407,15 @@ public class MetadataLoader {
                 for (Class commandClass : groupAnno.commands()) {
                     groupCommand = CollectionUtils.find(allCommands, new CommandTypeFinder(commandClass));
                     if (null == groupCommand) {
-                        groupCommand = loadCommand(commandClass);
+                        groupCommand = loadPreloadedCommand(commandClass, preloaded);
+                        newCommands.add(groupCommand);
+                        groupCommands.add(groupCommand);
+                    }
+                }
+                for (LazyCommand lazyCommand : groupAnno.lazyCommands()) {
+                    groupCommand = CollectionUtils.find(allCommands, new CommandFinder(lazyCommand.name()));
+                    if (null == groupCommand) {
+                        groupCommand = loadLazyCommand(lazyCommand, command.getType().getClassLoader());
                         newCommands.add(groupCommand);
                         groupCommands.add(groupCommand);
                     }
@@ -971,6 +1463,12 @@ public class MetadataLoader {
         buildGroupsHierarchy(commandGroups, subGroups);
     }
 
+    private static CommandMetadata loadPreloadedCommand(Class<?> commandType,
+            Map<Class<?>, CommandMetadata> preloaded) {
+        CommandMetadata command = preloaded.get(commandType);
+        return command != null ? command : loadCommand(commandType);
+    }
+
     protected static void buildGroupsHierarchy(List<CommandGroupMetadata> commandGroups,
             Map<String, CommandGroupMetadata> subGroups) {
         // Add sub-groups into hierarchy as appropriate
@@ -1015,15 +1513,165 @@ public class MetadataLoader {
         }
     }
 
-    private static class InjectionMetadata {
+    /**
+     * Injection meta-data collected from a class and any classes injected into
+     * it
+     */
+    public static class InjectionMetadata {
         private List<OptionMetadata> globalOptions = new ArrayList<>();
         private List<OptionMetadata> groupOptions = new ArrayList<>();
         private List<OptionMetadata> commandOptions = new ArrayList<>();
         private OptionMetadata defaultOption = null;
         private List<ArgumentsMetadata> arguments = new ArrayList<>();
         private List<Accessor> metadataInjections = new ArrayList<>();
+        private boolean compacted = false;
+
+        /**
+         * Adds an option
+         * 
+         * @param optionMetadata
+         *            Option meta-data
+         * @param isDefault
+         *            Whether the field was also annotated with
+         *            {@link DefaultOption}
+         * @param field
+         *            Field the option was declared upon
+         */
+        public void addOption(OptionMetadata optionMetadata, boolean isDefault, Field field) {
+            addOption(optionMetadata, isDefault, field, field.getDeclaringClass());
+        }
+
+        /**
+         * Adds an option
+         * 
+         * @param optionMetadata
+         *            Option meta-data, must have an accessor for the field
+         *            the option was declared upon
+         * @param isDefault
+         *            Whether the field was also annotated with
+         *            {@link DefaultOption}
+         */
+        public void addOption(OptionMetadata optionMetadata, boolean isDefault) {
+            List<FieldAccess> path = optionMetadata.getAccessors().iterator().next().getFieldAccessPath();
+            FieldAccess field = path.get(path.size() - 1);
+            addOption(optionMetadata, isDefault, field, field.getDeclaringClass());
+        }
+
+        private void addOption(OptionMetadata optionMetadata, boolean isDefault, Object field,
+                Class<?> declaringClass) {
+            switch (optionMetadata.getOptionType()) {
+            case GLOBAL:
+                if (isDefault)
+                    throw new IllegalArgumentException(String.format(
+                            "Field %s which defines a global option cannot be annotated with @DefaultOption as this may only be applied to command options",
+                            field));
+                globalOptions.add(optionMetadata);
+                break;
+            case GROUP:
+                if (isDefault)
+                    throw new IllegalArgumentException(String.format(
+                            "Field %s which defines a global option cannot be annotated with @DefaultOption as this may only be applied to command options",
+                            field));
+                groupOptions.add(optionMetadata);
+                break;
+            case COMMAND:
+                // Do we also have a @DefaultOption annotation
+
+                if (isDefault) {
+                    // Can't have both @DefaultOption and @Arguments
+                    if (arguments.size() > 0)
+                        throw new IllegalArgumentException(String.format(
+                                "Field %s cannot be annotated with @DefaultOption because there are fields with @Arguments annotations present",
+                                field));
+                    // Can't have more than one @DefaultOption
+                    if (defaultOption != null)
+                        throw new IllegalArgumentException(String.format(
+                                "Command type %s has more than one field with @DefaultOption declared upon it",
+                                declaringClass));
+                    // Arity of associated @Option must be 1
+                    if (optionMetadata.getArity() != 1)
+                        throw new IllegalArgumentException(String.format(
+                                "Field %s annotated with @DefaultOption must also have an @Option annotation with an arity of 1",
+                                field));
+                    defaultOption = optionMetadata;
+                }
+                commandOptions.add(optionMetadata);
+                break;
+            }
+        }
+
+        /**
+         * Adds arguments
+         * 
+         * @param argumentsMetadata
+         *            Arguments meta-data
+         * @param field
+         *            Field the arguments were declared upon
+         */
+        public void addArguments(ArgumentsMetadata argumentsMetadata, Field field) {
+            addArguments(argumentsMetadata, (Object) field);
+        }
+
+        /**
+         * Adds arguments
+         * 
+         * @param argumentsMetadata
+         *            Arguments meta-data, must have an accessor for the field
+         *            the arguments were declared upon
+         */
+        public void addArguments(ArgumentsMetadata argumentsMetadata) {
+            List<FieldAccess> path = argumentsMetadata.getAccessors().iterator().next().getFieldAccessPath();
+            addArguments(argumentsMetadata, path.get(path.size() - 1));
+        }
+
+        private void addArguments(ArgumentsMetadata argumentsMetadata, Object field) {
+            // Can't have both @DefaultOption and @Arguments
+            if (defaultOption != null)
+                throw new IllegalArgumentException(String.format(
+                        "Field %s cannot be annotated with @Arguments because there is a field with @DefaultOption present",
+                        field));
+            arguments.add(argumentsMetadata);
+        }
+
+        /**
+         * Adds a meta-data injection
+         * 
+         * @param accessor
+         *            Accessor for the field to inject meta-data into
+         */
+        public void addMetadataInjection(Accessor accessor) {
+            metadataInjections.add(accessor);
+        }
+
+        List<OptionMetadata> getGlobalOptions() {
+            return globalOptions;
+        }
+
+        List<OptionMetadata> getGroupOptions() {
+            return groupOptions;
+        }
+
+        List<OptionMetadata> getCommandOptions() {
+            return commandOptions;
+        }
+
+        OptionMetadata getDefaultOption() {
+            return defaultOption;
+        }
+
+        List<ArgumentsMetadata> getArguments() {
+            return arguments;
+        }
+
+        List<Accessor> getMetadataInjections() {
+            return metadataInjections;
+        }
 
         private void compact() {
+            if (compacted)
+                return;
+            compacted = true;
+
             globalOptions = overrideOptionSet(globalOptions);
             groupOptions = overrideOptionSet(groupOptions);
             commandOptions = overrideOptionSet(commandOptions);
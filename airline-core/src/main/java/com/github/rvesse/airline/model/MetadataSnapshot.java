@@ -0,0 +1,484 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import com.github.rvesse.airline.Accessor;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.model.MetadataLoader.InjectionMetadata;
+import com.github.rvesse.airline.types.TypeConverterProvider;
+
+/**
+ * A versioned binary snapshot of the injection meta-data of the commands of a
+ * CLI
+ * <p>
+ * Loading the injection meta-data for a command requires reflectively scanning
+ * every field of the command class and its delegates. A snapshot records the
+ * outcome of those scans, i.e. the option and arguments declarations and the
+ * field paths they are injected via, together with a digest of the class files
+ * of every class that contributed to them. When a valid snapshot is available
+ * it is memory mapped and each command is rebuilt directly from its record,
+ * looking up only the fields named in the record. If the digest no longer
+ * matches, i.e. some contributing class has changed, the snapshot is ignored.
+ * </p>
+ * <p>
+ * Restrictions, type converter providers and help sections are arbitrary
+ * objects so these are always created afresh from their annotations.
+ * </p>
+ */
+final class MetadataSnapshot {
+
+    /**
+     * Magic number identifying a snapshot file
+     */
+    static final int MAGIC = 0x41524c4e;
+    /**
+     * Current snapshot format version, must be incremented whenever the format
+     * changes
+     */
+    static final int VERSION = 1;
+
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+    private static final String GUICE_INJECT = "com.google.inject.Inject";
+
+    private final Class<?> cliClass;
+    private final Map<String, ByteBuffer> snapshots;
+    private final Map<Class<?>, byte[]> records = new LinkedHashMap<>();
+    private boolean dirty;
+
+    private MetadataSnapshot(Class<?> cliClass, Map<String, ByteBuffer> snapshots) {
+        this.cliClass = cliClass;
+        this.snapshots = snapshots;
+        this.dirty = snapshots.isEmpty();
+    }
+
+    /**
+     * Opens a snapshot
+     * 
+     * @param cliClass
+     *            CLI class
+     * @param file
+     *            Snapshot file
+     * @return Snapshot, this will be empty if the file does not exist, cannot
+     *         be read or is out of date
+     */
+    static MetadataSnapshot open(Class<?> cliClass, File file) {
+        if (cliClass == null)
+            throw new NullPointerException("cliClass cannot be null");
+        if (!file.isFile())
+            return new MetadataSnapshot(cliClass, Collections.<String, ByteBuffer> emptyMap());
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return new MetadataSnapshot(cliClass, read(cliClass, buffer));
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            // Unreadable or corrupt snapshot, ignore it
+            return new MetadataSnapshot(cliClass, Collections.<String, ByteBuffer> emptyMap());
+        }
+    }
+
+    private static Map<String, ByteBuffer> read(Class<?> cliClass, ByteBuffer buffer)
+            throws IOException, ClassNotFoundException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return Collections.emptyMap();
+        if (!cliClass.getName().equals(readString(buffer)))
+            return Collections.emptyMap();
+
+        // Verify that none of the contributing classes have changed
+        List<Class<?>> contributors = new ArrayList<>();
+        for (String name : readStrings(buffer)) {
+            contributors.add(Class.forName(name, false, cliClass.getClassLoader()));
+        }
+        byte[] expected = new byte[readCount(buffer)];
+        buffer.get(expected);
+        if (!Arrays.equals(expected, digest(contributors)))
+            return Collections.emptyMap();
+
+        // Index the command records, these are only decoded if the command is
+        // actually loaded
+        Map<String, ByteBuffer> snapshots = new HashMap<>();
+        int commands = readCount(buffer);
+        for (int i = 0; i < commands; i++) {
+            String name = readString(buffer);
+            int length = readCount(buffer);
+            ByteBuffer record = buffer.duplicate();
+            record.limit(buffer.position() + length);
+            snapshots.put(name, record.slice());
+            buffer.position(buffer.position() + length);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Gets whether the snapshot differs from the file it was opened from and
+     * so should be written
+     * 
+     * @return True if dirty, false otherwise
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Loads command meta-data, using the snapshot record for the command if
+     * one is available and otherwise scanning the command class and recording
+     * the result
+     * 
+     * @param commandType
+     *            Command class
+     * @return Command meta-data
+     */
+    CommandMetadata loadCommand(Class<?> commandType) {
+        ByteBuffer snapshot = snapshots.get(commandType.getName());
+        if (snapshot != null) {
+            InjectionMetadata injectionMetadata = null;
+            try {
+                injectionMetadata = readInjectionMetadata(snapshot.duplicate(), commandType.getClassLoader());
+            } catch (ClassNotFoundException | RuntimeException e) {
+                // Stale record, fall back to scanning the class
+            }
+            if (injectionMetadata != null) {
+                byte[] record = new byte[snapshot.remaining()];
+                snapshot.duplicate().get(record);
+                records.put(commandType, record);
+                return MetadataLoader.loadCommand(commandType, injectionMetadata);
+            }
+        }
+
+        InjectionMetadata injectionMetadata = new InjectionMetadata();
+        MetadataLoader.loadInjectionMetadata(commandType, injectionMetadata, Collections.<Field> emptyList());
+        records.put(commandType, writeInjectionMetadata(injectionMetadata));
+        dirty = true;
+        return MetadataLoader.loadCommand(commandType, injectionMetadata);
+    }
+
+    /**
+     * Writes the snapshot
+     * <p>
+     * The snapshot is first written to a temporary file which then replaces
+     * the target file so concurrent readers never observe a partially written
+     * snapshot.
+     * </p>
+     * 
+     * @param file
+     *            Snapshot file
+     * @throws IOException
+     *             Thrown if the snapshot cannot be written
+     */
+    void write(File file) throws IOException {
+        Set<Class<?>> contributors = new LinkedHashSet<>();
+        contributors.add(cliClass);
+        for (Class<?> commandType : records.keySet()) {
+            collectContributors(commandType, contributors);
+        }
+        byte[] digest = digest(contributors);
+
+        File target = file.getAbsoluteFile();
+        File temp = File.createTempFile(target.getName(), ".tmp", target.getParentFile());
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temp)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, cliClass.getName());
+                output.writeInt(contributors.size());
+                for (Class<?> contributor : contributors) {
+                    writeString(output, contributor.getName());
+                }
+                output.writeInt(digest.length);
+                output.write(digest);
+                output.writeInt(records.size());
+                for (Map.Entry<Class<?>, byte[]> record : records.entrySet()) {
+                    writeString(output, record.getKey().getName());
+                    output.writeInt(record.getValue().length);
+                    output.write(record.getValue());
+                }
+            }
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    /**
+     * Collects the classes that contribute to the injection meta-data of a
+     * type i.e. the type, its super classes and any types injected into it
+     */
+    private static void collectContributors(Class<?> type, Set<Class<?>> contributors) {
+        if (type.isInterface())
+            return;
+        for (Class<?> cls = type; !Object.class.equals(cls); cls = cls.getSuperclass()) {
+            if (!contributors.add(cls))
+                continue;
+            for (Field field : cls.getDeclaredFields()) {
+                if (isInjected(field) && !field.getType().equals(GlobalMetadata.class)
+                        && !field.getType().equals(CommandGroupMetadata.class)
+                        && !field.getType().equals(CommandMetadata.class)) {
+                    collectContributors(field.getType(), contributors);
+                }
+            }
+        }
+    }
+
+    private static boolean isInjected(Field field) {
+        if (field.isAnnotationPresent(Inject.class))
+            return true;
+        for (Annotation annotation : field.getAnnotations()) {
+            if (GUICE_INJECT.equals(annotation.annotationType().getName()))
+                return true;
+        }
+        return false;
+    }
+
+    private static byte[] digest(Collection<Class<?>> classes) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[8192];
+        for (Class<?> cls : classes) {
+            digest.update(cls.getName().getBytes(StandardCharsets.UTF_8));
+            try (InputStream input = cls.getResourceAsStream('/' + cls.getName().replace('.', '/') + ".class")) {
+                if (input == null)
+                    throw new FileNotFoundException(
+                            String.format("Class file for %s is not available", cls.getName()));
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] writeInjectionMetadata(InjectionMetadata injectionMetadata) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            List<OptionMetadata> options = new ArrayList<>();
+            options.addAll(injectionMetadata.getGlobalOptions());
+            options.addAll(injectionMetadata.getGroupOptions());
+            options.addAll(injectionMetadata.getCommandOptions());
+            output.writeInt(options.size());
+            for (OptionMetadata option : options) {
+                writeString(output, option.getOptionType().name());
+                writeStrings(output, option.getOptions());
+                writeString(output, option.getTitle());
+                writeString(output, option.getDescription());
+                output.writeInt(option.getArity());
+                output.writeBoolean(option.isHidden());
+                output.writeBoolean(option.isOverride());
+                output.writeBoolean(option.isSealed());
+                output.writeBoolean(option == injectionMetadata.getDefaultOption());
+                writeString(output, option.getTypeConverterProvider().getClass().getName());
+                writePath(output, option.getAccessors());
+            }
+
+            output.writeInt(injectionMetadata.getArguments().size());
+            for (ArgumentsMetadata arguments : injectionMetadata.getArguments()) {
+                writeStrings(output, arguments.getTitle());
+                writeString(output, arguments.getDescription());
+                writeString(output, arguments.getTypeConverterProvider().getClass().getName());
+                writePath(output, arguments.getAccessors());
+            }
+
+            output.writeInt(injectionMetadata.getMetadataInjections().size());
+            for (Accessor accessor : injectionMetadata.getMetadataInjections()) {
+                writePath(output, Collections.singleton(accessor));
+            }
+        } catch (IOException e) {
+            // Not possible when writing to memory
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static InjectionMetadata readInjectionMetadata(ByteBuffer record, ClassLoader loader)
+            throws ClassNotFoundException {
+        InjectionMetadata injectionMetadata = new InjectionMetadata();
+
+        int options = readCount(record);
+        for (int i = 0; i < options; i++) {
+            OptionType optionType = OptionType.valueOf(readString(record));
+            List<String> names = readStrings(record);
+            String title = readString(record);
+            String description = readString(record);
+            int arity = record.getInt();
+            boolean hidden = record.get() != 0;
+            boolean override = record.get() != 0;
+            boolean sealed = record.get() != 0;
+            boolean isDefault = record.get() != 0;
+            TypeConverterProvider provider = readProvider(record, loader);
+            List<Field> path = readPath(record, loader);
+            Field field = path.get(path.size() - 1);
+            // Like restrictions this is always taken from the field annotation
+            Option option = field.getAnnotation(Option.class);
+
+            //@formatter:off
+            injectionMetadata.addOption(new OptionMetadata(optionType, 
+                                                           names, 
+                                                           title, 
+                                                           description, 
+                                                           arity, 
+                                                           hidden, 
+                                                           override, 
+                                                           sealed, 
+                                                           option != null && option.valueSources(),
+                                                           MetadataLoader.loadOptionRestrictions(field), 
+                                                           provider, 
+                                                           path), isDefault, field);
+            //@formatter:on
+        }
+
+        int arguments = readCount(record);
+        for (int i = 0; i < arguments; i++) {
+            List<String> titles = readStrings(record);
+            String description = readString(record);
+            TypeConverterProvider provider = readProvider(record, loader);
+            List<Field> path = readPath(record, loader);
+            Field field = path.get(path.size() - 1);
+
+            //@formatter:off
+            injectionMetadata.addArguments(new ArgumentsMetadata(titles, 
+                                                                 description, 
+                                                                 MetadataLoader.loadArgumentsRestrictions(field), 
+                                                                 provider, 
+                                                                 path), field);
+            //@formatter:on
+        }
+
+        int injections = readCount(record);
+        for (int i = 0; i < injections; i++) {
+            injectionMetadata.addMetadataInjection(new Accessor(readPath(record, loader)));
+        }
+        return injectionMetadata;
+    }
+
+    private static TypeConverterProvider readProvider(ByteBuffer buffer, ClassLoader loader)
+            throws ClassNotFoundException {
+        Class<?> providerClass = Class.forName(readString(buffer), false, loader);
+        return MetadataLoader.loadTypeConverterProvider(providerClass.asSubclass(TypeConverterProvider.class));
+    }
+
+    private static void writePath(DataOutputStream output, Collection<Accessor> accessors) throws IOException {
+        // Prior to compaction there is precisely one accessor
+        List<Field> path = accessors.iterator().next().getPath();
+        output.writeInt(path.size());
+        for (Field field : path) {
+            writeString(output, field.getDeclaringClass().getName());
+            writeString(output, field.getName());
+        }
+    }
+
+    private static List<Field> readPath(ByteBuffer buffer, ClassLoader loader) throws ClassNotFoundException {
+        int length = readCount(buffer);
+        List<Field> path = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            Class<?> cls = Class.forName(readString(buffer), false, loader);
+            path.add(MetadataLoader.loadField(cls, readString(buffer)));
+        }
+        return path;
+    }
+
+    /**
+     * Reads a count, this is sanity checked against the remaining size of the
+     * buffer so that a corrupt snapshot can't cause huge allocations
+     */
+    private static int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining())
+            throw new BufferUnderflowException();
+        return count;
+    }
+
+    private static void writeStrings(DataOutputStream output, Collection<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            writeString(output, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int size = readCount(buffer);
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        if (length > buffer.remaining())
+            throw new BufferUnderflowException();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
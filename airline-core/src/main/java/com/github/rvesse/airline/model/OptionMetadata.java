@@ -37,10 +37,11 @@ public class OptionMetadata {
     private final Set<String> options;
     private final String title, description;
     private final int arity;
-    private final boolean hidden, overrides, sealed;
+    private final boolean hidden, overrides, sealed, valueSources;
     private final List<OptionRestriction> restrictions;
     private final TypeConverterProvider provider;
     private Set<Accessor> accessors;
+    private int hashCode;
 
     //@formatter:off
     public OptionMetadata(OptionType optionType, 
@@ -54,6 +55,38 @@ public class OptionMetadata {
                           Iterable<OptionRestriction> restrictions,
                           TypeConverterProvider typeConverterProvider,
                           Iterable<Field> path) {
+        this(optionType, options, title, description, arity, hidden, overrides, sealed, false, restrictions, 
+             typeConverterProvider, path);
+    }
+
+    public OptionMetadata(OptionType optionType, 
+                          Iterable<String> options, 
+                          String title, 
+                          String description, 
+                          int arity,
+                          boolean hidden, 
+                          boolean overrides, 
+                          boolean sealed,
+                          boolean valueSources,
+                          Iterable<OptionRestriction> restrictions,
+                          TypeConverterProvider typeConverterProvider,
+                          Iterable<Field> path) {
+        this(optionType, options, title, description, arity, hidden, overrides, sealed, valueSources, restrictions, 
+             typeConverterProvider, path != null ? new Accessor(path) : null);
+    }
+
+    public OptionMetadata(OptionType optionType, 
+                          Iterable<String> options, 
+                          String title, 
+                          String description, 
+                          int arity,
+                          boolean hidden, 
+                          boolean overrides, 
+                          boolean sealed,
+                          boolean valueSources,
+                          Iterable<OptionRestriction> restrictions,
+                          TypeConverterProvider typeConverterProvider,
+                          Accessor accessor) {
     //@formatter:on
         if (optionType == null)
             throw new NullPointerException("optionType cannot be null");
@@ -72,11 +105,12 @@ public class OptionMetadata {
         this.hidden = hidden;
         this.overrides = overrides;
         this.sealed = sealed;
+        this.valueSources = valueSources;
         this.restrictions = restrictions != null ? AirlineUtils.unmodifiableListCopy(restrictions) : Collections.<OptionRestriction>emptyList();
         this.provider = typeConverterProvider != null ? typeConverterProvider : new DefaultTypeConverterProvider();
 
-        if (path != null) {
-            this.accessors = SetUtils.unmodifiableSet(AirlineUtils.singletonSet(new Accessor(path)));
+        if (accessor != null) {
+            this.accessors = SetUtils.unmodifiableSet(AirlineUtils.singletonSet(accessor));
         }
     }
 
@@ -96,6 +130,7 @@ public class OptionMetadata {
         this.hidden = option.hidden;
         this.overrides = option.overrides;
         this.sealed = option.sealed;
+        this.valueSources = option.valueSources;
         this.restrictions = option.restrictions;
         this.provider = option.provider;
 
@@ -146,6 +181,16 @@ public class OptionMetadata {
         return sealed;
     }
 
+    /**
+     * Gets whether values for this option may be read from standard input or
+     * a file by giving a value of {@code -} or {@code @path}
+     * 
+     * @return True if value sources are allowed, false otherwise
+     */
+    public boolean allowsValueSources() {
+        return valueSources;
+    }
+
     public boolean isMultiValued() {
         return accessors.iterator().next().isMultiValued();
     }
@@ -192,6 +237,9 @@ public class OptionMetadata {
         if (sealed != that.sealed) {
             return false;
         }
+        if (valueSources != that.valueSources) {
+            return false;
+        }
         if (description != null ? !description.equals(that.description) : that.description != null) {
             return false;
         }
@@ -210,6 +258,17 @@ public class OptionMetadata {
 
     @Override
     public int hashCode() {
+        // Options are frequently used as map keys so cache the hash code, it
+        // depends only on immutable fields
+        int result = this.hashCode;
+        if (result == 0) {
+            result = computeHashCode();
+            this.hashCode = result;
+        }
+        return result;
+    }
+
+    private int computeHashCode() {
         int result = optionType.hashCode();
         result = 31 * result + options.hashCode();
         result = 31 * result + title.hashCode();
@@ -218,6 +277,7 @@ public class OptionMetadata {
         result = 31 * result + (hidden ? 1 : 0);
         result = 31 * result + (overrides ? 1 : 0);
         result = 31 * result + (sealed ? 1 : 0);
+        result = 31 * result + (valueSources ? 1 : 0);
         return result;
     }
 
@@ -233,6 +293,7 @@ public class OptionMetadata {
         sb.append(", hidden=").append(hidden);
         sb.append(", override=").append(overrides);
         sb.append(", sealed=").append(sealed);
+        sb.append(", valueSources=").append(valueSources);
         sb.append(", accessors=").append(accessors);
         sb.append('}');
         return sb.toString();
@@ -319,9 +380,10 @@ public class OptionMetadata {
                                     child.hidden, 
                                     child.overrides,
                                     child.sealed,
+                                    child.valueSources,
                                     child.restrictions.size() > 0 ? child.restrictions : parent.restrictions,
                                     child.provider,
-                                    null);
+                                    (Accessor) null);
         //@formatter:on
 
         // Combine both child and parent accessors - this is necessary so the
@@ -15,7 +15,12 @@
  */
 package com.github.rvesse.airline.model;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -25,6 +30,8 @@ import com.github.rvesse.airline.parser.aliases.UserAliasesSource;
 import com.github.rvesse.airline.parser.errors.handlers.FailFast;
 import com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler;
 import com.github.rvesse.airline.parser.options.OptionParser;
+import com.github.rvesse.airline.parser.options.ShapedOptionParser;
+import com.github.rvesse.airline.parser.options.TokenShape;
 import com.github.rvesse.airline.types.DefaultTypeConverter;
 import com.github.rvesse.airline.types.TypeConverter;
 import com.github.rvesse.airline.utils.AirlineUtils;
@@ -41,18 +48,41 @@ public class ParserMetadata<T> {
 
     private final boolean allowAbbreviatedCommands, allowAbbreviatedOptions, aliasesOverrideBuiltIns, aliasesMayChain;
     private final List<OptionParser<T>> optionParsers;
+    private final Map<TokenShape, List<OptionParser<T>>> optionParsersByShape;
     private final List<AliasMetadata> aliases;
+    private final Map<String, AliasMetadata> aliasesByName;
     private final UserAliasesSource<T> userAliases;
     private final TypeConverter typeConverter;
     private final CommandFactory<T> commandFactory;
-    private final String argsSeparator, flagNegationPrefix;
+    private final String argsSeparator, flagNegationPrefix, argumentsFilePrefix;
     private final ParserErrorHandler errorHandler;
+    private final Executor validationExecutor;
 
     public ParserMetadata(CommandFactory<T> commandFactory, List<OptionParser<T>> optionParsers,
             TypeConverter typeConverter, ParserErrorHandler errorHandler, boolean allowAbbreviateCommands,
             boolean allowAbbreviatedOptions, List<AliasMetadata> aliases, UserAliasesSource<T> userAliases,
             boolean aliasesOverrideBuiltIns, boolean aliasesMayChain, String argumentsSeparator,
             String flagNegationPrefix) {
+        this(commandFactory, optionParsers, typeConverter, errorHandler, allowAbbreviateCommands,
+                allowAbbreviatedOptions, aliases, userAliases, aliasesOverrideBuiltIns, aliasesMayChain,
+                argumentsSeparator, flagNegationPrefix, null);
+    }
+
+    public ParserMetadata(CommandFactory<T> commandFactory, List<OptionParser<T>> optionParsers,
+            TypeConverter typeConverter, ParserErrorHandler errorHandler, boolean allowAbbreviateCommands,
+            boolean allowAbbreviatedOptions, List<AliasMetadata> aliases, UserAliasesSource<T> userAliases,
+            boolean aliasesOverrideBuiltIns, boolean aliasesMayChain, String argumentsSeparator,
+            String flagNegationPrefix, String argumentsFilePrefix) {
+        this(commandFactory, optionParsers, typeConverter, errorHandler, allowAbbreviateCommands,
+                allowAbbreviatedOptions, aliases, userAliases, aliasesOverrideBuiltIns, aliasesMayChain,
+                argumentsSeparator, flagNegationPrefix, argumentsFilePrefix, null);
+    }
+
+    public ParserMetadata(CommandFactory<T> commandFactory, List<OptionParser<T>> optionParsers,
+            TypeConverter typeConverter, ParserErrorHandler errorHandler, boolean allowAbbreviateCommands,
+            boolean allowAbbreviatedOptions, List<AliasMetadata> aliases, UserAliasesSource<T> userAliases,
+            boolean aliasesOverrideBuiltIns, boolean aliasesMayChain, String argumentsSeparator,
+            String flagNegationPrefix, String argumentsFilePrefix, Executor validationExecutor) {
         if (optionParsers == null)
             throw new NullPointerException("optionParsers cannot be null");
         if (aliases == null)
@@ -68,10 +98,26 @@ public class ParserMetadata<T> {
         // Option Parsing
         this.typeConverter = typeConverter != null ? typeConverter : new DefaultTypeConverter();
         this.optionParsers = AirlineUtils.unmodifiableListCopy(optionParsers);
+        this.optionParsersByShape = new EnumMap<TokenShape, List<OptionParser<T>>>(TokenShape.class);
+        for (TokenShape shape : TokenShape.values()) {
+            List<OptionParser<T>> shapeParsers = new ArrayList<OptionParser<T>>();
+            for (OptionParser<T> optionParser : this.optionParsers) {
+                if (!(optionParser instanceof ShapedOptionParser)
+                        || ((ShapedOptionParser<T>) optionParser).getAcceptedShapes().contains(shape))
+                    shapeParsers.add(optionParser);
+            }
+            this.optionParsersByShape.put(shape, AirlineUtils.unmodifiableListCopy(shapeParsers));
+        }
         this.allowAbbreviatedOptions = allowAbbreviatedOptions;
 
         // Aliases
         this.aliases = AirlineUtils.unmodifiableListCopy(aliases);
+        this.aliasesByName = new HashMap<String, AliasMetadata>();
+        for (AliasMetadata alias : this.aliases) {
+            // Where names are duplicated the first definition wins
+            if (alias != null && !this.aliasesByName.containsKey(alias.getName()))
+                this.aliasesByName.put(alias.getName(), alias);
+        }
         this.userAliases = userAliases;
         this.aliasesOverrideBuiltIns = aliasesOverrideBuiltIns;
         this.aliasesMayChain = aliasesMayChain;
@@ -87,6 +133,47 @@ public class ParserMetadata<T> {
         // Flag negation
         this.flagNegationPrefix = StringUtils.isNotEmpty(flagNegationPrefix) ? flagNegationPrefix : null;
 
+        // Arguments files
+        if (StringUtils.containsWhitespace(argumentsFilePrefix))
+            throw new IllegalArgumentException("argumentsFilePrefix cannot contain any whitespace");
+        this.argumentsFilePrefix = StringUtils.isNotEmpty(argumentsFilePrefix) ? argumentsFilePrefix : null;
+
+        // Asynchronous validation
+        this.validationExecutor = validationExecutor;
+    }
+
+    /**
+     * Creates a copy of this configuration that uses a different error handler
+     * 
+     * @param errorHandler
+     *            Error handler
+     * @return Parser configuration
+     */
+    public ParserMetadata<T> withErrorHandler(ParserErrorHandler errorHandler) {
+        return new ParserMetadata<T>(this, errorHandler);
+    }
+
+    /**
+     * Copies a configuration with a different error handler, the indexes
+     * derived from the configuration are shared rather than being rebuilt
+     */
+    private ParserMetadata(ParserMetadata<T> other, ParserErrorHandler errorHandler) {
+        this.errorHandler = errorHandler != null ? errorHandler : new FailFast();
+        this.commandFactory = other.commandFactory;
+        this.allowAbbreviatedCommands = other.allowAbbreviatedCommands;
+        this.typeConverter = other.typeConverter;
+        this.optionParsers = other.optionParsers;
+        this.optionParsersByShape = other.optionParsersByShape;
+        this.allowAbbreviatedOptions = other.allowAbbreviatedOptions;
+        this.aliases = other.aliases;
+        this.aliasesByName = other.aliasesByName;
+        this.userAliases = other.userAliases;
+        this.aliasesOverrideBuiltIns = other.aliasesOverrideBuiltIns;
+        this.aliasesMayChain = other.aliasesMayChain;
+        this.argsSeparator = other.argsSeparator;
+        this.flagNegationPrefix = other.flagNegationPrefix;
+        this.argumentsFilePrefix = other.argumentsFilePrefix;
+        this.validationExecutor = other.validationExecutor;
     }
 
     /**
@@ -125,6 +212,17 @@ public class ParserMetadata<T> {
         return aliases;
     }
 
+    /**
+     * Gets the alias with the given name
+     * 
+     * @param name
+     *            Alias name
+     * @return Alias, or {@code null} if no such alias is defined
+     */
+    public AliasMetadata getAlias(String name) {
+        return aliasesByName.get(name);
+    }
+
     /**
      * Gets the user aliases source (if any)
      * 
@@ -162,6 +260,19 @@ public class ParserMetadata<T> {
         return optionParsers;
     }
 
+    /**
+     * Gets the option parsers that may be able to parse a token of the given
+     * shape, this is the subset of the option parsers that either accept the
+     * shape or do not declare the shapes they accept in their configured order
+     * 
+     * @param shape
+     *            Token shape
+     * @return Option parsers
+     */
+    public List<OptionParser<T>> getOptionParsers(TokenShape shape) {
+        return optionParsersByShape.get(shape);
+    }
+
     /**
      * Gets whether command/group name abbreviation is allowed
      * 
@@ -207,6 +318,37 @@ public class ParserMetadata<T> {
         return this.flagNegationPrefix;
     }
 
+    /**
+     * Gets whether this configuration allows arguments files i.e. whether
+     * tokens starting with the arguments file prefix are expanded into the
+     * arguments contained in the file
+     * 
+     * @return True if arguments files are allowed, false otherwise
+     */
+    public boolean allowsArgumentsFiles() {
+        return this.argumentsFilePrefix != null;
+    }
+
+    /**
+     * Gets the arguments file prefix that is in use (if any)
+     * 
+     * @return Arguments file prefix, may be {@code null} if not enabled
+     */
+    public String getArgumentsFilePrefix() {
+        return this.argumentsFilePrefix;
+    }
+
+    /**
+     * Gets the executor to which asynchronous restriction validations are
+     * submitted (if any)
+     * 
+     * @return Validation executor, may be {@code null} in which case
+     *         asynchronous validations are run immediately
+     */
+    public Executor getValidationExecutor() {
+        return this.validationExecutor;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -220,6 +362,8 @@ public class ParserMetadata<T> {
         sb.append(", aliasesOverrideBuiltIns=").append(aliasesOverrideBuiltIns);
         sb.append(", argumentsSeparator='").append(argsSeparator).append("'");
         sb.append(", flagNegationPrefix='").append(flagNegationPrefix).append("'");
+        sb.append(", argumentsFilePrefix='").append(argumentsFilePrefix).append("'");
+        sb.append(", validationExecutor=").append(validationExecutor);
         sb.append("}");
         return sb.toString();
     }
@@ -0,0 +1,585 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.nativeimage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.github.rvesse.airline.Accessor;
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Parser;
+import com.github.rvesse.airline.annotations.help.Version;
+import com.github.rvesse.airline.help.sections.common.VersionSection;
+import com.github.rvesse.airline.help.sections.factories.HelpSectionFactory;
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.GeneratedCommandMetadata;
+import com.github.rvesse.airline.model.GlobalMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.parser.options.OptionParser;
+import com.github.rvesse.airline.restrictions.GlobalRestriction;
+import com.github.rvesse.airline.restrictions.factories.ArgumentsRestrictionFactory;
+import com.github.rvesse.airline.restrictions.factories.GlobalRestrictionFactory;
+import com.github.rvesse.airline.restrictions.factories.OptionRestrictionFactory;
+import com.github.rvesse.airline.types.DefaultTypeConverterProvider;
+import com.github.rvesse.airline.types.TypeConverterProvider;
+
+/**
+ * Generates the reachability metadata that GraalVM {@code native-image} needs
+ * in order to build a native executable of an Airline CLI
+ * <p>
+ * Airline discovers and populates commands via reflection, instantiates
+ * parser components and delegate objects reflectively, converts values via
+ * reflectively discovered {@code fromString(String)}, {@code valueOf(String)}
+ * and string constructor conversions and discovers restriction and help
+ * section factories via the {@link ServiceLoader}. None of these are visible
+ * to the static analysis that {@code native-image} performs so this generator
+ * walks the meta-data of a CLI and records every class, field, constructor,
+ * method and resource that Airline will need at runtime.
+ * </p>
+ * <p>
+ * The generated {@code reflect-config.json} and {@code resource-config.json}
+ * are sorted so the same CLI always produces identical files, this allows
+ * them to be checked into source control and diffed without needing GraalVM
+ * installed. They are intended to be placed under
+ * {@code META-INF/native-image/<group>/<artifact>/} in the CLI's JAR.
+ * </p>
+ */
+public class ReachabilityMetadataGenerator {
+
+    /**
+     * File name for the generated reflection configuration
+     */
+    public static final String REFLECT_CONFIG = "reflect-config.json";
+    /**
+     * File name for the generated resource configuration
+     */
+    public static final String RESOURCE_CONFIG = "resource-config.json";
+
+    private static final String SERVICES_PREFIX = "META-INF/services/";
+    private static final String CONSTRUCTOR = "<init>";
+    private static final String STRING_TYPE = String.class.getName();
+
+    /**
+     * Services that Airline discovers via the {@link ServiceLoader}, every
+     * registered provider is instantiated so they all need their constructors
+     * registering
+     */
+    private static final Class<?>[] SERVICES = { OptionRestrictionFactory.class, ArgumentsRestrictionFactory.class,
+            GlobalRestrictionFactory.class, HelpSectionFactory.class, GeneratedCommandMetadata.class };
+
+    /**
+     * Types that the default type converter handles without reflection
+     */
+    private static final Set<Class<?>> BASIC_TYPES = new HashSet<Class<?>>();
+
+    static {
+        BASIC_TYPES.add(String.class);
+        BASIC_TYPES.add(Boolean.class);
+        BASIC_TYPES.add(Byte.class);
+        BASIC_TYPES.add(Short.class);
+        BASIC_TYPES.add(Integer.class);
+        BASIC_TYPES.add(Long.class);
+        BASIC_TYPES.add(Float.class);
+        BASIC_TYPES.add(Double.class);
+    }
+
+    private final Map<String, ReflectedType> types = new TreeMap<>();
+    private final SortedSet<String> resources = new TreeSet<>();
+    private final Set<Class<?>> visitedCommands = new HashSet<>();
+
+    /**
+     * Creates a new generator, use one of the static factory methods to
+     * obtain a generator for a CLI
+     */
+    protected ReachabilityMetadataGenerator() {
+        for (Class<?> service : SERVICES) {
+            addService(service);
+        }
+    }
+
+    /**
+     * Creates a generator for a CLI defined via the
+     * {@link com.github.rvesse.airline.annotations.Cli} annotation
+     * 
+     * @param cliClass
+     *            CLI class
+     * @return Generator
+     */
+    public static ReachabilityMetadataGenerator forCli(Class<?> cliClass) {
+        if (cliClass == null)
+            throw new NullPointerException("cliClass cannot be null");
+        Cli<?> cli = new Cli<Object>(cliClass);
+
+        ReachabilityMetadataGenerator generator = new ReachabilityMetadataGenerator();
+        generator.type(cliClass);
+        com.github.rvesse.airline.annotations.Cli cliConfig = cliClass
+                .getAnnotation(com.github.rvesse.airline.annotations.Cli.class);
+        generator.addParser(cliConfig.parserConfiguration());
+        for (Class<? extends GlobalRestriction> restriction : cliConfig.restrictions()) {
+            generator.addConstructors(restriction);
+        }
+        generator.addVersionResources(cliClass);
+        generator.addGlobal(cli.getMetadata());
+        return generator;
+    }
+
+    /**
+     * Creates a generator for a CLI whose meta-data has already been built,
+     * e.g. via a {@link com.github.rvesse.airline.builder.CliBuilder}
+     * 
+     * @param metadata
+     *            CLI meta-data
+     * @return Generator
+     */
+    public static ReachabilityMetadataGenerator forMetadata(GlobalMetadata<?> metadata) {
+        if (metadata == null)
+            throw new NullPointerException("metadata cannot be null");
+        ReachabilityMetadataGenerator generator = new ReachabilityMetadataGenerator();
+        generator.addGlobal(metadata);
+        return generator;
+    }
+
+    /**
+     * Creates a generator for a single command i.e. a command used via
+     * {@link SingleCommand}
+     * 
+     * @param commandClass
+     *            Command class
+     * @return Generator
+     */
+    public static ReachabilityMetadataGenerator forCommand(Class<?> commandClass) {
+        if (commandClass == null)
+            throw new NullPointerException("commandClass cannot be null");
+        SingleCommand<?> command = SingleCommand.singleCommand(commandClass);
+
+        ReachabilityMetadataGenerator generator = new ReachabilityMetadataGenerator();
+        Parser parserConfig = commandClass.getAnnotation(Parser.class);
+        if (parserConfig != null)
+            generator.addParser(parserConfig);
+        generator.addParser(command.getParserConfiguration());
+        generator.addCommand(command.getCommandMetadata());
+        return generator;
+    }
+
+    /**
+     * Gets the names of the types that will be registered for reflection
+     * 
+     * @return Type names
+     */
+    public Set<String> getReflectedTypes() {
+        return Collections.unmodifiableSet(this.types.keySet());
+    }
+
+    /**
+     * Gets the resources that will be included in the native image
+     * 
+     * @return Resource paths
+     */
+    public Set<String> getResources() {
+        return Collections.unmodifiableSet(this.resources);
+    }
+
+    /**
+     * Gets the reflection configuration i.e. the contents of
+     * {@value #REFLECT_CONFIG}
+     * 
+     * @return Reflection configuration
+     */
+    public String getReflectConfig() {
+        StringBuilder json = new StringBuilder();
+        json.append("[\n");
+        boolean first = true;
+        for (ReflectedType type : this.types.values()) {
+            if (!first)
+                json.append(",\n");
+            type.appendTo(json);
+            first = false;
+        }
+        json.append("\n]\n");
+        return json.toString();
+    }
+
+    /**
+     * Gets the resource configuration i.e. the contents of
+     * {@value #RESOURCE_CONFIG}
+     * 
+     * @return Resource configuration
+     */
+    public String getResourceConfig() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"resources\" : {\n    \"includes\" : [\n");
+        boolean first = true;
+        for (String resource : this.resources) {
+            if (!first)
+                json.append(",\n");
+            json.append("      { \"pattern\" : ");
+            appendString(json, "\\Q" + resource + "\\E");
+            json.append(" }");
+            first = false;
+        }
+        json.append("\n    ]\n  }\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes the generated configuration files into the given directory
+     * 
+     * @param directory
+     *            Directory, created if it does not already exist
+     * @throws IOException
+     *             Thrown if the files cannot be written
+     */
+    public void writeTo(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException(String.format("Unable to create directory %s", directory));
+        write(new File(directory, REFLECT_CONFIG), getReflectConfig());
+        write(new File(directory, RESOURCE_CONFIG), getResourceConfig());
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(contents);
+        }
+    }
+
+    //
+    // Meta-data walking
+    //
+
+    private void addGlobal(GlobalMetadata<?> metadata) {
+        addParser(metadata.getParserConfiguration());
+        for (OptionMetadata option : metadata.getOptions()) {
+            addOption(option);
+        }
+        if (metadata.getDefaultCommand() != null)
+            addCommand(metadata.getDefaultCommand());
+        for (CommandMetadata command : metadata.getDefaultGroupCommands()) {
+            addCommand(command);
+        }
+        for (CommandGroupMetadata group : metadata.getCommandGroups()) {
+            addGroup(group);
+        }
+    }
+
+    private void addGroup(CommandGroupMetadata group) {
+        for (OptionMetadata option : group.getOptions()) {
+            addOption(option);
+        }
+        if (group.getDefaultCommand() != null)
+            addCommand(group.getDefaultCommand());
+        for (CommandMetadata command : group.getCommands()) {
+            addCommand(command);
+        }
+        for (CommandGroupMetadata subGroup : group.getSubGroups()) {
+            addGroup(subGroup);
+        }
+    }
+
+    private void addParser(Parser parserConfig) {
+        for (Class<?> optionParser : parserConfig.optionParsers()) {
+            addConstructors(optionParser);
+        }
+        addConstructors(parserConfig.commandFactory());
+        addConstructors(parserConfig.typeConverter());
+        addConstructors(parserConfig.numericTypeConverter());
+        addConstructors(parserConfig.errorHandler());
+    }
+
+    private void addParser(ParserMetadata<?> parserConfig) {
+        for (OptionParser<?> optionParser : parserConfig.getOptionParsers()) {
+            addConstructors(optionParser.getClass());
+        }
+        addConstructors(parserConfig.getCommandFactory().getClass());
+        addConstructors(parserConfig.getTypeConverter().getClass());
+        addConstructors(parserConfig.getErrorHandler().getClass());
+    }
+
+    private void addCommand(CommandMetadata command) {
+        Class<?> commandType = command.getType();
+        if (!this.visitedCommands.add(commandType))
+            return;
+
+        // Commands are scanned for annotated fields and created via their
+        // default constructor
+        addHierarchy(commandType);
+        addConstructors(commandType);
+        addVersionResources(commandType);
+
+        for (OptionMetadata option : command.getAllOptions()) {
+            addOption(option);
+        }
+        if (command.getArguments() != null)
+            addArguments(command.getArguments());
+        for (Accessor accessor : command.getMetadataInjections()) {
+            addAccessor(accessor);
+        }
+    }
+
+    private void addOption(OptionMetadata option) {
+        for (Accessor accessor : option.getAccessors()) {
+            addAccessor(accessor);
+        }
+        addConversions(option.getJavaType());
+        addTypeConverterProvider(option.getTypeConverterProvider());
+    }
+
+    private void addArguments(ArgumentsMetadata arguments) {
+        for (Accessor accessor : arguments.getAccessors()) {
+            addAccessor(accessor);
+        }
+        addConversions(arguments.getJavaType());
+        addTypeConverterProvider(arguments.getTypeConverterProvider());
+    }
+
+    private void addTypeConverterProvider(TypeConverterProvider provider) {
+        if (provider != null && !DefaultTypeConverterProvider.class.equals(provider.getClass()))
+            addConstructors(provider.getClass());
+    }
+
+    private void addAccessor(Accessor accessor) {
+        List<Field> path = accessor.getPath();
+        for (int i = 0; i < path.size(); i++) {
+            Field field = path.get(i);
+            addHierarchy(field.getDeclaringClass());
+            if (Modifier.isFinal(field.getModifiers()))
+                type(field.getDeclaringClass()).writableFields.add(field.getName());
+
+            if (i < path.size() - 1) {
+                // Intermediate delegate objects are created on demand
+                addHierarchy(field.getType());
+                addConstructors(field.getType());
+            }
+        }
+
+        Class<?> fieldType = path.get(path.size() - 1).getType();
+        if (Collection.class.isAssignableFrom(fieldType)) {
+            Class<?> collectionType = getCollectionImplementation(fieldType);
+            type(collectionType).methods.add(new ReflectedMethod(CONSTRUCTOR));
+        }
+    }
+
+    /**
+     * Registers the string conversions that the default type converter will
+     * look for on the given type
+     * 
+     * @param type
+     *            Type
+     */
+    private void addConversions(Class<?> type) {
+        if (type == null || type.isPrimitive() || BASIC_TYPES.contains(type))
+            return;
+
+        // Enums are converted via their constants rather than valueOf(String)
+        type(type);
+        String[] methodNames = type.isEnum() ? new String[] { "fromString" }
+                : new String[] { "fromString", "valueOf" };
+        for (String methodName : methodNames) {
+            try {
+                Method method = type.getMethod(methodName, String.class);
+                if (Modifier.isStatic(method.getModifiers()))
+                    type(type).methods.add(new ReflectedMethod(methodName, STRING_TYPE));
+            } catch (NoSuchMethodException e) {
+                // Not a conversion this type supports
+            }
+        }
+        try {
+            type.getConstructor(String.class);
+            type(type).methods.add(new ReflectedMethod(CONSTRUCTOR, STRING_TYPE));
+        } catch (NoSuchMethodException e) {
+            // Not a conversion this type supports
+        }
+    }
+
+    private void addVersionResources(Class<?> cls) {
+        Version version = cls.getAnnotation(Version.class);
+        if (version == null)
+            return;
+        String base = VersionSection.class.getPackage().getName().replace('.', '/') + "/";
+        for (String source : version.sources()) {
+            if (source.startsWith("file://"))
+                continue;
+            this.resources.add(source.startsWith("/") ? source.substring(1) : base + source);
+        }
+    }
+
+    private void addService(Class<?> service) {
+        this.resources.add(SERVICES_PREFIX + service.getName());
+        for (Object provider : ServiceLoader.load(service)) {
+            addConstructors(provider.getClass());
+        }
+    }
+
+    private void addHierarchy(Class<?> cls) {
+        while (cls != null && !Object.class.equals(cls) && !cls.isInterface()) {
+            type(cls).allDeclaredFields = true;
+            cls = cls.getSuperclass();
+        }
+    }
+
+    private void addConstructors(Class<?> cls) {
+        if (cls == null || cls.isInterface() || Modifier.isAbstract(cls.getModifiers()))
+            return;
+        type(cls).allDeclaredConstructors = true;
+    }
+
+    private ReflectedType type(Class<?> cls) {
+        ReflectedType type = this.types.get(cls.getName());
+        if (type == null) {
+            type = new ReflectedType(cls.getName());
+            this.types.put(type.name, type);
+        }
+        return type;
+    }
+
+    private static Class<?> getCollectionImplementation(Class<?> type) {
+        // Must mirror the collection types that Accessor creates
+        if (Collection.class.equals(type) || List.class.equals(type)) {
+            return ArrayList.class;
+        } else if (Set.class.equals(type)) {
+            return HashSet.class;
+        } else if (SortedSet.class.equals(type)) {
+            return TreeSet.class;
+        }
+        return type;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+            case '\\':
+                json.append('\\').append(c);
+                break;
+            default:
+                if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Reflection configuration for a single type
+     */
+    private static final class ReflectedType {
+        private final String name;
+        private boolean allDeclaredConstructors, allDeclaredFields;
+        private final SortedSet<String> writableFields = new TreeSet<>();
+        private final SortedSet<ReflectedMethod> methods = new TreeSet<>();
+
+        private ReflectedType(String name) {
+            this.name = name;
+        }
+
+        private void appendTo(StringBuilder json) {
+            json.append("  {\n    \"name\" : ");
+            appendString(json, this.name);
+            if (this.allDeclaredConstructors)
+                json.append(",\n    \"allDeclaredConstructors\" : true");
+            if (this.allDeclaredFields)
+                json.append(",\n    \"allDeclaredFields\" : true");
+            if (!this.writableFields.isEmpty()) {
+                json.append(",\n    \"fields\" : [");
+                boolean first = true;
+                for (String field : this.writableFields) {
+                    json.append(first ? "\n" : ",\n");
+                    json.append("      { \"name\" : ");
+                    appendString(json, field);
+                    json.append(", \"allowWrite\" : true }");
+                    first = false;
+                }
+                json.append("\n    ]");
+            }
+            if (!this.methods.isEmpty()) {
+                json.append(",\n    \"methods\" : [");
+                boolean first = true;
+                for (ReflectedMethod method : this.methods) {
+                    json.append(first ? "\n" : ",\n");
+                    method.appendTo(json);
+                    first = false;
+                }
+                json.append("\n    ]");
+            }
+            json.append("\n  }");
+        }
+    }
+
+    /**
+     * Reflection configuration for a single method or constructor
+     */
+    private static final class ReflectedMethod implements Comparable<ReflectedMethod> {
+        private final String name;
+        private final String[] parameterTypes;
+
+        private ReflectedMethod(String name, String... parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+        }
+
+        private String signature() {
+            StringBuilder signature = new StringBuilder(this.name).append('(');
+            for (int i = 0; i < this.parameterTypes.length; i++) {
+                if (i > 0)
+                    signature.append(',');
+                signature.append(this.parameterTypes[i]);
+            }
+            return signature.append(')').toString();
+        }
+
+        @Override
+        public int compareTo(ReflectedMethod other) {
+            return signature().compareTo(other.signature());
+        }
+
+        private void appendTo(StringBuilder json) {
+            json.append("      { \"name\" : ");
+            appendString(json, this.name);
+            json.append(", \"parameterTypes\" : [");
+            for (int i = 0; i < this.parameterTypes.length; i++) {
+                json.append(i > 0 ? ", " : " ");
+                appendString(json, this.parameterTypes[i]);
+            }
+            json.append(this.parameterTypes.length > 0 ? " ] }" : "] }");
+        }
+    }
+}
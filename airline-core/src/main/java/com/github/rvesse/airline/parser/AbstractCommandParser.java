@@ -23,17 +23,16 @@ import com.github.rvesse.airline.model.GlobalMetadata;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.model.ParserMetadata;
 import com.github.rvesse.airline.parser.aliases.AliasResolver;
+import com.github.rvesse.airline.parser.errors.handlers.AbstractCollectingHandler;
+import com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler;
 import com.github.rvesse.airline.parser.options.OptionParser;
+import com.github.rvesse.airline.parser.options.TokenShape;
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.AirlineUtils;
-import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedCommandFinder;
-import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedGroupFinder;
-import com.github.rvesse.airline.utils.predicates.parser.CommandFinder;
-import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
 
+import java.util.Iterator;
 import java.util.List;
 
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.Predicate;
 import org.apache.commons.collections4.iterators.PeekingIterator;
 
 /**
@@ -68,27 +67,81 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
      * @return Parser State
      */
     protected ParseState<T> tryParse(GlobalMetadata<T> metadata, Iterable<String> args) {
-        PeekingIterator<String> tokens = new PeekingIterator<String>(args.iterator());
+        ParserMetadata<T> parserConfig = prepareConfiguration(metadata.getParserConfiguration());
+        PeekingIterator<String> tokens = new PeekingIterator<String>(expandArgumentsFiles(parserConfig, args));
 
         //@formatter:off
         ParseState<T> state = ParseState.<T> newInstance()
                                         .pushContext(Context.GLOBAL)
-                                        .withGlobal(metadata);
+                                        .withGlobal(metadata)
+                                        .withConfiguration(parserConfig);
         //@formatter:on
 
-        // Parse global options
-        state = parseOptions(tokens, state, metadata.getOptions());
+        ParseState<T> initialState = state;
+        boolean completed = false;
+        try {
+            // Parse global options
+            state = parseOptions(tokens, state, metadata.getOptions());
 
-        // Apply aliases
-        tokens = applyAliases(tokens, state);
+            // Apply aliases
+            tokens = applyAliases(tokens, state);
 
-        // Parse group
-        state = parseGroup(tokens, state);
+            // Parse group
+            state = parseGroup(tokens, state);
 
-        // parse command
-        state = parseCommand(tokens, state);
+            // parse command
+            state = parseCommand(tokens, state);
 
-        return state;
+            completed = true;
+            return state;
+        } finally {
+            // Parse abandoned so nobody will wait for outstanding validations
+            if (!completed)
+                initialState.cancelValidations();
+        }
+    }
+
+    /**
+     * Prepares the parser configuration to be used for a single parse
+     * <p>
+     * Parsers may be shared between threads so any configuration that
+     * accumulates state during a parse, currently only error handlers derived
+     * from {@link AbstractCollectingHandler}, is replaced with a fresh instance
+     * so that concurrent parses never observe each others errors.
+     * </p>
+     * 
+     * @param parserConfig
+     *            Parser Configuration
+     * @return Parser configuration for a single parse
+     */
+    protected ParserMetadata<T> prepareConfiguration(ParserMetadata<T> parserConfig) {
+        if (parserConfig == null)
+            return null;
+        ParserErrorHandler handler = parserConfig.getErrorHandler();
+        if (handler instanceof AbstractCollectingHandler) {
+            return parserConfig.withErrorHandler(((AbstractCollectingHandler) handler).newInstance());
+        }
+        return parserConfig;
+    }
+
+    /**
+     * Gets the tokens to parse, expanding any arguments files if the parser
+     * configuration allows them
+     * <p>
+     * Arguments files are expanded lazily as tokens are consumed so the
+     * arguments within them are never collected together in memory.
+     * </p>
+     * 
+     * @param parserConfig
+     *            Parser Configuration
+     * @param args
+     *            Arguments
+     * @return Tokens
+     */
+    protected Iterator<String> expandArgumentsFiles(ParserMetadata<T> parserConfig, Iterable<String> args) {
+        if (parserConfig == null || !parserConfig.allowsArgumentsFiles())
+            return args.iterator();
+        return new ArgumentsFileIterator(args.iterator(), parserConfig.getArgumentsFilePrefix());
     }
 
     protected PeekingIterator<String> applyAliases(PeekingIterator<String> tokens, ParseState<T> state) {
@@ -108,7 +161,8 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
      * @return Parser State
      */
     protected ParseState<T> tryParse(ParserMetadata<T> parserConfig, CommandMetadata command, Iterable<String> args) {
-        PeekingIterator<String> tokens = new PeekingIterator<String>(args.iterator());
+        parserConfig = prepareConfiguration(parserConfig);
+        PeekingIterator<String> tokens = new PeekingIterator<String>(expandArgumentsFiles(parserConfig, args));
         //@formatter:off
         ParseState<T> state = ParseState.<T> newInstance()
                                         .pushContext(Context.GLOBAL)
@@ -117,25 +171,31 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
                                         .pushContext(Context.COMMAND);
         //@formatter:off
 
-        state = parseCommandOptionsAndArguments(tokens, state, command);
-        return state;
+        ParseState<T> initialState = state;
+        boolean completed = false;
+        try {
+            state = parseCommandOptionsAndArguments(tokens, state, command);
+            completed = true;
+            return state;
+        } finally {
+            // Parse abandoned so nobody will wait for outstanding validations
+            if (!completed)
+                initialState.cancelValidations();
+        }
     }
 
     protected ParseState<T> parseCommand(PeekingIterator<String> tokens, ParseState<T> state) {
-        Predicate<CommandMetadata> findCommandPredicate;
-        List<CommandMetadata> expectedCommands = state.getGlobal().getDefaultGroupCommands();
+        AbbreviationTrie<CommandMetadata> expectedCommands = state.getGlobal().getDefaultGroupCommandsTrie();
         if (state.getGroup() != null) {
-            expectedCommands = state.getGroup().getCommands();
+            expectedCommands = state.getGroup().getCommandsTrie();
         }
 
         if (tokens.hasNext()) {
-            //@formatter:off
-            findCommandPredicate = state.getParserConfiguration().allowsAbbreviatedCommands() 
-                                   ? new AbbreviatedCommandFinder(tokens.peek(), expectedCommands)
-                                   : new CommandFinder(tokens.peek());
-            //@formatter:on
-            CommandMetadata command = AirlineUtils.find(expectedCommands, findCommandPredicate,
-                    state.getGroup() != null ? state.getGroup().getDefaultCommand() : null);
+            CommandMetadata command = expectedCommands.find(tokens.peek(),
+                    state.getParserConfiguration().allowsAbbreviatedCommands());
+            if (command == null && state.getGroup() != null) {
+                command = state.getGroup().getDefaultCommand();
+            }
 
             boolean usingDefault = false;
             if (command == null && state.getGroup() == null && state.getGlobal().getDefaultCommand() != null) {
@@ -167,19 +227,17 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
             state = parseOptions(tokens, state, command.getCommandOptions());
 
             state = parseArgs(state, tokens, command.getArguments(), command.getDefaultOption());
+            if (state.getStreamedArguments() != null)
+                break;
         }
         return state;
     }
 
     protected ParseState<T> parseGroup(PeekingIterator<String> tokens, ParseState<T> state) {
-        Predicate<CommandGroupMetadata> findGroupPredicate;
         if (tokens.hasNext()) {
-            //@formatter:off
-            findGroupPredicate = state.getParserConfiguration().allowsAbbreviatedCommands() 
-                                 ? new AbbreviatedGroupFinder(tokens.peek(), state.getGlobal().getCommandGroups()) 
-                                 : new GroupFinder(tokens.peek());
-            //@formatter:on
-            CommandGroupMetadata group = CollectionUtils.find(state.getGlobal().getCommandGroups(), findGroupPredicate);
+            boolean allowAbbreviation = state.getParserConfiguration().allowsAbbreviatedCommands();
+            CommandGroupMetadata group = state.getGlobal().getCommandGroupsTrie().find(tokens.peek(),
+                    allowAbbreviation);
             if (group != null) {
                 tokens.next();
                 state = state.withGroup(group).pushContext(Context.GROUP);
@@ -187,12 +245,7 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
 
                 // Possibly may have sub-groups specified
                 while (tokens.hasNext() && state.getGroup().getSubGroups().size() > 0) {
-                    //@formatter:off
-                    findGroupPredicate = state.getParserConfiguration().allowsAbbreviatedCommands() 
-                                         ? new AbbreviatedGroupFinder(tokens.peek(), state.getGroup().getSubGroups()) 
-                                         : new GroupFinder(tokens.peek());
-                    //@formatter:on
-                    group = CollectionUtils.find(state.getGroup().getSubGroups(), findGroupPredicate);
+                    group = state.getGroup().getSubGroupsTrie().find(tokens.peek(), allowAbbreviation);
                     if (group != null) {
                         tokens.next();
                         state = state.withGroup(group).pushContext(Context.GROUP);
@@ -214,17 +267,17 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
     private ParseState<T> parseOptions(PeekingIterator<String> tokens, ParseState<T> state,
             List<OptionMetadata> allowedOptions) {
 
-        // Get the option parsers in use
-        List<OptionParser<T>> optionParsers = state.getParserConfiguration().getOptionParsers();
+        ParserMetadata<T> parserConfig = state.getParserConfiguration();
 
         while (tokens.hasNext()) {
             // Try to parse next option(s) using different styles. If code
             // matches it returns the next parser state, otherwise it returns
             // null.
 
-            // Try each option parser in turn
+            // Classify the token once and try each option parser that may
+            // be able to parse a token of that shape in turn
             boolean matched = false;
-            for (OptionParser<T> optionParser : optionParsers) {
+            for (OptionParser<T> optionParser : parserConfig.getOptionParsers(TokenShape.classify(tokens.peek()))) {
                 ParseState<T> nextState = optionParser.parseOptions(tokens, state, allowedOptions);
 
                 if (nextState != null) {
@@ -251,6 +304,16 @@ public abstract class AbstractCommandParser<T> extends AbstractParser<T> {
             OptionMetadata defaultOption) {
         String sep = state.getParserConfiguration().getArgumentsSeparator();
 
+        if (tokens.hasNext() && arguments != null && arguments.isStreaming()) {
+            // Streamed arguments are consumed lazily by the command so leave
+            // all remaining tokens in place
+            state = state.pushContext(Context.ARGS);
+            if (tokens.peek().equals(sep)) {
+                tokens.next();
+            }
+            return state.withStreamedArguments(tokens);
+        }
+
         if (tokens.hasNext()) {
             if (tokens.peek().equals(sep)) {
                 state = state.pushContext(Context.ARGS);
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.parser.errors.ParseArgumentsMissingException;
+import com.github.rvesse.airline.parser.errors.ParseTooManyArgumentsException;
+import com.github.rvesse.airline.restrictions.ArgumentsRestriction;
+import com.github.rvesse.airline.restrictions.common.OccurrencesRestriction;
+import com.github.rvesse.airline.types.TypeConverter;
+
+/**
+ * A stream of arguments that are converted and validated lazily as they are
+ * consumed
+ * <p>
+ * When an {@link com.github.rvesse.airline.annotations.Arguments} annotated
+ * field is of this type, or of type {@link Iterator}, the parser stops at the
+ * first argument and leaves all remaining tokens unconsumed. Each value is
+ * then pre-validated, converted and post-validated only when the command asks
+ * for it so memory use does not depend upon the number of arguments.
+ * </p>
+ * <p>
+ * Since parsing has already completed by this point any errors are thrown
+ * directly as {@link com.github.rvesse.airline.parser.errors.ParseException}
+ * from {@link #next()} and {@link #hasNext()}, these bypass the configured
+ * {@link com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler}
+ * entirely so will not appear in a
+ * {@link ParseResult} even when using an
+ * error handler that collects errors.
+ * </p>
+ * <p>
+ * A stream may only be consumed once, as a result options must precede the
+ * arguments. Maximum and minimum occurrences restrictions are enforced as the
+ * stream is consumed, attempting to consume more than the maximum number of
+ * values fails as does exhausting the stream having consumed fewer than the
+ * minimum number of values. Any other restrictions that depend upon the total
+ * number of arguments can only be enforced when no arguments are present.
+ * </p>
+ * 
+ * @param <T>
+ *            Argument type
+ */
+public final class ArgumentStream<T> implements Iterator<T>, Iterable<T> {
+    private final ParseState<?> state;
+    private final ArgumentsMetadata arguments;
+    private final Iterator<String> tokens;
+    private final int minOccurrences, maxOccurrences;
+    private TypeConverter converter;
+    private int consumed = 0;
+
+    /**
+     * Creates a new stream
+     * 
+     * @param state
+     *            Parser state to validate and convert values against
+     * @param arguments
+     *            Arguments metadata
+     * @param tokens
+     *            Raw tokens to be consumed
+     */
+    public ArgumentStream(ParseState<?> state, ArgumentsMetadata arguments, Iterator<String> tokens) {
+        if (state == null)
+            throw new NullPointerException("state cannot be null");
+        if (arguments == null)
+            throw new NullPointerException("arguments cannot be null");
+        if (tokens == null)
+            throw new NullPointerException("tokens cannot be null");
+        this.state = state;
+        this.arguments = arguments;
+        this.tokens = tokens;
+
+        // Occurrences restrictions can only be enforced as the stream is
+        // consumed
+        int min = 0, max = Integer.MAX_VALUE;
+        for (ArgumentsRestriction restriction : arguments.getRestrictions()) {
+            if (!(restriction instanceof OccurrencesRestriction))
+                continue;
+            OccurrencesRestriction occurrences = (OccurrencesRestriction) restriction;
+            if (occurrences.getOccurrences() <= 0)
+                continue;
+            if (occurrences.isMaximum()) {
+                max = Math.min(max, occurrences.getOccurrences());
+            } else {
+                min = Math.max(min, occurrences.getOccurrences());
+            }
+        }
+        this.minOccurrences = min;
+        this.maxOccurrences = max;
+    }
+
+    /**
+     * Gets the number of values consumed from the stream so far
+     * 
+     * @return Number of values consumed
+     */
+    public int getConsumed() {
+        return this.consumed;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * @throws ParseArgumentsMissingException
+     *             Thrown if the stream is exhausted having consumed fewer
+     *             values than a minimum occurrences restriction requires
+     */
+    @Override
+    public boolean hasNext() {
+        if (this.tokens.hasNext())
+            return true;
+        if (this.consumed < this.minOccurrences) {
+            throw new ParseArgumentsMissingException("At least %d arguments must be specified but only %d were found",
+                    missingTitles(), this.minOccurrences, this.consumed);
+        }
+        return false;
+    }
+
+    private List<String> missingTitles() {
+        List<String> titles = this.arguments.getTitle();
+        if (this.consumed >= titles.size())
+            return Collections.emptyList();
+        return titles.subList(this.consumed, Math.min(this.minOccurrences, titles.size()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        if (this.consumed >= this.maxOccurrences) {
+            throw new ParseTooManyArgumentsException("At most %d arguments may be specified but %d were found",
+                    this.maxOccurrences, this.consumed + 1);
+        }
+        String rawValue = this.tokens.next();
+
+        // Validate against a state that reflects the position of this value so
+        // that position dependent restrictions and titles apply correctly
+        ParseState<?> valueState = this.state.withStreamedArgumentsConsumed(this.consumed);
+        for (ArgumentsRestriction restriction : this.arguments.getRestrictions()) {
+            restriction.preValidate(valueState, this.arguments, rawValue);
+        }
+
+        if (this.converter == null) {
+            this.converter = this.arguments.getTypeConverterProvider().getTypeConverter(this.arguments, this.state);
+        }
+        Object value = this.converter.convert(this.arguments.getTitle().get(0), this.arguments.getJavaType(),
+                rawValue);
+
+        for (ArgumentsRestriction restriction : this.arguments.getRestrictions()) {
+            restriction.postValidate(valueState, this.arguments, value);
+        }
+        this.consumed++;
+        return (T) value;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Arguments cannot be removed from an argument stream");
+    }
+
+    /**
+     * Returns this stream, since the stream can only be consumed once
+     * iterating it more than once continues from where the previous iteration
+     * stopped
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ArgumentStream{arguments=" + this.arguments.getTitle() + ", consumed=" + this.consumed + '}';
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.github.rvesse.airline.parser.errors.ParseException;
+
+/**
+ * An iterator over command line tokens that expands arguments files
+ * <p>
+ * Any token that starts with the configured prefix, typically {@code @}, is
+ * treated as the path to an arguments file whose contents are substituted in
+ * place of the token. Arguments files may themselves refer to further
+ * arguments files, relative paths are always resolved against the current
+ * working directory. A token that starts with the prefix twice e.g.
+ * {@code @@foo} is not expanded but instead passed through with the first
+ * prefix removed i.e. as {@code @foo}.
+ * </p>
+ * <p>
+ * Arguments files are read as UTF-8 and split into arguments using the same
+ * rules as alias definitions, see
+ * {@link com.github.rvesse.airline.parser.aliases.AliasArgumentsParser}.
+ * Arguments are separated by white space, an argument may be enclosed in
+ * double quotes in which case it may contain white space and {@code \"} is
+ * used to include a literal double quote, otherwise a {@code \} may be used to
+ * escape a white space character.
+ * </p>
+ * <p>
+ * Files are memory mapped and arguments are only read from them as they are
+ * consumed so very large arguments files can be used without their contents
+ * ever being held in memory as a whole.
+ * </p>
+ */
+public class ArgumentsFileIterator implements Iterator<String> {
+
+    /**
+     * Default prefix used to denote an arguments file
+     */
+    public static final String DEFAULT_PREFIX = "@";
+
+    /**
+     * Default size of the regions of a file that are mapped at once
+     */
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final String prefix;
+    private final int regionSize;
+    private final Deque<Iterator<String>> sources = new ArrayDeque<Iterator<String>>();
+    private String next;
+
+    /**
+     * Creates a new iterator
+     * 
+     * @param tokens
+     *            Tokens to expand
+     * @param prefix
+     *            Prefix used to denote an arguments file
+     */
+    public ArgumentsFileIterator(Iterator<String> tokens, String prefix) {
+        this(tokens, prefix, DEFAULT_REGION_SIZE);
+    }
+
+    ArgumentsFileIterator(Iterator<String> tokens, String prefix, int regionSize) {
+        if (tokens == null)
+            throw new NullPointerException("tokens cannot be null");
+        if (prefix == null || prefix.isEmpty())
+            throw new IllegalArgumentException("prefix cannot be null/empty");
+        // Each region must be able to hold at least one complete UTF-8
+        // encoded character
+        if (regionSize < 4)
+            throw new IllegalArgumentException("regionSize must be at least 4 bytes");
+        this.prefix = prefix;
+        this.regionSize = regionSize;
+        this.sources.push(tokens);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.next == null) {
+            Iterator<String> source = this.sources.peek();
+            if (source == null)
+                return false;
+            if (!source.hasNext()) {
+                this.sources.pop();
+                continue;
+            }
+
+            String token = source.next();
+            if (token.length() > this.prefix.length() && token.startsWith(this.prefix)) {
+                String path = token.substring(this.prefix.length());
+                if (path.startsWith(this.prefix)) {
+                    // Escaped prefix
+                    this.next = path;
+                } else {
+                    this.sources.push(open(path));
+                }
+            } else {
+                this.next = token;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        String token = this.next;
+        this.next = null;
+        return token;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private FileTokens open(String path) {
+        File file = new File(path);
+        String canonicalPath;
+        try {
+            canonicalPath = file.getCanonicalPath();
+        } catch (IOException e) {
+            throw new ParseException(e, "Unable to read arguments file %s", path);
+        }
+        // Detect files that directly/indirectly include themselves
+        for (Iterator<String> source : this.sources) {
+            if (source instanceof FileTokens && ((FileTokens) source).canonicalPath.equals(canonicalPath))
+                throw new ParseException("Arguments file %s recursively references itself", path);
+        }
+        if (!file.isFile() || !file.canRead())
+            throw new ParseException("Arguments file %s does not exist or is not readable", path);
+        return new FileTokens(file, canonicalPath, this.regionSize);
+    }
+
+    /**
+     * Reads the arguments from a single file as they are needed
+     */
+    private static final class FileTokens implements Iterator<String> {
+        private final File file;
+        private final String canonicalPath;
+        private final int regionSize;
+        private final long size;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final CharBuffer chars = CharBuffer.allocate(8192);
+        private final StringBuilder arg = new StringBuilder();
+        private MappedByteBuffer bytes;
+        private long offset;
+        private boolean eof;
+        private String next;
+
+        private FileTokens(File file, String canonicalPath, int regionSize) {
+            this.file = file;
+            this.canonicalPath = canonicalPath;
+            this.regionSize = regionSize;
+            this.size = file.length();
+            // Start with no buffered characters
+            this.chars.flip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null)
+                this.next = readArgument();
+            return this.next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            String arg = this.next;
+            this.next = null;
+            return arg;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private String readArgument() {
+            // Skip separating white space
+            int c;
+            do {
+                c = read();
+            } while (c != -1 && Character.isWhitespace(c));
+            if (c == -1)
+                return null;
+
+            this.arg.setLength(0);
+            if (c == '"') {
+                // Quoted argument
+                while (true) {
+                    c = read();
+                    if (c == -1)
+                        throw new ParseException("Mismatched quotes in arguments file %s", this.file);
+                    if (c == '"')
+                        return this.arg.toString();
+                    if (c == '\\' && peek() == '"')
+                        c = read();
+                    this.arg.append((char) c);
+                }
+            }
+
+            // Unquoted argument, continues to the next unescaped white space
+            while (c != -1 && !Character.isWhitespace(c)) {
+                if (c == '\\') {
+                    int escaped = peek();
+                    if (escaped != -1 && Character.isWhitespace(escaped))
+                        c = read();
+                }
+                this.arg.append((char) c);
+                c = read();
+            }
+            return this.arg.toString();
+        }
+
+        private int peek() {
+            if (!this.chars.hasRemaining())
+                fill();
+            return this.chars.hasRemaining() ? this.chars.get(this.chars.position()) : -1;
+        }
+
+        private int read() {
+            if (!this.chars.hasRemaining())
+                fill();
+            return this.chars.hasRemaining() ? this.chars.get() : -1;
+        }
+
+        /**
+         * Decodes the next batch of characters from the file, mapping regions
+         * of the file as needed
+         */
+        private void fill() {
+            this.chars.clear();
+            try {
+                while (this.chars.position() == 0 && !this.eof) {
+                    if (this.bytes == null)
+                        map();
+                    boolean lastRegion = this.offset + this.bytes.capacity() >= this.size;
+                    CoderResult result = this.decoder.decode(this.bytes, this.chars, lastRegion);
+                    if (result.isUnderflow()) {
+                        if (lastRegion) {
+                            this.decoder.flush(this.chars);
+                            this.eof = true;
+                        } else {
+                            // Map the next region starting from the first
+                            // byte not yet decoded, this may be part way
+                            // through a multi-byte character
+                            this.offset += this.bytes.position();
+                            this.bytes = null;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new ParseException(e, "Unable to read arguments file %s", this.file);
+            }
+            this.chars.flip();
+        }
+
+        private void map() throws IOException {
+            try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+                long length = Math.min(this.regionSize, this.size - this.offset);
+                this.bytes = channel.map(FileChannel.MapMode.READ_ONLY, this.offset, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.github.rvesse.airline.model.OptionMetadata;
+
+/**
+ * Mutable append only storage for the values accumulated during a parse
+ * <p>
+ * A single accumulator is shared by the chain of {@link ParseState} instances
+ * produced during a parse, each state records how many of the values in each
+ * column it can see. Values below those counts are never modified so each
+ * state remains an immutable view while appending in the common single pass
+ * case is amortised constant time rather than requiring a copy of all
+ * previously accumulated values.
+ * </p>
+ * <p>
+ * If a value is appended from a state that is not at the tip of a column, as
+ * may happen when an option parser backtracks and continues from an earlier
+ * state, then the accumulator is copied up to the counts seen by that state
+ * and the value appended to the copy so that other states are unaffected.
+ * </p>
+ * <p>
+ * Like the rest of the parser an accumulator is only intended to be used by a
+ * single thread, each parse starts with its own fresh accumulator.
+ * </p>
+ * <p>
+ * The accumulator also carries a cache that lives for the whole parse, this is
+ * shared with any truncated copies since it holds derived facts rather than
+ * parsed values. Unlike the values the cache is thread safe so restrictions
+ * may populate it from multiple threads. Similarly any asynchronous
+ * validations submitted during the parse are tracked for the whole parse so
+ * that they can be completed before final validation.
+ * </p>
+ */
+final class ParseAccumulator {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private OptionMetadata[] options;
+    private Object[] optionValues;
+    private int optionCount;
+    private Object[] arguments;
+    private int argumentCount;
+    private String[] unparsed;
+    private int unparsedCount;
+    private final ConcurrentMap<Object, Object> cache;
+    private final List<Future<?>> validations;
+
+    ParseAccumulator() {
+        this(new OptionMetadata[INITIAL_CAPACITY], new Object[INITIAL_CAPACITY], 0, new Object[INITIAL_CAPACITY], 0,
+                new String[INITIAL_CAPACITY], 0, new ConcurrentHashMap<Object, Object>(),
+                new ArrayList<Future<?>>());
+    }
+
+    private ParseAccumulator(OptionMetadata[] options, Object[] optionValues, int optionCount, Object[] arguments,
+            int argumentCount, String[] unparsed, int unparsedCount, ConcurrentMap<Object, Object> cache,
+            List<Future<?>> validations) {
+        this.options = options;
+        this.optionValues = optionValues;
+        this.optionCount = optionCount;
+        this.arguments = arguments;
+        this.argumentCount = argumentCount;
+        this.unparsed = unparsed;
+        this.unparsedCount = unparsedCount;
+        this.cache = cache;
+        this.validations = validations;
+    }
+
+    /**
+     * Gets an accumulator that may be appended to by a state which sees the
+     * given counts
+     * 
+     * @return This accumulator if the state is at the tip of the column being
+     *         appended to, otherwise a truncated copy
+     */
+    private ParseAccumulator forAppend(boolean atTip, int optionCount, int argumentCount, int unparsedCount) {
+        if (atTip)
+            return this;
+
+        //@formatter:off
+        return new ParseAccumulator(Arrays.copyOf(this.options, Math.max(optionCount * 2, INITIAL_CAPACITY)), 
+                                    Arrays.copyOf(this.optionValues, Math.max(optionCount * 2, INITIAL_CAPACITY)), 
+                                    optionCount,
+                                    Arrays.copyOf(this.arguments, Math.max(argumentCount * 2, INITIAL_CAPACITY)), 
+                                    argumentCount, 
+                                    Arrays.copyOf(this.unparsed, Math.max(unparsedCount * 2, INITIAL_CAPACITY)), 
+                                    unparsedCount,
+                                    this.cache,
+                                    this.validations);
+        //@formatter:on
+    }
+
+    ParseAccumulator appendOption(int optionCount, int argumentCount, int unparsedCount,
+            OptionMetadata option, Object value) {
+        ParseAccumulator target = forAppend(optionCount == this.optionCount, optionCount, argumentCount,
+                unparsedCount);
+        if (target.optionCount == target.options.length) {
+            target.options = Arrays.copyOf(target.options, target.options.length * 2);
+            target.optionValues = Arrays.copyOf(target.optionValues, target.optionValues.length * 2);
+        }
+        target.options[target.optionCount] = option;
+        target.optionValues[target.optionCount] = value;
+        target.optionCount++;
+        return target;
+    }
+
+    ParseAccumulator appendArgument(int optionCount, int argumentCount, int unparsedCount,
+            Object value) {
+        ParseAccumulator target = forAppend(argumentCount == this.argumentCount, optionCount, argumentCount,
+                unparsedCount);
+        if (target.argumentCount == target.arguments.length) {
+            target.arguments = Arrays.copyOf(target.arguments, target.arguments.length * 2);
+        }
+        target.arguments[target.argumentCount++] = value;
+        return target;
+    }
+
+    ParseAccumulator appendUnparsed(int optionCount, int argumentCount, int unparsedCount,
+            String input) {
+        ParseAccumulator target = forAppend(unparsedCount == this.unparsedCount, optionCount, argumentCount,
+                unparsedCount);
+        if (target.unparsedCount == target.unparsed.length) {
+            target.unparsed = Arrays.copyOf(target.unparsed, target.unparsed.length * 2);
+        }
+        target.unparsed[target.unparsedCount++] = input;
+        return target;
+    }
+
+    /**
+     * Gets the cache for the parse this accumulator belongs to
+     * 
+     * @return Parse cache
+     */
+    ConcurrentMap<Object, Object> cache() {
+        return this.cache;
+    }
+
+    /**
+     * Records an asynchronous validation that has been submitted
+     * 
+     * @param validation
+     *            Validation
+     */
+    void addValidation(Future<?> validation) {
+        this.validations.add(validation);
+    }
+
+    /**
+     * Removes all outstanding asynchronous validations
+     * 
+     * @return Outstanding validations in the order they were submitted
+     */
+    List<Future<?>> drainValidations() {
+        List<Future<?>> drained = new ArrayList<>(this.validations);
+        this.validations.clear();
+        return drained;
+    }
+
+    /**
+     * Gets an immutable view of the first {@code count} parsed options
+     * 
+     * @param count
+     *            Count
+     * @return Parsed options
+     */
+    List<Pair<OptionMetadata, Object>> parsedOptions(final int count) {
+        return new AbstractList<Pair<OptionMetadata, Object>>() {
+            @Override
+            public Pair<OptionMetadata, Object> get(int index) {
+                checkIndex(index, count);
+                return Pair.of(options[index], optionValues[index]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Gets an immutable view of the first {@code count} parsed arguments
+     * 
+     * @param count
+     *            Count
+     * @return Parsed arguments
+     */
+    List<Object> parsedArguments(final int count) {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                checkIndex(index, count);
+                return arguments[index];
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Gets an immutable view of the first {@code count} unparsed inputs
+     * 
+     * @param count
+     *            Count
+     * @return Unparsed input
+     */
+    List<String> unparsedInput(final int count) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                checkIndex(index, count);
+                return unparsed[index];
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    private static void checkIndex(int index, int count) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException(String.format("Index %d is not in range 0-%d", index, count - 1));
+    }
+}
@@ -21,6 +21,7 @@ import static com.github.rvesse.airline.parser.ParserUtil.createInstance;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import com.github.rvesse.airline.model.CommandGroupMetadata;
@@ -109,14 +110,22 @@ public class ParseResult<T> {
         bindings.put(ParserMetadata.class, state.getParserConfiguration());
         bindings = AirlineUtils.unmodifiableMapCopy(bindings);
 
+        // Streamed arguments are bound as a stream over the remaining tokens
+        Iterable<Object> parsedArguments = state.getParsedArguments();
+        if (command.getArguments() != null && command.getArguments().isStreaming()) {
+            Iterator<String> tokens = state.getStreamedArguments();
+            parsedArguments = new ArgumentStream<Object>(state, command.getArguments(),
+                    tokens != null ? tokens : Collections.<String> emptyIterator());
+        }
+
         if (state.getGlobal() != null) {
             // Create instance
             return createInstance(command.getType(), command.getAllOptions(), state.getParsedOptions(),
-                    command.getArguments(), state.getParsedArguments(), command.getMetadataInjections(), bindings,
+                    command.getArguments(), parsedArguments, command.getMetadataInjections(), bindings,
                     state.getParserConfiguration().getCommandFactory());
         } else {
             return createInstance(command.getType(), command.getAllOptions(), state.getParsedOptions(),
-                    command.getArguments(), state.getParsedArguments(), command.getMetadataInjections(), bindings,
+                    command.getArguments(), parsedArguments, command.getMetadataInjections(), bindings,
                     state.getParserConfiguration().getCommandFactory());
         }
 
@@ -25,140 +25,217 @@ import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.model.ParserMetadata;
 import com.github.rvesse.airline.parser.errors.ParseException;
 import com.github.rvesse.airline.restrictions.ArgumentsRestriction;
+import com.github.rvesse.airline.restrictions.AsyncArgumentsRestriction;
+import com.github.rvesse.airline.restrictions.AsyncOptionRestriction;
 import com.github.rvesse.airline.restrictions.OptionRestriction;
 import com.github.rvesse.airline.types.TypeConverter;
-import com.github.rvesse.airline.utils.AirlineUtils;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+/**
+ * Represents the state of the parser
+ * <p>
+ * Parse states are immutable, each modification returns a new state. The
+ * values accumulated during a parse are held in storage shared between
+ * successive states so that each modification is constant time rather than
+ * requiring a copy of all the values accumulated so far.
+ * </p>
+ *
+ * @param <T>
+ *            Command type
+ */
 public class ParseState<T> {
-    private final List<Context> locationStack;
+    private final Locations locationStack;
     private final GlobalMetadata<T> global;
-    private final ParserMetadata<T> parserConfig;
+    private final ParserMetadata<T> parserConfig, effectiveConfig;
     private final CommandGroupMetadata group;
     private final CommandMetadata command;
-    private final List<Pair<OptionMetadata, Object>> parsedOptions;
-    private final List<Object> parsedArguments;
+    private final ParseAccumulator accumulator;
+    private final int optionCount, argumentCount, unparsedCount;
     private final OptionMetadata currentOption;
-    private final List<String> unparsedInput;
-
-    ParseState(GlobalMetadata<T> global, ParserMetadata<T> parserConfig, CommandGroupMetadata group,
-            CommandMetadata command, List<Pair<OptionMetadata, Object>> parsedOptions, List<Context> locationStack,
-            List<Object> parsedArguments, OptionMetadata currentOption, List<String> unparsedInput) {
+    private final Iterator<String> streamedArguments;
+    private final int streamedCount;
+    private volatile ParsedOptionsIndex parsedOptionsIndex;
+
+    private ParseState(GlobalMetadata<T> global, ParserMetadata<T> parserConfig, CommandGroupMetadata group,
+            CommandMetadata command, Locations locationStack, OptionMetadata currentOption,
+            ParseAccumulator accumulator, int optionCount, int argumentCount, int unparsedCount,
+            Iterator<String> streamedArguments, int streamedCount) {
         this.global = global;
-        if (global != null) {
-            this.parserConfig = global.getParserConfiguration();
-        } else if (parserConfig != null) {
-            this.parserConfig = parserConfig;
+        this.parserConfig = parserConfig;
+        // An explicitly supplied configuration takes precedence over the
+        // global configuration since parsers use this to supply per-parse
+        // configuration e.g. a fresh error handler
+        if (parserConfig != null) {
+            this.effectiveConfig = parserConfig;
+        } else if (global != null) {
+            this.effectiveConfig = global.getParserConfiguration();
         } else {
-            this.parserConfig = ParserBuilder.<T> defaultConfiguration();
+            this.effectiveConfig = ParserBuilder.<T> defaultConfiguration();
         }
         this.group = group;
         this.command = command;
-        this.parsedOptions = parsedOptions;
         this.locationStack = locationStack;
-        this.parsedArguments = parsedArguments;
         this.currentOption = currentOption;
-        this.unparsedInput = unparsedInput;
+        this.accumulator = accumulator;
+        this.optionCount = optionCount;
+        this.argumentCount = argumentCount;
+        this.unparsedCount = unparsedCount;
+        this.streamedArguments = streamedArguments;
+        this.streamedCount = streamedCount;
     }
 
     public static <T> ParseState<T> newInstance() {
-        return new ParseState<T>(null, null, null, null, new ArrayList<Pair<OptionMetadata, Object>>(),
-                Collections.<Context> emptyList(), Collections.<Object> emptyList(), null,
-                Collections.<String> emptyList());
+        return new ParseState<T>(null, null, null, null, null, null, new ParseAccumulator(), 0, 0, 0, null, 0);
     }
 
-    public ParseState<T> pushContext(Context location) {
-        List<Context> locations = AirlineUtils.listCopy(this.locationStack);
-        locations.add(location);
+    /**
+     * Creates a copy of this state with some of its fields changed
+     */
+    private ParseState<T> copy(GlobalMetadata<T> global, ParserMetadata<T> parserConfig, CommandGroupMetadata group,
+            CommandMetadata command, Locations locationStack, OptionMetadata currentOption) {
+        return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption, accumulator,
+                optionCount, argumentCount, unparsedCount, streamedArguments, streamedCount);
+    }
 
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locations, parsedArguments,
-                currentOption, unparsedInput);
+    public ParseState<T> pushContext(Context location) {
+        return copy(global, parserConfig, group, command, new Locations(location, locationStack), currentOption);
     }
 
     public ParseState<T> popContext() {
-        List<Context> locationStack = AirlineUtils
-                .unmodifiableListCopy(this.locationStack.subList(0, this.locationStack.size() - 1));
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, unparsedInput);
+        if (locationStack == null)
+            throw new IllegalStateException("No context to pop");
+        return copy(global, parserConfig, group, command, locationStack.parent, currentOption);
     }
 
     public ParseState<T> withOptionValue(OptionMetadata option, String rawValue) {
-        // Pre-validate
-        for (OptionRestriction restriction : option.getRestrictions()) {
-            try {
-                restriction.preValidate(this, option, rawValue);
-            } catch (ParseException e) {
-                this.parserConfig.getErrorHandler().handleError(e);
-            }
+        if (option.allowsValueSources() && ValueSources.isSource(rawValue)) {
+            return withOptionValueSource(option, rawValue);
         }
 
+        preValidate(option, rawValue);
+
         try {
             // Convert value
             TypeConverter converter = option.getTypeConverterProvider().getTypeConverter(option, this);
             Object value = converter.convert(option.getTitle(), option.getJavaType(), rawValue);
 
-            // Post-validate
-            for (OptionRestriction restriction : option.getRestrictions()) {
-                try {
+            postValidate(option, value);
+
+            ParseAccumulator newAccumulator = accumulator.appendOption(optionCount, argumentCount, unparsedCount,
+                    option, value);
+            return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption,
+                    newAccumulator, optionCount + 1, argumentCount, unparsedCount, streamedArguments, streamedCount);
+        } catch (ParseException e) {
+            this.effectiveConfig.getErrorHandler().handleError(e);
+
+            return withUnparsedInput(rawValue);
+        }
+    }
+
+    private void preValidate(OptionMetadata option, String rawValue) {
+        for (OptionRestriction restriction : option.getRestrictions()) {
+            try {
+                if (restriction instanceof AsyncOptionRestriction) {
+                    submitValidation(((AsyncOptionRestriction) restriction).preValidateAsync(this, option, rawValue));
+                } else {
+                    restriction.preValidate(this, option, rawValue);
+                }
+            } catch (ParseException e) {
+                this.effectiveConfig.getErrorHandler().handleError(e);
+            }
+        }
+    }
+
+    private void postValidate(OptionMetadata option, Object value) {
+        for (OptionRestriction restriction : option.getRestrictions()) {
+            try {
+                if (restriction instanceof AsyncOptionRestriction) {
+                    submitValidation(((AsyncOptionRestriction) restriction).postValidateAsync(this, option, value));
+                } else {
                     restriction.postValidate(this, option, value);
-                } catch (ParseException e) {
-                    this.parserConfig.getErrorHandler().handleError(e);
                 }
+            } catch (ParseException e) {
+                this.effectiveConfig.getErrorHandler().handleError(e);
             }
+        }
+    }
 
-            List<Pair<OptionMetadata, Object>> newOptions = AirlineUtils.listCopy(parsedOptions);
-            newOptions.add(Pair.of(option, value));
+    private ParseState<T> withOptionValueSource(final OptionMetadata option, String source) {
+        try {
+            // All the values from the source are accumulated as a single
+            // primitive array, each value is validated individually as it
+            // would have been had it been given directly
+            TypeConverter converter = option.getTypeConverterProvider().getTypeConverter(option, this);
+            ValueSources.Validator validator = null;
+            if (!option.getRestrictions().isEmpty()) {
+                validator = new ValueSources.Validator() {
+                    @Override
+                    public void preValidate(String value) {
+                        ParseState.this.preValidate(option, value);
+                    }
+
+                    @Override
+                    public void postValidate(Object value) {
+                        ParseState.this.postValidate(option, value);
+                    }
+                };
+            }
+            Object values = ValueSources.read(option, converter, source, validator);
 
-            return new ParseState<T>(global, parserConfig, group, command, newOptions, locationStack, parsedArguments,
-                    currentOption, unparsedInput);
+            ParseAccumulator newAccumulator = accumulator.appendOption(optionCount, argumentCount, unparsedCount,
+                    option, values);
+            return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption,
+                    newAccumulator, optionCount + 1, argumentCount, unparsedCount, streamedArguments, streamedCount);
         } catch (ParseException e) {
-            this.parserConfig.getErrorHandler().handleError(e);
-
-            List<String> newUnparsed = AirlineUtils.listCopy(unparsedInput);
-            newUnparsed.add(rawValue);
+            this.effectiveConfig.getErrorHandler().handleError(e);
 
-            return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack,
-                    parsedArguments, currentOption, newUnparsed);
+            return withUnparsedInput(source);
         }
     }
 
     public ParseState<T> withGlobal(GlobalMetadata<T> global) {
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, unparsedInput);
+        return copy(global, parserConfig, group, command, locationStack, currentOption);
     }
 
     public ParseState<T> withConfiguration(ParserMetadata<T> parserConfig) {
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, unparsedInput);
+        return copy(global, parserConfig, group, command, locationStack, currentOption);
     }
 
     public ParseState<T> withGroup(CommandGroupMetadata group) {
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, unparsedInput);
+        return copy(global, parserConfig, group, command, locationStack, currentOption);
     }
 
     public ParseState<T> withCommand(CommandMetadata command) {
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, unparsedInput);
+        return copy(global, parserConfig, group, command, locationStack, currentOption);
     }
 
     public ParseState<T> withOption(OptionMetadata option) {
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                option, unparsedInput);
+        return copy(global, parserConfig, group, command, locationStack, option);
     }
 
     public ParseState<T> withArgument(ArgumentsMetadata arguments, String rawValue) {
         // Pre-validate
         for (ArgumentsRestriction restriction : arguments.getRestrictions()) {
             try {
-                restriction.preValidate(this, arguments, rawValue);
+                if (restriction instanceof AsyncArgumentsRestriction) {
+                    submitValidation(
+                            ((AsyncArgumentsRestriction) restriction).preValidateAsync(this, arguments, rawValue));
+                } else {
+                    restriction.preValidate(this, arguments, rawValue);
+                }
             } catch (ParseException e) {
-                this.parserConfig.getErrorHandler().handleError(e);
+                this.effectiveConfig.getErrorHandler().handleError(e);
             }
         }
 
@@ -170,45 +247,163 @@ public class ParseState<T> {
             // Post-validate
             for (ArgumentsRestriction restriction : arguments.getRestrictions()) {
                 try {
-                    restriction.postValidate(this, arguments, value);
+                    if (restriction instanceof AsyncArgumentsRestriction) {
+                        submitValidation(
+                                ((AsyncArgumentsRestriction) restriction).postValidateAsync(this, arguments, value));
+                    } else {
+                        restriction.postValidate(this, arguments, value);
+                    }
                 } catch (ParseException e) {
-                    this.parserConfig.getErrorHandler().handleError(e);
+                    this.effectiveConfig.getErrorHandler().handleError(e);
                 }
             }
 
-            List<Object> newArguments = AirlineUtils.listCopy(parsedArguments);
-            newArguments.add(value);
-
-            return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, newArguments,
-                    currentOption, unparsedInput);
+            ParseAccumulator newAccumulator = accumulator.appendArgument(optionCount, argumentCount, unparsedCount,
+                    value);
+            return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption,
+                    newAccumulator, optionCount, argumentCount + 1, unparsedCount, streamedArguments, streamedCount);
         } catch (ParseException e) {
-            this.parserConfig.getErrorHandler().handleError(e);
+            this.effectiveConfig.getErrorHandler().handleError(e);
+
+            return withUnparsedInput(rawValue);
+        }
+    }
 
-            List<String> newUnparsed = AirlineUtils.listCopy(unparsedInput);
-            newUnparsed.add(rawValue);
+    /**
+     * Submits an asynchronous validation to the configured validation
+     * executor, if there is no executor the validation is run immediately
+     * 
+     * @param validation
+     *            Validation, may be {@code null} in which case nothing is done
+     */
+    private void submitValidation(Runnable validation) {
+        if (validation == null)
+            return;
+
+        Executor executor = this.effectiveConfig.getValidationExecutor();
+        if (executor == null) {
+            validation.run();
+            return;
+        }
 
-            return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack,
-                    parsedArguments, currentOption, newUnparsed);
+        FutureTask<Void> future = new FutureTask<Void>(validation, null);
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            // Executor can't take any more work so validate on this thread
+            future.run();
+        }
+        accumulator.addValidation(future);
+    }
+
+    /**
+     * Waits for any asynchronous validations submitted during this parse to
+     * complete
+     * <p>
+     * Failures are passed to the error handler in the order in which the
+     * validations were submitted regardless of the order in which they
+     * completed, so error reporting is deterministic. Parsers call this prior
+     * to final validation, once called the outstanding validations are no
+     * longer tracked so subsequent calls only wait for validations submitted
+     * since.
+     * </p>
+     */
+    public void awaitValidations() {
+        List<Future<?>> validations = accumulator.drainValidations();
+        int completed = 0;
+        try {
+            for (Future<?> validation : validations) {
+                try {
+                    validation.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ParseException(e, "Interrupted while waiting for validations to complete");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof ParseException) {
+                        this.effectiveConfig.getErrorHandler().handleError((ParseException) cause);
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    } else {
+                        throw new IllegalStateException(cause);
+                    }
+                }
+                completed++;
+            }
+        } finally {
+            // If we are bailing out early there's no point finishing any
+            // remaining validations
+            for (int i = completed; i < validations.size(); i++) {
+                validations.get(i).cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Cancels any asynchronous validations submitted during this parse that
+     * have not yet completed
+     * <p>
+     * Parsers call this when a parse is abandoned before
+     * {@link #awaitValidations()} is reached, e.g. because the error handler
+     * failed fast or the parse was only used to generate suggestions, so that
+     * the validation executor isn't left running validations whose results
+     * will never be seen. Once called the cancelled validations are no longer
+     * tracked.
+     * </p>
+     */
+    public void cancelValidations() {
+        for (Future<?> validation : accumulator.drainValidations()) {
+            validation.cancel(false);
         }
     }
 
     public ParseState<T> withUnparsedInput(String input) {
-        List<String> newUnparsedInput = AirlineUtils.listCopy(unparsedInput);
-        newUnparsedInput.add(input);
+        ParseAccumulator newAccumulator = accumulator.appendUnparsed(optionCount, argumentCount, unparsedCount,
+                input);
+        return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption, newAccumulator,
+                optionCount, argumentCount, unparsedCount + 1, streamedArguments, streamedCount);
+    }
 
-        return new ParseState<T>(global, parserConfig, group, command, parsedOptions, locationStack, parsedArguments,
-                currentOption, newUnparsedInput);
+    /**
+     * Records that the remaining argument tokens will be consumed lazily via
+     * an {@link ArgumentStream} rather than being parsed now
+     * 
+     * @param tokens
+     *            Remaining argument tokens
+     * @return New state
+     */
+    public ParseState<T> withStreamedArguments(Iterator<String> tokens) {
+        return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption, accumulator,
+                optionCount, argumentCount, unparsedCount, tokens, 0);
+    }
+
+    /**
+     * Gets a state for validating a streamed argument value after the given
+     * number of streamed values have already been consumed
+     * 
+     * @param consumed
+     *            Number of streamed values consumed
+     * @return New state
+     */
+    ParseState<T> withStreamedArgumentsConsumed(int consumed) {
+        return new ParseState<T>(global, parserConfig, group, command, locationStack, currentOption, accumulator,
+                optionCount, argumentCount, unparsedCount, streamedArguments, consumed);
     }
 
     @Override
     public String toString() {
-        return "ParseState{" + "locationStack=" + locationStack + ", global=" + global + ", group=" + group
-                + ", command=" + command + ", parsedOptions=" + parsedOptions + ", parsedArguments=" + parsedArguments
-                + ", currentOption=" + currentOption + ", unparsedInput=" + unparsedInput + '}';
+        return "ParseState{" + "locationStack=" + Locations.toString(locationStack) + ", global=" + global
+                + ", group=" + group + ", command=" + command + ", parsedOptions=" + getParsedOptions()
+                + ", parsedArguments=" + getParsedArguments() + ", currentOption=" + currentOption
+                + ", unparsedInput=" + getUnparsedInput() + '}';
     }
 
     public Context getLocation() {
-        return locationStack.get(locationStack.size() - 1);
+        if (locationStack == null)
+            throw new IndexOutOfBoundsException("No current location");
+        return locationStack.location;
     }
 
     public GlobalMetadata<T> getGlobal() {
@@ -216,7 +411,7 @@ public class ParseState<T> {
     }
 
     public ParserMetadata<T> getParserConfiguration() {
-        return this.global != null ? this.global.getParserConfiguration() : this.parserConfig;
+        return this.effectiveConfig;
     }
 
     public CommandGroupMetadata getGroup() {
@@ -232,14 +427,103 @@ public class ParseState<T> {
     }
 
     public List<Pair<OptionMetadata, Object>> getParsedOptions() {
-        return parsedOptions;
+        return accumulator.parsedOptions(optionCount);
+    }
+
+    /**
+     * Gets an index over the parsed options, the index is built on first use
+     * and then reused for the lifetime of this state
+     * 
+     * @return Parsed options index
+     */
+    public ParsedOptionsIndex getParsedOptionsIndex() {
+        ParsedOptionsIndex index = this.parsedOptionsIndex;
+        if (index == null) {
+            index = new ParsedOptionsIndex(getParsedOptions());
+            this.parsedOptionsIndex = index;
+        }
+        return index;
     }
 
     public List<Object> getParsedArguments() {
-        return parsedArguments;
+        return accumulator.parsedArguments(argumentCount);
+    }
+
+    /**
+     * Gets the remaining argument tokens that will be consumed lazily, if any
+     * 
+     * @return Streamed argument tokens, or {@code null} if arguments are not
+     *         being streamed
+     */
+    public Iterator<String> getStreamedArguments() {
+        return streamedArguments;
+    }
+
+    /**
+     * Gets whether there are argument tokens that will be consumed lazily,
+     * checking this does not consume any tokens
+     * 
+     * @return True if there are streamed arguments, false otherwise
+     */
+    public boolean hasStreamedArguments() {
+        return streamedArguments != null && streamedArguments.hasNext();
+    }
+
+    /**
+     * Gets the index of the argument currently being parsed i.e. the number of
+     * argument values that precede it
+     * <p>
+     * Restrictions should use this rather than the number of parsed arguments
+     * to determine the position of an argument since streamed arguments are
+     * not recorded as parsed arguments.
+     * </p>
+     * 
+     * @return Argument index
+     */
+    public int getArgumentIndex() {
+        return argumentCount + streamedCount;
     }
 
     public List<String> getUnparsedInput() {
-        return unparsedInput;
+        return accumulator.unparsedInput(unparsedCount);
+    }
+
+    /**
+     * Gets a cache that is shared by all states of the current parse and
+     * discarded when the parse completes
+     * <p>
+     * Restrictions and other extensions may use this to memoise expensive
+     * checks whose results hold for the duration of a parse e.g. file system
+     * lookups. Callers should key their entries with a private object to
+     * avoid colliding with other users of the cache. The cache is safe for
+     * concurrent use.
+     * </p>
+     * 
+     * @return Parse cache
+     */
+    public ConcurrentMap<Object, Object> getParseCache() {
+        return accumulator.cache();
+    }
+
+    /**
+     * Immutable linked stack of locations, pushing and popping share the
+     * remainder of the stack rather than copying it
+     */
+    private static final class Locations {
+        private final Context location;
+        private final Locations parent;
+
+        private Locations(Context location, Locations parent) {
+            this.location = location;
+            this.parent = parent;
+        }
+
+        private static String toString(Locations locations) {
+            LinkedList<Context> contexts = new LinkedList<>();
+            for (Locations l = locations; l != null; l = l.parent) {
+                contexts.addFirst(l.location);
+            }
+            return contexts.toString();
+        }
     }
 }
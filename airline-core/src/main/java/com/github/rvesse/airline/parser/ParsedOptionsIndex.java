@@ -0,0 +1,165 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.restrictions.OptionRestriction;
+import com.github.rvesse.airline.restrictions.options.MutuallyExclusiveRestriction;
+import com.github.rvesse.airline.restrictions.options.RequireFromRestriction;
+
+/**
+ * An index over the options parsed so far
+ * <p>
+ * The index is built with a single pass over the parsed options and allows
+ * restrictions to look up how often an option occurred, what values it was
+ * given and how many options with a given tag were seen without scanning all
+ * the parsed options themselves.
+ * </p>
+ */
+public final class ParsedOptionsIndex {
+
+    private final Map<OptionMetadata, List<Object>> values = new HashMap<>();
+    private final Set<String> names = new HashSet<>();
+    private final Map<String, Integer> mutuallyExclusiveTags = new HashMap<>();
+    private final Map<String, Integer> requiredFromTags = new HashMap<>();
+
+    /**
+     * Creates a new index
+     * 
+     * @param parsedOptions
+     *            Parsed options
+     */
+    public ParsedOptionsIndex(List<Pair<OptionMetadata, Object>> parsedOptions) {
+        for (Pair<OptionMetadata, Object> parsedOption : parsedOptions) {
+            List<Object> optionValues = this.values.get(parsedOption.getLeft());
+            if (optionValues == null) {
+                optionValues = new ArrayList<>();
+                this.values.put(parsedOption.getLeft(), optionValues);
+            }
+            optionValues.add(parsedOption.getRight());
+        }
+
+        // Index names and tags for each distinct option
+        for (Map.Entry<OptionMetadata, List<Object>> entry : this.values.entrySet()) {
+            OptionMetadata option = entry.getKey();
+            int count = entry.getValue().size();
+            this.names.addAll(option.getOptions());
+
+            // An option may carry several restrictions with the same tag, it
+            // is only counted once per tag
+            Set<String> seenExclusive = new HashSet<>();
+            Set<String> seenRequired = new HashSet<>();
+            for (OptionRestriction restriction : option.getRestrictions()) {
+                if (restriction instanceof MutuallyExclusiveRestriction) {
+                    String tag = ((MutuallyExclusiveRestriction) restriction).getTag();
+                    if (seenExclusive.add(tag))
+                        increment(this.mutuallyExclusiveTags, tag, count);
+                } else if (restriction instanceof RequireFromRestriction) {
+                    String tag = ((RequireFromRestriction) restriction).getTag();
+                    if (seenRequired.add(tag))
+                        increment(this.requiredFromTags, tag, count);
+                }
+            }
+        }
+    }
+
+    private static void increment(Map<String, Integer> counts, String key, int count) {
+        Integer current = counts.get(key);
+        counts.put(key, current != null ? current + count : count);
+    }
+
+    /**
+     * Gets whether the given option was parsed
+     * 
+     * @param option
+     *            Option
+     * @return True if parsed, false otherwise
+     */
+    public boolean contains(OptionMetadata option) {
+        return this.values.containsKey(option);
+    }
+
+    /**
+     * Gets whether an option with the given name was parsed
+     * 
+     * @param name
+     *            Option name
+     * @return True if an option with the name was parsed, false otherwise
+     */
+    public boolean containsName(String name) {
+        return this.names.contains(name);
+    }
+
+    /**
+     * Gets how many times the given option was parsed
+     * 
+     * @param option
+     *            Option
+     * @return Number of occurrences
+     */
+    public int getCount(OptionMetadata option) {
+        List<Object> optionValues = this.values.get(option);
+        return optionValues != null ? optionValues.size() : 0;
+    }
+
+    /**
+     * Gets the values parsed for the given option
+     * 
+     * @param option
+     *            Option
+     * @return Values in the order they were parsed, empty if none
+     */
+    public List<Object> getValues(OptionMetadata option) {
+        List<Object> optionValues = this.values.get(option);
+        return optionValues != null ? Collections.unmodifiableList(optionValues) : Collections.<Object> emptyList();
+    }
+
+    /**
+     * Gets how many parsed values belong to options that are mutually
+     * exclusive with the given tag
+     * 
+     * @param tag
+     *            Tag
+     * @return Number of occurrences
+     */
+    public int getMutuallyExclusiveCount(String tag) {
+        Integer count = this.mutuallyExclusiveTags.get(tag);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Gets how many parsed values belong to options that are required from the
+     * given tag
+     * 
+     * @param tag
+     *            Tag
+     * @return Number of occurrences
+     */
+    public int getRequiredFromCount(String tag) {
+        Integer count = this.requiredFromTags.get(tag);
+        return count != null ? count : 0;
+    }
+}
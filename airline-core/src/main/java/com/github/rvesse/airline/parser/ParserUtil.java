@@ -24,6 +24,7 @@ import com.github.rvesse.airline.parser.errors.ParseException;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,16 +55,25 @@ public class ParserUtil {
     public static <T> T injectOptions(T commandInstance, Iterable<OptionMetadata> options,
             List<Pair<OptionMetadata, Object>> parsedOptions, ArgumentsMetadata arguments,
             Iterable<Object> parsedArguments, Iterable<Accessor> metadataInjection, Map<Class<?>, Object> bindings) {
-        // inject options
-        for (OptionMetadata option : options) {
-            List<Object> values = new ArrayList<>();
-            for (Pair<OptionMetadata, Object> parsedOption : parsedOptions) {
-                if (option.equals(parsedOption.getLeft()))
-                    values.add(parsedOption.getRight());
+        // group the parsed values by option in a single pass
+        Map<OptionMetadata, List<Object>> parsedValues = new HashMap<>();
+        for (Pair<OptionMetadata, Object> parsedOption : parsedOptions) {
+            List<Object> values = parsedValues.get(parsedOption.getLeft());
+            if (values == null) {
+                values = new ArrayList<>();
+                parsedValues.put(parsedOption.getLeft(), values);
             }
-            if (values != null && !values.isEmpty()) {
-                for (Accessor accessor : option.getAccessors()) {
-                    accessor.addValues(commandInstance, values);
+            values.add(parsedOption.getRight());
+        }
+
+        // inject options
+        if (!parsedValues.isEmpty()) {
+            for (OptionMetadata option : options) {
+                List<Object> values = parsedValues.get(option);
+                if (values != null) {
+                    for (Accessor accessor : option.getAccessors()) {
+                        accessor.addValues(commandInstance, values);
+                    }
                 }
             }
         }
@@ -0,0 +1,340 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.parser.errors.ParseException;
+import com.github.rvesse.airline.types.DefaultTypeConverter;
+import com.github.rvesse.airline.types.TypeConverter;
+import com.github.rvesse.airline.types.numerics.NumericTypeConverter;
+import com.github.rvesse.airline.types.numerics.PrimitiveNumericTypeConverter;
+
+/**
+ * Reads option values from standard input or a file
+ * <p>
+ * A value of {@code -} reads from standard input while a value of
+ * {@code @path} reads from the given file. Values are separated by whitespace
+ * and/or commas and are converted straight into a primitive array so that
+ * very large numbers of values do not each have to be boxed. Conversion uses
+ * the numeric type converter of the option where it supports
+ * {@link PrimitiveNumericTypeConverter}, otherwise each value is converted by
+ * the option's type converter and then unboxed.
+ * </p>
+ * <p>
+ * If a {@link Validator} is supplied each value is also passed to it before
+ * and after conversion, this allows the parser to apply any restrictions on
+ * the option to each value read at the cost of boxing the converted values.
+ * </p>
+ * <p>
+ * Arguments files, see {@link ArgumentsFileIterator}, are expanded before
+ * option values are seen so if they are enabled with the same prefix as
+ * {@link #FILE_PREFIX} they take precedence. A token of the form
+ * {@code @path} is then replaced by the arguments in the file rather than
+ * being treated as a value source, since the arguments file expansion passes
+ * {@code @@path} through as {@code @path} this form may be used to read
+ * option values from a file instead. Alternatively configure a different
+ * arguments file prefix.
+ * </p>
+ */
+public final class ValueSources {
+
+    /**
+     * Value that indicates values are read from standard input
+     */
+    public static final String STDIN = "-";
+
+    /**
+     * Prefix that indicates values are read from a file
+     */
+    public static final String FILE_PREFIX = "@";
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private ValueSources() {
+    }
+
+    /**
+     * Validates the individual values read from a value source
+     */
+    public static interface Validator {
+
+        /**
+         * Validates a value prior to conversion
+         * 
+         * @param value
+         *            Raw value
+         */
+        public abstract void preValidate(String value);
+
+        /**
+         * Validates a value after conversion
+         * 
+         * @param value
+         *            Converted value
+         */
+        public abstract void postValidate(Object value);
+    }
+
+    /**
+     * Gets whether a raw value refers to a value source
+     * 
+     * @param value
+     *            Raw value
+     * @return True if a value source, false otherwise
+     */
+    public static boolean isSource(String value) {
+        return STDIN.equals(value) || (value.length() > FILE_PREFIX.length() && value.startsWith(FILE_PREFIX));
+    }
+
+    /**
+     * Gets whether values from a source can be bound to a field of the given
+     * type
+     * 
+     * @param type
+     *            Field type
+     * @return True if supported, false otherwise
+     */
+    public static boolean isSupportedType(Class<?> type) {
+        return int[].class.equals(type) || long[].class.equals(type) || double[].class.equals(type);
+    }
+
+    /**
+     * Reads all the values from a value source
+     * 
+     * @param option
+     *            Option
+     * @param converter
+     *            Type converter for the option
+     * @param source
+     *            Value source, either {@code -} or {@code @path}
+     * @return Primitive array of values
+     * @throws ParseException
+     *             Thrown if the source cannot be read or a value cannot be
+     *             converted
+     */
+    public static Object read(OptionMetadata option, TypeConverter converter, String source) {
+        return read(option, converter, source, null);
+    }
+
+    /**
+     * Reads all the values from a value source validating each value read
+     * 
+     * @param option
+     *            Option
+     * @param converter
+     *            Type converter for the option
+     * @param source
+     *            Value source, either {@code -} or {@code @path}
+     * @param validator
+     *            Validator for the values, may be {@code null} if no
+     *            validation is required
+     * @return Primitive array of values
+     * @throws ParseException
+     *             Thrown if the source cannot be read or a value cannot be
+     *             converted, validation failures are only thrown if the
+     *             validator throws them
+     */
+    public static Object read(OptionMetadata option, TypeConverter converter, String source, Validator validator) {
+        Sink sink = createSink(option, converter, validator);
+        try {
+            if (STDIN.equals(source)) {
+                // Never close standard input
+                scan(new InputStreamReader(System.in, StandardCharsets.UTF_8), sink);
+            } else {
+                try (InputStream input = Files.newInputStream(Paths.get(source.substring(FILE_PREFIX.length())))) {
+                    scan(new InputStreamReader(input, StandardCharsets.UTF_8), sink);
+                }
+            }
+        } catch (IOException e) {
+            throw new ParseException(e, "Unable to read values for option %s from %s", option.getTitle(), source);
+        }
+        return sink.toArray();
+    }
+
+    private static Sink createSink(OptionMetadata option, TypeConverter converter, Validator validator) {
+        NumericTypeConverter numerics = converter instanceof DefaultTypeConverter
+                ? ((DefaultTypeConverter) converter).getNumericConverter() : null;
+        PrimitiveNumericTypeConverter primitives = numerics instanceof PrimitiveNumericTypeConverter
+                ? (PrimitiveNumericTypeConverter) numerics : null;
+
+        Class<?> type = option.getJavaType();
+        if (Integer.TYPE.equals(type)) {
+            return new IntSink(option.getTitle(), converter, primitives, validator);
+        } else if (Long.TYPE.equals(type)) {
+            return new LongSink(option.getTitle(), converter, primitives, validator);
+        } else if (Double.TYPE.equals(type)) {
+            return new DoubleSink(option.getTitle(), converter, primitives, validator);
+        }
+        throw new ParseException("Option %s of type %s does not support value sources", option.getTitle(),
+                type.getSimpleName());
+    }
+
+    private static void scan(Reader reader, Sink sink) throws IOException {
+        char[] buffer = new char[8192];
+        StringBuilder token = new StringBuilder();
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == ',' || Character.isWhitespace(c)) {
+                    if (token.length() > 0) {
+                        sink.add(token.toString());
+                        token.setLength(0);
+                    }
+                } else {
+                    token.append(c);
+                }
+            }
+        }
+        if (token.length() > 0) {
+            sink.add(token.toString());
+        }
+    }
+
+    /**
+     * Accumulates converted values into a primitive array
+     */
+    private static abstract class Sink {
+        protected final String name;
+        protected final TypeConverter converter;
+        protected final PrimitiveNumericTypeConverter primitives;
+        private final Validator validator;
+        protected int size = 0;
+
+        Sink(String name, TypeConverter converter, PrimitiveNumericTypeConverter primitives, Validator validator) {
+            this.name = name;
+            this.converter = converter;
+            this.primitives = primitives;
+            this.validator = validator;
+        }
+
+        protected final Number convert(Class<?> type, String value) {
+            return (Number) this.converter.convert(this.name, type, value);
+        }
+
+        final void add(String value) {
+            if (this.validator == null) {
+                append(value);
+                return;
+            }
+            this.validator.preValidate(value);
+            append(value);
+            this.validator.postValidate(last());
+        }
+
+        /**
+         * Converts and appends a value
+         */
+        abstract void append(String value);
+
+        /**
+         * Gets the last value appended boxed
+         */
+        abstract Object last();
+
+        abstract Object toArray();
+    }
+
+    private static final class IntSink extends Sink {
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        IntSink(String name, TypeConverter converter, PrimitiveNumericTypeConverter primitives,
+                Validator validator) {
+            super(name, converter, primitives, validator);
+        }
+
+        @Override
+        void append(String value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = this.primitives != null ? this.primitives.convertInt(this.name, value)
+                    : convert(Integer.TYPE, value).intValue();
+        }
+
+        @Override
+        Object last() {
+            return Integer.valueOf(this.values[this.size - 1]);
+        }
+
+        @Override
+        Object toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    private static final class LongSink extends Sink {
+        private long[] values = new long[INITIAL_CAPACITY];
+
+        LongSink(String name, TypeConverter converter, PrimitiveNumericTypeConverter primitives,
+                Validator validator) {
+            super(name, converter, primitives, validator);
+        }
+
+        @Override
+        void append(String value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = this.primitives != null ? this.primitives.convertLong(this.name, value)
+                    : convert(Long.TYPE, value).longValue();
+        }
+
+        @Override
+        Object last() {
+            return Long.valueOf(this.values[this.size - 1]);
+        }
+
+        @Override
+        Object toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+
+    private static final class DoubleSink extends Sink {
+        private double[] values = new double[INITIAL_CAPACITY];
+
+        DoubleSink(String name, TypeConverter converter, PrimitiveNumericTypeConverter primitives,
+                Validator validator) {
+            super(name, converter, primitives, validator);
+        }
+
+        @Override
+        void append(String value) {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            this.values[this.size++] = this.primitives != null ? this.primitives.convertDouble(this.name, value)
+                    : convert(Double.TYPE, value).doubleValue();
+        }
+
+        @Override
+        Object last() {
+            return Double.valueOf(this.values[this.size - 1]);
+        }
+
+        @Override
+        Object toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
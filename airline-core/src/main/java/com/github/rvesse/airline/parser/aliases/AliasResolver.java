@@ -15,25 +15,20 @@
  */
 package com.github.rvesse.airline.parser.aliases;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.Predicate;
 import org.apache.commons.collections4.iterators.PeekingIterator;
 
 import com.github.rvesse.airline.model.AliasMetadata;
-import com.github.rvesse.airline.model.CommandGroupMetadata;
-import com.github.rvesse.airline.model.CommandMetadata;
 import com.github.rvesse.airline.model.GlobalMetadata;
 import com.github.rvesse.airline.parser.AbstractParser;
 import com.github.rvesse.airline.parser.ParseState;
 import com.github.rvesse.airline.parser.errors.ParseAliasCircularReferenceException;
-import com.github.rvesse.airline.utils.predicates.parser.AliasFinder;
-import com.github.rvesse.airline.utils.predicates.parser.CommandFinder;
-import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
 
 /**
  * Resolves aliases
@@ -44,9 +39,6 @@ import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
 public class AliasResolver<T> extends AbstractParser<T> {
 
     public PeekingIterator<String> resolveAliases(PeekingIterator<String> tokens, ParseState<T> state) {
-        Predicate<? super CommandGroupMetadata> findGroupPredicate;
-        Predicate<? super CommandMetadata> findCommandPredicate;
-
         // Nothing to do if no further tokens
         if (!tokens.hasNext())
             return tokens;
@@ -56,22 +48,23 @@ public class AliasResolver<T> extends AbstractParser<T> {
             return tokens;
 
         Set<String> aliasesSeen = new TreeSet<String>();
+        SplicedTokens spliced = null;
 
         do {
             // Try to find an alias
-            AliasMetadata alias = CollectionUtils.find(state.getParserConfiguration().getAliases(),
-                    new AliasFinder(tokens.peek()));
+            String token = spliced != null ? spliced.peek() : tokens.peek();
+            AliasMetadata alias = state.getParserConfiguration().getAlias(token);
 
             // Nothing further to do if no aliases found
             if (alias == null)
-                return tokens;
+                break;
 
             // Check for circular references
             if (!aliasesSeen.add(alias.getName())) {
                 // Handle the error and exit alias resolution
                 state.getParserConfiguration().getErrorHandler()
                         .handleError(new ParseAliasCircularReferenceException(alias.getName(), aliasesSeen));
-                return tokens;
+                break;
             }
 
             // Can we override built-ins?
@@ -81,65 +74,93 @@ public class AliasResolver<T> extends AbstractParser<T> {
                 // would take precedence
                 if (state.getGlobal() != null) {
                     GlobalMetadata<T> metadata = state.getGlobal();
-                    findGroupPredicate = new GroupFinder(tokens.peek());
-                    findCommandPredicate = new CommandFinder(tokens.peek());
-                    if (CollectionUtils.find(metadata.getCommandGroups(), findGroupPredicate) != null
-                            || CollectionUtils.find(metadata.getDefaultGroupCommands(), findCommandPredicate) != null)
-                        return tokens;
+                    if (metadata.getCommandGroupsTrie().findExact(token) != null
+                            || metadata.getDefaultGroupCommandsTrie().findExact(token) != null)
+                        break;
                 }
             }
 
-            // Discard the alias token
-            tokens.next();
+            // Apply the alias, only the tokens referenced by positional
+            // parameters are buffered, any further tokens are left in place
+            if (spliced == null)
+                spliced = new SplicedTokens(tokens);
+            spliced.next();
+            spliced.expand(alias);
+        } while (state.getParserConfiguration().aliasesMayChain() && spliced.hasNext());
 
-            // Apply the alias
-            List<String> newParams = new ArrayList<String>();
-            List<String> remainingParams = new ArrayList<String>();
-            while (tokens.hasNext()) {
-                remainingParams.add(tokens.next());
-            }
+        return spliced != null ? new PeekingIterator<String>(spliced) : tokens;
+    }
 
-            // Process alias arguments
-            Set<Integer> used = new TreeSet<Integer>();
-            for (String arg : alias.getArguments()) {
-                if (arg.startsWith("$")) {
-                    // May be a positional parameter
-                    try {
-                        int num = Integer.parseInt(arg.substring(1));
-                        num--;
-
-                        if (num >= 0 && num < remainingParams.size()) {
-                            // Valid positional parameter
-                            newParams.add(remainingParams.get(num));
-                            used.add(num);
-                            continue;
-                        }
-                    } catch (NumberFormatException e) {
-                        // Ignore - the number was invalid so we'll
-                        // treat it as an ordinary parameter
-                    }
+    /**
+     * Tokens with alias expansions spliced in front of the remaining input
+     */
+    private static final class SplicedTokens implements Iterator<String> {
+        private final Iterator<String> input;
+        private final ArrayDeque<String> front = new ArrayDeque<String>();
+
+        SplicedTokens(Iterator<String> input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.front.isEmpty() || this.input.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return !this.front.isEmpty() ? this.front.removeFirst() : this.input.next();
+        }
+
+        String peek() {
+            if (this.front.isEmpty())
+                this.front.addFirst(this.input.next());
+            return this.front.peekFirst();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Replaces the start of the remaining tokens with the expansion of the
+         * given alias
+         */
+        void expand(AliasMetadata alias) {
+            // Buffer only as many tokens as the positional parameters need,
+            // the buffer grows with the tokens actually present since an
+            // alias may reference an arbitrarily large position
+            long needed = (long) alias.getMaxPosition() + 1;
+            List<String> positional = new ArrayList<String>();
+            while (positional.size() < needed && hasNext()) {
+                positional.add(next());
+            }
+            int available = positional.size();
+
+            boolean[] used = new boolean[available];
+            List<String> arguments = alias.getArguments();
+            String[] expansion = new String[arguments.size()];
+            for (int i = 0; i < expansion.length; i++) {
+                int position = alias.getPosition(i);
+                if (position >= 0 && position < available) {
+                    // Valid positional parameter
+                    expansion[i] = positional.get(position);
+                    used[position] = true;
+                } else {
+                    // Some other parameter
+                    expansion[i] = arguments.get(i);
                 }
-
-                // Some other parameter
-                newParams.add(arg);
             }
 
-            // Remove used positional parameters
-            int removed = 0;
-            for (int pos : used) {
-                remainingParams.remove(pos - removed);
-                removed++;
+            // Unused buffered tokens pass through after the expansion
+            for (int i = available - 1; i >= 0; i--) {
+                if (!used[i])
+                    this.front.addFirst(positional.get(i));
             }
-
-            // Pass through any remaining parameters
-            for (String arg : remainingParams) {
-                newParams.add(arg);
+            for (int i = expansion.length - 1; i >= 0; i--) {
+                this.front.addFirst(expansion[i]);
             }
-
-            // Prepare a new tokens iterator
-            tokens = new PeekingIterator<String>(newParams.iterator());
-        } while (state.getParserConfiguration().aliasesMayChain());
-
-        return tokens;
+        }
     }
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.aliases;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.github.rvesse.airline.model.AliasMetadata;
+
+/**
+ * A user aliases source that keeps the loaded aliases in memory and only
+ * re-reads configuration files when they change
+ * <p>
+ * This is intended for long running applications that reload user aliases
+ * repeatedly e.g. interactive shells. Each {@link #load()} checks the size and
+ * last modified time of the configuration files found in the search locations
+ * and returns the previously loaded aliases if none of them have changed, been
+ * added or been removed. Otherwise only the changed files are re-read. The
+ * arguments parsed from each alias definition are also cached so unchanged
+ * definitions are not re-parsed.
+ * </p>
+ *
+ * @param <C>
+ *            Command type
+ */
+public class CachingUserAliasesSource<C> extends UserAliasesSource<C> {
+
+    private Map<File, CachedFile> files = Collections.emptyMap();
+    private List<File> order = Collections.emptyList();
+    private Map<String, List<String>> arguments = Collections.emptyMap();
+    private List<AliasMetadata> aliases;
+
+    public CachingUserAliasesSource(String filename, String prefix, String... searchLocations) {
+        super(filename, prefix, searchLocations);
+    }
+
+    @Override
+    public synchronized List<AliasMetadata> load() throws FileNotFoundException, IOException {
+        List<File> current = getFiles();
+        boolean changed = this.aliases == null || !current.equals(this.order);
+
+        Map<File, CachedFile> currentFiles = new HashMap<>();
+        for (File f : current) {
+            CachedFile cached = this.files.get(f);
+            BasicFileAttributes attributes = Files.readAttributes(f.toPath(), BasicFileAttributes.class);
+            if (cached == null || !cached.isCurrent(attributes)) {
+                cached = read(f.toPath(), attributes);
+                changed = true;
+            }
+            currentFiles.put(f, cached);
+        }
+        this.files = currentFiles;
+        this.order = current;
+
+        if (changed) {
+            // Merge the properties in order of increasing precedence
+            Properties properties = new Properties();
+            for (File f : current) {
+                properties.putAll(currentFiles.get(f).properties);
+            }
+
+            // Only keep parsed arguments for definitions that are still in use
+            Map<String, List<String>> previous = this.arguments;
+            this.arguments = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                String value = properties.getProperty(key);
+                List<String> args = previous.get(value);
+                if (args != null)
+                    this.arguments.put(value, args);
+            }
+            this.aliases = Collections.unmodifiableList(new ArrayList<>(toAliases(properties)));
+        }
+        return this.aliases;
+    }
+
+    @Override
+    protected List<String> parseArguments(String value) {
+        List<String> args = this.arguments.get(value);
+        if (args == null) {
+            args = super.parseArguments(value);
+            this.arguments.put(value, args);
+        }
+        return args;
+    }
+
+    private static CachedFile read(Path path, BasicFileAttributes attributes) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            properties.load(input);
+        }
+        return new CachedFile(attributes.size(), attributes.lastModifiedTime(), properties);
+    }
+
+    /**
+     * The properties read from a configuration file together with the file
+     * attributes at the time it was read
+     */
+    private static final class CachedFile {
+        private final long size;
+        private final FileTime lastModified;
+        private final Properties properties;
+
+        CachedFile(long size, FileTime lastModified, Properties properties) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.properties = properties;
+        }
+
+        boolean isCurrent(BasicFileAttributes attributes) {
+            return this.size == attributes.size() && this.lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+}
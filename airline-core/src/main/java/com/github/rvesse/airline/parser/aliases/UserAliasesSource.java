@@ -93,14 +93,37 @@ public class UserAliasesSource<C> {
     public List<AliasMetadata> load() throws FileNotFoundException, IOException {
         Properties properties = new Properties();
 
+        // Read the files in order of increasing precedence overwriting
+        // previously found values each time
+        for (File f : getFiles()) {
+            try (FileInputStream input = new FileInputStream(f)) {
+                properties.load(input);
+            }
+        }
+
+        return toAliases(properties);
+    }
+
+    /**
+     * Gets the configuration files that currently exist in the search
+     * locations
+     * <p>
+     * Files are returned in order of increasing precedence i.e. the file from
+     * the first search location is last, each file is returned at most once.
+     * </p>
+     * 
+     * @return Configuration files
+     */
+    protected List<File> getFiles() {
         // Find the home directory since we will use this
         File homeDir = null;
         if (!StringUtils.isEmpty(System.getProperty("user.home"))) {
             homeDir = new File(System.getProperty("user.home"));
         }
 
-        // Search locations in reverse order overwriting previously found values
-        // each time. Thus the first location in the list has highest precedence
+        // Search locations in reverse order, thus the first location in the
+        // list has highest precedence
+        List<File> files = new ArrayList<>();
         Set<String> loaded = new HashSet<>();
         for (int i = searchLocations.size() - 1; i >= 0; i--) {
             // Check an actual location
@@ -123,48 +146,54 @@ public class UserAliasesSource<C> {
             File f = new File(loc);
             f = new File(f, filename);
             if (f.exists() && f.isFile() && f.canRead()) {
-                try (FileInputStream input = new FileInputStream(f)) {
-                    properties.load(input);
-                } finally {
-                    // Remember we've tried to read this file so we don't try
-                    // and read it multiple times
-                    loaded.add(loc);
-                }
-            }
-        }
-
-        // Strip any irrelevant properties
-        if (StringUtils.isNotBlank(prefix)) {
-            List<Object> keysToRemove = new ArrayList<Object>();
-            for (Object key : properties.keySet()) {
-                if (!key.toString().startsWith(prefix))
-                    keysToRemove.add(key);
-            }
-            for (Object key : keysToRemove) {
-                properties.remove(key);
+                files.add(f);
+                loaded.add(loc);
             }
         }
+        return files;
+    }
 
-        // Generate the aliases
+    /**
+     * Converts the properties read from the configuration files into aliases
+     * 
+     * @param properties
+     *            Properties
+     * @return Aliases
+     */
+    protected List<AliasMetadata> toAliases(Properties properties) {
+        // Generate the aliases ignoring any irrelevant properties
         List<AliasMetadata> aliases = new ArrayList<>();
-        for (Object key : properties.keySet()) {
-            String name = key.toString();
+        for (String key : properties.stringPropertyNames()) {
+            if (StringUtils.isNotBlank(prefix) && !key.startsWith(prefix))
+                continue;
+            String name = key;
             if (!StringUtils.isBlank(prefix))
                 name = name.substring(prefix.length());
             AliasBuilder<C> alias = new AliasBuilder<C>(name);
 
-            String value = properties.getProperty(key.toString());
+            String value = properties.getProperty(key);
             if (StringUtils.isEmpty(value)) {
                 aliases.add(alias.build());
                 continue;
             }
 
             // Process property value into arguments
-            List<String> args = AliasArgumentsParser.parse(value);
+            List<String> args = parseArguments(value);
             alias.withArguments(args.toArray(new String[args.size()]));
             aliases.add(alias.build());
         }
 
         return aliases;
     }
+
+    /**
+     * Parses an alias definition into its arguments
+     * 
+     * @param value
+     *            Alias definition
+     * @return Arguments
+     */
+    protected List<String> parseArguments(String value) {
+        return AliasArgumentsParser.parse(value);
+    }
 }
@@ -46,7 +46,7 @@ public class CliParser<T> extends AbstractCommandParser<T> {
         }
 
         validate(state);
-        return metadata.getParserConfiguration().getErrorHandler().finished(state);
+        return state.getParserConfiguration().getErrorHandler().finished(state);
     }
 
     public T parse(GlobalMetadata<T> metadata, Iterable<String> args) {
@@ -65,6 +65,9 @@ public class CliParser<T> extends AbstractCommandParser<T> {
      *            Parser state
      */
     protected void validate(ParseState<T> state) {
+        // Complete any asynchronous validations before final validation
+        state.awaitValidations();
+
         // Global restrictions
         for (GlobalRestriction restriction : state.getGlobal().getRestrictions()) {
             if (restriction == null)
@@ -62,6 +62,9 @@ public class SingleCommandParser<T> extends AbstractCommandParser<T> {
      *            Parser state
      */
     protected void validate(ParseState<T> state, List<GlobalRestriction> restrictions) {
+        // Complete any asynchronous validations before final validation
+        state.awaitValidations();
+
         // Global restrictions
         for (GlobalRestriction restriction : restrictions) {
             if (restriction == null)
@@ -15,11 +15,24 @@
  */
 package com.github.rvesse.airline.parser.errors.handlers;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.github.rvesse.airline.parser.errors.ParseException;
 
+/**
+ * Abstract error handler which collects errors for processing once parsing has
+ * finished
+ * <p>
+ * Since a collecting handler accumulates state during a parse the parsers
+ * obtain a fresh instance via {@link #newInstance()} for each parse, this
+ * allows a single {@code Cli} or {@code SingleCommand} instance to be safely
+ * used by multiple threads concurrently. The built-in handlers always supply
+ * a fresh instance, see {@link #newInstance()} for how derived handlers are
+ * treated.
+ * </p>
+ */
 public abstract class AbstractCollectingHandler implements ParserErrorHandler {
 
     protected List<ParseException> errors = new ArrayList<>();
@@ -28,6 +41,31 @@ public abstract class AbstractCollectingHandler implements ParserErrorHandler {
         super();
     }
 
+    /**
+     * Creates a new instance of this handler for use by a single parse
+     * <p>
+     * The default implementation creates a new instance via the handlers
+     * no-argument constructor, if there is no such constructor or it cannot
+     * be invoked then this instance is returned instead. In that case the
+     * handler is shared by every parse using it so it is only safe to use
+     * from a single thread at a time, derived handlers that take
+     * configuration or lack a no-argument constructor should override this
+     * method to return a new instance with the same configuration.
+     * </p>
+     * 
+     * @return Handler for use by a single parse
+     */
+    public AbstractCollectingHandler newInstance() {
+        try {
+            Constructor<? extends AbstractCollectingHandler> constructor = getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Can't create a new instance so have to share this one
+            return this;
+        }
+    }
+
     @Override
     public void handleError(ParseException e) {
         this.errors.add(e);
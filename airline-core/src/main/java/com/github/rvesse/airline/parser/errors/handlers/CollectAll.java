@@ -26,6 +26,14 @@ import com.github.rvesse.airline.parser.ParseState;
  */
 public class CollectAll extends AbstractCollectingHandler {
 
+    @Override
+    public AbstractCollectingHandler newInstance() {
+        // Derived handlers must be created as instances of themselves
+        if (getClass() != CollectAll.class)
+            return super.newInstance();
+        return new CollectAll();
+    }
+
     @Override
     public <T> ParseResult<T> finished(ParseState<T> state) {
         ParseResult<T> result = new ParseResult<>(state, getCollection());
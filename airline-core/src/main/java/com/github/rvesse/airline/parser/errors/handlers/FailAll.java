@@ -23,9 +23,18 @@ import com.github.rvesse.airline.parser.errors.ParseException;
 
 public class FailAll extends AbstractCollectingHandler {
 
+    @Override
+    public AbstractCollectingHandler newInstance() {
+        // Derived handlers must be created as instances of themselves
+        if (getClass() != FailAll.class)
+            return super.newInstance();
+        return new FailAll();
+    }
+
     @Override
     public <T> ParseResult<T> finished(ParseState<T> state) {
         Collection<ParseException> errors = getCollection();
+        resetCollection();
         if (errors.size() == 1) {
             // Single error handled, throw as-is
             throw errors.iterator().next();
@@ -15,15 +15,16 @@
  */
 package com.github.rvesse.airline.parser.options;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.collections4.iterators.PeekingIterator;
-import org.apache.commons.lang3.StringUtils;
 
 import com.github.rvesse.airline.Context;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
-import com.github.rvesse.airline.utils.AirlineUtils;
 
 /**
  * Abstract option parser for options that are specified in {@code --name=value}
@@ -37,6 +38,7 @@ public abstract class AbstractNameValueOptionParser<T> extends AbstractOptionPar
 
     private static final char DEFAULT_SEPARATOR = '=';
     private final char separator;
+    private final Set<TokenShape> shapes;
 
     public AbstractNameValueOptionParser() {
         this(DEFAULT_SEPARATOR);
@@ -44,16 +46,32 @@ public abstract class AbstractNameValueOptionParser<T> extends AbstractOptionPar
 
     public AbstractNameValueOptionParser(char sep) {
         this.separator = sep;
+        // With the default separator only tokens that may contain it need be
+        // considered, with any other separator we can't tell from the shape
+        this.shapes = sep == DEFAULT_SEPARATOR
+                ? Collections.unmodifiableSet(
+                        EnumSet.of(TokenShape.LONG_WITH_VALUE, TokenShape.SHORT_COMPOUND, TokenShape.WORD))
+                : ALL_SHAPES;
+    }
+
+    @Override
+    public Set<TokenShape> getAcceptedShapes() {
+        return this.shapes;
     }
 
     @Override
     public ParseState<T> parseOptions(PeekingIterator<String> tokens, ParseState<T> state, List<OptionMetadata> allowedOptions) {
-        List<String> parts = AirlineUtils.unmodifiableListCopy(StringUtils.split(tokens.peek(), new String(new char[] { this.separator }), 2));
-        if (parts.size() != 2) {
+        // Locate the name and value within the token, only materializing them
+        // if the token actually has both
+        String token = tokens.peek();
+        int nameStart = TokenScanner.skipSeparators(token, 0, this.separator);
+        int nameEnd = TokenScanner.findSeparator(token, nameStart, this.separator);
+        int valueStart = TokenScanner.skipSeparators(token, nameEnd, this.separator);
+        if (valueStart >= token.length()) {
             return null;
         }
 
-        OptionMetadata option = findOption(state, allowedOptions, parts.get(0));
+        OptionMetadata option = findOption(state, allowedOptions, token.substring(nameStart, nameEnd));
         if (option == null || option.getArity() != 1) {
             // Only supported for arity 1 options currently
             return null;
@@ -64,7 +82,7 @@ public abstract class AbstractNameValueOptionParser<T> extends AbstractOptionPar
 
         // update state
         state = state.pushContext(Context.OPTION).withOption(option);
-        state = state.withOptionValue(option, parts.get(1)).popContext();
+        state = state.withOptionValue(option, token.substring(valueStart)).popContext();
 
         return state;
     }
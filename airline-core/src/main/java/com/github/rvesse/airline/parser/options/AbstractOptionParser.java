@@ -15,11 +15,14 @@
  */
 package com.github.rvesse.airline.parser.options;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 import org.apache.commons.collections4.Predicate;
 
+import com.github.rvesse.airline.model.IndexedOptions;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.AbstractParser;
 import com.github.rvesse.airline.parser.ParseState;
@@ -31,9 +34,24 @@ import com.github.rvesse.airline.utils.predicates.parser.OptionFinder;
  * Abstract option parser that provides some useful helper methods to derived
  * classes
  */
-public abstract class AbstractOptionParser<T> extends AbstractParser<T> implements OptionParser<T> {
+public abstract class AbstractOptionParser<T> extends AbstractParser<T> implements ShapedOptionParser<T> {
 
-    private static final Pattern SHORT_OPTIONS_PREFIX = Pattern.compile("-[^-].*");
+    /**
+     * All token shapes
+     */
+    protected static final Set<TokenShape> ALL_SHAPES = Collections.unmodifiableSet(EnumSet.allOf(TokenShape.class));
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * By default all token shapes are accepted, derived parsers that can only
+     * parse some token shapes should override this.
+     * </p>
+     */
+    @Override
+    public Set<TokenShape> getAcceptedShapes() {
+        return ALL_SHAPES;
+    }
 
     /**
      * Tries to find an option with the given name
@@ -65,6 +83,19 @@ public abstract class AbstractOptionParser<T> extends AbstractParser<T> implemen
      */
     protected final OptionMetadata findOption(ParseState<T> state, List<OptionMetadata> options, final String name,
             OptionMetadata defaultValue) {
+        // Options from meta-data are indexed by name so an exact match can be
+        // found without scanning all the options, an exact match is preferred
+        // even when abbreviations are allowed
+        if (options instanceof IndexedOptions) {
+            OptionMetadata option = ((IndexedOptions) options).find(name);
+            if (option != null)
+                return option;
+            if (!state.getParserConfiguration().allowsAbbreviatedOptions())
+                return defaultValue;
+            option = ((IndexedOptions) options).getAbbreviationTrie().find(name);
+            return option != null ? option : defaultValue;
+        }
+
         Predicate<OptionMetadata> findOptionPredicate;
         if (state.getParserConfiguration().allowsAbbreviatedOptions()) {
             findOptionPredicate = new AbbreviatedOptionFinder(name, options);
@@ -75,7 +106,29 @@ public abstract class AbstractOptionParser<T> extends AbstractParser<T> implemen
         return AirlineUtils.find(options, findOptionPredicate, defaultValue);
     }
 
+    /**
+     * Tries to find an option with the given single character short name i.e.
+     * an option named {@code -} followed by the given character
+     * 
+     * @param state
+     *            Current parser state
+     * @param options
+     *            Allowed options
+     * @param shortName
+     *            Short name character
+     * @return Option if found, {@code null} otherwise
+     */
+    protected final OptionMetadata findOption(ParseState<T> state, List<OptionMetadata> options, char shortName) {
+        if (options instanceof IndexedOptions) {
+            OptionMetadata option = ((IndexedOptions) options).find(shortName);
+            if (option != null || !state.getParserConfiguration().allowsAbbreviatedOptions())
+                return option;
+        }
+        return findOption(state, options, "-" + shortName, null);
+    }
+
     protected boolean hasShortNamePrefix(String name) {
-        return SHORT_OPTIONS_PREFIX.matcher(name).matches();
+        TokenShape shape = TokenShape.classify(name);
+        return shape == TokenShape.SHORT || shape == TokenShape.SHORT_COMPOUND;
     }
 }
\ No newline at end of file
@@ -15,7 +15,10 @@
  */
 package com.github.rvesse.airline.parser.options;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.collections4.iterators.PeekingIterator;
 
@@ -38,30 +41,40 @@ import com.github.rvesse.airline.parser.errors.ParseOptionUnexpectedException;
  * @param <T>
  */
 public class ClassicGetOptParser<T> extends AbstractOptionParser<T> {
+
+    private static final Set<TokenShape> SHAPES = Collections
+            .unmodifiableSet(EnumSet.of(TokenShape.SHORT, TokenShape.SHORT_COMPOUND));
+
+    @Override
+    public Set<TokenShape> getAcceptedShapes() {
+        return SHAPES;
+    }
+
     public ParseState<T> parseOptions(PeekingIterator<String> tokens, ParseState<T> state,
             List<OptionMetadata> allowedOptions) {
         if (!hasShortNamePrefix(tokens.peek())) {
             return null;
         }
 
-        // remove leading dash from token
-        String remainingToken = tokens.peek().substring(1);
+        // skip leading dash of token
+        String token = tokens.peek();
+        int position = 1;
 
         ParseState<T> nextState = state;
         boolean first = true;
-        while (!remainingToken.isEmpty()) {
-            char tokenCharacter = remainingToken.charAt(0);
+        while (position < token.length()) {
+            char tokenCharacter = token.charAt(position);
 
             // is the current token character a single letter option?
-            OptionMetadata option = findOption(state, allowedOptions, "-" + tokenCharacter);
+            OptionMetadata option = findOption(state, allowedOptions, tokenCharacter);
             if (option == null) {
                 return null;
             }
 
             nextState = nextState.pushContext(Context.OPTION).withOption(option);
 
-            // remove current token character
-            remainingToken = remainingToken.substring(1);
+            // move past current token character
+            position++;
 
             // for no argument options, process the option and remove the
             // character from the token
@@ -81,8 +94,8 @@ public class ClassicGetOptParser<T> extends AbstractOptionParser<T> {
 
                 // if current token has more characters, this is the value;
                 // otherwise it is the next token
-                if (!remainingToken.isEmpty()) {
-                    nextState = nextState.withOptionValue(option, remainingToken).popContext();
+                if (position < token.length()) {
+                    nextState = nextState.withOptionValue(option, token.substring(position)).popContext();
                 } else if (tokens.hasNext()) {
                     nextState = nextState.withOptionValue(option, tokens.next()).popContext();
                 }
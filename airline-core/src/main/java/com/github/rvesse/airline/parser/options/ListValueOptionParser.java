@@ -15,6 +15,7 @@
  */
 package com.github.rvesse.airline.parser.options;
 
+import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.collections4.iterators.PeekingIterator;
 import org.apache.commons.lang3.StringUtils;
@@ -24,7 +25,6 @@ import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
 import com.github.rvesse.airline.parser.errors.ParseOptionMissingValueException;
 import com.github.rvesse.airline.parser.errors.ParseOptionUnexpectedException;
-import com.github.rvesse.airline.utils.AirlineUtils;
 
 /**
  * An options parser that expects the name and value(s) to be white space
@@ -67,7 +67,14 @@ public class ListValueOptionParser<T> extends AbstractOptionParser<T> {
     }
 
     protected final List<String> getValues(String list) {
-        return AirlineUtils.arrayToList(StringUtils.split(list, this.separator));
+        List<String> values = new ArrayList<String>(TokenScanner.countValues(list, 0, this.separator));
+        int start = TokenScanner.skipSeparators(list, 0, this.separator);
+        while (start < list.length()) {
+            int end = TokenScanner.findSeparator(list, start, this.separator);
+            values.add(list.substring(start, end));
+            start = TokenScanner.skipSeparators(list, end, this.separator);
+        }
+        return values;
     }
 
     @Override
@@ -79,8 +86,7 @@ public class ListValueOptionParser<T> extends AbstractOptionParser<T> {
         if (option == null) {
             // Check if we are looking at a maven style -Pa,b,c argument
             if (hasShortNamePrefix(name) && name.length() > 2) {
-                String shortName = name.substring(0, 2);
-                option = findOption(state, allowedOptions, shortName);
+                option = findOption(state, allowedOptions, name.charAt(1));
                 noSep = option != null;
             }
 
@@ -91,7 +97,9 @@ public class ListValueOptionParser<T> extends AbstractOptionParser<T> {
         tokens.next();
         state = state.pushContext(Context.OPTION).withOption(option);
 
-        String list = noSep ? name.substring(2) : null;
+        // With no separator the list follows the short name in the same token
+        String list = noSep ? name : null;
+        int listStart = noSep ? 2 : 0;
         if (option.getArity() == 0) {
             // Zero arity option, consume token and continue
             // Determine what value to set
@@ -113,27 +121,32 @@ public class ListValueOptionParser<T> extends AbstractOptionParser<T> {
                 list = tokens.next();
             }
 
-            // Parse value as a list
-            List<String> listValues = getValues(list);
-            if (listValues.size() < option.getArity()) {
+            // Check the list has the right number of values before
+            // materializing any of them
+            int count = TokenScanner.countValues(list, listStart, this.separator);
+            if (count < option.getArity()) {
                 state.getParserConfiguration().getErrorHandler()
                         .handleError(new ParseOptionMissingValueException(
                                 "Too few option values received for option %s in list value '%s' (%d values expected but only found %d)",
-                                option.getTitle(), option.getOptions().iterator().next(), list, option.getArity(),
-                                listValues.size()));
+                                option.getTitle(), option.getOptions().iterator().next(), list.substring(listStart),
+                                option.getArity(), count));
                 return state;
             }
-            if (listValues.size() > option.getArity()) {
+            if (count > option.getArity()) {
                 state.getParserConfiguration().getErrorHandler()
                         .handleError(new ParseOptionUnexpectedException(
                                 "Too many option values received for option %s in list value '%s' (%d values expected but found %d)",
-                                option.getOptions().iterator().next(), list, option.getArity(), listValues.size()));
+                                option.getOptions().iterator().next(), list.substring(listStart), option.getArity(),
+                                count));
                 return state;
             }
 
             // Parse individual values and assign to option
-            for (String value : listValues) {
-                state = state.withOptionValue(option, value);
+            int start = TokenScanner.skipSeparators(list, listStart, this.separator);
+            while (start < list.length()) {
+                int end = TokenScanner.findSeparator(list, start, this.separator);
+                state = state.withOptionValue(option, list.substring(start, end));
+                start = TokenScanner.skipSeparators(list, end, this.separator);
             }
 
             state = state.popContext();
@@ -15,15 +15,14 @@
  */
 package com.github.rvesse.airline.parser.options;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.collections4.iterators.PeekingIterator;
-import org.apache.commons.lang3.StringUtils;
 
 import com.github.rvesse.airline.Context;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
-import com.github.rvesse.airline.utils.AirlineUtils;
 
 /**
  * An options parser that expects the name and values to be white space
@@ -67,7 +66,16 @@ public class MaybePairValueOptionParser<T> extends AbstractOptionParser<T> {
     }
 
     protected final List<String> getValues(String list) {
-        return AirlineUtils.arrayToList(StringUtils.split(list, new String(new char[] { this.separator }), 2));
+        List<String> values = new ArrayList<String>(2);
+        int first = TokenScanner.skipSeparators(list, 0, this.separator);
+        if (first < list.length()) {
+            int firstEnd = TokenScanner.findSeparator(list, first, this.separator);
+            values.add(list.substring(first, firstEnd));
+            int second = TokenScanner.skipSeparators(list, firstEnd, this.separator);
+            if (second < list.length())
+                values.add(list.substring(second));
+        }
+        return values;
     }
 
     @Override
@@ -79,8 +87,7 @@ public class MaybePairValueOptionParser<T> extends AbstractOptionParser<T> {
         if (option == null) {
             // Check if we are looking at a maven style -Pa,b,c argument
             if (hasShortNamePrefix(name) && name.length() > 2) {
-                String shortName = name.substring(0, 2);
-                option = findOption(state, allowedOptions, shortName);
+                option = findOption(state, allowedOptions, name.charAt(1));
                 noSep = option != null;
             }
 
@@ -94,7 +101,9 @@ public class MaybePairValueOptionParser<T> extends AbstractOptionParser<T> {
         tokens.next();
         state = state.pushContext(Context.OPTION).withOption(option);
 
-        String maybePair = noSep ? name.substring(2) : null;
+        // With no separator the pair follows the short name in the same token
+        String maybePair = noSep ? name : null;
+        int pairStart = noSep ? 2 : 0;
         if (maybePair == null) {
             // Can't parse pair value if there are no further tokens
             if (!tokens.hasNext())
@@ -105,9 +114,11 @@ public class MaybePairValueOptionParser<T> extends AbstractOptionParser<T> {
             maybePair = tokens.next();
         }
 
-        // Parse value as a pair
-        List<String> pairValues = getValues(maybePair);
-        if (pairValues.size() < 2) {
+        // Locate the values of the pair
+        int first = TokenScanner.skipSeparators(maybePair, pairStart, this.separator);
+        int firstEnd = TokenScanner.findSeparator(maybePair, first, this.separator);
+        int second = TokenScanner.skipSeparators(maybePair, firstEnd, this.separator);
+        if (second >= maybePair.length()) {
             // If we didn't get a pair as x=y then need to grab the second half
             // of the pair from the next token
             if (!tokens.hasNext())
@@ -118,12 +129,13 @@ public class MaybePairValueOptionParser<T> extends AbstractOptionParser<T> {
             if (findOption(state, allowedOptions, peekedToken) != null)
                 return state;
 
-            pairValues.add(tokens.next());
-        }
-
-        // Parse the values and assign to option
-        for (String value : pairValues) {
-            state = state.withOptionValue(option, value);
+            if (first < firstEnd)
+                state = state.withOptionValue(option, maybePair.substring(first, firstEnd));
+            state = state.withOptionValue(option, tokens.next());
+        } else {
+            // Parse the values and assign to option
+            state = state.withOptionValue(option, maybePair.substring(first, firstEnd));
+            state = state.withOptionValue(option, maybePair.substring(second));
         }
 
         state = state.popContext();
@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.options;
+
+import java.util.Set;
+
+/**
+ * Interface for option parsers that declare which token shapes they are able
+ * to parse
+ * <p>
+ * Tokens are only offered to a shaped option parser if their
+ * {@link TokenShape} is one of the parsers accepted shapes, option parsers
+ * that do not implement this interface are offered every token. A parser must
+ * only omit a shape if it would never parse a token of that shape regardless
+ * of the options available.
+ * </p>
+ */
+public interface ShapedOptionParser<T> extends OptionParser<T> {
+
+    /**
+     * Gets the token shapes this parser may be able to parse
+     * 
+     * @return Accepted token shapes
+     */
+    public abstract Set<TokenShape> getAcceptedShapes();
+}
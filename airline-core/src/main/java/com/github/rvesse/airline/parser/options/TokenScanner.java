@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.options;
+
+/**
+ * Helper methods for scanning tokens for separated values by character offset
+ * <p>
+ * Option parsers use these methods to locate the names and values within a
+ * token without splitting it into intermediate arrays and lists, only the
+ * names and values that are actually needed are materialized as strings.
+ * Runs of adjacent separators are treated as a single separator and leading
+ * separators are ignored, this is consistent with how
+ * {@link org.apache.commons.lang3.StringUtils#split(String, char)} treats
+ * separators.
+ * </p>
+ */
+public final class TokenScanner {
+
+    private TokenScanner() {
+    }
+
+    /**
+     * Skips over any separators starting from the given offset
+     * 
+     * @param token
+     *            Token
+     * @param from
+     *            Offset to start from
+     * @param separator
+     *            Separator character
+     * @return Offset of the first non-separator character at or after
+     *         {@code from}, or the length of the token if there is none
+     */
+    public static int skipSeparators(CharSequence token, int from, char separator) {
+        int length = token.length();
+        while (from < length && token.charAt(from) == separator) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Finds the next separator starting from the given offset
+     * 
+     * @param token
+     *            Token
+     * @param from
+     *            Offset to start from
+     * @param separator
+     *            Separator character
+     * @return Offset of the first separator character at or after
+     *         {@code from}, or the length of the token if there is none
+     */
+    public static int findSeparator(CharSequence token, int from, char separator) {
+        int length = token.length();
+        while (from < length && token.charAt(from) != separator) {
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * Counts the non-empty separated values in a token starting from the given
+     * offset
+     * 
+     * @param token
+     *            Token
+     * @param from
+     *            Offset to start from
+     * @param separator
+     *            Separator character
+     * @return Number of values
+     */
+    public static int countValues(CharSequence token, int from, char separator) {
+        int count = 0;
+        int length = token.length();
+        int start = skipSeparators(token, from, separator);
+        while (start < length) {
+            count++;
+            start = skipSeparators(token, findSeparator(token, start, separator), separator);
+        }
+        return count;
+    }
+}
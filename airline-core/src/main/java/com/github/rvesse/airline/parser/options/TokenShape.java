@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.options;
+
+/**
+ * Represents the syntactic shape of a command line token
+ * <p>
+ * Tokens are classified once as they are encountered during option parsing so
+ * that they need only be offered to the option parsers that may be able to
+ * parse tokens of that shape, see {@link ShapedOptionParser}. Classification
+ * is purely syntactic and does not consider the option meta-data, a negated
+ * flag e.g. {@code --no-verbose} is therefore classified by the shape of its
+ * name just like any other option name.
+ * </p>
+ */
+public enum TokenShape {
+    /**
+     * The conventional {@code --} separator
+     */
+    SEPARATOR,
+    /**
+     * A long option name e.g. {@code --name}
+     */
+    LONG,
+    /**
+     * A long option name with an attached value e.g. {@code --name=value}
+     */
+    LONG_WITH_VALUE,
+    /**
+     * A single short option name e.g. {@code -n}
+     */
+    SHORT,
+    /**
+     * A short option name followed by further characters e.g. a bundle of
+     * short options {@code -abc}, a short option with an attached value
+     * {@code -nvalue} or an attached list {@code -Pa,b}
+     */
+    SHORT_COMPOUND,
+    /**
+     * Any other token e.g. a plain word or a lone {@code -}
+     */
+    WORD;
+
+    /**
+     * Classifies a token
+     * 
+     * @param token
+     *            Token
+     * @return Token shape
+     */
+    public static TokenShape classify(String token) {
+        if (token.length() < 2 || token.charAt(0) != '-')
+            return WORD;
+        if (token.charAt(1) != '-')
+            return token.length() == 2 ? SHORT : SHORT_COMPOUND;
+        if (token.length() == 2)
+            return SEPARATOR;
+        return token.indexOf('=', 2) >= 0 ? LONG_WITH_VALUE : LONG;
+    }
+}
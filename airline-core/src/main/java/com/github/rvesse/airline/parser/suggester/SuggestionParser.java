@@ -22,6 +22,11 @@ import com.github.rvesse.airline.parser.ParseState;
 public class SuggestionParser<T> extends AbstractCommandParser<T> {
 
     public ParseState<T> parse(GlobalMetadata<T> metadata, Iterable<String> args) {
-        return tryParse(metadata, args);
+        ParseState<T> state = tryParse(metadata, args);
+
+        // Suggestions never validate the parse so there's no point finishing
+        // any validations that were started
+        state.cancelValidations();
+        return state;
     }
 }
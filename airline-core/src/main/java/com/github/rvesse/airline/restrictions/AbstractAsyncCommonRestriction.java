@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.restrictions;
+
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.parser.ParseState;
+
+/**
+ * Base class for restrictions whose validations may be carried out
+ * asynchronously
+ * <p>
+ * Derived classes override the asynchronous validation methods they need, the
+ * synchronous validation methods simply run the corresponding asynchronous
+ * validation immediately.
+ * </p>
+ * <p>
+ * As described on {@link AsyncOptionRestriction} and
+ * {@link AsyncArgumentsRestriction} the validations returned must not access
+ * the {@link ParseState}, anything they need from it has to be captured when
+ * the validation is created.
+ * </p>
+ */
+public abstract class AbstractAsyncCommonRestriction extends AbstractCommonRestriction
+        implements AsyncOptionRestriction, AsyncArgumentsRestriction {
+
+    @Override
+    public <T> Runnable preValidateAsync(ParseState<T> state, OptionMetadata option, String value) {
+        // Does no validation
+        return null;
+    }
+
+    @Override
+    public <T> Runnable postValidateAsync(ParseState<T> state, OptionMetadata option, Object value) {
+        // Does no validation
+        return null;
+    }
+
+    @Override
+    public <T> Runnable preValidateAsync(ParseState<T> state, ArgumentsMetadata arguments, String value) {
+        // Does no validation
+        return null;
+    }
+
+    @Override
+    public <T> Runnable postValidateAsync(ParseState<T> state, ArgumentsMetadata arguments, Object value) {
+        // Does no validation
+        return null;
+    }
+
+    @Override
+    public <T> void preValidate(ParseState<T> state, OptionMetadata option, String value) {
+        run(this.preValidateAsync(state, option, value));
+    }
+
+    @Override
+    public <T> void postValidate(ParseState<T> state, OptionMetadata option, Object value) {
+        run(this.postValidateAsync(state, option, value));
+    }
+
+    @Override
+    public <T> void preValidate(ParseState<T> state, ArgumentsMetadata arguments, String value) {
+        run(this.preValidateAsync(state, arguments, value));
+    }
+
+    @Override
+    public <T> void postValidate(ParseState<T> state, ArgumentsMetadata arguments, Object value) {
+        run(this.postValidateAsync(state, arguments, value));
+    }
+
+    private static void run(Runnable validation) {
+        if (validation != null)
+            validation.run();
+    }
+}
@@ -56,14 +56,7 @@ public abstract class AbstractCommonRestriction implements OptionRestriction, Ar
         if (arguments == null || arguments.getTitle().size() == 0 || state == null)
             return "";
 
-        // If number of arguments parsed so far is less than the number of
-        // titles available grab the next title
-        if (state.getParsedArguments().size() < arguments.getTitle().size())
-            return arguments.getTitle().get(state.getParsedArguments().size());
-
-        // If number of arguments passed so far is greater than the number of
-        // titles available just use the last title
-        return arguments.getTitle().get(arguments.getTitle().size() - 1);
+        return getArgumentTitle(arguments, state.getArgumentIndex());
     }
 
     public static <T> String getArgumentTitle(ArgumentsMetadata arguments, int argIndex) {
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.restrictions;
+
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.parser.ParseState;
+
+/**
+ * Represents restrictions on arguments whose validation may be expensive e.g.
+ * because it requires I/O and so may be carried out asynchronously
+ * <p>
+ * When a parser encounters a restriction implementing this interface it calls
+ * the asynchronous forms of the validation methods in place of
+ * {@link #preValidate(ParseState, ArgumentsMetadata, String)} and
+ * {@link #postValidate(ParseState, ArgumentsMetadata, Object)}. The returned
+ * validations are submitted to the validation executor configured via
+ * {@link com.github.rvesse.airline.builder.ParserBuilder#withValidationExecutor(java.util.concurrent.Executor)}
+ * and all outstanding validations are completed before
+ * {@link #finalValidate(ParseState, ArgumentsMetadata)} is called. If no executor
+ * is configured validations are run immediately.
+ * </p>
+ * <p>
+ * The asynchronous methods themselves are called on the parsing thread but the
+ * validations they return may run on another thread while the parse continues
+ * to accumulate values. The returned {@link Runnable} <strong>must not</strong>
+ * access the {@link ParseState} it was created from, either directly or via
+ * helpers such as
+ * {@link AbstractCommonRestriction#getArgumentTitle(ParseState, com.github.rvesse.airline.model.ArgumentsMetadata)},
+ * because the storage backing the state is not safe for concurrent access.
+ * Any information a validation needs from the state should be captured into
+ * immutable values before the validation is returned, the arguments meta-data and
+ * the value being validated may be used freely.
+ * </p>
+ * <p>
+ * The synchronous methods continue to be used where validation must happen
+ * immediately so implementations should also implement those, see
+ * {@link AbstractAsyncCommonRestriction} for a convenient base class that
+ * does this.
+ * </p>
+ */
+public interface AsyncArgumentsRestriction extends ArgumentsRestriction {
+
+    /**
+     * Gets a validation to be run before Airline attempts to convert a string
+     * argument received into a strongly typed Java value
+     * 
+     * @param state
+     *            Parser state, must only be used while creating the
+     *            validation and not by the returned validation itself
+     * @param arguments
+     *            Arguments meta-data
+     * @param value
+     *            String value
+     * @return Validation which signals failure by throwing a
+     *         {@link com.github.rvesse.airline.parser.errors.ParseException},
+     *         may be {@code null} if no validation is required
+     */
+    public abstract <T> Runnable preValidateAsync(ParseState<T> state, ArgumentsMetadata arguments, String value);
+
+    /**
+     * Gets a validation to be run after Airline has converted a string
+     * argument received into a strongly typed Java value
+     * 
+     * @param state
+     *            Parser state, must only be used while creating the
+     *            validation and not by the returned validation itself
+     * @param arguments
+     *            Arguments meta-data
+     * @param value
+     *            Strongly typed value
+     * @return Validation which signals failure by throwing a
+     *         {@link com.github.rvesse.airline.parser.errors.ParseException},
+     *         may be {@code null} if no validation is required
+     */
+    public abstract <T> Runnable postValidateAsync(ParseState<T> state, ArgumentsMetadata arguments, Object value);
+}
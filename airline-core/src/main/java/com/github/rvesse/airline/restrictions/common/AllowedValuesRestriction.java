@@ -15,6 +15,9 @@
  */
 package com.github.rvesse.airline.restrictions.common;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -28,10 +31,20 @@ import com.github.rvesse.airline.types.DefaultTypeConverter;
 import com.github.rvesse.airline.types.TypeConverter;
 import com.github.rvesse.airline.utils.AirlineUtils;
 
+/**
+ * A restriction that requires values to be one of a set of allowed values
+ * <p>
+ * The raw allowed values are converted once for each combination of target
+ * type and type converter they are validated against, the converted values are
+ * then held in an immutable structure so validation needs no locking. Enum
+ * types are looked up via an {@link EnumSet} and other types via a hashed set.
+ * </p>
+ */
 public class AllowedValuesRestriction extends AbstractAllowedValuesRestriction {
 
-    private Object currentState = null;
-    private Set<Object> allowedValues = null;
+    private static final TypeConverter DEFAULT_CONVERTER = new DefaultTypeConverter();
+
+    private volatile AllowedValues allowedValues = null;
 
     public AllowedValuesRestriction(String... rawValues) {
         super(false);
@@ -44,24 +57,31 @@ public class AllowedValuesRestriction extends AbstractAllowedValuesRestriction {
         if (this.rawValues.isEmpty())
             return;
 
-        Set<Object> allowedValues = createAllowedValues(state, option.getTitle(), option.getJavaType(),
+        AllowedValues allowedValues = getAllowedValues(option.getTitle(), option.getJavaType(),
                 option.getTypeConverterProvider().getTypeConverter(option, state));
         if (!allowedValues.contains(value)) {
-            throw new ParseOptionIllegalValueException(option.getTitle(), value, allowedValues);
+            throw new ParseOptionIllegalValueException(option.getTitle(), value, allowedValues.values);
         }
     }
 
-    protected synchronized <T> Set<Object> createAllowedValues(ParseState<T> state, String title, Class<?> type,
+    protected <T> Set<Object> createAllowedValues(ParseState<T> state, String title, Class<?> type,
             TypeConverter converter) {
-        // Re-use cached values if possible
-        if (currentState == state) {
+        return getAllowedValues(title, type, converter).values;
+    }
+
+    private AllowedValues getAllowedValues(String title, Class<?> type, TypeConverter converter) {
+        if (converter == null)
+            converter = DEFAULT_CONVERTER;
+
+        // Re-use the converted values if possible, if we race with another
+        // thread both compute the same values so either may be kept
+        AllowedValues allowedValues = this.allowedValues;
+        if (allowedValues != null && allowedValues.type == type && allowedValues.converter == converter) {
             return allowedValues;
         }
 
         // Convert values
         Set<Object> actualValues = new LinkedHashSet<Object>();
-        if (converter == null)
-            converter = new DefaultTypeConverter();
         for (String rawValue : this.rawValues) {
             try {
                 actualValues.add(converter.convert(title, type, rawValue));
@@ -71,11 +91,9 @@ public class AllowedValuesRestriction extends AbstractAllowedValuesRestriction {
             }
         }
 
-        // Cache for re-use
-        currentState = state;
-        this.allowedValues = actualValues;
-
-        return actualValues;
+        allowedValues = new AllowedValues(type, converter, actualValues);
+        this.allowedValues = allowedValues;
+        return allowedValues;
     }
 
     @Override
@@ -85,11 +103,51 @@ public class AllowedValuesRestriction extends AbstractAllowedValuesRestriction {
             return;
 
         String title = getArgumentTitle(state, arguments);
-        Set<Object> allowedValues = createAllowedValues(state, title, arguments.getJavaType(),
+        AllowedValues allowedValues = getAllowedValues(title, arguments.getJavaType(),
                 arguments.getTypeConverterProvider().getTypeConverter(arguments, state));
         if (!allowedValues.contains(value)) {
-            throw new ParseArgumentsIllegalValueException(title, value, allowedValues);
+            throw new ParseArgumentsIllegalValueException(title, value, allowedValues.values);
         }
     }
 
+    /**
+     * Immutable set of converted allowed values for a particular target type
+     * and converter
+     */
+    private static final class AllowedValues {
+        private final Class<?> type;
+        private final TypeConverter converter;
+        /**
+         * Values in the order they were declared, used for error messages
+         */
+        private final Set<Object> values;
+        /**
+         * Values as used for lookups
+         */
+        private final Set<?> lookup;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        AllowedValues(Class<?> type, TypeConverter converter, Set<Object> values) {
+            this.type = type;
+            this.converter = converter;
+            this.values = Collections.unmodifiableSet(values);
+
+            boolean allConstants = type.isEnum();
+            for (Object value : values) {
+                if (!type.isInstance(value))
+                    allConstants = false;
+            }
+            if (allConstants) {
+                EnumSet constants = EnumSet.noneOf((Class<Enum>) type);
+                constants.addAll(values);
+                this.lookup = constants;
+            } else {
+                this.lookup = new HashSet<Object>(values);
+            }
+        }
+
+        boolean contains(Object value) {
+            return this.lookup.contains(value);
+        }
+    }
 }
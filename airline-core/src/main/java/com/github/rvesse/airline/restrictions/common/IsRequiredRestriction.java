@@ -15,8 +15,6 @@
  */
 package com.github.rvesse.airline.restrictions.common;
 
-import org.apache.commons.collections4.CollectionUtils;
-
 import com.github.rvesse.airline.model.ArgumentsMetadata;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
@@ -24,7 +22,6 @@ import com.github.rvesse.airline.parser.errors.ParseArgumentsMissingException;
 import com.github.rvesse.airline.parser.errors.ParseOptionMissingException;
 import com.github.rvesse.airline.restrictions.AbstractCommonRestriction;
 import com.github.rvesse.airline.utils.AirlineUtils;
-import com.github.rvesse.airline.utils.predicates.parser.ParsedOptionFinder;
 
 /**
  * A restriction that options/arguments are required
@@ -33,13 +30,13 @@ public class IsRequiredRestriction extends AbstractCommonRestriction {
 
     @Override
     public <T> void finalValidate(ParseState<T> state, OptionMetadata option) {
-        if (CollectionUtils.find(state.getParsedOptions(), new ParsedOptionFinder(option)) == null)
+        if (!state.getParsedOptionsIndex().contains(option))
             throw new ParseOptionMissingException(AirlineUtils.first(option.getOptions()));
     }
 
     @Override
     public <T> void finalValidate(ParseState<T> state, ArgumentsMetadata arguments) {
-        if (state.getParsedArguments().isEmpty())
+        if (state.getParsedArguments().isEmpty() && !state.hasStreamedArguments())
             throw new ParseArgumentsMissingException(arguments.getTitle());
     }
 
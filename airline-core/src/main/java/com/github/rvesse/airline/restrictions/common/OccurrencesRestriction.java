@@ -15,13 +15,9 @@
  */
 package com.github.rvesse.airline.restrictions.common;
 
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
-
 import com.github.rvesse.airline.help.sections.HelpFormat;
 import com.github.rvesse.airline.help.sections.HelpHint;
 import com.github.rvesse.airline.model.ArgumentsMetadata;
@@ -31,7 +27,6 @@ import com.github.rvesse.airline.parser.errors.ParseArgumentsMissingException;
 import com.github.rvesse.airline.parser.errors.ParseRestrictionViolatedException;
 import com.github.rvesse.airline.parser.errors.ParseTooManyArgumentsException;
 import com.github.rvesse.airline.restrictions.AbstractCommonRestriction;
-import com.github.rvesse.airline.utils.predicates.parser.ParsedOptionFinder;
 
 public class OccurrencesRestriction extends AbstractCommonRestriction implements HelpHint {
 
@@ -43,28 +38,49 @@ public class OccurrencesRestriction extends AbstractCommonRestriction implements
         this.maximum = maximum;
     }
 
+    /**
+     * Gets the number of occurrences
+     * 
+     * @return Number of occurrences, values less than or equal to zero mean
+     *         no restriction is applied
+     */
+    public int getOccurrences() {
+        return this.occurrences;
+    }
+
+    /**
+     * Gets whether the number of occurrences is a maximum rather than a
+     * minimum
+     * 
+     * @return True if a maximum, false if a minimum
+     */
+    public boolean isMaximum() {
+        return this.maximum;
+    }
+
     @Override
     public <T> void finalValidate(ParseState<T> state, OptionMetadata option) {
         if (occurrences <= 0)
             return;
 
-        Collection<Pair<OptionMetadata, Object>> parsedOptions = CollectionUtils.select(state.getParsedOptions(),
-                new ParsedOptionFinder(option));
+        int parsedOptions = state.getParsedOptionsIndex().getCount(option);
 
-        if (maximum && parsedOptions.size() > this.occurrences) {
+        if (maximum && parsedOptions > this.occurrences) {
             throw new ParseRestrictionViolatedException(
                     "Option '%s' may be specified a maximum of %d times but was found %d times", option.getTitle(),
-                    this.occurrences, parsedOptions.size());
-        } else if (!maximum && parsedOptions.size() < this.occurrences) {
+                    this.occurrences, parsedOptions);
+        } else if (!maximum && parsedOptions < this.occurrences) {
             throw new ParseRestrictionViolatedException(
                     "Option '%s' must be specified at least %d times but was only found %d times", option.getTitle(),
-                    occurrences, parsedOptions.size());
+                    occurrences, parsedOptions);
         }
     }
 
     @Override
     public <T> void finalValidate(ParseState<T> state, ArgumentsMetadata arguments) {
-        if (occurrences <= 0)
+        // The number of streamed arguments isn't known until the command
+        // consumes them so ArgumentStream enforces this instead
+        if (occurrences <= 0 || state.hasStreamedArguments())
             return;
 
         if (maximum && state.getParsedArguments().size() > this.occurrences) {
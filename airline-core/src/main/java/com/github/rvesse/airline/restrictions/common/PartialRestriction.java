@@ -105,7 +105,7 @@ public class PartialRestriction extends AbstractCommonRestriction implements Hel
     }
 
     private <T> boolean isApplicableToArgument(ParseState<T> state) {
-        int index = state.getParsedArguments().size();
+        int index = state.getArgumentIndex();
         return indices.contains(index);
     }
 
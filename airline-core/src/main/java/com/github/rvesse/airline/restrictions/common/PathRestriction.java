@@ -15,7 +15,21 @@
  */
 package com.github.rvesse.airline.restrictions.common;
 
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
 import com.github.rvesse.airline.annotations.restrictions.PathKind;
 import com.github.rvesse.airline.help.sections.HelpFormat;
 import com.github.rvesse.airline.help.sections.HelpHint;
@@ -23,6 +37,7 @@ import com.github.rvesse.airline.model.ArgumentsMetadata;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
 import com.github.rvesse.airline.parser.errors.ParseRestrictionViolatedException;
+import com.github.rvesse.airline.parser.errors.handlers.ParserErrorHandler;
 import com.github.rvesse.airline.restrictions.AbstractCommonRestriction;
 
 /**
@@ -34,8 +49,26 @@ import com.github.rvesse.airline.restrictions.AbstractCommonRestriction;
  */
 public class PathRestriction extends AbstractCommonRestriction implements HelpHint {
 
-    private final boolean mustExist, readable, writable, executable;
+    /**
+     * Key under which results for ancestor directories are cached for the
+     * duration of a parse
+     */
+    private static final Object ANCESTORS_CACHE_KEY = new Object();
+    /**
+     * Minimum number of paths in a batch before it is validated concurrently
+     */
+    private static final int CONCURRENT_THRESHOLD = 256;
+    /**
+     * Minimum number of paths validated by each concurrent task
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private final boolean mustExist, readable, writable, executable, concurrent;
     private final PathKind kind;
+    /**
+     * Key under which raw argument values are batched in the parse cache
+     */
+    private final Object batchKey = new Object();
 
     /**
      * Creates a new path restriction
@@ -57,117 +90,307 @@ public class PathRestriction extends AbstractCommonRestriction implements HelpHi
      * @param kind
      */
     public PathRestriction(boolean mustExist, boolean readable, boolean writable, boolean executable, PathKind kind) {
+        this(mustExist, readable, writable, executable, kind, false);
+    }
+
+    /**
+     * Creates a new path restriction
+     * 
+     * @param mustExist
+     *            Whether the path must exist
+     * @param readable
+     *            Whether the path must be readable, if the specific path does
+     *            not exist then this check validates that the first parent in
+     *            the path that exists is readable
+     * @param writable
+     *            Whether the path must be writable, if the specific path does
+     *            not exist then this check validates that the first parent in
+     *            the path that exists is writable
+     * @param executable
+     *            Whether the path must be executable, if the specific path does
+     *            not exist then this check validates that the first parent in
+     *            the path that exists is executable
+     * @param kind
+     *            Kind of path expected
+     * @param concurrent
+     *            Whether arguments are validated as a batch once parsing
+     *            completes, large batches are validated concurrently
+     */
+    public PathRestriction(boolean mustExist, boolean readable, boolean writable, boolean executable, PathKind kind,
+            boolean concurrent) {
         this.mustExist = mustExist;
         this.readable = readable;
         this.writable = writable;
         this.executable = executable;
         this.kind = kind;
+        this.concurrent = concurrent;
     }
 
     protected void validate(String title, String path) {
+        this.validate(title, path, null);
+    }
+
+    /**
+     * Validates a path
+     * 
+     * @param title
+     *            Title to use in error messages
+     * @param path
+     *            Path
+     * @param cache
+     *            Cache in which results for ancestor directories are kept, if
+     *            {@code null} nothing is cached
+     */
+    protected void validate(String title, String path, ConcurrentMap<Object, Object> cache) {
         if (path == null)
             throw new ParseRestrictionViolatedException("%s must be given a non-null path", title, path);
 
-        File f = new File(path);
+        Path p;
+        try {
+            p = Paths.get(path);
+        } catch (InvalidPathException e) {
+            // Not a path on this file system so can neither exist nor be
+            // created
+            if (this.mustExist)
+                notExists(title, path);
+            this.checkPermissions(title, path, false, false, false);
+            return;
+        }
 
-        if (this.mustExist && !f.exists())
-            throw new ParseRestrictionViolatedException(
-                    "%s was given value '%s' which is not a path to an existing file/directory", title, path);
+        BasicFileAttributes attributes = readAttributes(p);
+        if (attributes == null) {
+            if (this.mustExist)
+                notExists(title, path);
+            if (!this.readable && !this.writable && !this.executable)
+                return;
 
-        if (this.mustExist && f.exists()) {
+            // Verify that the first portion of the path that exists has the
+            // desired properties
+            Ancestor ancestor = findExistingAncestor(p.toAbsolutePath(), cache);
+            if (ancestor != null)
+                this.checkPermissions(title, path, ancestor.readable, ancestor.writable, ancestor.executable);
+            return;
+        }
+
+        if (this.mustExist) {
             // Some things require the file to exist in order for direct
             // validation to be applied
             switch (kind) {
             case FILE:
-                if (!f.isFile())
+                if (!attributes.isRegularFile())
                     throw new ParseRestrictionViolatedException("%s was given value '%s' which is not a path to a file",
                             title, path);
                 break;
             case DIRECTORY:
-                if (!f.isDirectory())
+                if (!attributes.isDirectory())
                     throw new ParseRestrictionViolatedException(
                             "%s was given value '%s' which is not a path to a directory", title, path);
                 break;
             default:
-                if (!f.isFile() && !f.isDirectory())
+                if (!attributes.isRegularFile() && !attributes.isDirectory())
                     throw new ParseRestrictionViolatedException(
                             "%s was given value '%s' which is not a path to a file/directory", title, path);
                 break;
             }
+        }
 
-            // Check permissions
-            if (this.readable && !f.canRead())
-                notReadable(title, path);
+        // Only check the permissions we actually need
+        if (this.readable && !Files.isReadable(p))
+            notReadable(title, path);
 
-            if (this.writable && !f.canWrite())
-                notWritable(title, path);
+        if (this.writable && !Files.isWritable(p))
+            notWritable(title, path);
 
-            if (this.executable && !f.canExecute())
-                notExecutable(title, path);
-        } else if (this.readable || this.writable || this.executable) {
-            if (!f.isAbsolute())
-                f = f.getAbsoluteFile();
+        if (this.executable && !Files.isExecutable(p))
+            notExecutable(title, path);
+    }
 
-            // May be able to check the conditions directly if the file exists
-            if (f.exists()) {
-                if (this.readable && !f.canRead())
-                    notReadable(title, path);
+    /**
+     * Validates a batch of paths
+     * <p>
+     * If this restriction was created with concurrent validation enabled and
+     * the batch is sufficiently large it is split across the available
+     * processors. In either case every invalid path in the batch is
+     * reported, the returned errors being in the same order as the paths.
+     * </p>
+     * 
+     * @param titles
+     *            Titles to use in error messages, one per path
+     * @param paths
+     *            Paths
+     * @param cache
+     *            Cache in which results for ancestor directories are kept, if
+     *            {@code null} nothing is cached
+     * @return Errors for the invalid paths, empty if all paths are valid
+     */
+    protected List<ParseRestrictionViolatedException> validateAll(List<String> titles, List<String> paths, ConcurrentMap<Object, Object> cache) {
+        if (titles.size() != paths.size())
+            throw new IllegalArgumentException("Must provide one title per path");
 
-                if (this.writable && !f.canWrite())
-                    notWritable(title, path);
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (!this.concurrent || paths.size() < CONCURRENT_THRESHOLD || processors < 2) {
+            return this.validateRange(titles, paths, cache, 0, paths.size());
+        }
 
-                if (this.executable && !f.canExecute())
-                    notExecutable(title, path);
-            } else {
-                // Otherwise verify that the first portion of the path that
-                // exists has the desired properties
-                while (f.getParentFile() != null) {
-                    f = f.getParentFile();
-                    if (f.exists()) {
-                        // All conditions must be met by first part of the path
-                        // that exists
-                        if (this.readable && !f.canRead())
-                            notReadable(title, path);
-
-                        if (this.writable && !f.canWrite())
-                            notWritable(title, path);
-
-                        if (this.executable && !f.canExecute())
-                            notExecutable(title, path);
-
-                        // All conditions satisfied so no need to continue going
-                        // up the path
-                        break;
-                    }
-                }
+        int chunks = Math.min(processors, paths.size() / MIN_CHUNK_SIZE);
+        int chunkSize = (paths.size() + chunks - 1) / chunks;
+        List<Callable<List<ParseRestrictionViolatedException>>> tasks = new ArrayList<>();
+        for (int start = 0; start < paths.size(); start += chunkSize) {
+            tasks.add(new BatchTask(titles, paths, cache, start, Math.min(start + chunkSize, paths.size())));
+        }
+
+        try {
+            // Results are in batch order so errors stay in the order of the
+            // paths
+            List<ParseRestrictionViolatedException> errors = new ArrayList<>();
+            for (Future<List<ParseRestrictionViolatedException>> result : Workers.POOL.invokeAll(tasks)) {
+                errors.addAll(result.get());
+            }
+            return errors;
+        } catch (InterruptedException e) {
+            // Preserve the interrupt and fall back to validating on this
+            // thread
+            Thread.currentThread().interrupt();
+            return this.validateRange(titles, paths, cache, 0, paths.size());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<ParseRestrictionViolatedException> validateRange(List<String> titles, List<String> paths,
+            ConcurrentMap<Object, Object> cache, int start, int end) {
+        List<ParseRestrictionViolatedException> errors = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            try {
+                this.validate(titles.get(i), paths.get(i), cache);
+            } catch (ParseRestrictionViolatedException e) {
+                errors.add(e);
             }
         }
+        return errors;
     }
 
-    private void notExecutable(String title, String path) {
+    private void checkPermissions(String title, String path, boolean canRead, boolean canWrite, boolean canExecute) {
+        if (this.readable && !canRead)
+            notReadable(title, path);
+
+        if (this.writable && !canWrite)
+            notWritable(title, path);
+
+        if (this.executable && !canExecute)
+            notExecutable(title, path);
+    }
+
+    private static BasicFileAttributes readAttributes(Path p) {
+        try {
+            return Files.readAttributes(p, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Treat as non-existent as File.exists() would
+            return null;
+        }
+    }
+
+    private static Ancestor findExistingAncestor(Path path, ConcurrentMap<Object, Object> cache) {
+        ConcurrentMap<Path, Ancestor> ancestors = getAncestors(cache);
+        Path current = path.getParent();
+        while (current != null) {
+            Ancestor ancestor = ancestors != null ? ancestors.get(current) : null;
+            if (ancestor == null) {
+                ancestor = Ancestor.of(current);
+                if (ancestors != null)
+                    ancestors.putIfAbsent(current, ancestor);
+            }
+            if (ancestor.exists)
+                return ancestor;
+            current = current.getParent();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Path, Ancestor> getAncestors(ConcurrentMap<Object, Object> cache) {
+        if (cache == null)
+            return null;
+        Object ancestors = cache.get(ANCESTORS_CACHE_KEY);
+        if (ancestors == null) {
+            ConcurrentMap<Path, Ancestor> created = new ConcurrentHashMap<>();
+            ancestors = cache.putIfAbsent(ANCESTORS_CACHE_KEY, created);
+            if (ancestors == null)
+                ancestors = created;
+        }
+        return (ConcurrentMap<Path, Ancestor>) ancestors;
+    }
+
+    private static <T> ConcurrentMap<Object, Object> getCache(ParseState<T> state) {
+        return state != null ? state.getParseCache() : null;
+    }
+
+    private static void notExists(String title, String path) {
+        throw new ParseRestrictionViolatedException(
+                "%s was given value '%s' which is not a path to an existing file/directory", title, path);
+    }
+
+    private static void notExecutable(String title, String path) {
         throw new ParseRestrictionViolatedException("%s was given value '%s' which is not a executable path", title,
                 path);
     }
 
-    private void notWritable(String title, String path) {
+    private static void notWritable(String title, String path) {
         throw new ParseRestrictionViolatedException("%s was given value '%s' which is not a writeable path", title,
                 path);
     }
 
-    private void notReadable(String title, String path) {
+    private static void notReadable(String title, String path) {
         throw new ParseRestrictionViolatedException("%s was given value '%s' which it not a readable path", title,
                 path);
     }
 
     @Override
     public <T> void preValidate(ParseState<T> state, OptionMetadata option, String value) {
-        this.validate(String.format("Option '%s'", option.getTitle()), value);
+        this.validate(String.format("Option '%s'", option.getTitle()), value, getCache(state));
     }
 
     @Override
     public <T> void preValidate(ParseState<T> state, ArgumentsMetadata arguments, String value) {
-        this.validate(String.format("Argument '%s'", AbstractCommonRestriction.getArgumentTitle(state, arguments)),
-                value);
+        String title = String.format("Argument '%s'", AbstractCommonRestriction.getArgumentTitle(state, arguments));
+
+        // Batched arguments are validated once parsing completes, streamed
+        // arguments are only seen one at a time so can't be batched
+        if (this.concurrent && !arguments.isStreaming() && state != null) {
+            this.getBatch(state).add(title, value);
+            return;
+        }
+        this.validate(title, value, getCache(state));
+    }
+
+    @Override
+    public <T> void finalValidate(ParseState<T> state, ArgumentsMetadata arguments) {
+        if (!this.concurrent || arguments.isStreaming() || state == null)
+            return;
+
+        Batch batch = (Batch) state.getParseCache().remove(this.batchKey);
+        if (batch == null)
+            return;
+        ParserErrorHandler handler = state.getParserConfiguration().getErrorHandler();
+        for (ParseRestrictionViolatedException e : this.validateAll(batch.titles, batch.paths, getCache(state))) {
+            handler.handleError(e);
+        }
+    }
+
+    private <T> Batch getBatch(ParseState<T> state) {
+        ConcurrentMap<Object, Object> cache = state.getParseCache();
+        Batch batch = (Batch) cache.get(this.batchKey);
+        if (batch == null) {
+            Batch created = new Batch();
+            batch = (Batch) cache.putIfAbsent(this.batchKey, created);
+            if (batch == null)
+                batch = created;
+        }
+        return batch;
     }
 
     @Override
@@ -245,4 +468,68 @@ public class PathRestriction extends AbstractCommonRestriction implements HelpHi
         return new String[] { builder.toString() };
     }
 
+    /**
+     * Cached result for an ancestor directory
+     */
+    private static final class Ancestor {
+        private final boolean exists, readable, writable, executable;
+
+        private Ancestor(boolean exists, boolean readable, boolean writable, boolean executable) {
+            this.exists = exists;
+            this.readable = readable;
+            this.writable = writable;
+            this.executable = executable;
+        }
+
+        private static Ancestor of(Path p) {
+            if (readAttributes(p) == null)
+                return new Ancestor(false, false, false, false);
+            return new Ancestor(true, Files.isReadable(p), Files.isWritable(p), Files.isExecutable(p));
+        }
+    }
+
+    /**
+     * Raw argument values, and their titles, collected during parsing for
+     * validation once parsing completes
+     */
+    private static final class Batch {
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> paths = new ArrayList<>();
+
+        private synchronized void add(String title, String path) {
+            this.titles.add(title);
+            this.paths.add(path);
+        }
+    }
+
+    /**
+     * Validates a range of a batch returning the errors rather than throwing
+     * them
+     */
+    private final class BatchTask implements Callable<List<ParseRestrictionViolatedException>> {
+        private final List<String> titles, paths;
+        private final ConcurrentMap<Object, Object> cache;
+        private final int start, end;
+
+        private BatchTask(List<String> titles, List<String> paths, ConcurrentMap<Object, Object> cache, int start,
+                int end) {
+            this.titles = titles;
+            this.paths = paths;
+            this.cache = cache;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public List<ParseRestrictionViolatedException> call() {
+            return validateRange(this.titles, this.paths, this.cache, this.start, this.end);
+        }
+    }
+
+    /**
+     * Lazily created pool used for concurrent validation
+     */
+    private static final class Workers {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
 }
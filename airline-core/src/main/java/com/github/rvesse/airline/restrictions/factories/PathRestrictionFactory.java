@@ -30,7 +30,7 @@ public class PathRestrictionFactory implements OptionRestrictionFactory, Argumen
         if (annotation instanceof Path) {
             Path path = (Path) annotation;
             return new PathRestriction(path.mustExist(), path.readable(), path.writable(), path.executable(),
-                    path.kind());
+                    path.kind(), path.concurrent());
         }
         return null;
     }
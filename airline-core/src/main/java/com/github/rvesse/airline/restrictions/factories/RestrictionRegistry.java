@@ -16,6 +16,7 @@
 package com.github.rvesse.airline.restrictions.factories;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
@@ -27,12 +28,21 @@ import com.github.rvesse.airline.restrictions.OptionRestriction;
 
 /**
  * Central registry for restrictions
+ * <p>
+ * The registry holds immutable snapshots of the annotation to factory mappings
+ * which are replaced wholesale whenever a factory is added, therefore lookups
+ * never lock and the registry may be safely accessed by multiple threads e.g.
+ * when command meta-data is loaded concurrently.
+ * </p>
  */
 public class RestrictionRegistry {
 
-    private static final Map<Class<? extends Annotation>, OptionRestrictionFactory> OPTION_RESTRICTION_FACTORIES = new HashMap<>();
-    private static final Map<Class<? extends Annotation>, ArgumentsRestrictionFactory> ARGUMENT_RESTRICTION_FACTORIES = new HashMap<>();
-    private static final Map<Class<? extends Annotation>, GlobalRestrictionFactory> GLOBAL_RESTRICTION_FACTORIES = new HashMap<>();
+    private static volatile Map<Class<? extends Annotation>, OptionRestrictionFactory> optionFactories = Collections
+            .emptyMap();
+    private static volatile Map<Class<? extends Annotation>, ArgumentsRestrictionFactory> argumentsFactories = Collections
+            .emptyMap();
+    private static volatile Map<Class<? extends Annotation>, GlobalRestrictionFactory> globalFactories = Collections
+            .emptyMap();
 
     private static volatile boolean init = false;
 
@@ -49,28 +59,34 @@ public class RestrictionRegistry {
             return;
 
         // Use ServerLoader to obtain restrictions
+        Map<Class<? extends Annotation>, OptionRestrictionFactory> options = new HashMap<>(optionFactories);
         ServiceLoader<OptionRestrictionFactory> optionRestrictionFactories = ServiceLoader
                 .load(OptionRestrictionFactory.class);
         for (OptionRestrictionFactory factory : optionRestrictionFactories) {
             for (Class<? extends Annotation> cls : factory.supportedOptionAnnotations()) {
-                OPTION_RESTRICTION_FACTORIES.put(cls, factory);
+                options.put(cls, factory);
             }
         }
+        Map<Class<? extends Annotation>, ArgumentsRestrictionFactory> arguments = new HashMap<>(argumentsFactories);
         ServiceLoader<ArgumentsRestrictionFactory> argumentsRestrictionFactories = ServiceLoader
                 .load(ArgumentsRestrictionFactory.class);
         for (ArgumentsRestrictionFactory factory : argumentsRestrictionFactories) {
             for (Class<? extends Annotation> cls : factory.supportedArgumentsAnnotations()) {
-                ARGUMENT_RESTRICTION_FACTORIES.put(cls, factory);
+                arguments.put(cls, factory);
             }
         }
+        Map<Class<? extends Annotation>, GlobalRestrictionFactory> globals = new HashMap<>(globalFactories);
         ServiceLoader<GlobalRestrictionFactory> globalRestrictionFactories = ServiceLoader
                 .load(GlobalRestrictionFactory.class);
         for (GlobalRestrictionFactory factory : globalRestrictionFactories) {
             for (Class<? extends Annotation> cls : factory.supportedGlobalAnnotations()) {
-                GLOBAL_RESTRICTION_FACTORIES.put(cls, factory);
+                globals.put(cls, factory);
             }
         }
 
+        optionFactories = Collections.unmodifiableMap(options);
+        argumentsFactories = Collections.unmodifiableMap(arguments);
+        globalFactories = Collections.unmodifiableMap(globals);
         init = true;
     }
 
@@ -79,61 +95,75 @@ public class RestrictionRegistry {
      */
     public synchronized static void reset() {
         init = false;
-        OPTION_RESTRICTION_FACTORIES.clear();
-        ARGUMENT_RESTRICTION_FACTORIES.clear();
-        GLOBAL_RESTRICTION_FACTORIES.clear();
+        optionFactories = Collections.emptyMap();
+        argumentsFactories = Collections.emptyMap();
+        globalFactories = Collections.emptyMap();
         init();
     }
 
+    /**
+     * Creates a new snapshot of a mapping with the given factory added, or
+     * removed if the factory is {@code null}
+     */
+    private static <T> Map<Class<? extends Annotation>, T> copyWith(Map<Class<? extends Annotation>, T> factories,
+            Class<? extends Annotation> cls, T factory) {
+        if (cls == null)
+            throw new NullPointerException("cls cannot be null");
+        Map<Class<? extends Annotation>, T> copy = new HashMap<>(factories);
+        if (factory == null) {
+            copy.remove(cls);
+        } else {
+            copy.put(cls, factory);
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
     public static Set<Class<? extends Annotation>> getOptionRestrictionAnnotationClasses() {
-        return OPTION_RESTRICTION_FACTORIES.keySet();
+        return optionFactories.keySet();
     }
 
-    public static void addOptionRestriction(Class<? extends Annotation> cls, OptionRestrictionFactory factory) {
-        if (cls == null)
-            throw new NullPointerException("cls cannot be null");
-        OPTION_RESTRICTION_FACTORIES.put(cls, factory);
+    public static synchronized void addOptionRestriction(Class<? extends Annotation> cls,
+            OptionRestrictionFactory factory) {
+        optionFactories = copyWith(optionFactories, cls, factory);
     }
 
     public static <T extends Annotation> OptionRestriction getOptionRestriction(Class<? extends Annotation> cls,
             T annotation) {
-        OptionRestrictionFactory factory = OPTION_RESTRICTION_FACTORIES.get(cls);
+        OptionRestrictionFactory factory = optionFactories.get(cls);
         if (factory != null)
             return factory.createOptionRestriction(annotation);
         return null;
     }
 
-    public static void addArgumentsRestriction(Class<? extends Annotation> cls, ArgumentsRestrictionFactory factory) {
-        if (cls == null)
-            throw new NullPointerException("cls cannot be null");
-        ARGUMENT_RESTRICTION_FACTORIES.put(cls, factory);
+    public static synchronized void addArgumentsRestriction(Class<? extends Annotation> cls,
+            ArgumentsRestrictionFactory factory) {
+        argumentsFactories = copyWith(argumentsFactories, cls, factory);
     }
 
     public static Set<Class<? extends Annotation>> getArgumentsRestrictionAnnotationClasses() {
-        return ARGUMENT_RESTRICTION_FACTORIES.keySet();
+        return argumentsFactories.keySet();
     }
 
     public static <T extends Annotation> ArgumentsRestriction getArgumentsRestriction(Class<? extends Annotation> cls,
             T annotation) {
-        ArgumentsRestrictionFactory factory = ARGUMENT_RESTRICTION_FACTORIES.get(cls);
+        ArgumentsRestrictionFactory factory = argumentsFactories.get(cls);
         if (factory != null)
             return factory.createArgumentsRestriction(annotation);
         return null;
     }
 
     public static Set<Class<? extends Annotation>> getGlobalRestrictionAnnotationClasses() {
-        return GLOBAL_RESTRICTION_FACTORIES.keySet();
+        return globalFactories.keySet();
     }
 
-    public static void addGlobalRestriction(Class<? extends Annotation> cls, GlobalRestrictionFactory factory) {
-        if (cls == null)
-            throw new NullPointerException("cls cannot be null");
-        GLOBAL_RESTRICTION_FACTORIES.put(cls, factory);
+    public static synchronized void addGlobalRestriction(Class<? extends Annotation> cls,
+            GlobalRestrictionFactory factory) {
+        globalFactories = copyWith(globalFactories, cls, factory);
     }
 
     public static <T extends Annotation> GlobalRestriction getGlobalRestriction(Class<? extends Annotation> cls,
             T annotation) {
-        GlobalRestrictionFactory factory = GLOBAL_RESTRICTION_FACTORIES.get(cls);
+        GlobalRestrictionFactory factory = globalFactories.get(cls);
         if (factory != null)
             return factory.createGlobalRestriction(annotation);
         return null;
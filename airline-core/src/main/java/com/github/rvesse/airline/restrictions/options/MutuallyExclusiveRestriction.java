@@ -21,18 +21,16 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
 
 import com.github.rvesse.airline.help.sections.HelpFormat;
 import com.github.rvesse.airline.help.sections.HelpHint;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.ParsedOptionsIndex;
 import com.github.rvesse.airline.parser.errors.ParseOptionGroupException;
 import com.github.rvesse.airline.restrictions.OptionRestriction;
-import com.github.rvesse.airline.utils.predicates.parser.ParsedOptionFinder;
 import com.github.rvesse.airline.utils.predicates.restrictions.MutuallyExclusiveWithFinder;
 import com.github.rvesse.airline.utils.predicates.restrictions.MutuallyExclusiveWithOptionFinder;
-import com.github.rvesse.airline.utils.predicates.restrictions.MutuallyExclusiveWithTagParsedOptionFinder;
 
 public class MutuallyExclusiveRestriction implements OptionRestriction, HelpHint {
 
@@ -44,8 +42,8 @@ public class MutuallyExclusiveRestriction implements OptionRestriction, HelpHint
 
     @Override
     public <T> void finalValidate(ParseState<T> state, OptionMetadata option) {
-        Collection<Pair<OptionMetadata, Object>> parsedOptions = CollectionUtils.select(state.getParsedOptions(),
-                new ParsedOptionFinder(option));
+        ParsedOptionsIndex index = state.getParsedOptionsIndex();
+        int parsedOptions = index.getCount(option);
 
         Collection<OptionRestriction> restrictions = CollectionUtils.select(option.getRestrictions(),
                 new MutuallyExclusiveWithFinder(this.tag));
@@ -53,19 +51,18 @@ public class MutuallyExclusiveRestriction implements OptionRestriction, HelpHint
         for (@SuppressWarnings("unused")
         OptionRestriction restriction : restrictions) {
             // Find other parsed options which have the same tag
-            Collection<Pair<OptionMetadata, Object>> otherParsedOptions = CollectionUtils
-                    .select(state.getParsedOptions(), new MutuallyExclusiveWithTagParsedOptionFinder(this.tag));
+            int otherParsedOptions = index.getMutuallyExclusiveCount(this.tag);
 
             // There are some parsed options but ONLY for this option
-            if (otherParsedOptions.size() > 0 && otherParsedOptions.size() == parsedOptions.size())
+            if (otherParsedOptions > 0 && otherParsedOptions == parsedOptions)
                 continue;
 
             // Otherwise may need to error
-            if (parsedOptions.size() > 0 && otherParsedOptions.size() > parsedOptions.size()) {
+            if (parsedOptions > 0 && otherParsedOptions > parsedOptions) {
                 Collection<OptionMetadata> taggedOptions = getTaggedOptions(state);
                 throw new ParseOptionGroupException(
                         "Only one of the following options may be specified but %d were found: %s", tag, taggedOptions,
-                        otherParsedOptions.size(), toOptionsList(taggedOptions));
+                        otherParsedOptions, toOptionsList(taggedOptions));
             }
         }
     }
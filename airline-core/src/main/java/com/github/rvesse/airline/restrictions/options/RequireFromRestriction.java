@@ -21,18 +21,16 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.tuple.Pair;
 
 import com.github.rvesse.airline.help.sections.HelpFormat;
 import com.github.rvesse.airline.help.sections.HelpHint;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.ParsedOptionsIndex;
 import com.github.rvesse.airline.parser.errors.ParseOptionGroupException;
 import com.github.rvesse.airline.restrictions.OptionRestriction;
-import com.github.rvesse.airline.utils.predicates.parser.ParsedOptionFinder;
 import com.github.rvesse.airline.utils.predicates.restrictions.RequiredFromFinder;
 import com.github.rvesse.airline.utils.predicates.restrictions.RequiredTagOptionFinder;
-import com.github.rvesse.airline.utils.predicates.restrictions.RequiredTagParsedOptionFinder;
 
 public class RequireFromRestriction implements OptionRestriction, HelpHint {
 
@@ -46,8 +44,8 @@ public class RequireFromRestriction implements OptionRestriction, HelpHint {
 
     @Override
     public <T> void finalValidate(ParseState<T> state, OptionMetadata option) {
-        Collection<Pair<OptionMetadata, Object>> parsedOptions = CollectionUtils.select(state.getParsedOptions(),
-                new ParsedOptionFinder(option));
+        ParsedOptionsIndex index = state.getParsedOptionsIndex();
+        int parsedOptions = index.getCount(option);
 
         Collection<OptionRestriction> restrictions = CollectionUtils.select(option.getRestrictions(),
                 new RequiredFromFinder(this.tag));
@@ -55,20 +53,19 @@ public class RequireFromRestriction implements OptionRestriction, HelpHint {
         for (@SuppressWarnings("unused")
         OptionRestriction restriction : restrictions) {
             // Find other parsed options which have the same tag
-            Collection<Pair<OptionMetadata, Object>> otherParsedOptions = CollectionUtils
-                    .select(state.getParsedOptions(), new RequiredTagParsedOptionFinder(this.tag));
+            int otherParsedOptions = index.getRequiredFromCount(this.tag);
 
             // There are some parsed options but ONLY for this option
-            if (otherParsedOptions.size() > 0 && otherParsedOptions.size() == parsedOptions.size())
+            if (otherParsedOptions > 0 && otherParsedOptions == parsedOptions)
                 continue;
 
             // Otherwise may need to error
-            if (mutuallyExclusive && parsedOptions.size() > 0 && otherParsedOptions.size() > parsedOptions.size()) {
+            if (mutuallyExclusive && parsedOptions > 0 && otherParsedOptions > parsedOptions) {
                 Collection<OptionMetadata> taggedOptions = getTaggedOptions(state);
                 throw new ParseOptionGroupException(
                         "Only one of the following options may be specified but %d were found: %s", tag, taggedOptions,
-                        otherParsedOptions.size(), toOptionsList(taggedOptions));
-            } else if (otherParsedOptions.size() == 0) {
+                        otherParsedOptions, toOptionsList(taggedOptions));
+            } else if (otherParsedOptions == 0) {
                 Collection<OptionMetadata> taggedOptions = getTaggedOptions(state);
                 throw new ParseOptionGroupException("%s of the following options must be specified: %s", tag,
                         taggedOptions, mutuallyExclusive ? "One" : "One/more", toOptionsList(taggedOptions));
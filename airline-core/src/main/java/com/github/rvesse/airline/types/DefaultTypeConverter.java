@@ -19,8 +19,14 @@ import com.github.rvesse.airline.parser.errors.ParseOptionConversionException;
 import com.github.rvesse.airline.types.numerics.DefaultNumericConverter;
 import com.github.rvesse.airline.types.numerics.NumericTypeConverter;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The default type converter
@@ -30,9 +36,26 @@ import java.lang.reflect.Method;
  * {@code valueOf(String)} method. Finally it supports any class that defines a
  * constructor that takes a string.
  * </p>
+ * <p>
+ * The {@code fromString(String)}, {@code valueOf(String)} and constructor
+ * conversions available for a type are discovered once per type and cached as
+ * method handles so converting many values of a type does not repeat the
+ * reflective lookups. Enums without a {@code fromString(String)} method are
+ * converted via a precomputed map of their constants.
+ * </p>
  */
 public class DefaultTypeConverter extends DefaultTypeConverterProvider implements TypeConverter  {
 
+    /**
+     * Conversions available for each type, computed on first use
+     */
+    private static final ClassValue<StringConversions> CONVERSIONS = new ClassValue<StringConversions>() {
+        @Override
+        protected StringConversions computeValue(Class<?> type) {
+            return new StringConversions(type);
+        }
+    };
+
     private NumericTypeConverter numericConverter;
 
     public DefaultTypeConverter() {
@@ -52,19 +75,16 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
         if (result.wasSuccessfull())
             return result.getConvertedValue();
 
-        // Then look for a static fromString(String) method
-        result = tryConvertFromString(name, type, value);
+        // Then try a static fromString(String) method, a static
+        // valueOf(String) method and finally a constructor taking a string
+        StringConversions conversions = CONVERSIONS.get(type);
+        result = conversions.fromString.tryConvert(value);
         if (result.wasSuccessfull())
             return result.getConvertedValue();
-
-        // Then look for a static valueOf(String) method
-        // This covers enums which have a valueOf method
-        result = tryConvertFromValueOf(name, type, value);
+        result = conversions.valueOf.tryConvert(value);
         if (result.wasSuccessfull())
             return result.getConvertedValue();
-
-        // Finally look for a constructor taking a string
-        result = tryConvertStringConstructor(name, type, value);
+        result = conversions.constructor.tryConvert(value);
         if (result.wasSuccessfull())
             return result.getConvertedValue();
 
@@ -101,12 +121,7 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
      * @return Conversion result
      */
     protected final ConvertResult tryConvertStringConstructor(String name, Class<?> type, String value) {
-        try {
-            Constructor<?> constructor = type.getConstructor(String.class);
-            return new ConvertResult(constructor.newInstance(value));
-        } catch (Throwable ignored) {
-        }
-        return ConvertResult.FAILURE;
+        return CONVERSIONS.get(type).constructor.tryConvert(value);
     }
 
     /**
@@ -120,7 +135,7 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
      * @return Conversion result
      */
     protected final ConvertResult tryConvertFromValueOf(String name, Class<?> type, String value) {
-        return tryConvertStringMethod(name, type, value, "valueOf");
+        return CONVERSIONS.get(type).valueOf.tryConvert(value);
     }
 
     /**
@@ -134,8 +149,7 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
      * @return Conversion result
      */
     protected final ConvertResult tryConvertFromString(String name, Class<?> type, String value) {
-        return tryConvertStringMethod(name, type, value, "fromString");
-
+        return CONVERSIONS.get(type).fromString.tryConvert(value);
     }
 
     /**
@@ -183,6 +197,15 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
         return ConvertResult.FAILURE;
     }
 
+    /**
+     * Gets the numeric type converter in use
+     * 
+     * @return Numeric type converter
+     */
+    public NumericTypeConverter getNumericConverter() {
+        return this.numericConverter;
+    }
+
     @Override
     public void setNumericConverter(NumericTypeConverter converter) {
         this.numericConverter = converter;
@@ -190,4 +213,95 @@ public class DefaultTypeConverter extends DefaultTypeConverterProvider implement
             this.numericConverter = new DefaultNumericConverter();
         }
     }
+
+    /**
+     * A conversion from a string to some type
+     */
+    private static abstract class StringConversion {
+        static final StringConversion NONE = new StringConversion() {
+            @Override
+            ConvertResult tryConvert(String value) {
+                return ConvertResult.FAILURE;
+            }
+        };
+
+        abstract ConvertResult tryConvert(String value);
+    }
+
+    /**
+     * A conversion that invokes a method handle of type {@code (String)Object}
+     */
+    private static final class HandleConversion extends StringConversion {
+        private final MethodHandle handle;
+
+        HandleConversion(MethodHandle handle) {
+            this.handle = handle.asType(MethodType.methodType(Object.class, String.class));
+        }
+
+        @Override
+        ConvertResult tryConvert(String value) {
+            try {
+                return new ConvertResult((Object) this.handle.invokeExact(value));
+            } catch (Throwable ignored) {
+                return ConvertResult.FAILURE;
+            }
+        }
+    }
+
+    /**
+     * A conversion that looks up the constants of an enum by name
+     */
+    private static final class EnumConversion extends StringConversion {
+        private final Map<String, Object> constants = new HashMap<>();
+
+        EnumConversion(Class<?> type) {
+            for (Object constant : type.getEnumConstants()) {
+                this.constants.put(((Enum<?>) constant).name(), constant);
+            }
+        }
+
+        @Override
+        ConvertResult tryConvert(String value) {
+            Object constant = this.constants.get(value);
+            return constant != null ? new ConvertResult(constant) : ConvertResult.FAILURE;
+        }
+    }
+
+    /**
+     * The conversions discovered for a type
+     */
+    private static final class StringConversions {
+        final StringConversion fromString, valueOf, constructor;
+
+        StringConversions(Class<?> type) {
+            this.fromString = findStringMethod(type, "fromString");
+            if (type.isEnum()) {
+                // Equivalent to the valueOf(String) method every enum has
+                this.valueOf = new EnumConversion(type);
+            } else {
+                this.valueOf = findStringMethod(type, "valueOf");
+            }
+            this.constructor = findStringConstructor(type);
+        }
+
+        private static StringConversion findStringMethod(Class<?> type, String methodName) {
+            try {
+                Method method = type.getMethod(methodName, String.class);
+                if (Modifier.isStatic(method.getModifiers()) && method.getReturnType().isAssignableFrom(type)) {
+                    return new HandleConversion(MethodHandles.publicLookup().unreflect(method));
+                }
+            } catch (Throwable ignored) {
+            }
+            return StringConversion.NONE;
+        }
+
+        private static StringConversion findStringConstructor(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getConstructor(String.class);
+                return new HandleConversion(MethodHandles.publicLookup().unreflectConstructor(constructor));
+            } catch (Throwable ignored) {
+            }
+            return StringConversion.NONE;
+        }
+    }
 }
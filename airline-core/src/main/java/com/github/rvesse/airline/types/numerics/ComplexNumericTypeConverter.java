@@ -56,17 +56,26 @@ public abstract class ComplexNumericTypeConverter extends DefaultNumericConverte
 
     @Override
     protected ConvertResult tryConvertDouble(String name, String value) {
-        NumericCandidate candidate = parse(value);
-        double base = getDouble(candidate);
-        long multiplier = getMultiplier(candidate);
-        double result = multiplier != 1l ? base * multiplier : base;
-
-        if (result < Double.MIN_VALUE || result > Double.MAX_VALUE)
-            throw new ParseOptionConversionException(String.format(
-                    "%s: Abbreviated numeric value \"%s\" evaluates to a value outside the range of the numeric type %s",
-                    name, value, Double.class.getSimpleName()), name, value, Double.class.getSimpleName());
+        return new ConvertResult(convertDouble(name, value));
+    }
 
-        return new ConvertResult(result);
+    @Override
+    public double convertDouble(String name, String value) {
+        try {
+            NumericCandidate candidate = parse(value);
+            double base = getDouble(candidate);
+            long multiplier = getMultiplier(candidate);
+            double result = multiplier != 1l ? base * multiplier : base;
+
+            if (result < Double.MIN_VALUE || result > Double.MAX_VALUE)
+                throw new ParseOptionConversionException(String.format(
+                        "%s: Abbreviated numeric value \"%s\" evaluates to a value outside the range of the numeric type %s",
+                        name, value, Double.class.getSimpleName()), name, value, Double.class.getSimpleName());
+
+            return result;
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Double.TYPE.getSimpleName());
+        }
     }
 
     @Override
@@ -86,27 +95,43 @@ public abstract class ComplexNumericTypeConverter extends DefaultNumericConverte
 
     @Override
     protected ConvertResult tryConvertLong(String name, String value) {
-        NumericCandidate candidate = parse(value);
-        long base = getLong(candidate);
-        long multiplier = getMultiplier(candidate);
-        long result = multiplier != 1l ? base * multiplier : base;
+        return new ConvertResult(convertLong(name, value));
+    }
 
-        return new ConvertResult(result);
+    @Override
+    public long convertLong(String name, String value) {
+        try {
+            NumericCandidate candidate = parse(value);
+            long base = getLong(candidate);
+            long multiplier = getMultiplier(candidate);
+            return multiplier != 1l ? base * multiplier : base;
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Long.TYPE.getSimpleName());
+        }
     }
 
     @Override
     protected ConvertResult tryConvertInteger(String name, String value) {
-        NumericCandidate candidate = parse(value);
-        long base = getLong(candidate);
-        long multiplier = getMultiplier(candidate);
-        long result = multiplier != 1l ? base * multiplier : base;
-
-        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)
-            throw new ParseOptionConversionException(String.format(
-                    "%s: Abbreviated numeric value \"%s\" evaluates to a value outside the range of the numeric type %s",
-                    name, value, Integer.class.getSimpleName()), name, value, Integer.class.getSimpleName());
+        return new ConvertResult(convertInt(name, value));
+    }
 
-        return new ConvertResult((int) result);
+    @Override
+    public int convertInt(String name, String value) {
+        try {
+            NumericCandidate candidate = parse(value);
+            long base = getLong(candidate);
+            long multiplier = getMultiplier(candidate);
+            long result = multiplier != 1l ? base * multiplier : base;
+
+            if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)
+                throw new ParseOptionConversionException(String.format(
+                        "%s: Abbreviated numeric value \"%s\" evaluates to a value outside the range of the numeric type %s",
+                        name, value, Integer.class.getSimpleName()), name, value, Integer.class.getSimpleName());
+
+            return (int) result;
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Integer.TYPE.getSimpleName());
+        }
     }
 
     @Override
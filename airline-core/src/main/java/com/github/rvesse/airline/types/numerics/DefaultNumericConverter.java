@@ -18,21 +18,39 @@ package com.github.rvesse.airline.types.numerics;
 import com.github.rvesse.airline.model.ArgumentsMetadata;
 import com.github.rvesse.airline.model.OptionMetadata;
 import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.errors.ParseOptionConversionException;
 import com.github.rvesse.airline.types.ConvertResult;
 import com.github.rvesse.airline.types.DefaultTypeConverter;
 import com.github.rvesse.airline.types.TypeConverter;
 import com.github.rvesse.airline.types.TypeConverterProvider;
 
-public class DefaultNumericConverter implements TypeConverterProvider, NumericTypeConverter {
+public class DefaultNumericConverter implements TypeConverterProvider, PrimitiveNumericTypeConverter {
+
+    private volatile TypeConverter converter;
 
     @Override
     public <T> TypeConverter getTypeConverter(OptionMetadata option, ParseState<T> state) {
-        return new DefaultTypeConverter(this);
+        return getTypeConverter();
     }
 
     @Override
     public <T> TypeConverter getTypeConverter(ArgumentsMetadata arguments, ParseState<T> state) {
-        return new DefaultTypeConverter(this);
+        return getTypeConverter();
+    }
+
+    /**
+     * Gets the type converter that uses this numeric converter, the converter
+     * is created once and reused for all subsequent values
+     * 
+     * @return Type converter
+     */
+    protected TypeConverter getTypeConverter() {
+        TypeConverter converter = this.converter;
+        if (converter == null) {
+            converter = new DefaultTypeConverter(this);
+            this.converter = converter;
+        }
+        return converter;
     }
 
     @Override
@@ -57,6 +75,33 @@ public class DefaultNumericConverter implements TypeConverterProvider, NumericTy
         return ConvertResult.FAILURE;
     }
 
+    @Override
+    public int convertInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Integer.TYPE.getSimpleName());
+        }
+    }
+
+    @Override
+    public long convertLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Long.TYPE.getSimpleName());
+        }
+    }
+
+    @Override
+    public double convertDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new ParseOptionConversionException(name, value, Double.TYPE.getSimpleName());
+        }
+    }
+
     protected ConvertResult tryConvertDouble(String name, String value) {
         return new ConvertResult(Double.valueOf(value));
     }
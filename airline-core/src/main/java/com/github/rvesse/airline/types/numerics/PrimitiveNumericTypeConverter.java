@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.types.numerics;
+
+import com.github.rvesse.airline.parser.errors.ParseOptionConversionException;
+
+/**
+ * Interface for numeric type converters that can convert values directly to
+ * primitives without boxing them
+ * <p>
+ * Conversions must be consistent with those made by
+ * {@link #tryConvertNumerics(String, Class, String)} for the corresponding
+ * primitive type.
+ * </p>
+ */
+public interface PrimitiveNumericTypeConverter extends NumericTypeConverter {
+
+    /**
+     * Converts a value to an {@code int}
+     * 
+     * @param name
+     *            Option/Argument name
+     * @param value
+     *            Value
+     * @return Converted value
+     * @exception ParseOptionConversionException
+     *                Thrown if the value cannot be converted
+     */
+    public abstract int convertInt(String name, String value);
+
+    /**
+     * Converts a value to a {@code long}
+     * 
+     * @param name
+     *            Option/Argument name
+     * @param value
+     *            Value
+     * @return Converted value
+     * @exception ParseOptionConversionException
+     *                Thrown if the value cannot be converted
+     */
+    public abstract long convertLong(String name, String value);
+
+    /**
+     * Converts a value to a {@code double}
+     * 
+     * @param name
+     *            Option/Argument name
+     * @param value
+     *            Value
+     * @return Converted value
+     * @exception ParseOptionConversionException
+     *                Thrown if the value cannot be converted
+     */
+    public abstract double convertDouble(String name, String value);
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+
+/**
+ * An immutable prefix trie used to resolve possibly abbreviated names
+ * <p>
+ * Resolution follows the same rules as the
+ * {@link com.github.rvesse.airline.utils.predicates.AbstractAbbreviationFinder}
+ * i.e. an exact name match always wins, otherwise the value resolves to an
+ * item only if it is a prefix of the name(s) of exactly one item. Each node of
+ * the trie records whether the prefix it represents is unique so resolution is
+ * proportional to the length of the value being resolved rather than the
+ * number of items.
+ * </p>
+ * 
+ * @param <T>
+ *            Item type
+ */
+public final class AbbreviationTrie<T> {
+
+    private final Map<String, T> exact = new HashMap<>();
+    private final Node<T> root = new Node<>();
+
+    private AbbreviationTrie() {
+    }
+
+    /**
+     * Creates a trie for resolving command names
+     * 
+     * @param commands
+     *            Commands
+     * @return Trie
+     */
+    public static AbbreviationTrie<CommandMetadata> forCommands(Iterable<CommandMetadata> commands) {
+        AbbreviationTrie<CommandMetadata> trie = new AbbreviationTrie<>();
+        for (CommandMetadata command : commands) {
+            trie.add(command.getName(), command, true);
+        }
+        return trie;
+    }
+
+    /**
+     * Creates a trie for resolving group names
+     * 
+     * @param groups
+     *            Groups
+     * @return Trie
+     */
+    public static AbbreviationTrie<CommandGroupMetadata> forGroups(Iterable<CommandGroupMetadata> groups) {
+        AbbreviationTrie<CommandGroupMetadata> trie = new AbbreviationTrie<>();
+        for (CommandGroupMetadata group : groups) {
+            trie.add(group.getName(), group, true);
+        }
+        return trie;
+    }
+
+    /**
+     * Creates a trie for resolving option names
+     * <p>
+     * Option names of two characters or less are only ever matched exactly,
+     * this is consistent with
+     * {@link com.github.rvesse.airline.utils.predicates.parser.AbbreviatedOptionFinder}
+     * </p>
+     * 
+     * @param options
+     *            Options
+     * @return Trie
+     */
+    public static AbbreviationTrie<OptionMetadata> forOptions(Iterable<OptionMetadata> options) {
+        AbbreviationTrie<OptionMetadata> trie = new AbbreviationTrie<>();
+        for (OptionMetadata option : options) {
+            for (String name : option.getOptions()) {
+                trie.add(name, option, name.length() > 2);
+            }
+        }
+        return trie;
+    }
+
+    private void add(String name, T item, boolean allowAbbreviation) {
+        if (!this.exact.containsKey(name))
+            this.exact.put(name, item);
+        if (!allowAbbreviation)
+            return;
+
+        Node<T> node = this.root;
+        node.addCandidate(item);
+        for (int i = 0; i < name.length(); i++) {
+            Character c = name.charAt(i);
+            Node<T> child = node.children.get(c);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(c, child);
+            }
+            node = child;
+            node.addCandidate(item);
+        }
+    }
+
+    /**
+     * Resolves a possibly abbreviated name
+     * 
+     * @param value
+     *            Value
+     * @return Item with the exact name if any, otherwise the only item for
+     *         which the value is a prefix of its name, otherwise {@code null}
+     */
+    public T find(String value) {
+        T item = this.exact.get(value);
+        if (item != null)
+            return item;
+
+        Node<T> node = this.root;
+        for (int i = 0; i < value.length() && node != null; i++) {
+            node = node.children.get(value.charAt(i));
+        }
+        return node != null && !node.ambiguous ? node.candidate : null;
+    }
+
+    /**
+     * Resolves a name which must match exactly
+     * 
+     * @param value
+     *            Value
+     * @return Item with the exact name, otherwise {@code null}
+     */
+    public T findExact(String value) {
+        return this.exact.get(value);
+    }
+
+    /**
+     * Resolves a name which may be abbreviated only if abbreviations are
+     * allowed
+     * 
+     * @param value
+     *            Value
+     * @param allowAbbreviation
+     *            Whether the value may be an abbreviation
+     * @return Item as resolved by {@link #find(String)} if abbreviations are
+     *         allowed, otherwise as resolved by {@link #findExact(String)}
+     */
+    public T find(String value, boolean allowAbbreviation) {
+        return allowAbbreviation ? find(value) : findExact(value);
+    }
+
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>();
+        private T candidate;
+        private boolean ambiguous = false;
+
+        private void addCandidate(T item) {
+            if (this.candidate == null) {
+                this.candidate = item;
+            } else if (this.candidate != item) {
+                this.ambiguous = true;
+            }
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.util.List;
 
 import org.apache.commons.collections4.Predicate;
 
+import com.github.rvesse.airline.utils.AbbreviationTrie;
+
 public abstract class AbstractAbbreviationFinder<T> implements Predicate<T> {
 
     private List<T> candidates = new ArrayList<T>();
@@ -41,6 +43,19 @@ public abstract class AbstractAbbreviationFinder<T> implements Predicate<T> {
         }
     }
     
+    /**
+     * Creates a finder which resolves the value using a precomputed trie
+     * rather than examining every item
+     * 
+     * @param value
+     *            Value
+     * @param trie
+     *            Trie of the items
+     */
+    public AbstractAbbreviationFinder(String value, AbbreviationTrie<T> trie) {
+        this.exact = trie.find(value);
+    }
+
     protected abstract boolean isExactNameMatch(String value, T item);
     
     protected abstract boolean isPartialNameMatch(String value, T item);
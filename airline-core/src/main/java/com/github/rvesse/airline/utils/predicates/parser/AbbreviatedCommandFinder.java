@@ -18,6 +18,7 @@ package com.github.rvesse.airline.utils.predicates.parser;
 import java.util.Collection;
 
 import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.predicates.AbstractAbbreviationFinder;
 
 public final class AbbreviatedCommandFinder extends AbstractAbbreviationFinder<CommandMetadata> {
@@ -26,6 +27,10 @@ public final class AbbreviatedCommandFinder extends AbstractAbbreviationFinder<C
         super(cmd, commands);
     }
 
+    public AbbreviatedCommandFinder(String cmd, AbbreviationTrie<CommandMetadata> trie) {
+        super(cmd, trie);
+    }
+
     @Override
     protected boolean isExactNameMatch(String value, CommandMetadata item) {
         return item.getName().equals(value);
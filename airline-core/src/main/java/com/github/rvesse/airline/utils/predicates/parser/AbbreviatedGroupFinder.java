@@ -18,6 +18,7 @@ package com.github.rvesse.airline.utils.predicates.parser;
 import java.util.Collection;
 
 import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.predicates.AbstractAbbreviationFinder;
 
 public final class AbbreviatedGroupFinder extends AbstractAbbreviationFinder<CommandGroupMetadata> {
@@ -26,6 +27,10 @@ public final class AbbreviatedGroupFinder extends AbstractAbbreviationFinder<Com
         super(cmd, groups);
     }
 
+    public AbbreviatedGroupFinder(String cmd, AbbreviationTrie<CommandGroupMetadata> trie) {
+        super(cmd, trie);
+    }
+
     @Override
     protected boolean isExactNameMatch(String value, CommandGroupMetadata item) {
         return item.getName().equals(value);
@@ -18,6 +18,7 @@ package com.github.rvesse.airline.utils.predicates.parser;
 import java.util.Collection;
 
 import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.utils.AbbreviationTrie;
 import com.github.rvesse.airline.utils.predicates.AbstractAbbreviationFinder;
 
 public final class AbbreviatedOptionFinder extends AbstractAbbreviationFinder<OptionMetadata> {
@@ -26,6 +27,10 @@ public final class AbbreviatedOptionFinder extends AbstractAbbreviationFinder<Op
         super(value, items);
     }
 
+    public AbbreviatedOptionFinder(String value, AbbreviationTrie<OptionMetadata> trie) {
+        super(value, trie);
+    }
+
     @Override
     protected boolean isExactNameMatch(String value, OptionMetadata item) {
         return item.getOptions().contains(value);
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.parser.errors.ParseException;
+
+public class TestAccessor {
+
+    public static class Inner {
+        public String value;
+        public List<String> list;
+        public Set<String> set;
+        public SortedSet<String> sortedSet;
+        public LinkedList<String> linkedList;
+        public final List<String> finalList = new ArrayList<>();
+        public AbstractSet abstractSet;
+    }
+
+    public static abstract class AbstractSet extends HashSet<String> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    public static class Outer {
+        public Inner inner;
+        public final Inner finalInner = new Inner();
+    }
+
+    private static Accessor accessor(String... names) throws NoSuchFieldException {
+        List<Field> path = new ArrayList<>();
+        Class<?> cls = Outer.class;
+        for (String name : names) {
+            Field field = cls.getField(name);
+            path.add(field);
+            cls = field.getType();
+        }
+        return new Accessor(path);
+    }
+
+    @Test
+    public void accessor_creates_intermediate_instances() throws NoSuchFieldException {
+        Accessor accessor = accessor("inner", "value");
+        Assert.assertEquals(accessor.getName(), "Outer.inner.value");
+        Assert.assertFalse(accessor.isMultiValued());
+
+        Outer outer = new Outer();
+        accessor.addValues(outer, Arrays.asList("a", "b"));
+        Assert.assertNotNull(outer.inner);
+        Assert.assertEquals(outer.inner.value, "b");
+
+        // Existing intermediate instances are reused
+        Inner inner = outer.inner;
+        accessor.addValues(outer, Arrays.asList("c"));
+        Assert.assertSame(outer.inner, inner);
+        Assert.assertEquals(outer.inner.value, "c");
+    }
+
+    @Test
+    public void accessor_collections() throws NoSuchFieldException {
+        Outer outer = new Outer();
+        accessor("inner", "list").addValues(outer, Arrays.asList("b", "a", "b"));
+        accessor("inner", "set").addValues(outer, Arrays.asList("b", "a", "b"));
+        accessor("inner", "sortedSet").addValues(outer, Arrays.asList("b", "a", "b"));
+        accessor("inner", "linkedList").addValues(outer, Arrays.asList("b", "a"));
+
+        Assert.assertEquals(outer.inner.list, Arrays.asList("b", "a", "b"));
+        Assert.assertTrue(outer.inner.list instanceof ArrayList);
+        Assert.assertEquals(outer.inner.set, new HashSet<>(Arrays.asList("a", "b")));
+        Assert.assertTrue(outer.inner.sortedSet instanceof TreeSet);
+        Assert.assertEquals(outer.inner.sortedSet.first(), "a");
+        Assert.assertEquals(outer.inner.linkedList, Arrays.asList("b", "a"));
+
+        // Values accumulate in an existing collection
+        accessor("inner", "list").addValues(outer, Arrays.asList("c"));
+        Assert.assertEquals(outer.inner.list.size(), 4);
+    }
+
+    @Test
+    public void accessor_final_fields() throws NoSuchFieldException {
+        Outer outer = new Outer();
+        accessor("finalInner", "finalList").addValues(outer, Arrays.asList("a", "b"));
+        Assert.assertEquals(outer.finalInner.finalList, Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void accessor_field_access() throws NoSuchFieldException {
+        FieldAccess inner = new FieldAccess(Outer.class, "inner", Inner.class) {
+            @Override
+            public Object get(Object instance) {
+                return ((Outer) instance).inner;
+            }
+
+            @Override
+            public void set(Object instance, Object value) {
+                ((Outer) instance).inner = (Inner) value;
+            }
+        };
+        FieldAccess list = FieldAccess.reflective(Inner.class, "list", List.class);
+        Accessor accessor = new Accessor(Arrays.asList(inner, list), String.class);
+        Assert.assertEquals(accessor.getName(), "Outer.inner.list");
+        Assert.assertTrue(accessor.isMultiValued());
+        Assert.assertEquals(accessor.getJavaType(), String.class);
+
+        Outer outer = new Outer();
+        accessor.addValues(outer, Arrays.asList("a", "b"));
+        Assert.assertEquals(outer.inner.list, Arrays.asList("a", "b"));
+
+        // Equivalent to an accessor over the same fields
+        Assert.assertEquals(accessor, accessor("inner", "list"));
+        Assert.assertEquals(accessor.hashCode(), accessor("inner", "list").hashCode());
+        Assert.assertEquals(accessor.getPath(), accessor("inner", "list").getPath());
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void accessor_unsupported_collection() throws NoSuchFieldException {
+        accessor("inner", "abstractSet").addValues(new Outer(), Arrays.asList("a"));
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.command;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.Git;
+import com.github.rvesse.airline.annotations.Group;
+import com.github.rvesse.airline.annotations.LazyCommand;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.help.Help;
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.GlobalMetadata;
+import com.github.rvesse.airline.model.LazyCommandMetadata;
+import com.github.rvesse.airline.model.MetadataLoader;
+
+public class TestLazyCommands {
+
+    //@formatter:off
+    @com.github.rvesse.airline.annotations.Cli(name = "git",
+         commands = { Help.class },
+         lazyCommands = { 
+             @LazyCommand(name = "add", className = "com.github.rvesse.airline.Git$Add"),
+             @LazyCommand(name = "missing", className = "com.github.rvesse.airline.NoSuchCommand")
+         },
+         groups = {
+             @Group(name = "remote",
+                    commands = { Git.RemoteShow.class },
+                    lazyCommands = { @LazyCommand(name = "add", className = "com.github.rvesse.airline.Git$RemoteAdd") })
+         })
+    //@formatter:on
+    public static class LazyGit {
+    }
+
+    private static Cli<Object> builderCli() {
+        //@formatter:off
+        CliBuilder<Object> builder = Cli.<Object>builder("git")
+                                        .withCommand(Help.class)
+                                        .withCommand("add", "com.github.rvesse.airline.Git$Add")
+                                        .withCommand("missing", "com.github.rvesse.airline.NoSuchCommand");
+        builder.withGroup("remote")
+               .withCommand(Git.RemoteShow.class)
+               .withCommand("add", "com.github.rvesse.airline.Git$RemoteAdd");
+        //@formatter:on
+        return builder.build();
+    }
+
+    private static CommandMetadata find(Iterable<CommandMetadata> commands, String name) {
+        for (CommandMetadata command : commands) {
+            if (command.getName().equals(name))
+                return command;
+        }
+        Assert.fail("No command " + name);
+        return null;
+    }
+
+    private static void verifyLazyLoading(Cli<Object> cli) {
+        GlobalMetadata<Object> metadata = cli.getMetadata();
+        CommandMetadata add = find(metadata.getDefaultGroupCommands(), "add");
+        CommandMetadata missing = find(metadata.getDefaultGroupCommands(), "missing");
+        CommandGroupMetadata remote = metadata.getCommandGroups().get(0);
+        CommandMetadata remoteAdd = find(remote.getCommands(), "add");
+        Assert.assertTrue(add instanceof LazyCommandMetadata);
+        Assert.assertFalse(MetadataLoader.isLoaded(add));
+        Assert.assertFalse(MetadataLoader.isLoaded(missing));
+        Assert.assertFalse(MetadataLoader.isLoaded(remoteAdd));
+
+        // Global options from eagerly loaded commands still apply
+        Object cmd = cli.parse("-v", "add", "-i", "a.txt");
+        Assert.assertTrue(cmd instanceof Git.Add);
+        Assert.assertTrue(((Git.Add) cmd).verbose);
+        Assert.assertTrue(((Git.Add) cmd).interactive);
+        Assert.assertTrue(MetadataLoader.isLoaded(add));
+        Assert.assertFalse(MetadataLoader.isLoaded(missing));
+        Assert.assertFalse(MetadataLoader.isLoaded(remoteAdd));
+
+        cmd = cli.parse("remote", "add", "-t", "master", "origin", "url");
+        Assert.assertTrue(cmd instanceof Git.RemoteAdd);
+        Assert.assertEquals(((Git.RemoteAdd) cmd).branch, "master");
+        Assert.assertTrue(MetadataLoader.isLoaded(remoteAdd));
+        Assert.assertFalse(MetadataLoader.isLoaded(missing));
+    }
+
+    @Test
+    public void lazy_commands_builder() {
+        verifyLazyLoading(builderCli());
+    }
+
+    @Test
+    public void lazy_commands_annotation() {
+        verifyLazyLoading(new Cli<Object>(LazyGit.class));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void lazy_commands_missing_class() {
+        builderCli().parse("missing");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void lazy_commands_name_mismatch() {
+        new LazyCommandMetadata("commit", "com.github.rvesse.airline.Git$Add", null).load();
+    }
+
+    @Test
+    public void lazy_commands_equality() {
+        LazyCommandMetadata a = new LazyCommandMetadata("add", "com.github.rvesse.airline.Git$Add", null);
+        LazyCommandMetadata b = new LazyCommandMetadata("add", "com.github.rvesse.airline.Git$Add", null);
+        Assert.assertEquals(a, b);
+        Assert.assertFalse(a.isLoaded());
+        Assert.assertFalse(b.isLoaded());
+
+        CommandMetadata eager = MetadataLoader.loadCommand(Git.Add.class);
+        Assert.assertEquals(a, eager);
+        Assert.assertEquals(eager, b);
+        Assert.assertEquals(a.getCommandOptions(), eager.getCommandOptions());
+    }
+
+    @Test
+    public void lazy_commands_hash_code() {
+        LazyCommandMetadata lazy = new LazyCommandMetadata("add", "com.github.rvesse.airline.Git$Add", null);
+        CommandMetadata eager = MetadataLoader.loadCommand(Git.Add.class);
+
+        // Hash codes must agree with equality without loading the command
+        Assert.assertEquals(lazy.hashCode(), eager.hashCode());
+        Assert.assertFalse(lazy.isLoaded());
+
+        Set<CommandMetadata> commands = new HashSet<>();
+        commands.add(eager);
+        Assert.assertTrue(commands.contains(lazy));
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.args.Args1;
+import com.github.rvesse.airline.restrictions.OptionRestriction;
+
+public class TestIndexedOptions {
+
+    private static OptionMetadata option(String title, String... names) throws NoSuchFieldException {
+        return new OptionMetadata(OptionType.COMMAND, Arrays.asList(names), title, "", 1, false, false, false,
+                Collections.<OptionRestriction> emptyList(), null,
+                Collections.singletonList(Args1.class.getField("groups")));
+    }
+
+    @Test
+    public void indexed_options_find() throws NoSuchFieldException {
+        OptionMetadata a = option("a", "-a", "--alpha");
+        OptionMetadata b = option("b", "-b");
+        OptionMetadata c = option("c", "--charlie");
+        IndexedOptions options = new IndexedOptions(Arrays.asList(a, b, c));
+
+        Assert.assertEquals(options.size(), 3);
+        Assert.assertSame(options.find("-a"), a);
+        Assert.assertSame(options.find("--alpha"), a);
+        Assert.assertSame(options.find("-b"), b);
+        Assert.assertSame(options.find("--charlie"), c);
+        Assert.assertNull(options.find("--alp"));
+        Assert.assertNull(options.find("-c"));
+
+        Assert.assertSame(options.find('a'), a);
+        Assert.assertSame(options.find('b'), b);
+        Assert.assertNull(options.find('c'));
+    }
+
+    @Test
+    public void indexed_options_non_ascii_short_names() throws NoSuchFieldException {
+        OptionMetadata e = option("e", "-é");
+        IndexedOptions options = new IndexedOptions(Collections.singletonList(e));
+
+        Assert.assertSame(options.find('é'), e);
+        Assert.assertSame(options.find("-é"), e);
+    }
+
+    @Test
+    public void indexed_options_first_wins() throws NoSuchFieldException {
+        OptionMetadata first = option("first", "-x");
+        OptionMetadata second = option("second", "-x", "--second");
+        IndexedOptions options = new IndexedOptions(Arrays.asList(first, second));
+
+        Assert.assertSame(options.find("-x"), first);
+        Assert.assertSame(options.find('x'), first);
+        Assert.assertSame(options.find("--second"), second);
+    }
+
+    @Test
+    public void indexed_options_list_semantics() throws NoSuchFieldException {
+        List<OptionMetadata> list = new ArrayList<>();
+        list.add(option("a", "-a"));
+        list.add(option("b", "-b"));
+        IndexedOptions options = new IndexedOptions(list);
+
+        Assert.assertEquals(options, list);
+        Assert.assertEquals(options.hashCode(), list.hashCode());
+        Assert.assertEquals(new IndexedOptions(null).size(), 0);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void indexed_options_unmodifiable() throws NoSuchFieldException {
+        IndexedOptions options = new IndexedOptions(Collections.singletonList(option("a", "-a")));
+        options.add(option("b", "-b"));
+    }
+
+    @Test
+    public void indexed_options_used_by_metadata() {
+        CommandMetadata command = SingleCommand.singleCommand(Args1.class).getCommandMetadata();
+        Assert.assertTrue(command.getCommandOptions() instanceof IndexedOptions);
+        Assert.assertNotNull(((IndexedOptions) command.getCommandOptions()).find("-verbose"));
+        Assert.assertTrue(command.getGlobalOptions() instanceof IndexedOptions);
+        Assert.assertTrue(command.getGroupOptions() instanceof IndexedOptions);
+    }
+}
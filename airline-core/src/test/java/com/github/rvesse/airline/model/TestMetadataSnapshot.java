@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.Git.Add;
+import com.github.rvesse.airline.Git.RemoteAdd;
+import com.github.rvesse.airline.GitWithCliAnnotation;
+
+public class TestMetadataSnapshot {
+
+    private static File snapshotFile() throws IOException {
+        File snapshotFile = File.createTempFile("airline", ".snapshot");
+        Assert.assertTrue(snapshotFile.delete());
+        snapshotFile.deleteOnExit();
+        return snapshotFile;
+    }
+
+    private static List<CommandMetadata> commands(GlobalMetadata<?> metadata) {
+        List<CommandMetadata> commands = new ArrayList<>(metadata.getDefaultGroupCommands());
+        commands.add(metadata.getDefaultCommand());
+        for (CommandGroupMetadata group : metadata.getCommandGroups()) {
+            commands.addAll(group.getCommands());
+            commands.add(group.getDefaultCommand());
+        }
+        return commands;
+    }
+
+    private static void assertSameMetadata(GlobalMetadata<?> expected, GlobalMetadata<?> actual) {
+        Assert.assertEquals(actual.getOptions(), expected.getOptions());
+
+        List<CommandMetadata> expectedCommands = commands(expected);
+        List<CommandMetadata> actualCommands = commands(actual);
+        Assert.assertEquals(actualCommands.size(), expectedCommands.size());
+        for (int i = 0; i < expectedCommands.size(); i++) {
+            CommandMetadata e = expectedCommands.get(i);
+            CommandMetadata a = actualCommands.get(i);
+            Assert.assertEquals(a.getName(), e.getName());
+            Assert.assertEquals(a.getType(), e.getType());
+            Assert.assertEquals(a.getAllOptions(), e.getAllOptions());
+            for (int j = 0; j < e.getAllOptions().size(); j++) {
+                Assert.assertEquals(a.getAllOptions().get(j).getAccessors(), e.getAllOptions().get(j).getAccessors());
+            }
+            if (e.getArguments() == null) {
+                Assert.assertNull(a.getArguments());
+            } else {
+                Assert.assertEquals(a.getArguments().getTitle(), e.getArguments().getTitle());
+                Assert.assertEquals(a.getArguments().getDescription(), e.getArguments().getDescription());
+                Assert.assertEquals(a.getArguments().getAccessors(), e.getArguments().getAccessors());
+            }
+            Assert.assertEquals(a.getMetadataInjections(), e.getMetadataInjections());
+        }
+    }
+
+    @Test
+    public void snapshot_written_on_first_load() throws IOException {
+        File snapshotFile = snapshotFile();
+        Assert.assertFalse(snapshotFile.exists());
+        GlobalMetadata<Object> metadata = MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile);
+        Assert.assertTrue(snapshotFile.exists());
+        assertSameMetadata(MetadataLoader.loadGlobal(GitWithCliAnnotation.class), metadata);
+    }
+
+    @Test
+    public void snapshot_used_on_subsequent_loads() throws IOException {
+        File snapshotFile = snapshotFile();
+        MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile);
+
+        MetadataSnapshot snapshot = MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile);
+        Assert.assertFalse(snapshot.isDirty());
+        for (CommandMetadata command : commands(MetadataLoader.loadGlobal(GitWithCliAnnotation.class))) {
+            CommandMetadata rehydrated = snapshot.loadCommand(command.getType());
+            Assert.assertEquals(rehydrated.getAllOptions(), command.getAllOptions());
+        }
+        // Everything came from the snapshot so no need to rewrite it
+        Assert.assertFalse(snapshot.isDirty());
+
+        assertSameMetadata(MetadataLoader.loadGlobal(GitWithCliAnnotation.class),
+                MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile));
+    }
+
+    @Test
+    public void snapshot_parsing() throws IOException {
+        File snapshotFile = snapshotFile();
+        // Load twice so the second CLI is built from the snapshot
+        new Cli<Runnable>(GitWithCliAnnotation.class, snapshotFile);
+        Cli<Runnable> cli = new Cli<Runnable>(GitWithCliAnnotation.class, snapshotFile);
+
+        Runnable cmd = cli.parse("-v", "add", "-i", "a", "b");
+        Assert.assertTrue(cmd instanceof Add);
+        Add add = (Add) cmd;
+        Assert.assertTrue(add.interactive);
+        Assert.assertTrue(add.verbose);
+        Assert.assertEquals(add.patterns.size(), 2);
+
+        cmd = cli.parse("remote", "add", "-t", "master", "origin", "url");
+        Assert.assertTrue(cmd instanceof RemoteAdd);
+        Assert.assertEquals(((RemoteAdd) cmd).branch, "master");
+    }
+
+    @Test
+    public void snapshot_invalidated_by_version_change() throws IOException {
+        File snapshotFile = snapshotFile();
+        MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile);
+        try (RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw")) {
+            raf.seek(4);
+            raf.writeInt(MetadataSnapshot.VERSION + 1);
+        }
+
+        Assert.assertTrue(MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile).isDirty());
+
+        // Loading again should rewrite a valid snapshot
+        MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile);
+        Assert.assertFalse(MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile).isDirty());
+    }
+
+    @Test
+    public void snapshot_invalidated_by_class_change() throws IOException {
+        File snapshotFile = snapshotFile();
+        MetadataLoader.loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile);
+
+        // Corrupting the recorded digest is equivalent to a contributing class
+        // having changed since the snapshot was written
+        try (RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw")) {
+            raf.seek(8);
+            int nameLength = raf.readInt();
+            raf.skipBytes(nameLength);
+            int contributors = raf.readInt();
+            for (int i = 0; i < contributors; i++) {
+                raf.skipBytes(raf.readInt());
+            }
+            raf.readInt();
+            long pos = raf.getFilePointer();
+            int b = raf.read();
+            raf.seek(pos);
+            raf.write(b ^ 0xff);
+        }
+
+        Assert.assertTrue(MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile).isDirty());
+        assertSameMetadata(MetadataLoader.loadGlobal(GitWithCliAnnotation.class),
+                MetadataLoader.<Object> loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile));
+        Assert.assertFalse(MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile).isDirty());
+    }
+
+    @Test
+    public void snapshot_corrupt() throws IOException {
+        File snapshotFile = snapshotFile();
+        try (RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw")) {
+            raf.writeInt(MetadataSnapshot.MAGIC);
+            raf.writeInt(MetadataSnapshot.VERSION);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertSameMetadata(MetadataLoader.loadGlobal(GitWithCliAnnotation.class),
+                MetadataLoader.<Object> loadGlobalWithSnapshot(GitWithCliAnnotation.class, snapshotFile));
+        Assert.assertFalse(MetadataSnapshot.open(GitWithCliAnnotation.class, snapshotFile).isDirty());
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.Git;
+import com.github.rvesse.airline.GitWithCliAnnotation;
+import com.github.rvesse.airline.args.*;
+import com.github.rvesse.airline.args.overrides.ArgsMergeAddition;
+import com.github.rvesse.airline.args.overrides.ArgsMergeOverride;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.command.CommandAdd;
+import com.github.rvesse.airline.command.CommandWithGroupAnnotation;
+import com.github.rvesse.airline.help.Help;
+
+public class TestParallelLoading {
+
+    //@formatter:off
+    private static final List<Class<? extends Object>> COMMANDS = Arrays.<Class<? extends Object>> asList(
+            Args1.class, ArgsEnum.class, ArgsBooleanArity.class, ArgsPrivate.class, ArgsSingleChar.class,
+            ArgsRequired.class, ArgsArityLimited.class, ArgsAllowedValues.class, ArgsInherited.class,
+            ArgsFlagNegation.class, ArgsDefaultOption.class, CommandLineArgs.class, OptionsRequired.class,
+            ArgsCopyrightAndLicense.class, ArgsExitCodes.class, ArgsMergeAddition.class, ArgsMergeOverride.class);
+    //@formatter:on
+
+    private static void assertSameCommands(List<CommandMetadata> expected, List<CommandMetadata> actual) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i), expected.get(i));
+            Assert.assertEquals(actual.get(i).getAllOptions(), expected.get(i).getAllOptions());
+            Assert.assertEquals(actual.get(i).getHelpSections().size(), expected.get(i).getHelpSections().size());
+        }
+    }
+
+    private static void assertSameGlobal(GlobalMetadata<?> expected, GlobalMetadata<?> actual) {
+        Assert.assertEquals(actual.getOptions(), expected.getOptions());
+        Assert.assertEquals(actual.getDefaultCommand(), expected.getDefaultCommand());
+        assertSameCommands(expected.getDefaultGroupCommands(), actual.getDefaultGroupCommands());
+        Assert.assertEquals(actual.getCommandGroups().size(), expected.getCommandGroups().size());
+        for (int i = 0; i < expected.getCommandGroups().size(); i++) {
+            CommandGroupMetadata e = expected.getCommandGroups().get(i);
+            CommandGroupMetadata a = actual.getCommandGroups().get(i);
+            Assert.assertEquals(a.getName(), e.getName());
+            Assert.assertEquals(a.getOptions(), e.getOptions());
+            Assert.assertEquals(a.getDefaultCommand(), e.getDefaultCommand());
+            assertSameCommands(e.getCommands(), a.getCommands());
+        }
+    }
+
+    @Test
+    public void parallel_load_commands_ordered() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<CommandMetadata> expected = MetadataLoader.loadCommands(COMMANDS);
+            for (int i = 0; i < 10; i++) {
+                assertSameCommands(expected, MetadataLoader.loadCommands(COMMANDS, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_load_commands_no_pool() {
+        assertSameCommands(MetadataLoader.loadCommands(COMMANDS),
+                MetadataLoader.loadCommands(COMMANDS, (ForkJoinPool) null));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void parallel_load_commands_failure() {
+        List<Class<? extends Object>> commands = new ArrayList<>(COMMANDS);
+        commands.add(ArgsMultipleDefaultOptions.class);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MetadataLoader.loadCommands(commands, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_load_global_annotation() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            GlobalMetadata<Object> expected = MetadataLoader.loadGlobal(GitWithCliAnnotation.class);
+            GlobalMetadata<Object> actual = MetadataLoader.loadGlobalInParallel(GitWithCliAnnotation.class, pool);
+            assertSameGlobal(expected, actual);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_load_commands_group_annotations() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Commands only referenced via @Group on a command should also be
+            // loaded
+            Map<Class<?>, CommandMetadata> loaded = MetadataLoader.loadCommandsByType(
+                    Collections.<Class<?>> singletonList(CommandWithGroupAnnotation.class), pool);
+            Assert.assertEquals(loaded.size(), 2);
+            Assert.assertEquals(loaded.get(CommandAdd.class).getType(), CommandAdd.class);
+
+            Cli<Object> expected = Cli.<Object> builder("test").withCommand(CommandWithGroupAnnotation.class)
+                    .build();
+            Cli<Object> actual = Cli.<Object> builder("test").withCommand(CommandWithGroupAnnotation.class)
+                    .withParallelLoading(pool).build();
+            assertSameGlobal(expected.getMetadata(), actual.getMetadata());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static CliBuilder<Object> builder() {
+        CliBuilder<Object> builder = Cli.<Object> builder("test").withDefaultCommand(Help.class)
+                .withCommands(COMMANDS);
+        builder.withGroup("remote").withDefaultCommand(Git.RemoteShow.class).withCommand(Git.RemoteAdd.class);
+        return builder;
+    }
+
+    @Test
+    public void parallel_load_global_builder() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Cli<Object> expected = builder().build();
+            Cli<Object> actual = builder().withParallelLoading(pool).build();
+            assertSameGlobal(expected.getMetadata(), actual.getMetadata());
+
+            Object cmd = actual.parse("remote", "add", "-t", "master", "origin", "url");
+            Assert.assertTrue(cmd instanceof Git.RemoteAdd);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.nativeimage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.HelpOption;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Cli;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.args.ArgsVersion;
+import com.github.rvesse.airline.help.Help;
+
+public class TestReachabilityMetadataGenerator {
+
+    public enum Mode {
+        FAST, SLOW
+    }
+
+    public static class Delegate {
+        @Option(name = "--delegated")
+        public String delegated;
+    }
+
+    @Command(name = "convert")
+    public static class Converted {
+        @Inject
+        public HelpOption<Converted> help;
+
+        @Option(name = "--file")
+        public File file;
+
+        @Option(name = "--mode")
+        public Mode mode;
+
+        @Option(name = "--count")
+        public int count;
+
+        @Inject
+        public Delegate delegate;
+
+        @Arguments
+        public List<String> args;
+    }
+
+    @Command(name = "global")
+    public static class Global {
+        @Option(name = "--verbose", type = OptionType.GLOBAL)
+        public boolean verbose;
+    }
+
+    @Cli(name = "test", commands = { Converted.class, Global.class, Help.class }, defaultCommand = Help.class)
+    public static class TestCli {
+    }
+
+    private static String expected(String name) throws IOException {
+        try (InputStream input = TestReachabilityMetadataGenerator.class
+                .getResourceAsStream("/nativeimage/" + name)) {
+            Assert.assertNotNull(input, "Missing expected configuration " + name);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void native_image_single_command() throws IOException {
+        ReachabilityMetadataGenerator generator = ReachabilityMetadataGenerator.forCommand(ArgsVersion.class);
+        Assert.assertEquals(generator.getReflectConfig(), expected("single-reflect-config.json"));
+        Assert.assertEquals(generator.getResourceConfig(), expected("single-resource-config.json"));
+    }
+
+    @Test
+    public void native_image_cli() throws IOException {
+        ReachabilityMetadataGenerator generator = ReachabilityMetadataGenerator.forCli(TestCli.class);
+        Assert.assertEquals(generator.getReflectConfig(), expected("cli-reflect-config.json"));
+        Assert.assertEquals(generator.getResourceConfig(), expected("cli-resource-config.json"));
+    }
+
+    @Test
+    public void native_image_cli_types() {
+        Set<String> types = ReachabilityMetadataGenerator.forCli(TestCli.class).getReflectedTypes();
+
+        // Commands, delegates and the classes needed to populate them
+        Assert.assertTrue(types.contains(Converted.class.getName()));
+        Assert.assertTrue(types.contains(Global.class.getName()));
+        Assert.assertTrue(types.contains(Help.class.getName()));
+        Assert.assertTrue(types.contains(Delegate.class.getName()));
+        Assert.assertTrue(types.contains(HelpOption.class.getName()));
+
+        // Values converted via reflection
+        Assert.assertTrue(types.contains(File.class.getName()));
+        Assert.assertTrue(types.contains(Mode.class.getName()));
+        Assert.assertFalse(types.contains(Integer.class.getName()));
+    }
+
+    @Test
+    public void native_image_deterministic() {
+        Assert.assertEquals(ReachabilityMetadataGenerator.forCli(TestCli.class).getReflectConfig(),
+                ReachabilityMetadataGenerator.forCli(TestCli.class).getReflectConfig());
+    }
+
+    @Test
+    public void native_image_write() throws IOException {
+        File dir = Files.createTempDirectory("native-image").toFile();
+        try {
+            ReachabilityMetadataGenerator generator = ReachabilityMetadataGenerator.forCommand(ArgsVersion.class);
+            generator.writeTo(dir);
+
+            File reflect = new File(dir, ReachabilityMetadataGenerator.REFLECT_CONFIG);
+            File resources = new File(dir, ReachabilityMetadataGenerator.RESOURCE_CONFIG);
+            Assert.assertEquals(new String(Files.readAllBytes(reflect.toPath()), StandardCharsets.UTF_8),
+                    generator.getReflectConfig());
+            Assert.assertEquals(new String(Files.readAllBytes(resources.toPath()), StandardCharsets.UTF_8),
+                    generator.getResourceConfig());
+            reflect.delete();
+            resources.delete();
+        } finally {
+            dir.delete();
+        }
+    }
+}
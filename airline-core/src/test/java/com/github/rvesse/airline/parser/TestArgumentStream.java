@@ -0,0 +1,276 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.collections4.IteratorUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.MaxOccurrences;
+import com.github.rvesse.airline.annotations.restrictions.MinOccurrences;
+import com.github.rvesse.airline.annotations.restrictions.NotBlank;
+import com.github.rvesse.airline.annotations.restrictions.Partial;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.annotations.restrictions.ranges.IntegerRange;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.parser.errors.ParseArgumentsMissingException;
+import com.github.rvesse.airline.parser.errors.ParseException;
+import com.github.rvesse.airline.parser.errors.ParseTooManyArgumentsException;
+
+public class TestArgumentStream {
+
+    @Command(name = "stream")
+    public static class Streamed {
+        @Option(name = "-v")
+        public boolean verbose;
+
+        @Arguments
+        @IntegerRange(min = 0, max = 10)
+        public Iterator<Integer> values;
+    }
+
+    @Command(name = "stream")
+    public static class StreamedRequired {
+        @Option(name = "-v")
+        public boolean verbose;
+
+        @Arguments
+        @Required
+        public ArgumentStream<String> values;
+    }
+
+    @Command(name = "stream")
+    public static class StreamedTitled {
+        @Arguments(title = { "key", "value" })
+        @NotBlank
+        public Iterator<String> values;
+    }
+
+    @Command(name = "stream")
+    public static class StreamedPartial {
+        @Arguments(title = { "key", "value" })
+        @Partial(appliesTo = { 1 }, restriction = NotBlank.class)
+        @NotBlank
+        public Iterator<String> values;
+    }
+
+    @Command(name = "stream")
+    public static class StreamedOccurrences {
+        @Arguments(title = { "a", "b", "c" })
+        @MinOccurrences(occurrences = 2)
+        @MaxOccurrences(occurrences = 3)
+        public Iterator<String> values;
+    }
+
+    @Command(name = "stream")
+    public static class StreamedLong {
+        @Arguments
+        public ArgumentStream<Long> values;
+    }
+
+    /**
+     * Iterable that generates its tokens on demand
+     */
+    private static final class GeneratedTokens implements Iterable<String> {
+        private final int count;
+
+        private GeneratedTokens(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < count;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return Integer.toString(next++);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    @Test
+    public void argument_stream_metadata() {
+        CommandMetadata metadata = SingleCommand.singleCommand(Streamed.class).getCommandMetadata();
+        Assert.assertTrue(metadata.getArguments().isStreaming());
+        Assert.assertTrue(metadata.getArguments().isMultiValued());
+        Assert.assertEquals(metadata.getArguments().getJavaType(), Integer.class);
+
+        metadata = SingleCommand.singleCommand(StreamedRequired.class).getCommandMetadata();
+        Assert.assertTrue(metadata.getArguments().isStreaming());
+        Assert.assertEquals(metadata.getArguments().getJavaType(), String.class);
+    }
+
+    @Test
+    public void argument_stream_iterator() {
+        Streamed cmd = SingleCommand.singleCommand(Streamed.class).parse("-v", "1", "2", "3");
+        Assert.assertTrue(cmd.verbose);
+        Assert.assertEquals(IteratorUtils.toList(cmd.values), Arrays.asList(1, 2, 3));
+    }
+
+    @Test
+    public void argument_stream_empty() {
+        Streamed cmd = SingleCommand.singleCommand(Streamed.class).parse("-v");
+        Assert.assertNotNull(cmd.values);
+        Assert.assertFalse(cmd.values.hasNext());
+    }
+
+    @Test
+    public void argument_stream_options_after_arguments() {
+        // Once streaming starts all remaining tokens are arguments
+        StreamedRequired cmd = SingleCommand.singleCommand(StreamedRequired.class).parse("a", "-v", "b");
+        Assert.assertFalse(cmd.verbose);
+        Assert.assertEquals(IteratorUtils.toList(cmd.values), Arrays.asList("a", "-v", "b"));
+        Assert.assertEquals(cmd.values.getConsumed(), 3);
+    }
+
+    @Test
+    public void argument_stream_separator() {
+        StreamedRequired cmd = SingleCommand.singleCommand(StreamedRequired.class).parse("-v", "--", "-v", "--");
+        Assert.assertTrue(cmd.verbose);
+        Assert.assertEquals(IteratorUtils.toList(cmd.values), Arrays.asList("-v", "--"));
+    }
+
+    @Test(expectedExceptions = ParseArgumentsMissingException.class)
+    public void argument_stream_required_missing() {
+        SingleCommand.singleCommand(StreamedRequired.class).parse("-v");
+    }
+
+    @Test
+    public void argument_stream_lazy_conversion() {
+        Streamed cmd = SingleCommand.singleCommand(Streamed.class).parse("1", "foo");
+        Assert.assertEquals(cmd.values.next(), Integer.valueOf(1));
+        try {
+            cmd.values.next();
+            Assert.fail("Conversion should fail when the value is consumed");
+        } catch (ParseException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void argument_stream_lazy_restrictions() {
+        Streamed cmd = SingleCommand.singleCommand(Streamed.class).parse("5", "50");
+        Assert.assertEquals(cmd.values.next(), Integer.valueOf(5));
+        try {
+            cmd.values.next();
+            Assert.fail("Range restriction should fail when the value is consumed");
+        } catch (ParseException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void argument_stream_titles() {
+        StreamedTitled cmd = SingleCommand.singleCommand(StreamedTitled.class).parse("a", " ");
+        Assert.assertEquals(cmd.values.next(), "a");
+        try {
+            cmd.values.next();
+            Assert.fail("Not blank restriction should fail when the value is consumed");
+        } catch (ParseException e) {
+            // Error should use the title for the position of the value
+            Assert.assertTrue(e.getMessage().contains("'value'"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void argument_stream_partial_restrictions() {
+        // Only the value at index 1 is restricted
+        StreamedPartial cmd = SingleCommand.singleCommand(StreamedPartial.class).parse(" ", "b", " ");
+        Assert.assertEquals(cmd.values.next(), " ");
+        Assert.assertEquals(cmd.values.next(), "b");
+        Assert.assertEquals(cmd.values.next(), " ");
+
+        cmd = SingleCommand.singleCommand(StreamedPartial.class).parse("a", " ");
+        Assert.assertEquals(cmd.values.next(), "a");
+        try {
+            cmd.values.next();
+            Assert.fail("Partial restriction should apply to the second value");
+        } catch (ParseException e) {
+            Assert.assertTrue(e.getMessage().contains("'value'"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void argument_stream_occurrences_01() {
+        StreamedOccurrences cmd = SingleCommand.singleCommand(StreamedOccurrences.class).parse("1", "2", "3");
+        Assert.assertEquals(IteratorUtils.toList(cmd.values), Arrays.asList("1", "2", "3"));
+    }
+
+    @Test
+    public void argument_stream_occurrences_max() {
+        StreamedOccurrences cmd = SingleCommand.singleCommand(StreamedOccurrences.class).parse("1", "2", "3", "4");
+        Assert.assertEquals(cmd.values.next(), "1");
+        Assert.assertEquals(cmd.values.next(), "2");
+        Assert.assertEquals(cmd.values.next(), "3");
+        Assert.assertTrue(cmd.values.hasNext());
+        try {
+            cmd.values.next();
+            Assert.fail("Max occurrences restriction should fail when too many values are consumed");
+        } catch (ParseTooManyArgumentsException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void argument_stream_occurrences_min() {
+        StreamedOccurrences cmd = SingleCommand.singleCommand(StreamedOccurrences.class).parse("1");
+        Assert.assertTrue(cmd.values.hasNext());
+        Assert.assertEquals(cmd.values.next(), "1");
+        try {
+            cmd.values.hasNext();
+            Assert.fail("Min occurrences restriction should fail when the stream is exhausted");
+        } catch (ParseArgumentsMissingException e) {
+            // Should report the titles of the missing values
+            Assert.assertEquals(e.getArgumentTitle(), Arrays.asList("b"));
+        }
+    }
+
+    @Test
+    public void argument_stream_generated() {
+        // Tokens are only produced as the command consumes them
+        int count = 1000000;
+        StreamedLong cmd = SingleCommand.singleCommand(StreamedLong.class).parse(new GeneratedTokens(count));
+        long sum = 0;
+        for (Long value : cmd.values) {
+            sum += value;
+        }
+        Assert.assertEquals(cmd.values.getConsumed(), count);
+        Assert.assertEquals(sum, ((long) count * (count - 1)) / 2);
+    }
+}
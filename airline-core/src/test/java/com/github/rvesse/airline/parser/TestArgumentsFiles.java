@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.collections4.IteratorUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.Parser;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.parser.errors.ParseException;
+
+public class TestArgumentsFiles {
+
+    @Command(name = "files")
+    public static class Files1 {
+        @Option(name = "-v")
+        public boolean verbose;
+
+        @Option(name = "--name", arity = 1)
+        public String name;
+
+        @Arguments
+        public List<String> args = new ArrayList<String>();
+    }
+
+    @Command(name = "files")
+    @Parser(argumentsFilePrefix = "@")
+    public static class Files2 extends Files1 {
+    }
+
+    private static File createFile(String contents) throws IOException {
+        File file = Files.createTempFile("airline-args", ".txt").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> expand(int regionSize, String... tokens) {
+        return IteratorUtils.toList(new ArgumentsFileIterator(Arrays.asList(tokens).iterator(), "@", regionSize));
+    }
+
+    private static List<String> expand(String... tokens) {
+        return IteratorUtils.toList(new ArgumentsFileIterator(Arrays.asList(tokens).iterator(), "@"));
+    }
+
+    private static Cli<Files1> createCli() {
+        //@formatter:off
+        CliBuilder<Files1> builder = Cli.<Files1>builder("test")
+                                        .withCommand(Files1.class);
+        builder.withParser()
+               .withArgumentsFiles();
+        //@formatter:on
+        return builder.build();
+    }
+
+    @Test
+    public void arguments_files_expansion() throws IOException {
+        File file = createFile("-v\n--name foo\n  bar\tbaz  \n");
+        Assert.assertEquals(expand("a", "@" + file.getAbsolutePath(), "b"),
+                Arrays.asList("a", "-v", "--name", "foo", "bar", "baz", "b"));
+    }
+
+    @Test
+    public void arguments_files_quoting() throws IOException {
+        File file = createFile("\"quoted value\" \"with \\\"quotes\\\"\" escaped\\ space plain\"quote");
+        Assert.assertEquals(expand("@" + file.getAbsolutePath()),
+                Arrays.asList("quoted value", "with \"quotes\"", "escaped space", "plain\"quote"));
+    }
+
+    @Test(expectedExceptions = ParseException.class, expectedExceptionsMessageRegExp = "Mismatched quotes.*")
+    public void arguments_files_mismatched_quotes() throws IOException {
+        File file = createFile("\"unterminated");
+        expand("@" + file.getAbsolutePath());
+    }
+
+    @Test
+    public void arguments_files_empty() throws IOException {
+        File file = createFile("");
+        Assert.assertEquals(expand("a", "@" + file.getAbsolutePath(), "b"), Arrays.asList("a", "b"));
+    }
+
+    @Test
+    public void arguments_files_nested() throws IOException {
+        File inner = createFile("inner1 inner2");
+        File outer = createFile("outer1 @" + inner.getAbsolutePath() + " outer2");
+        Assert.assertEquals(expand("@" + outer.getAbsolutePath()),
+                Arrays.asList("outer1", "inner1", "inner2", "outer2"));
+    }
+
+    @Test
+    public void arguments_files_same_file_twice() throws IOException {
+        File file = createFile("x");
+        Assert.assertEquals(expand("@" + file.getAbsolutePath(), "@" + file.getAbsolutePath()),
+                Arrays.asList("x", "x"));
+    }
+
+    @Test(expectedExceptions = ParseException.class, expectedExceptionsMessageRegExp = ".*recursively references itself")
+    public void arguments_files_recursive() throws IOException {
+        File file = createFile("");
+        Files.write(file.toPath(), ("a @" + file.getAbsolutePath()).getBytes(StandardCharsets.UTF_8));
+        expand("@" + file.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = ParseException.class, expectedExceptionsMessageRegExp = ".*does not exist or is not readable")
+    public void arguments_files_missing() {
+        expand("@" + new File("no-such-arguments-file.txt").getAbsolutePath());
+    }
+
+    @Test
+    public void arguments_files_escaped_prefix() {
+        Assert.assertEquals(expand("@@literal", "@"), Arrays.asList("@literal", "@"));
+    }
+
+    @Test
+    public void arguments_files_regions() throws IOException {
+        // Multi-byte characters straddle the boundaries of small regions
+        StringBuilder contents = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            String arg = "\u00e9\u4e2d" + i + "\ud83d\ude00";
+            expected.add(arg);
+            contents.append(arg).append(i % 2 == 0 ? " " : "\n");
+        }
+        File file = createFile(contents.toString());
+        for (int regionSize : new int[] { 4, 5, 7, 13, 64, 1024 }) {
+            Assert.assertEquals(expand(regionSize, "@" + file.getAbsolutePath()), expected,
+                    "Region size " + regionSize);
+        }
+    }
+
+    @Test
+    public void arguments_files_large() throws IOException {
+        // Enough arguments that the file spans many regions
+        File file = Files.createTempFile("airline-args", ".txt").toFile();
+        file.deleteOnExit();
+        int count = 200000;
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("arg");
+                writer.write(Integer.toString(i));
+                writer.write('\n');
+            }
+        }
+
+        Iterator<String> tokens = new ArgumentsFileIterator(
+                Collections.singletonList("@" + file.getAbsolutePath()).iterator(), "@", 64 * 1024);
+        int i = 0;
+        while (tokens.hasNext()) {
+            Assert.assertEquals(tokens.next(), "arg" + i);
+            i++;
+        }
+        Assert.assertEquals(i, count);
+    }
+
+    @Test
+    public void arguments_files_cli() throws IOException {
+        File file = createFile("-v --name foo\nbar");
+        Files1 cmd = createCli().parse("files", "@" + file.getAbsolutePath(), "baz");
+
+        Assert.assertTrue(cmd.verbose);
+        Assert.assertEquals(cmd.name, "foo");
+        Assert.assertEquals(cmd.args, Arrays.asList("bar", "baz"));
+    }
+
+    @Test
+    public void arguments_files_single_command() throws IOException {
+        File file = createFile("-v --name foo\nbar");
+        Files2 cmd = SingleCommand.singleCommand(Files2.class).parse("@" + file.getAbsolutePath());
+
+        Assert.assertTrue(cmd.verbose);
+        Assert.assertEquals(cmd.name, "foo");
+        Assert.assertEquals(cmd.args, Collections.singletonList("bar"));
+    }
+
+    @Test
+    public void arguments_files_disabled() throws IOException {
+        File file = createFile("-v");
+        Files1 cmd = SingleCommand.singleCommand(Files1.class).parse("@" + file.getAbsolutePath());
+
+        Assert.assertFalse(cmd.verbose);
+        Assert.assertEquals(cmd.args, Collections.singletonList("@" + file.getAbsolutePath()));
+    }
+}
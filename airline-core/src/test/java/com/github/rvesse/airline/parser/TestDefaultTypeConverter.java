@@ -191,4 +191,73 @@ public class TestDefaultTypeConverter {
             Assert.assertEquals(converted, item);
         }
     }
+
+    @Test(expectedExceptions = ParseOptionConversionException.class)
+    public void convert_enum_unknown_constant_failure() {
+        testConvert(ConversionEnum.class, "foo");
+    }
+
+    public static enum ConstantBodyEnum {
+        FOO {
+            @Override
+            public String toString() {
+                return "foo";
+            }
+        },
+        BAR
+    }
+
+    @Test
+    public void convert_enum_constant_bodies() {
+        for (ConstantBodyEnum item : ConstantBodyEnum.values()) {
+            ConstantBodyEnum converted = testConvert(ConstantBodyEnum.class, item.name());
+            Assert.assertSame(converted, item);
+        }
+    }
+
+    public static enum FromStringEnum {
+        FOO, BAR;
+
+        public static FromStringEnum fromString(String value) {
+            return valueOf(value.toUpperCase());
+        }
+    }
+
+    @Test
+    public void convert_enum_prefers_fromString() {
+        Assert.assertEquals(testConvert(FromStringEnum.class, "bar"), FromStringEnum.BAR);
+        Assert.assertEquals(testConvert(FromStringEnum.class, "BAR"), FromStringEnum.BAR);
+    }
+
+    public static class FailingFromString extends ConversionExample {
+
+        public FailingFromString(String value) {
+            super(value);
+        }
+
+        public static FailingFromString fromString(String value) {
+            throw new IllegalArgumentException("Not supported");
+        }
+    }
+
+    @Test
+    public void convert_falls_back_when_fromString_fails() {
+        // A failing fromString() method should fall back to the constructor
+        String value = "test";
+        FailingFromString converted = testConvert(FailingFromString.class, value);
+        Assert.assertEquals(converted.value, value);
+    }
+
+    @Test
+    public void convert_repeated_conversions() {
+        // Conversions are cached per type so repeated conversions must
+        // continue to produce fresh and correct values
+        for (int i = 0; i < 1000; i++) {
+            String value = Integer.toString(i);
+            ConversionExample converted = testConvert(ConversionExample.class, value);
+            Assert.assertEquals(converted.value, value);
+            Assert.assertEquals(testConvert(ConversionEnum.class, i % 2 == 0 ? "FOO" : "BAR"),
+                    i % 2 == 0 ? ConversionEnum.FOO : ConversionEnum.BAR);
+        }
+    }
 }
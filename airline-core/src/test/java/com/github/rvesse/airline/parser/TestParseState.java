@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Context;
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.args.Args1;
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.MetadataLoader;
+import com.github.rvesse.airline.model.OptionMetadata;
+
+public class TestParseState {
+
+    @Test
+    public void parse_state_is_immutable() {
+        CommandMetadata command = MetadataLoader.loadCommand(Args1.class);
+        ArgumentsMetadata arguments = command.getArguments();
+
+        ParseState<Args1> state = ParseState.newInstance();
+        ParseState<Args1> first = state.withArgument(arguments, "a");
+        ParseState<Args1> second = first.withArgument(arguments, "b");
+
+        Assert.assertEquals(state.getParsedArguments().size(), 0);
+        Assert.assertEquals(first.getParsedArguments().size(), 1);
+        Assert.assertEquals(second.getParsedArguments().size(), 2);
+        Assert.assertEquals(second.getParsedArguments().get(0), "a");
+        Assert.assertEquals(second.getParsedArguments().get(1), "b");
+    }
+
+    @Test
+    public void parse_state_branches_independently() {
+        CommandMetadata command = MetadataLoader.loadCommand(Args1.class);
+        ArgumentsMetadata arguments = command.getArguments();
+        OptionMetadata option = null;
+        for (OptionMetadata o : command.getCommandOptions()) {
+            if (o.getOptions().contains("-log"))
+                option = o;
+        }
+        Assert.assertNotNull(option);
+
+        ParseState<Args1> base = ParseState.<Args1> newInstance().withArgument(arguments, "a")
+                .withUnparsedInput("x");
+        // Appending from the same state twice must not let either branch see
+        // the other branches values
+        ParseState<Args1> left = base.withArgument(arguments, "left").withOptionValue(option, "1");
+        ParseState<Args1> right = base.withArgument(arguments, "right").withUnparsedInput("y");
+
+        Assert.assertEquals(base.getParsedArguments().size(), 1);
+        Assert.assertEquals(base.getUnparsedInput().size(), 1);
+        Assert.assertEquals(base.getParsedOptions().size(), 0);
+
+        Assert.assertEquals(left.getParsedArguments().get(1), "left");
+        Assert.assertEquals(left.getParsedOptions().size(), 1);
+        Assert.assertEquals(left.getParsedOptions().get(0).getLeft(), option);
+        Assert.assertEquals(left.getParsedOptions().get(0).getRight(), 1);
+        Assert.assertEquals(left.getUnparsedInput().size(), 1);
+
+        Assert.assertEquals(right.getParsedArguments().get(1), "right");
+        Assert.assertEquals(right.getParsedOptions().size(), 0);
+        Assert.assertEquals(right.getUnparsedInput().size(), 2);
+        Assert.assertEquals(right.getUnparsedInput().get(1), "y");
+
+        // Continuing from a branch still works
+        ParseState<Args1> leftAgain = left.withArgument(arguments, "more");
+        Assert.assertEquals(leftAgain.getParsedArguments().size(), 3);
+        Assert.assertEquals(left.getParsedArguments().size(), 2);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void parse_state_views_are_unmodifiable() {
+        ParseState<Args1> state = ParseState.newInstance();
+        state.getUnparsedInput().add("foo");
+    }
+
+    @Test
+    public void parse_state_contexts() {
+        ParseState<Args1> state = ParseState.<Args1> newInstance().pushContext(Context.GLOBAL)
+                .pushContext(Context.COMMAND);
+        Assert.assertEquals(state.getLocation(), Context.COMMAND);
+
+        ParseState<Args1> popped = state.popContext();
+        Assert.assertEquals(popped.getLocation(), Context.GLOBAL);
+        Assert.assertEquals(state.getLocation(), Context.COMMAND);
+    }
+
+    @Test
+    public void parse_many_arguments() {
+        List<String> args = new ArrayList<>();
+        args.add("-debug");
+        for (int i = 0; i < 100000; i++) {
+            args.add("file" + i);
+        }
+
+        Args1 cmd = SingleCommand.singleCommand(Args1.class).parse(args);
+        Assert.assertTrue(cmd.debug);
+        Assert.assertEquals(cmd.parameters.size(), 100000);
+        Assert.assertEquals(cmd.parameters.get(0), "file0");
+        Assert.assertEquals(cmd.parameters.get(99999), "file99999");
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.restrictions.OptionRestriction;
+import com.github.rvesse.airline.restrictions.options.MutuallyExclusiveRestriction;
+import com.github.rvesse.airline.restrictions.options.RequireFromRestriction;
+
+public class TestParsedOptionsIndex {
+
+    private static OptionMetadata option(String name, OptionRestriction... restrictions) {
+        return new OptionMetadata(OptionType.COMMAND, Arrays.asList(name, name.toUpperCase()), name, null, 1, false,
+                false, false, Arrays.asList(restrictions), null, null);
+    }
+
+    private static List<Pair<OptionMetadata, Object>> parsed(Object... pairs) {
+        List<Pair<OptionMetadata, Object>> parsed = new ArrayList<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            parsed.add(Pair.of((OptionMetadata) pairs[i], pairs[i + 1]));
+        }
+        return parsed;
+    }
+
+    @Test
+    public void parsed_options_index_empty() {
+        ParsedOptionsIndex index = new ParsedOptionsIndex(Collections.<Pair<OptionMetadata, Object>> emptyList());
+        OptionMetadata a = option("-a");
+        Assert.assertFalse(index.contains(a));
+        Assert.assertFalse(index.containsName("-a"));
+        Assert.assertEquals(index.getCount(a), 0);
+        Assert.assertTrue(index.getValues(a).isEmpty());
+        Assert.assertEquals(index.getMutuallyExclusiveCount("tag"), 0);
+        Assert.assertEquals(index.getRequiredFromCount("tag"), 0);
+    }
+
+    @Test
+    public void parsed_options_index_counts_and_values() {
+        OptionMetadata a = option("-a");
+        OptionMetadata b = option("-b");
+        ParsedOptionsIndex index = new ParsedOptionsIndex(parsed(a, 1, b, 2, a, 3));
+
+        Assert.assertTrue(index.contains(a));
+        Assert.assertTrue(index.contains(option("-a")));
+        Assert.assertTrue(index.containsName("-A"));
+        Assert.assertFalse(index.containsName("-c"));
+        Assert.assertEquals(index.getCount(a), 2);
+        Assert.assertEquals(index.getCount(b), 1);
+        Assert.assertEquals(index.getValues(a), Arrays.<Object> asList(1, 3));
+    }
+
+    @Test
+    public void parsed_options_index_tags() {
+        OptionMetadata a = option("-a", new MutuallyExclusiveRestriction("x"), new RequireFromRestriction("y", false));
+        OptionMetadata b = option("-b", new MutuallyExclusiveRestriction("x"), new MutuallyExclusiveRestriction("x"));
+        OptionMetadata c = option("-c", new RequireFromRestriction("y", true));
+        ParsedOptionsIndex index = new ParsedOptionsIndex(parsed(a, 1, b, 2, b, 3, c, 4));
+
+        // Options with repeated restrictions for the same tag count once per
+        // value
+        Assert.assertEquals(index.getMutuallyExclusiveCount("x"), 3);
+        Assert.assertEquals(index.getRequiredFromCount("y"), 2);
+        Assert.assertEquals(index.getMutuallyExclusiveCount("y"), 0);
+    }
+
+    @Test
+    public void parsed_options_index_cached_by_state() {
+        ParseState<Object> state = ParseState.newInstance();
+        Assert.assertSame(state.getParsedOptionsIndex(), state.getParsedOptionsIndex());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Accessor;
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.model.OptionMetadata;
+
+public class TestParserUtil {
+
+    public static class Target {
+        public List<String> values;
+        public String single;
+    }
+
+    private static OptionMetadata option(String name, String fieldName) throws NoSuchFieldException {
+        Field field = Target.class.getField(fieldName);
+        return new OptionMetadata(OptionType.COMMAND, Arrays.asList(name), name, "Option " + name, 1, false, false,
+                false, null, null, Arrays.asList(field));
+    }
+
+    @Test
+    public void inject_many_options() throws NoSuchFieldException {
+        List<OptionMetadata> options = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            options.add(option("--opt" + i, "values"));
+        }
+
+        // Parse each option several times in reverse order
+        List<Pair<OptionMetadata, Object>> parsedOptions = new ArrayList<>();
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (int i = options.size() - 1; i >= 0; i--) {
+                parsedOptions.add(Pair.<OptionMetadata, Object> of(options.get(i), i + "-" + repeat));
+            }
+        }
+
+        Target target = ParserUtil.injectOptions(new Target(), options, parsedOptions, null, null,
+                Collections.<Accessor> emptyList(), Collections.<Class<?>, Object> emptyMap());
+
+        // Values are injected in option order and for each option in parse
+        // order
+        Assert.assertEquals(target.values.size(), parsedOptions.size());
+        int index = 0;
+        for (int i = 0; i < options.size(); i++) {
+            for (int repeat = 0; repeat < 3; repeat++) {
+                Assert.assertEquals(target.values.get(index++), i + "-" + repeat);
+            }
+        }
+    }
+
+    @Test
+    public void inject_equal_options() throws NoSuchFieldException {
+        // Parsed options need not be the same instances as the command options
+        // e.g. global options merged across commands, so equal options must
+        // still receive values
+        OptionMetadata declared = option("--single", "single");
+        OptionMetadata parsed = option("--single", "single");
+        Assert.assertNotSame(declared, parsed);
+
+        List<Pair<OptionMetadata, Object>> parsedOptions = new ArrayList<>();
+        parsedOptions.add(Pair.<OptionMetadata, Object> of(parsed, "a"));
+        parsedOptions.add(Pair.<OptionMetadata, Object> of(parsed, "b"));
+
+        Target target = ParserUtil.injectOptions(new Target(), Arrays.asList(declared), parsedOptions, null, null,
+                Collections.<Accessor> emptyList(), Collections.<Class<?>, Object> emptyMap());
+        Assert.assertEquals(target.single, "b");
+    }
+
+    @Test
+    public void inject_no_options() throws NoSuchFieldException {
+        Target target = ParserUtil.injectOptions(new Target(), Arrays.asList(option("--single", "single")),
+                Collections.<Pair<OptionMetadata, Object>> emptyList(), null, null,
+                Collections.<Accessor> emptyList(), Collections.<Class<?>, Object> emptyMap());
+        Assert.assertNull(target.single);
+        Assert.assertNull(target.values);
+    }
+}
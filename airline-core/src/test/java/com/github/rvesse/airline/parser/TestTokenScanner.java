@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.collections4.iterators.PeekingIterator;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.model.AliasMetadata;
+import com.github.rvesse.airline.model.MetadataLoader;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.parser.TestOptionParsing.OptionParsing;
+import com.github.rvesse.airline.parser.options.ClassicGetOptParser;
+import com.github.rvesse.airline.parser.options.ListValueOptionParser;
+import com.github.rvesse.airline.parser.options.LongGetOptParser;
+import com.github.rvesse.airline.parser.options.MaybePairValueOptionParser;
+import com.github.rvesse.airline.parser.options.OptionParser;
+import com.github.rvesse.airline.parser.options.TokenScanner;
+import com.github.rvesse.airline.utils.AirlineUtils;
+
+public class TestTokenScanner {
+
+    private static final String[] LISTS = { "", ",", ",,", "a", "a,b", "a,,b", ",a,b,", "a,b,c", "abc,,,def," };
+
+    /**
+     * Number of iterations used when checking allocation budgets
+     */
+    private static final int ITERATIONS = 10000;
+    /**
+     * Allocation budget in bytes across all iterations, this allows for some
+     * incidental allocation but is far less than allocating even a single
+     * object per iteration
+     */
+    private static final long BUDGET = 16 * 1024;
+
+    @Test
+    public void token_scanner_count_values() {
+        for (String list : LISTS) {
+            Assert.assertEquals(TokenScanner.countValues(list, 0, ','), StringUtils.split(list, ',').length, list);
+        }
+    }
+
+    @Test
+    public void token_scanner_offsets() {
+        String token = "-Pa,,b";
+        Assert.assertEquals(TokenScanner.skipSeparators(token, 2, ','), 2);
+        Assert.assertEquals(TokenScanner.findSeparator(token, 2, ','), 3);
+        Assert.assertEquals(TokenScanner.skipSeparators(token, 3, ','), 5);
+        Assert.assertEquals(TokenScanner.findSeparator(token, 5, ','), token.length());
+        Assert.assertEquals(TokenScanner.countValues(token, 2, ','), 2);
+    }
+
+    /**
+     * Exposes the protected value splitting of the list value parser
+     */
+    private static class ListValues extends ListValueOptionParser<Object> {
+        public List<String> split(String list) {
+            return getValues(list);
+        }
+    }
+
+    /**
+     * Exposes the protected value splitting of the pair value parser
+     */
+    private static class PairValues extends MaybePairValueOptionParser<Object> {
+        public List<String> split(String pair) {
+            return getValues(pair);
+        }
+    }
+
+    @Test
+    public void token_scanner_list_values() {
+        ListValues parser = new ListValues();
+        for (String list : LISTS) {
+            Assert.assertEquals(parser.split(list), AirlineUtils.arrayToList(StringUtils.split(list, ',')), list);
+        }
+    }
+
+    @Test
+    public void token_scanner_pair_values() {
+        PairValues parser = new PairValues();
+        for (String pair : new String[] { "", "=", "a", "a=", "=a", "a=b", "a==b", "a=b=c", "=a=b" }) {
+            Assert.assertEquals(parser.split(pair), AirlineUtils.arrayToList(StringUtils.split(pair, "=", 2)), pair);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationMonitor() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean monitor = (com.sun.management.ThreadMXBean) threads;
+        if (!monitor.isThreadAllocatedMemorySupported() || !monitor.isThreadAllocatedMemoryEnabled())
+            return null;
+        return monitor;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean monitor) {
+        return monitor.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static int countValues(String list) {
+        return TokenScanner.countValues(list, 0, ',');
+    }
+
+    /**
+     * Checks that offering a token to an option parser that rejects it does
+     * not allocate
+     */
+    private void checkRejectionBudget(OptionParser<OptionParsing> parser, String token) {
+        com.sun.management.ThreadMXBean monitor = allocationMonitor();
+        if (monitor == null)
+            return;
+
+        List<OptionMetadata> options = MetadataLoader.loadCommand(OptionParsing.class).getCommandOptions();
+        ParseState<OptionParsing> state = ParseState.<OptionParsing> newInstance()
+                .withConfiguration(new ParserMetadata<OptionParsing>(null,
+                        Collections.<OptionParser<OptionParsing>> singletonList(parser), null, null, false, false,
+                        Collections.<AliasMetadata> emptyList(), null, false, false,
+                        null, null));
+        PeekingIterator<String> tokens = new PeekingIterator<String>(Collections.singletonList(token).iterator());
+
+        // Warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            Assert.assertNull(parser.parseOptions(tokens, state, options));
+        }
+
+        long before = allocatedBytes(monitor);
+        for (int i = 0; i < ITERATIONS; i++) {
+            parser.parseOptions(tokens, state, options);
+        }
+        long allocated = allocatedBytes(monitor) - before;
+        Assert.assertTrue(allocated < BUDGET, String.format(
+                "Rejecting token %s allocated %d bytes over %d iterations", token, allocated, ITERATIONS));
+    }
+
+    @Test
+    public void token_scanner_allocation_budget() {
+        com.sun.management.ThreadMXBean monitor = allocationMonitor();
+        if (monitor == null)
+            return;
+
+        int total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            total += countValues("alpha,beta,,gamma");
+        }
+        long before = allocatedBytes(monitor);
+        for (int i = 0; i < ITERATIONS; i++) {
+            total += countValues("alpha,beta,,gamma");
+        }
+        long allocated = allocatedBytes(monitor) - before;
+        Assert.assertEquals(total, 2 * ITERATIONS * 3);
+        Assert.assertTrue(allocated < BUDGET,
+                String.format("Counting values allocated %d bytes over %d iterations", allocated, ITERATIONS));
+    }
+
+    @Test
+    public void token_scanner_long_getopt_allocation_budget() {
+        checkRejectionBudget(new LongGetOptParser<OptionParsing>(), "--alpha");
+    }
+
+    @Test
+    public void token_scanner_list_value_allocation_budget() {
+        checkRejectionBudget(new ListValueOptionParser<OptionParsing>(), "-xone,two");
+    }
+
+    @Test
+    public void token_scanner_pair_value_allocation_budget() {
+        checkRejectionBudget(new MaybePairValueOptionParser<OptionParsing>(), "-xone=two");
+    }
+
+    @Test
+    public void token_scanner_classic_getopt_allocation_budget() {
+        checkRejectionBudget(new ClassicGetOptParser<OptionParsing>(), "-xyz");
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.collections4.iterators.PeekingIterator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.model.AliasMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.model.ParserMetadata;
+import com.github.rvesse.airline.parser.TestOptionParsing.OptionParsing;
+import com.github.rvesse.airline.parser.options.ClassicGetOptParser;
+import com.github.rvesse.airline.parser.options.LongGetOptParser;
+import com.github.rvesse.airline.parser.options.OptionParser;
+import com.github.rvesse.airline.parser.options.ShapedOptionParser;
+import com.github.rvesse.airline.parser.options.StandardOptionParser;
+import com.github.rvesse.airline.parser.options.TokenShape;
+
+public class TestTokenShape {
+
+    /**
+     * A parser that never parses anything but records the tokens it was
+     * offered
+     */
+    private static class RecordingOptionParser<T> implements ShapedOptionParser<T> {
+        private final Set<TokenShape> shapes;
+        private final List<String> offered = new ArrayList<String>();
+
+        public RecordingOptionParser(Set<TokenShape> shapes) {
+            this.shapes = shapes;
+        }
+
+        @Override
+        public ParseState<T> parseOptions(PeekingIterator<String> tokens, ParseState<T> state,
+                List<OptionMetadata> allowedOptions) {
+            this.offered.add(tokens.peek());
+            return null;
+        }
+
+        @Override
+        public Set<TokenShape> getAcceptedShapes() {
+            return this.shapes;
+        }
+    }
+
+    @Test
+    public void token_shape_classify() {
+        Assert.assertEquals(TokenShape.classify("--"), TokenShape.SEPARATOR);
+        Assert.assertEquals(TokenShape.classify("--beta"), TokenShape.LONG);
+        Assert.assertEquals(TokenShape.classify("--no-alpha"), TokenShape.LONG);
+        Assert.assertEquals(TokenShape.classify("--beta=foo"), TokenShape.LONG_WITH_VALUE);
+        Assert.assertEquals(TokenShape.classify("-b"), TokenShape.SHORT);
+        Assert.assertEquals(TokenShape.classify("-abc"), TokenShape.SHORT_COMPOUND);
+        Assert.assertEquals(TokenShape.classify("-Pa,b"), TokenShape.SHORT_COMPOUND);
+        Assert.assertEquals(TokenShape.classify("-b=foo"), TokenShape.SHORT_COMPOUND);
+        Assert.assertEquals(TokenShape.classify("foo"), TokenShape.WORD);
+        Assert.assertEquals(TokenShape.classify("foo=bar"), TokenShape.WORD);
+        Assert.assertEquals(TokenShape.classify("-"), TokenShape.WORD);
+        Assert.assertEquals(TokenShape.classify(""), TokenShape.WORD);
+    }
+
+    @Test
+    public void token_shape_parser_subsets() {
+        StandardOptionParser<Object> standard = new StandardOptionParser<Object>();
+        LongGetOptParser<Object> longGetOpt = new LongGetOptParser<Object>();
+        ClassicGetOptParser<Object> classic = new ClassicGetOptParser<Object>();
+        List<OptionParser<Object>> parsers = new ArrayList<OptionParser<Object>>();
+        parsers.add(standard);
+        parsers.add(longGetOpt);
+        parsers.add(classic);
+        ParserMetadata<Object> config = new ParserMetadata<Object>(null, parsers, null, null, false, false,
+                Collections.<AliasMetadata> emptyList(), null, false, false, null,
+                null);
+
+        Assert.assertEquals(config.getOptionParsers(TokenShape.LONG), Collections.singletonList(standard));
+        Assert.assertEquals(config.getOptionParsers(TokenShape.SEPARATOR), Collections.singletonList(standard));
+        List<OptionParser<Object>> expected = new ArrayList<OptionParser<Object>>();
+        expected.add(standard);
+        expected.add(longGetOpt);
+        Assert.assertEquals(config.getOptionParsers(TokenShape.LONG_WITH_VALUE), expected);
+        Assert.assertEquals(config.getOptionParsers(TokenShape.WORD), expected);
+        expected.remove(longGetOpt);
+        expected.add(classic);
+        Assert.assertEquals(config.getOptionParsers(TokenShape.SHORT), expected);
+        Assert.assertEquals(config.getOptionParsers(TokenShape.SHORT_COMPOUND), parsers);
+    }
+
+    @Test
+    public void token_shape_custom_separator_accepts_all() {
+        Assert.assertEquals(new TestOptionParsing.KeyValueOptionParser<Object>(':').getAcceptedShapes(),
+                EnumSet.allOf(TokenShape.class));
+    }
+
+    @Test
+    public void token_shape_dispatch() {
+        RecordingOptionParser<OptionParsing> recorder = new RecordingOptionParser<OptionParsing>(
+                EnumSet.of(TokenShape.SHORT_COMPOUND));
+        //@formatter:off
+        CliBuilder<OptionParsing> builder = Cli.<OptionParsing>builder("test")
+                                               .withCommand(OptionParsing.class);
+        builder.withParser()
+               .withOptionParser(recorder)
+               .withDefaultOptionParsers();
+        //@formatter:on
+        Cli<OptionParsing> parser = builder.build();
+
+        parser.parse("OptionParsing1", "--alpha", "-b", "foo", "--beta=bar", "-abbaz", "--");
+        Assert.assertEquals(recorder.offered, Collections.singletonList("-abbaz"));
+    }
+}
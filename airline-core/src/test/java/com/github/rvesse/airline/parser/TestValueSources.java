@@ -0,0 +1,347 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Pattern;
+import com.github.rvesse.airline.annotations.restrictions.ranges.IntegerRange;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.parser.errors.ParseException;
+import com.github.rvesse.airline.parser.errors.ParseOptionConversionException;
+import com.github.rvesse.airline.parser.errors.ParseRestrictionViolatedException;
+import com.github.rvesse.airline.parser.errors.handlers.CollectAll;
+import com.github.rvesse.airline.types.ConvertResult;
+import com.github.rvesse.airline.types.DefaultTypeConverter;
+import com.github.rvesse.airline.types.TypeConverter;
+import com.github.rvesse.airline.types.numerics.DefaultNumericConverter;
+import com.github.rvesse.airline.types.numerics.abbreviated.KiloAs1000;
+import com.github.rvesse.airline.types.numerics.bases.Hexadecimal;
+
+public class TestValueSources {
+
+    @Command(name = "sources")
+    public static class Sources {
+        @Option(name = "--ints", valueSources = true)
+        public int[] ints;
+
+        @Option(name = "--longs", valueSources = true)
+        public long[] longs;
+
+        @Option(name = "--doubles", valueSources = true)
+        public double[] doubles;
+
+        @Option(name = "--kilo", valueSources = true, typeConverterProvider = KiloAs1000.class)
+        public long[] kilo;
+
+        @Option(name = "--hex", valueSources = true, typeConverterProvider = Hexadecimal.class)
+        public int[] hex;
+
+        @Option(name = "--plain")
+        public int[] plain;
+
+        @Option(name = "--ranged", valueSources = true)
+        @IntegerRange(min = 0, max = 10)
+        public int[] ranged;
+
+        @Option(name = "--pattern", valueSources = true)
+        @Pattern(pattern = "^[0-9]+$")
+        public long[] pattern;
+
+        @Option(name = "--bytes", typeConverterProvider = BytesConverter.class)
+        public byte[] bytes;
+    }
+
+    /**
+     * Converter that converts a value into its bytes
+     */
+    public static class BytesConverter extends DefaultTypeConverter {
+
+        @Override
+        public <T> TypeConverter getTypeConverter(OptionMetadata option, ParseState<T> state) {
+            return this;
+        }
+
+        @Override
+        public Object convert(String name, Class<?> type, String value) {
+            if (byte[].class.equals(type))
+                return value.getBytes(StandardCharsets.UTF_8);
+            return super.convert(name, type, value);
+        }
+    }
+
+    @Command(name = "sources")
+    public static class BadSources {
+        @Option(name = "--ints", valueSources = true)
+        public List<Integer> ints;
+    }
+
+    private static File createFile(String contents) throws IOException {
+        File file = Files.createTempFile("airline-values", ".txt").toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Sources parse(String... args) {
+        return SingleCommand.singleCommand(Sources.class).parse(args);
+    }
+
+    @Test
+    public void value_sources_individual_values() {
+        Sources cmd = parse("--ints", "1", "--ints", "2");
+        Assert.assertEquals(cmd.ints, new int[] { 1, 2 });
+    }
+
+    @Test
+    public void value_sources_not_enabled_array() {
+        // Primitive arrays not accepting value sources are converted as a
+        // whole and bound as a single value
+        Sources cmd = parse("--bytes", "ab", "--bytes", "cd");
+        Assert.assertEquals(cmd.bytes, "cd".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void value_sources_restricted_01() throws IOException {
+        File file = createFile("0 5 10");
+        Sources cmd = parse("--ranged", "@" + file.getAbsolutePath(), "--pattern", "1");
+        Assert.assertEquals(cmd.ranged, new int[] { 0, 5, 10 });
+        Assert.assertEquals(cmd.pattern, new long[] { 1 });
+    }
+
+    @Test(expectedExceptions = ParseRestrictionViolatedException.class, expectedExceptionsMessageRegExp = ".*11.*")
+    public void value_sources_restricted_02() throws IOException {
+        // Post-validation applies to each value read
+        File file = createFile("0 5 11");
+        parse("--ranged", "@" + file.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = ParseRestrictionViolatedException.class, expectedExceptionsMessageRegExp = ".*x2.*")
+    public void value_sources_restricted_03() throws IOException {
+        // Pre-validation applies to each raw value read before it is
+        // converted
+        File file = createFile("1 x2");
+        parse("--pattern", "@" + file.getAbsolutePath());
+    }
+
+    @Test
+    public void value_sources_restricted_04() throws IOException {
+        File file = createFile("-1 5 11");
+        ParseResult<Sources> result = SingleCommand
+                .singleCommand(Sources.class, new ParserBuilder<Sources>().withErrorHandler(new CollectAll()).build())
+                .parseWithResult("--ranged", "@" + file.getAbsolutePath());
+        Assert.assertFalse(result.wasSuccessful());
+        Assert.assertEquals(result.getErrors().size(), 2);
+        for (ParseException e : result.getErrors()) {
+            Assert.assertTrue(e instanceof ParseRestrictionViolatedException, e.getMessage());
+        }
+    }
+
+    @Test
+    public void value_sources_file() throws IOException {
+        File file = createFile("1 2,3\n\n4,, 5\r\n");
+        Sources cmd = parse("--ints", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.ints, new int[] { 1, 2, 3, 4, 5 });
+    }
+
+    @Test
+    public void value_sources_file_combined() throws IOException {
+        File file = createFile("1 2 3");
+        Sources cmd = parse("--longs", "0", "--longs", "@" + file.getAbsolutePath(), "--longs", "4");
+        Assert.assertEquals(cmd.longs, new long[] { 0, 1, 2, 3, 4 });
+    }
+
+    @Test
+    public void value_sources_file_empty() throws IOException {
+        File file = createFile(" \n");
+        Sources cmd = parse("--doubles", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.doubles, new double[0]);
+    }
+
+    @Test
+    public void value_sources_stdin() {
+        InputStream stdin = System.in;
+        try {
+            System.setIn(new ByteArrayInputStream("1.5\n2.5\n-3".getBytes(StandardCharsets.UTF_8)));
+            Sources cmd = parse("--doubles", "-");
+            Assert.assertEquals(cmd.doubles, new double[] { 1.5, 2.5, -3 });
+        } finally {
+            System.setIn(stdin);
+        }
+    }
+
+    @Test
+    public void value_sources_numeric_converters() throws IOException {
+        File file = createFile("1k 2m 3");
+        Sources cmd = parse("--kilo", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.kilo, new long[] { 1000, 2000000, 3 });
+
+        file = createFile("ff 10");
+        cmd = parse("--hex", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.hex, new int[] { 255, 16 });
+    }
+
+    @Test
+    public void value_sources_large() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int count = 100000;
+        for (int i = 0; i < count; i++) {
+            builder.append(i).append('\n');
+        }
+        File file = createFile(builder.toString());
+        Sources cmd = parse("--ints", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.ints.length, count);
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(cmd.ints[i], i);
+        }
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void value_sources_bad_value() throws IOException {
+        File file = createFile("1 two 3");
+        parse("--ints", "@" + file.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = ParseOptionConversionException.class)
+    public void value_sources_bad_value_numeric_converter_01() throws IOException {
+        File file = createFile("1k abc 3");
+        parse("--kilo", "@" + file.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = ParseOptionConversionException.class)
+    public void value_sources_bad_value_numeric_converter_02() throws IOException {
+        File file = createFile("ff zz");
+        parse("--hex", "@" + file.getAbsolutePath());
+    }
+
+    @Test
+    public void value_sources_bad_value_numeric_converter_03() throws IOException {
+        // Conversion failures must reach the error handler rather than
+        // escaping the parser
+        File file = createFile("ff zz");
+        ParseResult<Sources> result = SingleCommand
+                .singleCommand(Sources.class, new ParserBuilder<Sources>().withErrorHandler(new CollectAll()).build())
+                .parseWithResult("--hex", "@" + file.getAbsolutePath());
+        Assert.assertFalse(result.wasSuccessful());
+        // As with other conversion failures the value is then also reported
+        // as unexpected
+        Assert.assertEquals(result.getErrors().size(), 2);
+        Assert.assertTrue(result.getErrors().iterator().next() instanceof ParseOptionConversionException);
+    }
+
+    @Test
+    public void value_sources_bad_value_numeric_converter_04() {
+        KiloAs1000 converter = new KiloAs1000();
+        for (String value : new String[] { "abc", "1x", "" }) {
+            try {
+                converter.convertInt("--kilo", value);
+                Assert.fail("Expected conversion of int to fail");
+            } catch (ParseOptionConversionException e) {
+                // Expected
+            }
+            try {
+                converter.convertLong("--kilo", value);
+                Assert.fail("Expected conversion of long to fail");
+            } catch (ParseOptionConversionException e) {
+                // Expected
+            }
+            try {
+                converter.convertDouble("--kilo", value);
+                Assert.fail("Expected conversion of double to fail");
+            } catch (ParseOptionConversionException e) {
+                // Expected
+            }
+        }
+    }
+
+    private static Sources parseWithArgumentsFiles(String prefix, String... args) {
+        return SingleCommand
+                .singleCommand(Sources.class, new ParserBuilder<Sources>().withArgumentsFilePrefix(prefix).build())
+                .parse(args);
+    }
+
+    @Test
+    public void value_sources_with_arguments_files_01() throws IOException {
+        // Arguments files take precedence so the file is expanded into
+        // arguments rather than being read as values
+        File file = createFile("1 --longs 2");
+        Sources cmd = parseWithArgumentsFiles("@", "--ints", "@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.ints, new int[] { 1 });
+        Assert.assertEquals(cmd.longs, new long[] { 2 });
+    }
+
+    @Test
+    public void value_sources_with_arguments_files_02() throws IOException {
+        // Escaping the prefix passes the value source through to the option
+        File file = createFile("1 2 3");
+        Sources cmd = parseWithArgumentsFiles("@", "--ints", "@@" + file.getAbsolutePath());
+        Assert.assertEquals(cmd.ints, new int[] { 1, 2, 3 });
+    }
+
+    @Test
+    public void value_sources_with_arguments_files_03() throws IOException {
+        // With distinct prefixes both features are available
+        File values = createFile("1 2 3");
+        File args = createFile("--longs 4");
+        Sources cmd = parseWithArgumentsFiles("%", "--ints", "@" + values.getAbsolutePath(),
+                "%" + args.getAbsolutePath());
+        Assert.assertEquals(cmd.ints, new int[] { 1, 2, 3 });
+        Assert.assertEquals(cmd.longs, new long[] { 4 });
+    }
+
+    @Test(expectedExceptions = ParseException.class, expectedExceptionsMessageRegExp = ".*Unable to read values.*")
+    public void value_sources_missing_file() {
+        parse("--ints", "@/no/such/file/exists");
+    }
+
+    @Test(expectedExceptions = ParseException.class)
+    public void value_sources_not_allowed() throws IOException {
+        File file = createFile("1 2 3");
+        parse("--plain", "@" + file.getAbsolutePath());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void value_sources_unsupported_type() {
+        SingleCommand.singleCommand(BadSources.class);
+    }
+
+    @Test
+    public void value_sources_primitive_conversions() {
+        DefaultNumericConverter converter = new DefaultNumericConverter();
+        String[] values = { "0", "-1", "123456789", "2147483647" };
+        for (String value : values) {
+            ConvertResult result = converter.tryConvertNumerics("test", Integer.TYPE, value);
+            Assert.assertEquals((Integer) result.getConvertedValue(), Integer.valueOf(converter.convertInt("test", value)));
+            result = converter.tryConvertNumerics("test", Long.TYPE, value);
+            Assert.assertEquals((Long) result.getConvertedValue(), Long.valueOf(converter.convertLong("test", value)));
+            result = converter.tryConvertNumerics("test", Double.TYPE, value);
+            Assert.assertEquals((Double) result.getConvertedValue(), Double.valueOf(converter.convertDouble("test", value)));
+        }
+    }
+}
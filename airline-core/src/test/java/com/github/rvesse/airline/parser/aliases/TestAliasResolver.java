@@ -90,6 +90,24 @@ public class TestAliasResolver {
         Assert.assertEquals(cmd.l, 3l);
     }
     
+    @Test
+    public void alias_resolution_positional_03() {
+        //@formatter:off
+        CliBuilder<Args1> builder = prepareBuilder();
+        builder.withParser()
+               .withAlias("a")
+               .withArguments("-verbose", "$1", "$2147483647");
+        //@formatter:on
+        
+        // A huge position must not cause a huge buffer, with no such token
+        // available it is treated as a literal
+        Args1 cmd = builder.build().parse("a", "3", "b");
+        Assert.assertEquals(cmd.verbose.intValue(), 3);
+        Assert.assertEquals(cmd.parameters.size(), 2);
+        Assert.assertEquals(cmd.parameters.get(0), "$2147483647");
+        Assert.assertEquals(cmd.parameters.get(1), "b");
+    }
+    
     @Test
     public void alias_resolution_chained_01() {
         //@formatter:off
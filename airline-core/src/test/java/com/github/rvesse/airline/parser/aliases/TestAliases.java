@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -330,6 +331,80 @@ public class TestAliases {
         }
     }
 
+    @Test
+    public void user_aliases_positional_05() throws IOException {
+        //@formatter:off
+        CliBuilder<Args1> builder = Cli.<Args1>builder("test")
+                                    .withCommand(Args1.class);
+        builder.withParser()
+               .withAlias("foo")
+               .withArguments("Args1", "-long", "$1", "$1");
+        Cli<Args1> cli = builder.build();
+        //@formatter:on
+
+        // A positional parameter may be used more than once but is only
+        // consumed once
+        Args1 cmd = cli.parse("foo", "5", "x");
+        Assert.assertEquals(cmd.l, 5l);
+        List<String> args = cmd.parameters;
+        Assert.assertEquals(args.size(), 2);
+        Assert.assertEquals(args.get(0), "5");
+        Assert.assertEquals(args.get(1), "x");
+    }
+
+    @Test
+    public void user_aliases_positional_chained() throws IOException {
+        //@formatter:off
+        CliBuilder<Args1> builder = Cli.<Args1>builder("test")
+                                    .withCommand(Args1.class);
+        builder.withParser()
+               .withAliasesChaining()
+               .withAlias("foo")
+               .withArguments("bar", "$2", "$1");
+        builder.withParser()
+               .withAlias("bar")
+               .withArguments("Args1", "-long", "$1");
+        Cli<Args1> cli = builder.build();
+        //@formatter:on
+
+        Args1 cmd = cli.parse("foo", "a", "7", "b");
+        Assert.assertEquals(cmd.l, 7l);
+        List<String> args = cmd.parameters;
+        Assert.assertEquals(args.size(), 2);
+        Assert.assertEquals(args.get(0), "a");
+        Assert.assertEquals(args.get(1), "b");
+    }
+
+    @Test
+    public void aliases_precompiled_positions() {
+        AliasMetadata alias = new AliasMetadata("foo", Arrays.asList("Args1", "$1", "$x", "$0", "$3", "$"));
+        Assert.assertEquals(alias.getPosition(0), -1);
+        Assert.assertEquals(alias.getPosition(1), 0);
+        Assert.assertEquals(alias.getPosition(2), -1);
+        Assert.assertEquals(alias.getPosition(3), -1);
+        Assert.assertEquals(alias.getPosition(4), 2);
+        Assert.assertEquals(alias.getPosition(5), -1);
+        Assert.assertEquals(alias.getMaxPosition(), 2);
+
+        alias = new AliasMetadata("bar", Arrays.asList("Args1", "-long"));
+        Assert.assertEquals(alias.getMaxPosition(), -1);
+    }
+
+    @Test
+    public void aliases_indexed_by_name() {
+        //@formatter:off
+        CliBuilder<Args1> builder = Cli.<Args1>builder("test")
+                                    .withCommand(Args1.class);
+        builder.withParser()
+               .withAlias("foo")
+               .withArguments("Args1", "-long", "$1");
+        Cli<Args1> cli = builder.build();
+        //@formatter:on
+
+        Assert.assertEquals(cli.getMetadata().getParserConfiguration().getAlias("foo").getName(), "foo");
+        Assert.assertNull(cli.getMetadata().getParserConfiguration().getAlias("bar"));
+    }
+
     @Test
     public void user_aliases_override_01() throws IOException {
         prepareConfig(f, "Args1=Args1 bar");
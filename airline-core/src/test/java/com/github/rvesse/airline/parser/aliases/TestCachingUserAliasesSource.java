@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.aliases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.args.Args1;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.model.AliasMetadata;
+
+public class TestCachingUserAliasesSource {
+
+    private static File createDirectory() throws IOException {
+        File dir = Files.createTempDirectory("airline-aliases").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static File write(File dir, String contents) throws IOException {
+        File f = new File(dir, "test.config");
+        f.deleteOnExit();
+        // Ensure modification is detectable even on file systems with coarse
+        // timestamps
+        long previous = f.exists() ? f.lastModified() : 0;
+        Files.write(f.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        if (f.lastModified() <= previous)
+            Files.setLastModifiedTime(f.toPath(), FileTime.fromMillis(previous + 1000));
+        return f;
+    }
+
+    private static Map<String, List<String>> toMap(List<AliasMetadata> aliases) {
+        Map<String, List<String>> map = new HashMap<>();
+        for (AliasMetadata alias : aliases) {
+            map.put(alias.getName(), alias.getArguments());
+        }
+        return map;
+    }
+
+    @Test
+    public void caching_user_aliases_unchanged() throws IOException {
+        File dir = createDirectory();
+        write(dir, "foo=Args1 bar\nbaz=Args1 \"a b\"");
+
+        CachingUserAliasesSource<Args1> source = new CachingUserAliasesSource<>("test.config", null,
+                dir.getAbsolutePath());
+        List<AliasMetadata> aliases = source.load();
+        Assert.assertEquals(aliases.size(), 2);
+        Assert.assertEquals(toMap(aliases).get("baz").get(1), "a b");
+
+        // Unchanged files give the same aliases without re-reading them
+        Assert.assertSame(source.load(), aliases);
+    }
+
+    @Test
+    public void caching_user_aliases_modified() throws IOException {
+        File dir = createDirectory();
+        write(dir, "foo=Args1 bar");
+
+        CachingUserAliasesSource<Args1> source = new CachingUserAliasesSource<>("test.config", null,
+                dir.getAbsolutePath());
+        List<AliasMetadata> aliases = source.load();
+        Assert.assertEquals(toMap(aliases).get("foo").get(1), "bar");
+
+        write(dir, "foo=Args1 other\nnew=Args1");
+        List<AliasMetadata> reloaded = source.load();
+        Assert.assertNotSame(reloaded, aliases);
+        Assert.assertEquals(reloaded.size(), 2);
+        Assert.assertEquals(toMap(reloaded).get("foo").get(1), "other");
+    }
+
+    @Test
+    public void caching_user_aliases_added_and_removed() throws IOException {
+        File low = createDirectory();
+        File high = createDirectory();
+        write(low, "foo=Args1 low\nbar=Args1");
+
+        CachingUserAliasesSource<Args1> source = new CachingUserAliasesSource<>("test.config", null,
+                high.getAbsolutePath(), low.getAbsolutePath());
+        Assert.assertEquals(toMap(source.load()).get("foo").get(1), "low");
+
+        // A file appearing in a higher precedence location overrides
+        File f = write(high, "foo=Args1 high");
+        Map<String, List<String>> aliases = toMap(source.load());
+        Assert.assertEquals(aliases.get("foo").get(1), "high");
+        Assert.assertTrue(aliases.containsKey("bar"));
+
+        // And disappearing reverts
+        Assert.assertTrue(f.delete());
+        Assert.assertEquals(toMap(source.load()).get("foo").get(1), "low");
+    }
+
+    @Test
+    public void caching_user_aliases_prefix() throws IOException {
+        File dir = createDirectory();
+        write(dir, "alias.foo=Args1 bar\nother=value");
+
+        CachingUserAliasesSource<Args1> source = new CachingUserAliasesSource<>("test.config", "alias.",
+                dir.getAbsolutePath());
+        List<AliasMetadata> aliases = source.load();
+        Assert.assertEquals(aliases.size(), 1);
+        Assert.assertEquals(aliases.get(0).getName(), "foo");
+    }
+
+    @Test
+    public void caching_user_aliases_builder() throws IOException {
+        File dir = createDirectory();
+        write(dir, "foo=Args1 -long 345");
+
+        //@formatter:off
+        CliBuilder<Args1> builder = Cli.<Args1>builder("test")
+                                       .withCommand(Args1.class);
+        builder.withParser()
+               .withUserAliases(new CachingUserAliasesSource<Args1>("test.config", null, dir.getAbsolutePath()));
+        Cli<Args1> cli = builder.build();
+        //@formatter:on
+
+        Args1 cmd = cli.parse("foo");
+        Assert.assertEquals(cmd.l, 345l);
+    }
+}
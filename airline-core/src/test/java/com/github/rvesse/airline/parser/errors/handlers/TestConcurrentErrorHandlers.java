@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.parser.errors.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.Cli;
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.builder.CliBuilder;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.parser.ParseResult;
+import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.errors.ParseException;
+import com.github.rvesse.airline.restrictions.Strings;
+
+/**
+ * Tests that error handlers are safe to use when a single parser is shared
+ * between many threads
+ */
+public class TestConcurrentErrorHandlers {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 500;
+
+    /**
+     * Interface for something that parses the given arguments
+     */
+    private static interface Parser {
+        ParseResult<Strings> parse(String... args);
+    }
+
+    /**
+     * Gets the arguments for a given iteration which will produce exactly
+     * {@code iteration % 3} errors
+     */
+    private static String[] argsFor(int iteration) {
+        switch (iteration % 3) {
+        case 0:
+            return new String[] { "--not-empty", "foo", "--not-blank", "bar" };
+        case 1:
+            return new String[] { "--not-empty", "", "--not-blank", "bar" };
+        default:
+            return new String[] { "--not-empty", "", "--not-blank", "  " };
+        }
+    }
+
+    private void runConcurrently(final Parser parser, final boolean expectThrow, final boolean expectSuppressed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int parses = 0;
+                        for (int i = offset; i < offset + ITERATIONS; i++) {
+                            int expected = i % 3;
+                            try {
+                                ParseResult<Strings> result = parser.parse(argsFor(i));
+                                if (expectThrow) {
+                                    Assert.assertEquals(expected, 0);
+                                    Assert.assertTrue(result.wasSuccessful());
+                                } else {
+                                    Assert.assertEquals(result.getErrors().size(), expected);
+                                    Assert.assertEquals(result.wasSuccessful(), expected == 0);
+                                }
+                            } catch (ParseException e) {
+                                Assert.assertTrue(expectThrow);
+                                Assert.assertEquals(e.getSuppressed().length, expectSuppressed && expected > 1 ? expected : 0);
+                                Assert.assertNotEquals(expected, 0);
+                            }
+                            parses++;
+                        }
+                        return parses;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(future.get(60, TimeUnit.SECONDS).intValue(), ITERATIONS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Parser singleCommand(ParserErrorHandler handler) {
+        final SingleCommand<Strings> parser = SingleCommand.<Strings> singleCommand(Strings.class,
+                new ParserBuilder<Strings>().withErrorHandler(handler).build());
+        return new Parser() {
+            @Override
+            public ParseResult<Strings> parse(String... args) {
+                return parser.parseWithResult(args);
+            }
+        };
+    }
+
+    private Parser cli(ParserErrorHandler handler) {
+        CliBuilder<Strings> builder = Cli.<Strings> builder("test").withCommand(Strings.class);
+        builder.withParser().withErrorHandler(handler);
+        final Cli<Strings> cli = builder.build();
+        return new Parser() {
+            @Override
+            public ParseResult<Strings> parse(String... args) {
+                String[] fullArgs = new String[args.length + 1];
+                fullArgs[0] = "strings";
+                System.arraycopy(args, 0, fullArgs, 1, args.length);
+                return cli.parseWithResult(fullArgs);
+            }
+        };
+    }
+
+    @Test
+    public void concurrent_collect_all_single_command() throws Exception {
+        runConcurrently(singleCommand(new CollectAll()), false, false);
+    }
+
+    @Test
+    public void concurrent_collect_all_cli() throws Exception {
+        runConcurrently(cli(new CollectAll()), false, false);
+    }
+
+    @Test
+    public void concurrent_fail_all_single_command() throws Exception {
+        runConcurrently(singleCommand(new FailAll()), true, true);
+    }
+
+    @Test
+    public void concurrent_fail_all_cli() throws Exception {
+        runConcurrently(cli(new FailAll()), true, true);
+    }
+
+    @Test
+    public void concurrent_fail_fast_cli() throws Exception {
+        runConcurrently(cli(new FailFast()), true, false);
+    }
+
+    @Test
+    public void collecting_handler_new_instance() {
+        CollectAll handler = new CollectAll();
+        AbstractCollectingHandler other = handler.newInstance();
+        Assert.assertNotSame(other, handler);
+        Assert.assertEquals(other.getClass(), CollectAll.class);
+    }
+
+    public static class DerivedCollectAll extends CollectAll {
+    }
+
+    @Test
+    public void collecting_handler_new_instance_not_overridden_01() {
+        // A derived handler with a no-argument constructor gets a fresh
+        // instance of itself rather than an instance of its parent
+        DerivedCollectAll handler = new DerivedCollectAll();
+        AbstractCollectingHandler other = handler.newInstance();
+        Assert.assertNotSame(other, handler);
+        Assert.assertEquals(other.getClass(), DerivedCollectAll.class);
+    }
+
+    @Test
+    public void collecting_handler_new_instance_not_overridden_02() {
+        // A derived handler that can't be constructed reflectively is shared
+        // rather than failing
+        CollectAll handler = new CollectAll() {
+        };
+        Assert.assertSame(handler.newInstance(), handler);
+    }
+
+    @Test
+    public void collecting_handler_new_instance_not_overridden_03() {
+        // Third party handlers need not override newInstance()
+        AbstractCollectingHandler handler = new AbstractCollectingHandler() {
+            @Override
+            public <T> ParseResult<T> finished(ParseState<T> state) {
+                return new ParseResult<>(state, getCollection());
+            }
+        };
+        Assert.assertSame(handler.newInstance(), handler);
+    }
+}
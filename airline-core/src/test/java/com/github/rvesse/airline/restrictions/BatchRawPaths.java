@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.restrictions;
+
+import java.util.List;
+
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.restrictions.Path;
+import com.github.rvesse.airline.annotations.restrictions.PathKind;
+
+@Command(name = "batch-raw-paths")
+public class BatchRawPaths {
+
+    @Arguments
+    @Path(mustExist = true, kind = PathKind.FILE, writable = false, concurrent = true)
+    public List<Wrapped> files;
+
+    /**
+     * Value type whose string form differs from the raw value it was created
+     * from
+     */
+    public static class Wrapped {
+        private final String path;
+
+        public Wrapped(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return this.path;
+        }
+
+        @Override
+        public String toString() {
+            return "wrapped";
+        }
+    }
+}
@@ -15,6 +15,158 @@
  */
 package com.github.rvesse.airline.restrictions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.AllowedValues;
+import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.errors.ParseArgumentsIllegalValueException;
+import com.github.rvesse.airline.parser.errors.ParseOptionIllegalValueException;
+import com.github.rvesse.airline.restrictions.common.AllowedValuesRestriction;
+import com.github.rvesse.airline.types.DefaultTypeConverter;
+import com.github.rvesse.airline.types.TypeConverter;
+
 public class TestAllowedValues {
 
+    public enum Colour {
+        RED, GREEN, BLUE, YELLOW
+    }
+
+    @Command(name = "allowed")
+    public static class Allowed {
+        @Option(name = "--colour")
+        @AllowedValues(allowedValues = { "RED", "BLUE" })
+        public Colour colour;
+
+        @Option(name = "--mode")
+        @AllowedValues(allowedValues = { "c", "a", "b" })
+        public String mode;
+
+        @Option(name = "--number")
+        @AllowedValues(allowedValues = { "1", "2", "3" })
+        public List<Integer> numbers;
+
+        @Arguments
+        @AllowedValues(allowedValues = { "x", "y" })
+        public List<String> args;
+    }
+
+    /**
+     * Exposes the converted values for testing
+     */
+    private static class TestRestriction extends AllowedValuesRestriction {
+        TestRestriction(String... rawValues) {
+            super(rawValues);
+        }
+
+        Set<Object> convert(Class<?> type, TypeConverter converter) {
+            return createAllowedValues(ParseState.newInstance(), "test", type, converter);
+        }
+    }
+
+    @Test
+    public void allowed_values_enum() {
+        Allowed cmd = SingleCommand.singleCommand(Allowed.class).parse("--colour", "BLUE");
+        Assert.assertEquals(cmd.colour, Colour.BLUE);
+    }
+
+    @Test(expectedExceptions = ParseOptionIllegalValueException.class)
+    public void allowed_values_enum_bad() {
+        SingleCommand.singleCommand(Allowed.class).parse("--colour", "GREEN");
+    }
+
+    @Test
+    public void allowed_values_strings_and_numbers() {
+        Allowed cmd = SingleCommand.singleCommand(Allowed.class).parse("--mode", "a", "--number", "1", "--number",
+                "3", "x", "y");
+        Assert.assertEquals(cmd.mode, "a");
+        Assert.assertEquals(cmd.numbers, Arrays.asList(1, 3));
+        Assert.assertEquals(cmd.args, Arrays.asList("x", "y"));
+    }
+
+    @Test(expectedExceptions = ParseOptionIllegalValueException.class)
+    public void allowed_values_numbers_bad() {
+        SingleCommand.singleCommand(Allowed.class).parse("--number", "4");
+    }
+
+    @Test(expectedExceptions = ParseArgumentsIllegalValueException.class)
+    public void allowed_values_arguments_bad() {
+        SingleCommand.singleCommand(Allowed.class).parse("x", "z");
+    }
+
+    @Test
+    public void allowed_values_error_message_order() {
+        try {
+            SingleCommand.singleCommand(Allowed.class).parse("--mode", "d");
+            Assert.fail("Should have been rejected");
+        } catch (ParseOptionIllegalValueException e) {
+            // Declared order is preserved
+            Assert.assertEquals(new ArrayList<Object>(e.getAllowedValues()), Arrays.<Object> asList("c", "a", "b"));
+        }
+    }
+
+    @Test
+    public void allowed_values_converted_once() {
+        TestRestriction restriction = new TestRestriction("RED", "BLUE");
+        TypeConverter converter = new DefaultTypeConverter();
+
+        Set<Object> values = restriction.convert(Colour.class, converter);
+        Assert.assertEquals(values.size(), 2);
+        Assert.assertTrue(values.contains(Colour.RED));
+        Assert.assertSame(restriction.convert(Colour.class, converter), values);
+
+        // A different type or converter requires conversion again
+        Set<Object> strings = restriction.convert(String.class, converter);
+        Assert.assertNotSame(strings, values);
+        Assert.assertTrue(strings.contains("RED"));
+        Assert.assertNotSame(restriction.convert(String.class, new DefaultTypeConverter()), strings);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void allowed_values_immutable() {
+        new TestRestriction("a").convert(String.class, new DefaultTypeConverter()).add("b");
+    }
+
+    @Test
+    public void allowed_values_concurrent() throws Exception {
+        final SingleCommand<Allowed> parser = SingleCommand.singleCommand(Allowed.class);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int parsed = 0;
+                        for (int i = 0; i < 1000; i++) {
+                            Allowed cmd = parser.parse("--colour", i % 2 == 0 ? "RED" : "BLUE", "--mode", "b", "y");
+                            if (cmd.colour != null)
+                                parsed++;
+                        }
+                        return parsed;
+                    }
+                }));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(future.get().intValue(), 1000);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
 }
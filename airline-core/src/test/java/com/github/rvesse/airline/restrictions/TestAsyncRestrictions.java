@@ -0,0 +1,345 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.restrictions;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.builder.ParserBuilder;
+import com.github.rvesse.airline.model.ArgumentsMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.parser.ParseResult;
+import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.errors.ParseException;
+import com.github.rvesse.airline.parser.errors.ParseOptionConversionException;
+import com.github.rvesse.airline.parser.errors.ParseRestrictionViolatedException;
+import com.github.rvesse.airline.parser.errors.handlers.CollectAll;
+import com.github.rvesse.airline.restrictions.factories.ArgumentsRestrictionFactory;
+import com.github.rvesse.airline.restrictions.factories.OptionRestrictionFactory;
+import com.github.rvesse.airline.restrictions.factories.RestrictionRegistry;
+
+public class TestAsyncRestrictions {
+
+    private static final List<Thread> VALIDATION_THREADS = Collections.synchronizedList(new ArrayList<Thread>());
+    private static final Map<String, Integer> COUNTS = new ConcurrentHashMap<>();
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public static @interface Slow {
+    }
+
+    /**
+     * Restriction that rejects values starting with {@code bad}, values
+     * containing {@code slow} take longer to validate so that validations
+     * complete out of order
+     */
+    public static class SlowRestriction extends AbstractAsyncCommonRestriction {
+
+        @Override
+        public <T> Runnable preValidateAsync(ParseState<T> state, OptionMetadata option, String value) {
+            return validation(String.format("Option '%s'", option.getTitle()), value);
+        }
+
+        @Override
+        public <T> Runnable preValidateAsync(ParseState<T> state, ArgumentsMetadata arguments, String value) {
+            return validation(
+                    String.format("Argument '%s'", AbstractCommonRestriction.getArgumentTitle(state, arguments)),
+                    value);
+        }
+
+        private static Runnable validation(final String title, final String value) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    VALIDATION_THREADS.add(Thread.currentThread());
+                    if (value.contains("slow")) {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    if (value.startsWith("bad"))
+                        throw new ParseRestrictionViolatedException("%s was given bad value '%s'", title, value);
+                }
+            };
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public static @interface Counted {
+    }
+
+    /**
+     * Restriction that records how many options had been parsed when each
+     * value was seen, the count is captured from the state on the parsing
+     * thread since the validation itself must not touch the state
+     */
+    public static class CountingRestriction extends AbstractAsyncCommonRestriction {
+
+        @Override
+        public <T> Runnable postValidateAsync(ParseState<T> state, OptionMetadata option, final Object value) {
+            final int parsed = state.getParsedOptions().size();
+            return new Runnable() {
+                @Override
+                public void run() {
+                    VALIDATION_THREADS.add(Thread.currentThread());
+                    COUNTS.put((String) value, parsed);
+                }
+            };
+        }
+    }
+
+    public static class CountingFactory implements OptionRestrictionFactory {
+
+        @Override
+        public OptionRestriction createOptionRestriction(Annotation annotation) {
+            return annotation instanceof Counted ? new CountingRestriction() : null;
+        }
+
+        @Override
+        public List<Class<? extends Annotation>> supportedOptionAnnotations() {
+            return Collections.<Class<? extends Annotation>> singletonList(Counted.class);
+        }
+    }
+
+    @Command(name = "counted")
+    public static class CountedCommand {
+        @Option(name = "--value")
+        @Counted
+        public List<String> values;
+    }
+
+    public static class SlowFactory implements OptionRestrictionFactory, ArgumentsRestrictionFactory {
+
+        @Override
+        public OptionRestriction createOptionRestriction(Annotation annotation) {
+            return annotation instanceof Slow ? new SlowRestriction() : null;
+        }
+
+        @Override
+        public List<Class<? extends Annotation>> supportedOptionAnnotations() {
+            return Collections.<Class<? extends Annotation>> singletonList(Slow.class);
+        }
+
+        @Override
+        public ArgumentsRestriction createArgumentsRestriction(Annotation annotation) {
+            return annotation instanceof Slow ? new SlowRestriction() : null;
+        }
+
+        @Override
+        public List<Class<? extends Annotation>> supportedArgumentsAnnotations() {
+            return supportedOptionAnnotations();
+        }
+    }
+
+    @Command(name = "slow")
+    public static class SlowCommand {
+        @Option(name = "--value")
+        @Slow
+        public List<String> values;
+
+        @Option(name = "--number")
+        public Integer number;
+
+        @Arguments
+        @Slow
+        public List<String> args;
+    }
+
+    /**
+     * Executor that only queues validations so their fate can be inspected
+     */
+    private static class QueueingExecutor implements Executor {
+        private final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            this.queued.add(command);
+        }
+    }
+
+    private static SingleCommand<SlowCommand> createParser(ParserBuilder<SlowCommand> builder) {
+        RestrictionRegistry.addOptionRestriction(Slow.class, new SlowFactory());
+        RestrictionRegistry.addArgumentsRestriction(Slow.class, new SlowFactory());
+        return SingleCommand.<SlowCommand> singleCommand(SlowCommand.class, builder.build());
+    }
+
+    @Test
+    public void async_restriction_executor_01() {
+        VALIDATION_THREADS.clear();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SingleCommand<SlowCommand> parser = createParser(
+                    new ParserBuilder<SlowCommand>().withValidationExecutor(executor));
+            SlowCommand cmd = parser.parse("--value", "a", "--value", "slow", "b", "c");
+            Assert.assertEquals(cmd.values.size(), 2);
+            Assert.assertEquals(cmd.args.size(), 2);
+
+            // All validations should have completed on the executor
+            Assert.assertEquals(VALIDATION_THREADS.size(), 4);
+            Assert.assertFalse(VALIDATION_THREADS.contains(Thread.currentThread()));
+        } finally {
+            executor.shutdownNow();
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void async_restriction_executor_02() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SingleCommand<SlowCommand> parser = createParser(
+                    new ParserBuilder<SlowCommand>().withValidationExecutor(executor));
+
+            // The first failure by submission order should be reported even
+            // though a later validation fails first
+            parser.parse("--value", "bad-slow", "--value", "bad-fast", "good");
+            Assert.fail("Expected bad values to be rejected");
+        } catch (ParseRestrictionViolatedException e) {
+            Assert.assertTrue(e.getMessage().contains("bad-slow"), e.getMessage());
+        } finally {
+            executor.shutdownNow();
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void async_restriction_executor_03() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SingleCommand<SlowCommand> parser = createParser(new ParserBuilder<SlowCommand>()
+                    .withValidationExecutor(executor).withErrorHandler(new CollectAll()));
+            ParseResult<SlowCommand> result = parser.parseWithResult("--value", "bad-slow", "--value", "good",
+                    "bad-slow-arg", "bad-arg");
+            Assert.assertFalse(result.wasSuccessful());
+
+            // Errors are delivered in submission order
+            List<ParseException> errors = new ArrayList<>(result.getErrors());
+            Assert.assertEquals(errors.size(), 3);
+            Assert.assertTrue(errors.get(0).getMessage().contains("'bad-slow'"), errors.get(0).getMessage());
+            Assert.assertTrue(errors.get(1).getMessage().contains("'bad-slow-arg'"), errors.get(1).getMessage());
+            Assert.assertTrue(errors.get(2).getMessage().contains("'bad-arg'"), errors.get(2).getMessage());
+        } finally {
+            executor.shutdownNow();
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void async_restriction_executor_state_01() {
+        VALIDATION_THREADS.clear();
+        COUNTS.clear();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            RestrictionRegistry.addOptionRestriction(Counted.class, new CountingFactory());
+            SingleCommand<CountedCommand> parser = SingleCommand.<CountedCommand> singleCommand(
+                    CountedCommand.class,
+                    new ParserBuilder<CountedCommand>().withValidationExecutor(executor).build());
+
+            // Enough values that the parse state storage has to grow while
+            // validations are running on the executor
+            List<String> args = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                args.add("--value");
+                args.add("v" + i);
+            }
+            CountedCommand cmd = parser.parse(args.toArray(new String[args.size()]));
+            Assert.assertEquals(cmd.values.size(), 100);
+
+            // Each validation should see the state as it was when the value
+            // was parsed regardless of when it actually ran
+            Assert.assertEquals(COUNTS.size(), 100);
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(COUNTS.get("v" + i), Integer.valueOf(i));
+            }
+            Assert.assertEquals(VALIDATION_THREADS.size(), 100);
+            Assert.assertFalse(VALIDATION_THREADS.contains(Thread.currentThread()));
+        } finally {
+            executor.shutdownNow();
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void async_restriction_executor_cancelled_01() {
+        QueueingExecutor executor = new QueueingExecutor();
+        try {
+            SingleCommand<SlowCommand> parser = createParser(
+                    new ParserBuilder<SlowCommand>().withValidationExecutor(executor));
+
+            // Conversion failure abandons the parse before validations are
+            // awaited so the outstanding validations should be cancelled
+            parser.parse("--value", "a", "b", "--number", "not-a-number");
+            Assert.fail("Expected conversion to fail");
+        } catch (ParseOptionConversionException e) {
+            Assert.assertEquals(executor.queued.size(), 2);
+            for (Runnable validation : executor.queued) {
+                Assert.assertTrue(((Future<?>) validation).isCancelled());
+            }
+        } finally {
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void async_restriction_no_executor_01() {
+        VALIDATION_THREADS.clear();
+        try {
+            // Without an executor validations run immediately on the parsing
+            // thread
+            SingleCommand<SlowCommand> parser = createParser(new ParserBuilder<SlowCommand>());
+            SlowCommand cmd = parser.parse("--value", "a", "b");
+            Assert.assertEquals(cmd.values.size(), 1);
+            Assert.assertEquals(cmd.args.size(), 1);
+            Assert.assertEquals(VALIDATION_THREADS.size(), 2);
+            Assert.assertEquals(VALIDATION_THREADS.get(0), Thread.currentThread());
+            Assert.assertEquals(VALIDATION_THREADS.get(1), Thread.currentThread());
+        } finally {
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test(expectedExceptions = ParseRestrictionViolatedException.class)
+    public void async_restriction_no_executor_02() {
+        try {
+            SingleCommand<SlowCommand> parser = createParser(new ParserBuilder<SlowCommand>());
+            parser.parse("--value", "bad");
+        } finally {
+            RestrictionRegistry.reset();
+        }
+    }
+}
@@ -20,13 +20,20 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.builder.ParserBuilder;
 import com.github.rvesse.airline.help.Help;
+import com.github.rvesse.airline.parser.ParseResult;
+import com.github.rvesse.airline.parser.ParseState;
+import com.github.rvesse.airline.parser.errors.ParseException;
 import com.github.rvesse.airline.parser.errors.ParseRestrictionViolatedException;
+import com.github.rvesse.airline.parser.errors.handlers.CollectAll;
 
 public class TestPathRestriction {
 
@@ -286,4 +293,155 @@ public class TestPathRestriction {
         Assert.assertTrue(usage.contains("must be executable"));
         Assert.assertTrue(usage.contains("must exist"));
     }
+
+    private static List<File> createFiles(File dir, int count) throws IOException {
+        dir.mkdirs();
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            File f = new File(dir, "file" + i + ".txt");
+            f.createNewFile();
+            files.add(f);
+        }
+        return files;
+    }
+
+    private static void deleteFiles(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    private static String[] toArgs(List<File> files) {
+        String[] args = new String[files.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = files.get(i).getPath();
+        }
+        return args;
+    }
+
+    @Test
+    public void path_restriction_batch_01() throws IOException {
+        File dir = new File("target/batch-paths-01");
+        try {
+            List<File> files = createFiles(dir, 1000);
+
+            SingleCommand<BatchPaths> parser = SingleCommand.<BatchPaths> singleCommand(BatchPaths.class);
+            BatchPaths cmd = parser.parse(toArgs(files));
+            Assert.assertEquals(cmd.files.size(), files.size());
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test
+    public void path_restriction_batch_02() throws IOException {
+        File dir = new File("target/batch-paths-02");
+        try {
+            List<File> files = createFiles(dir, 1000);
+            // Make some paths invalid, the first invalid path should always be
+            // the one reported regardless of which task finds it first
+            files.set(900, new File(dir, "missing900.txt"));
+            files.set(300, new File(dir, "missing300.txt"));
+            files.set(301, dir);
+
+            SingleCommand<BatchPaths> parser = SingleCommand.<BatchPaths> singleCommand(BatchPaths.class);
+            try {
+                parser.parse(toArgs(files));
+                Assert.fail("Expected missing paths to be rejected");
+            } catch (ParseRestrictionViolatedException e) {
+                Assert.assertTrue(e.getMessage().contains("missing300.txt"), e.getMessage());
+            }
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test(expectedExceptions = ParseRestrictionViolatedException.class)
+    public void path_restriction_batch_03() throws IOException {
+        File dir = new File("target/batch-paths-03");
+        try {
+            List<File> files = createFiles(dir, 3);
+            files.add(dir);
+
+            // Small batches are validated on the calling thread but must still
+            // respect the restriction
+            SingleCommand<BatchPaths> parser = SingleCommand.<BatchPaths> singleCommand(BatchPaths.class);
+            parser.parse(toArgs(files));
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test
+    public void path_restriction_batch_04() throws IOException {
+        File dir = new File("target/batch-paths-05");
+        try {
+            List<File> files = createFiles(dir, 1000);
+            files.set(900, new File(dir, "missing900.txt"));
+            files.set(300, new File(dir, "missing300.txt"));
+            files.set(10, dir);
+
+            // Every invalid path should be reported in argument order
+            SingleCommand<BatchPaths> parser = SingleCommand.<BatchPaths> singleCommand(BatchPaths.class,
+                    new ParserBuilder<BatchPaths>().withErrorHandler(new CollectAll()).build());
+            ParseResult<BatchPaths> result = parser.parseWithResult(toArgs(files));
+            Assert.assertFalse(result.wasSuccessful());
+            List<ParseException> errors = new ArrayList<>(result.getErrors());
+            Assert.assertEquals(errors.size(), 3);
+            Assert.assertTrue(errors.get(0).getMessage().contains(dir.getPath() + "'"), errors.get(0).getMessage());
+            Assert.assertTrue(errors.get(1).getMessage().contains("missing300.txt"), errors.get(1).getMessage());
+            Assert.assertTrue(errors.get(2).getMessage().contains("missing900.txt"), errors.get(2).getMessage());
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test
+    public void path_restriction_batch_05() throws IOException {
+        File dir = new File("target/batch-paths-06");
+        try {
+            List<File> files = createFiles(dir, 3);
+
+            // The raw values are validated rather than the string form of the
+            // converted values
+            SingleCommand<BatchRawPaths> parser = SingleCommand.<BatchRawPaths> singleCommand(BatchRawPaths.class);
+            BatchRawPaths cmd = parser.parse(toArgs(files));
+            Assert.assertEquals(cmd.files.size(), files.size());
+            Assert.assertEquals(cmd.files.get(0).getPath(), files.get(0).getPath());
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test
+    public void path_restriction_ancestors_01() throws IOException {
+        File dir = new File("target/batch-paths-04");
+        try {
+            dir.mkdirs();
+            // Path does not exist so the first existing ancestor is checked
+            SingleCommand<BatchPaths> parser = SingleCommand.<BatchPaths> singleCommand(BatchPaths.class);
+            BatchPaths cmd = parser.parse("--output", new File(dir, "a/b/c/output.txt").getPath());
+            Assert.assertNotNull(cmd.output);
+            Assert.assertNull(cmd.files);
+        } finally {
+            deleteFiles(dir);
+        }
+    }
+
+    @Test
+    public void path_restriction_parse_cache_01() {
+        ParseState<Object> state = ParseState.newInstance();
+        Object key = new Object();
+        state.getParseCache().put(key, "value");
+
+        // Derived states share the cache, including those that had to copy
+        // the accumulated values, while a new parse gets a fresh one
+        Assert.assertEquals(state.withUnparsedInput("a").getParseCache().get(key), "value");
+        Assert.assertEquals(state.withUnparsedInput("b").getParseCache().get(key), "value");
+        Assert.assertNull(ParseState.newInstance().getParseCache().get(key));
+    }
 }
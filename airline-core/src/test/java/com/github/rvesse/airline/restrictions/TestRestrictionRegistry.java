@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.restrictions;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.NotBlank;
+import com.github.rvesse.airline.model.MetadataLoader;
+import com.github.rvesse.airline.restrictions.common.IsRequiredRestriction;
+import com.github.rvesse.airline.restrictions.common.NotBlankRestriction;
+import com.github.rvesse.airline.restrictions.factories.OptionRestrictionFactory;
+import com.github.rvesse.airline.restrictions.factories.RestrictionRegistry;
+
+public class TestRestrictionRegistry {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public static @interface Mandatory {
+    }
+
+    public static class MandatoryFactory implements OptionRestrictionFactory {
+
+        @Override
+        public OptionRestriction createOptionRestriction(Annotation annotation) {
+            return annotation instanceof Mandatory ? new IsRequiredRestriction() : null;
+        }
+
+        @Override
+        public List<Class<? extends Annotation>> supportedOptionAnnotations() {
+            return Collections.<Class<? extends Annotation>> singletonList(Mandatory.class);
+        }
+    }
+
+    public static class Restricted {
+        @Option(name = "--a")
+        @Mandatory
+        @NotBlank
+        public String a;
+
+        @Option(name = "--b")
+        @Deprecated
+        public String b;
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        return Restricted.class.getField(name);
+    }
+
+    @Test
+    public void restriction_registry_dispatch() throws NoSuchFieldException {
+        // Unregistered annotations are ignored
+        List<OptionRestriction> restrictions = MetadataLoader.loadOptionRestrictions(field("a"));
+        Assert.assertEquals(restrictions.size(), 1);
+        Assert.assertTrue(restrictions.get(0) instanceof NotBlankRestriction);
+        Assert.assertTrue(MetadataLoader.loadOptionRestrictions(field("b")).isEmpty());
+
+        try {
+            RestrictionRegistry.addOptionRestriction(Mandatory.class, new MandatoryFactory());
+            restrictions = MetadataLoader.loadOptionRestrictions(field("a"));
+            Assert.assertEquals(restrictions.size(), 2);
+            boolean foundRequired = false;
+            for (OptionRestriction restriction : restrictions) {
+                foundRequired = foundRequired || restriction instanceof IsRequiredRestriction;
+            }
+            Assert.assertTrue(foundRequired);
+
+            // Registering a null factory removes the mapping
+            RestrictionRegistry.addOptionRestriction(Mandatory.class, null);
+            Assert.assertEquals(MetadataLoader.loadOptionRestrictions(field("a")).size(), 1);
+        } finally {
+            RestrictionRegistry.reset();
+        }
+    }
+
+    @Test
+    public void restriction_registry_snapshots() {
+        Set<Class<? extends Annotation>> before = RestrictionRegistry.getOptionRestrictionAnnotationClasses();
+        int size = before.size();
+        try {
+            RestrictionRegistry.addOptionRestriction(Mandatory.class, new MandatoryFactory());
+
+            // Previously obtained snapshots are unaffected by later changes
+            Assert.assertEquals(before.size(), size);
+            Assert.assertFalse(before.contains(Mandatory.class));
+            Assert.assertTrue(RestrictionRegistry.getOptionRestrictionAnnotationClasses().contains(Mandatory.class));
+        } finally {
+            RestrictionRegistry.reset();
+        }
+        Assert.assertFalse(RestrictionRegistry.getOptionRestrictionAnnotationClasses().contains(Mandatory.class));
+        Assert.assertEquals(RestrictionRegistry.getOptionRestrictionAnnotationClasses().size(), size);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void restriction_registry_immutable() {
+        RestrictionRegistry.getOptionRestrictionAnnotationClasses().clear();
+    }
+}
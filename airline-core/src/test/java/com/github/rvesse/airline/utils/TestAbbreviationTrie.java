@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.annotations.OptionType;
+import com.github.rvesse.airline.args.Args1;
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.OptionMetadata;
+import com.github.rvesse.airline.restrictions.OptionRestriction;
+import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedGroupFinder;
+import com.github.rvesse.airline.utils.predicates.parser.AbbreviatedOptionFinder;
+import com.github.rvesse.airline.utils.predicates.parser.GroupFinder;
+
+public class TestAbbreviationTrie {
+
+    private static final String[] NAMES = { "add", "address", "remove", "rename", "re", "list", "l", "status",
+            "stash", "show" };
+
+    private static CommandGroupMetadata group(String name) {
+        return new CommandGroupMetadata(name, null, false, null, null, null,
+                Collections.<CommandMetadata> emptyList());
+    }
+
+    private static OptionMetadata option(String... names) throws NoSuchFieldException {
+        return new OptionMetadata(OptionType.COMMAND, Arrays.asList(names), names[0], "", 1, false, false, false,
+                Collections.<OptionRestriction> emptyList(), null,
+                Collections.singletonList(Args1.class.getField("groups")));
+    }
+
+    private static List<String> prefixes(String[] names) {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add("");
+        prefixes.add("unknown");
+        for (String name : names) {
+            for (int i = 1; i <= name.length() + 1; i++) {
+                prefixes.add(i <= name.length() ? name.substring(0, i) : name + "x");
+            }
+        }
+        return prefixes;
+    }
+
+    @Test
+    public void abbreviation_trie_groups_matches_finder() {
+        List<CommandGroupMetadata> groups = new ArrayList<>();
+        for (String name : NAMES) {
+            groups.add(group(name));
+        }
+        AbbreviationTrie<CommandGroupMetadata> trie = AbbreviationTrie.forGroups(groups);
+
+        for (String prefix : prefixes(NAMES)) {
+            CommandGroupMetadata expected = CollectionUtils.find(groups, new AbbreviatedGroupFinder(prefix, groups));
+            Assert.assertSame(trie.find(prefix), expected, "Wrong resolution for '" + prefix + "'");
+            Assert.assertSame(CollectionUtils.find(groups, new AbbreviatedGroupFinder(prefix, trie)), expected);
+        }
+    }
+
+    @Test
+    public void abbreviation_trie_groups_matches_exact_finder() {
+        List<CommandGroupMetadata> groups = new ArrayList<>();
+        for (String name : NAMES) {
+            groups.add(group(name));
+        }
+        AbbreviationTrie<CommandGroupMetadata> trie = AbbreviationTrie.forGroups(groups);
+
+        for (String prefix : prefixes(NAMES)) {
+            CommandGroupMetadata expected = CollectionUtils.find(groups, new GroupFinder(prefix));
+            Assert.assertSame(trie.find(prefix, false), expected, "Wrong resolution for '" + prefix + "'");
+            Assert.assertSame(trie.find(prefix, true), trie.find(prefix));
+        }
+    }
+
+    @Test
+    public void abbreviation_trie_groups() {
+        List<CommandGroupMetadata> groups = new ArrayList<>();
+        for (String name : NAMES) {
+            groups.add(group(name));
+        }
+        AbbreviationTrie<CommandGroupMetadata> trie = AbbreviationTrie.forGroups(groups);
+
+        // Exact matches win even if also a prefix of other names
+        Assert.assertEquals(trie.find("add").getName(), "add");
+        Assert.assertEquals(trie.find("re").getName(), "re");
+        Assert.assertEquals(trie.find("l").getName(), "l");
+        // Unique prefixes
+        Assert.assertEquals(trie.find("addr").getName(), "address");
+        Assert.assertEquals(trie.find("sh").getName(), "show");
+        Assert.assertEquals(trie.find("stat").getName(), "status");
+        // Ambiguous prefixes
+        Assert.assertNull(trie.find("ad"));
+        Assert.assertNull(trie.find("r"));
+        Assert.assertNull(trie.find("st"));
+        Assert.assertNull(trie.find(""));
+        // Unknown
+        Assert.assertNull(trie.find("x"));
+        Assert.assertNull(trie.find("addresses"));
+
+        Assert.assertEquals(trie.findExact("re").getName(), "re");
+        Assert.assertNull(trie.findExact("addr"));
+    }
+
+    @Test
+    public void abbreviation_trie_options_matches_finder() throws NoSuchFieldException {
+        List<OptionMetadata> options = new ArrayList<>();
+        options.add(option("-v", "--verbose"));
+        options.add(option("--version"));
+        options.add(option("-a", "--all", "--also"));
+        options.add(option("-x"));
+        options.add(option("--xml"));
+        AbbreviationTrie<OptionMetadata> trie = AbbreviationTrie.forOptions(options);
+
+        String[] names = { "-v", "--verbose", "--version", "-a", "--all", "--also", "-x", "--xml" };
+        for (String prefix : prefixes(names)) {
+            OptionMetadata expected = CollectionUtils.find(options, new AbbreviatedOptionFinder(prefix, options));
+            Assert.assertSame(trie.find(prefix), expected, "Wrong resolution for '" + prefix + "'");
+        }
+
+        // Multiple names of the same option sharing a prefix are not
+        // ambiguous
+        Assert.assertSame(trie.find("--al"), options.get(2));
+        // Short names are never abbreviations
+        Assert.assertSame(trie.find("-"), null);
+        Assert.assertSame(trie.find("--x"), options.get(4));
+    }
+
+    @Test
+    public void abbreviation_trie_invalidated_on_change() {
+        CommandGroupMetadata parent = group("parent");
+        parent.addSubGroup(group("alpha"));
+        Assert.assertEquals(parent.getSubGroupsTrie().find("al").getName(), "alpha");
+
+        parent.addSubGroup(group("also"));
+        Assert.assertNull(parent.getSubGroupsTrie().find("al"));
+        Assert.assertEquals(parent.getSubGroupsTrie().find("als").getName(), "also");
+    }
+}
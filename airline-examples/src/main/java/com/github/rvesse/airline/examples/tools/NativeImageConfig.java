@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.examples.tools;
+
+import java.io.File;
+
+import javax.inject.Inject;
+
+import com.github.rvesse.airline.HelpOption;
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.annotations.restrictions.Required;
+import com.github.rvesse.airline.examples.ExampleExecutor;
+import com.github.rvesse.airline.examples.ExampleRunnable;
+import com.github.rvesse.airline.nativeimage.ReachabilityMetadataGenerator;
+
+/**
+ * A tool that generates the GraalVM {@code native-image} configuration needed
+ * to build a native executable of an Airline CLI
+ * <p>
+ * For example to generate the configuration for one of the other examples:
+ * </p>
+ * 
+ * <pre>
+ * java -cp target/airline-examples.jar com.github.rvesse.airline.examples.tools.NativeImageConfig \
+ *   --single -o target/native-image com.github.rvesse.airline.examples.simple.Simple
+ * </pre>
+ * <p>
+ * The generated files are sorted so they can be diffed against previously
+ * generated configuration without needing GraalVM installed.
+ * </p>
+ */
+@Command(name = "native-image-config", description = "Generates GraalVM native-image reachability metadata for an Airline CLI")
+public class NativeImageConfig implements ExampleRunnable {
+
+    @Inject
+    private HelpOption<NativeImageConfig> help;
+
+    @Option(name = { "--single" }, description = "Indicates that the class is a single command rather than a class annotated with @Cli")
+    private boolean single = false;
+
+    @Option(name = { "-o", "--output" }, title = "Directory", arity = 1, description = "Directory to write the configuration files to, if not specified they are printed to standard out")
+    private File output;
+
+    @Arguments(title = "Class", description = "Name of the CLI or command class to generate configuration for")
+    @Required
+    private String className;
+
+    public static void main(String[] args) {
+        ExampleExecutor.executeSingleCommand(NativeImageConfig.class, args);
+    }
+
+    @Override
+    public int run() {
+        if (help.showHelpIfRequested())
+            return 0;
+
+        try {
+            Class<?> cls = Class.forName(this.className);
+            ReachabilityMetadataGenerator generator = this.single ? ReachabilityMetadataGenerator.forCommand(cls)
+                    : ReachabilityMetadataGenerator.forCli(cls);
+
+            if (this.output != null) {
+                generator.writeTo(this.output);
+                System.out.println("Wrote " + ReachabilityMetadataGenerator.REFLECT_CONFIG + " and "
+                        + ReachabilityMetadataGenerator.RESOURCE_CONFIG + " to " + this.output.getAbsolutePath());
+            } else {
+                System.out.println(ReachabilityMetadataGenerator.REFLECT_CONFIG + ":");
+                System.out.print(generator.getReflectConfig());
+                System.out.println(ReachabilityMetadataGenerator.RESOURCE_CONFIG + ":");
+                System.out.print(generator.getResourceConfig());
+            }
+            return 0;
+        } catch (ClassNotFoundException e) {
+            System.err.println("Class " + this.className + " not found");
+            return 1;
+        } catch (Exception e) {
+            System.err.println("Failed to generate configuration: " + e.getMessage());
+            return 2;
+        }
+    }
+}
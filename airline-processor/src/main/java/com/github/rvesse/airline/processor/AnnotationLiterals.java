@@ -0,0 +1,344 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.processor;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+
+/**
+ * Generates implementations of annotation types so that annotation values
+ * captured at compile time can be constructed at runtime without reflection
+ * <p>
+ * Each annotation type gets a nested class in the generated meta-data class
+ * which honours the contract of {@link java.lang.annotation.Annotation} for
+ * {@code equals()} and {@code hashCode()}.
+ * </p>
+ */
+class AnnotationLiterals {
+
+    private final Elements elements;
+    private final TypeNames names;
+    private final Map<TypeElement, String> classNames = new LinkedHashMap<>();
+    private final Set<String> usedNames = new HashSet<>();
+
+    AnnotationLiterals(Elements elements, TypeNames names, String... reservedNames) {
+        this.elements = elements;
+        this.names = names;
+        for (String name : reservedNames) {
+            this.usedNames.add(name);
+        }
+    }
+
+    /**
+     * Gets whether an annotation is retained at runtime and so is visible to
+     * reflection
+     * 
+     * @param mirror
+     *            Annotation
+     * @return True if retained at runtime, false otherwise
+     */
+    static boolean isRuntime(AnnotationMirror mirror) {
+        Retention retention = mirror.getAnnotationType().asElement().getAnnotation(Retention.class);
+        return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+    }
+
+    /**
+     * Gets an expression that constructs the given annotation
+     * 
+     * @param mirror
+     *            Annotation
+     * @return Expression
+     * @throws UnsupportedCommandException
+     *             Thrown if the annotation cannot be constructed from the
+     *             generated class
+     */
+    String expression(AnnotationMirror mirror) throws UnsupportedCommandException {
+        TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+        String className = classNameFor(type);
+
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = elements
+                .getElementValuesWithDefaults(mirror);
+        StringBuilder builder = new StringBuilder();
+        builder.append("new ").append(className).append('(');
+        boolean first = true;
+        for (ExecutableElement member : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            AnnotationValue value = values.get(member);
+            if (value == null)
+                throw new UnsupportedCommandException(String.format("No value for %s member %s",
+                        type.getQualifiedName(), member.getSimpleName()));
+            if (!first)
+                builder.append(", ");
+            builder.append(value(value, member.getReturnType()));
+            first = false;
+        }
+        return builder.append(')').toString();
+    }
+
+    private String classNameFor(TypeElement type) throws UnsupportedCommandException {
+        String className = classNames.get(type);
+        if (className != null)
+            return className;
+
+        // Check the annotation and all its member types may be referenced
+        names.name(type.asType());
+        for (ExecutableElement member : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            names.genericName(member.getReturnType());
+        }
+
+        className = type.getSimpleName() + "Literal";
+        for (int i = 2; usedNames.contains(className); i++) {
+            className = type.getSimpleName() + "Literal" + i;
+        }
+        usedNames.add(className);
+        classNames.put(type, className);
+        return className;
+    }
+
+    private String value(AnnotationValue annotationValue, TypeMirror type) throws UnsupportedCommandException {
+        Object value = annotationValue.getValue();
+        if (value instanceof String) {
+            return CommandMetadataProcessor.literal((String) value);
+        } else if (value instanceof Boolean || value instanceof Integer) {
+            return value.toString();
+        } else if (value instanceof Character) {
+            return charLiteral((Character) value);
+        } else if (value instanceof Byte) {
+            return "(byte) " + value;
+        } else if (value instanceof Short) {
+            return "(short) " + value;
+        } else if (value instanceof Long) {
+            return value + "L";
+        } else if (value instanceof Float) {
+            Float f = (Float) value;
+            if (f.isNaN())
+                return "java.lang.Float.NaN";
+            if (f.isInfinite())
+                return f > 0 ? "java.lang.Float.POSITIVE_INFINITY" : "java.lang.Float.NEGATIVE_INFINITY";
+            return f + "F";
+        } else if (value instanceof Double) {
+            Double d = (Double) value;
+            if (d.isNaN())
+                return "java.lang.Double.NaN";
+            if (d.isInfinite())
+                return d > 0 ? "java.lang.Double.POSITIVE_INFINITY" : "java.lang.Double.NEGATIVE_INFINITY";
+            return d + "D";
+        } else if (value instanceof TypeMirror) {
+            return names.classLiteral((TypeMirror) value);
+        } else if (value instanceof VariableElement) {
+            VariableElement constant = (VariableElement) value;
+            return names.name(constant.asType()) + "." + constant.getSimpleName();
+        } else if (value instanceof AnnotationMirror) {
+            return expression((AnnotationMirror) value);
+        } else if (value instanceof List && type.getKind() == TypeKind.ARRAY) {
+            TypeMirror componentType = ((ArrayType) type).getComponentType();
+            StringBuilder builder = new StringBuilder();
+            builder.append("new ").append(names.name(componentType)).append("[] {");
+            boolean first = true;
+            for (Object item : (List<?>) value) {
+                builder.append(first ? " " : ", ");
+                builder.append(value((AnnotationValue) item, componentType));
+                first = false;
+            }
+            return builder.append(first ? "}" : " }").toString();
+        }
+        throw new UnsupportedCommandException(String.format("Unsupported annotation value %s", annotationValue));
+    }
+
+    private static String charLiteral(char c) {
+        switch (c) {
+        case '\'':
+            return "'\\''";
+        case '\\':
+            return "'\\\\'";
+        case '\n':
+            return "'\\n'";
+        case '\r':
+            return "'\\r'";
+        case '\t':
+            return "'\\t'";
+        default:
+            if (c < 0x20 || c > 0x7e)
+                return String.format("'\\u%04x'", (int) c);
+            return "'" + c + "'";
+        }
+    }
+
+    /**
+     * Gets the source of the classes implementing each annotation type that
+     * has been used
+     * 
+     * @return Source
+     * @throws UnsupportedCommandException
+     *             Thrown if an annotation type cannot be implemented
+     */
+    String source() throws UnsupportedCommandException {
+        StringBuilder source = new StringBuilder();
+        for (Map.Entry<TypeElement, String> entry : classNames.entrySet()) {
+            source(entry.getKey(), entry.getValue(), source);
+        }
+        return source.toString();
+    }
+
+    private void source(TypeElement type, String className, StringBuilder source)
+            throws UnsupportedCommandException {
+        String typeName = names.name(type.asType());
+        List<ExecutableElement> members = ElementFilter.methodsIn(type.getEnclosedElements());
+
+        source.append("\n");
+        source.append("    private static final class ").append(className).append(" implements ").append(typeName)
+                .append(" {\n");
+        for (ExecutableElement member : members) {
+            source.append("        private final ").append(names.genericName(member.getReturnType())).append(' ')
+                    .append(member.getSimpleName()).append(";\n");
+        }
+        if (!members.isEmpty())
+            source.append("\n");
+
+        // Constructor
+        source.append("        ").append(className).append('(');
+        for (int i = 0; i < members.size(); i++) {
+            if (i > 0)
+                source.append(", ");
+            source.append(names.genericName(members.get(i).getReturnType())).append(' ')
+                    .append(members.get(i).getSimpleName());
+        }
+        source.append(") {\n");
+        for (ExecutableElement member : members) {
+            source.append("            this.").append(member.getSimpleName()).append(" = ")
+                    .append(member.getSimpleName()).append(";\n");
+        }
+        source.append("        }\n");
+
+        // Members
+        for (ExecutableElement member : members) {
+            TypeMirror returnType = member.getReturnType();
+            source.append("\n");
+            source.append("        @Override\n");
+            source.append("        public ").append(names.genericName(returnType)).append(' ')
+                    .append(member.getSimpleName()).append("() {\n");
+            source.append("            return this.").append(member.getSimpleName())
+                    .append(returnType.getKind() == TypeKind.ARRAY ? ".clone()" : "").append(";\n");
+            source.append("        }\n");
+        }
+
+        source.append("\n");
+        source.append("        @Override\n");
+        source.append(
+                "        public java.lang.Class<? extends java.lang.annotation.Annotation> annotationType() {\n");
+        source.append("            return ").append(typeName).append(".class;\n");
+        source.append("        }\n");
+
+        // equals() and hashCode() as defined by Annotation
+        source.append("\n");
+        source.append("        @Override\n");
+        source.append("        public boolean equals(java.lang.Object obj) {\n");
+        source.append("            if (this == obj)\n");
+        source.append("                return true;\n");
+        source.append("            if (!(obj instanceof ").append(typeName).append("))\n");
+        source.append("                return false;\n");
+        if (members.isEmpty()) {
+            source.append("            return true;\n");
+        } else {
+            source.append("            ").append(typeName).append(" other = (").append(typeName)
+                    .append(") obj;\n");
+            source.append("            return ");
+            for (int i = 0; i < members.size(); i++) {
+                if (i > 0)
+                    source.append("\n                    && ");
+                source.append(memberEquals(members.get(i)));
+            }
+            source.append(";\n");
+        }
+        source.append("        }\n");
+
+        source.append("\n");
+        source.append("        @Override\n");
+        source.append("        public int hashCode() {\n");
+        source.append("            int hash = 0;\n");
+        for (ExecutableElement member : members) {
+            source.append("            hash += (127 * ")
+                    .append(CommandMetadataProcessor.literal(member.getSimpleName().toString()))
+                    .append(".hashCode()) ^ ").append(memberHashCode(member)).append(";\n");
+        }
+        source.append("            return hash;\n");
+        source.append("        }\n");
+
+        source.append("\n");
+        source.append("        @Override\n");
+        source.append("        public java.lang.String toString() {\n");
+        source.append("            return ").append(CommandMetadataProcessor.literal("@" + typeName + "("));
+        for (int i = 0; i < members.size(); i++) {
+            ExecutableElement member = members.get(i);
+            source.append(" + ")
+                    .append(CommandMetadataProcessor.literal((i > 0 ? ", " : "") + member.getSimpleName() + "="))
+                    .append(" + ");
+            if (member.getReturnType().getKind() == TypeKind.ARRAY) {
+                source.append("java.util.Arrays.toString(this.").append(member.getSimpleName()).append(')');
+            } else {
+                source.append("this.").append(member.getSimpleName());
+            }
+        }
+        source.append(" + \")\";\n");
+        source.append("        }\n");
+        source.append("    }\n");
+    }
+
+    private String memberEquals(ExecutableElement member) {
+        String name = member.getSimpleName().toString();
+        switch (member.getReturnType().getKind()) {
+        case ARRAY:
+            return String.format("java.util.Arrays.equals(this.%1$s, other.%1$s())", name);
+        case FLOAT:
+            return String.format(
+                    "java.lang.Float.floatToIntBits(this.%1$s) == java.lang.Float.floatToIntBits(other.%1$s())",
+                    name);
+        case DOUBLE:
+            return String.format(
+                    "java.lang.Double.doubleToLongBits(this.%1$s) == java.lang.Double.doubleToLongBits(other.%1$s())",
+                    name);
+        case DECLARED:
+            return String.format("this.%1$s.equals(other.%1$s())", name);
+        default:
+            return String.format("this.%1$s == other.%1$s()", name);
+        }
+    }
+
+    private String memberHashCode(ExecutableElement member) throws UnsupportedCommandException {
+        String name = member.getSimpleName().toString();
+        TypeMirror type = member.getReturnType();
+        if (type.getKind() == TypeKind.ARRAY)
+            return String.format("java.util.Arrays.hashCode(this.%s)", name);
+        if (type.getKind().isPrimitive())
+            return String.format("%s.valueOf(this.%s).hashCode()", names.boxedName(type), name);
+        return String.format("this.%s.hashCode()", name);
+    }
+}
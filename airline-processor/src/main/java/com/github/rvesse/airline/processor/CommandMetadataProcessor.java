@@ -0,0 +1,750 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.processor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import com.github.rvesse.airline.annotations.Arguments;
+import com.github.rvesse.airline.annotations.Command;
+import com.github.rvesse.airline.annotations.DefaultOption;
+import com.github.rvesse.airline.annotations.Group;
+import com.github.rvesse.airline.annotations.Groups;
+import com.github.rvesse.airline.annotations.Option;
+import com.github.rvesse.airline.model.CommandGroupMetadata;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.GeneratedCommandMetadata;
+import com.github.rvesse.airline.model.GlobalMetadata;
+import com.github.rvesse.airline.parser.ArgumentStream;
+import com.github.rvesse.airline.types.DefaultTypeConverterProvider;
+
+/**
+ * Annotation processor which generates command meta-data at compile time
+ * <p>
+ * For each class annotated with {@link Command} a class implementing
+ * {@link GeneratedCommandMetadata} is generated in the same package, this class
+ * builds the command meta-data directly from the fields and annotation values
+ * captured at compile time. Annotations are constructed from generated
+ * implementations of their types and restrictions and help sections are
+ * created from these, fields that the generated class can access are read and
+ * written directly while private and final fields are only resolved
+ * reflectively the first time that they are used. The generated classes are registered in
+ * {@code META-INF/services/com.github.rvesse.airline.model.GeneratedCommandMetadata}
+ * so at runtime
+ * {@link com.github.rvesse.airline.model.MetadataLoader#loadCommand(Class)}
+ * will discover and use them and so avoid reflectively scanning every field of
+ * every class in the command hierarchy.
+ * </p>
+ * <p>
+ * Where a command uses a construct that the processor cannot faithfully
+ * reproduce no class is generated for it and the normal reflective loading is
+ * used at runtime instead.
+ * </p>
+ */
+public class CommandMetadataProcessor extends AbstractProcessor {
+
+    private static final String JAVAX_INJECT = "javax.inject.Inject";
+    private static final String GUICE_INJECT = "com.google.inject.Inject";
+
+    private static final String SERVICES_FILE = "META-INF/services/" + GeneratedCommandMetadata.class.getName();
+
+    private static final Set<String> METADATA_TYPES = new HashSet<>();
+
+    /**
+     * Field annotations that are not passed on when loading restrictions
+     */
+    private static final Set<String> FIELD_ANNOTATIONS = new HashSet<>();
+
+    /**
+     * Class annotations that are not passed on when loading help sections
+     */
+    private static final Set<String> COMMAND_ANNOTATIONS = new HashSet<>();
+
+    static {
+        METADATA_TYPES.add(GlobalMetadata.class.getCanonicalName());
+        METADATA_TYPES.add(CommandGroupMetadata.class.getCanonicalName());
+        METADATA_TYPES.add(CommandMetadata.class.getCanonicalName());
+
+        FIELD_ANNOTATIONS.add(Option.class.getCanonicalName());
+        FIELD_ANNOTATIONS.add(Arguments.class.getCanonicalName());
+        FIELD_ANNOTATIONS.add(DefaultOption.class.getCanonicalName());
+        FIELD_ANNOTATIONS.add(JAVAX_INJECT);
+        FIELD_ANNOTATIONS.add(GUICE_INJECT);
+
+        COMMAND_ANNOTATIONS.add(Command.class.getCanonicalName());
+        COMMAND_ANNOTATIONS.add(Group.class.getCanonicalName());
+        COMMAND_ANNOTATIONS.add(Groups.class.getCanonicalName());
+    }
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private final Set<String> generatedNames = new TreeSet<>();
+    private final List<Element> generatedFor = new ArrayList<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Command.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServices();
+            return false;
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            if (element.getKind() != ElementKind.CLASS)
+                continue;
+            TypeElement commandType = (TypeElement) element;
+
+            String source;
+            try {
+                source = generate(commandType);
+            } catch (UnsupportedCommandException e) {
+                messager.printMessage(Kind.NOTE, String.format(
+                        "Not generating meta-data for %s, it will be loaded reflectively at runtime: %s",
+                        commandType.getQualifiedName(), e.getMessage()), commandType);
+                continue;
+            }
+
+            String generatedName = elements.getBinaryName(commandType) + GeneratedCommandMetadata.CLASS_NAME_SUFFIX;
+            try {
+                JavaFileObject file = filer.createSourceFile(generatedName, commandType);
+                try (Writer writer = file.openWriter()) {
+                    writer.write(source);
+                }
+                generatedNames.add(generatedName);
+                generatedFor.add(commandType);
+            } catch (IOException e) {
+                messager.printMessage(Kind.ERROR,
+                        String.format("Failed to write generated meta-data %s: %s", generatedName, e.getMessage()),
+                        commandType);
+            }
+        }
+
+        // Never claim the annotations, other processors may be interested
+        return false;
+    }
+
+    /**
+     * Registers the generated classes as service providers, any registrations
+     * from a previous incremental compilation are preserved
+     */
+    private void writeServices() {
+        if (generatedNames.isEmpty())
+            return;
+
+        Set<String> names = new TreeSet<>(generatedNames);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE);
+            try (BufferedReader reader = new BufferedReader(existing.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#"))
+                        names.add(line);
+                }
+            }
+        } catch (IOException e) {
+            // No existing registrations
+        }
+
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICES_FILE,
+                    generatedFor.toArray(new Element[generatedFor.size()]));
+            try (Writer writer = file.openWriter()) {
+                for (String name : names) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Kind.ERROR,
+                    String.format("Failed to register generated meta-data in %s: %s", SERVICES_FILE, e.getMessage()));
+        }
+    }
+
+    /**
+     * Generates the source for the meta-data class for a command
+     * 
+     * @param commandType
+     *            Command type
+     * @return Generated source
+     * @throws UnsupportedCommandException
+     *             Thrown if the command cannot have meta-data generated for it
+     */
+    private String generate(TypeElement commandType) throws UnsupportedCommandException {
+        PackageElement pkg = elements.getPackageOf(commandType);
+        TypeNames names = new TypeNames(elements, types, pkg);
+        if (!names.isAccessible(commandType))
+            throw new UnsupportedCommandException("Command class is not accessible from its own package");
+
+        String binaryName = elements.getBinaryName(commandType).toString();
+        String simpleName = binaryName.substring(binaryName.lastIndexOf('.') + 1)
+                + GeneratedCommandMetadata.CLASS_NAME_SUFFIX;
+
+        Body body = new Body(names);
+        AnnotationLiterals literals = new AnnotationLiterals(elements, names, simpleName, Body.FIELDS_CLASS);
+        collect(commandType, Collections.<String> emptyList(), new ArrayList<TypeElement>(), body, literals);
+
+        // Command level annotations, this mirrors the reflective logic of
+        // MetadataLoader.loadCommand(Class, InjectionMetadata)
+        String command = null;
+        body.line("java.util.List<%1$s> groups = new java.util.ArrayList<%1$s>();", Group.class.getCanonicalName());
+        for (TypeElement cls = commandType; command == null && !isObject(cls); cls = superclass(cls)) {
+            AnnotationMirror groups = null, group = null;
+            for (AnnotationMirror mirror : elements.getAllAnnotationMirrors(cls)) {
+                String annotationType = qualifiedName(mirror);
+                if (annotationType.equals(Command.class.getCanonicalName())) {
+                    command = literals.expression(mirror);
+                } else if (annotationType.equals(Groups.class.getCanonicalName())) {
+                    groups = mirror;
+                } else if (annotationType.equals(Group.class.getCanonicalName())) {
+                    group = mirror;
+                }
+            }
+            if (groups != null) {
+                for (AnnotationValue value : elements.getElementValuesWithDefaults(groups).values()) {
+                    for (Object item : (List<?>) value.getValue()) {
+                        body.line("groups.add(%s);", literals.expression((AnnotationMirror) ((AnnotationValue) item).getValue()));
+                    }
+                }
+            }
+            if (group != null) {
+                body.line("groups.add(%s);", literals.expression(group));
+            }
+        }
+        if (command == null)
+            throw new UnsupportedCommandException("Command class has no @Command annotation");
+
+        // Help sections may be declared by any runtime annotation on the
+        // class hierarchy
+        body.line("java.util.List<java.lang.annotation.Annotation> annotations = new java.util.ArrayList<java.lang.annotation.Annotation>();");
+        for (TypeElement cls = commandType; !isObject(cls); cls = superclass(cls)) {
+            for (AnnotationMirror mirror : elements.getAllAnnotationMirrors(cls)) {
+                if (!AnnotationLiterals.isRuntime(mirror) || COMMAND_ANNOTATIONS.contains(qualifiedName(mirror)))
+                    continue;
+                body.line("annotations.add(%s);", literals.expression(mirror));
+            }
+        }
+
+        String commandClass = names.classLiteral(commandType.asType());
+        StringBuilder source = new StringBuilder();
+        if (!pkg.isUnnamed()) {
+            source.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+        }
+        source.append("/**\n");
+        source.append(" * Command meta-data for {@link ").append(commandType.getQualifiedName()).append("}\n");
+        source.append(" * <p>\n");
+        source.append(" * Generated by the Airline annotation processor, do not edit\n");
+        source.append(" * </p>\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName).append(" implements ")
+                .append(GeneratedCommandMetadata.class.getCanonicalName()).append(" {\n\n");
+        source.append("    @Override\n");
+        source.append("    public java.lang.Class<?> getCommandType() {\n");
+        source.append("        return ").append(commandClass).append(";\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public com.github.rvesse.airline.model.CommandMetadata load() {\n");
+        source.append("        com.github.rvesse.airline.model.MetadataLoader.InjectionMetadata injection = new com.github.rvesse.airline.model.MetadataLoader.InjectionMetadata();\n");
+        source.append(body.toString());
+        source.append("        return com.github.rvesse.airline.model.MetadataLoader.loadCommand(").append(commandClass)
+                .append(", ").append(command).append(", groups, annotations, injection);\n");
+        source.append("    }\n");
+        source.append(body.fieldsSource());
+        source.append(literals.source());
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Collects the injection meta-data for a type, this mirrors the reflective
+     * logic of
+     * {@link com.github.rvesse.airline.model.MetadataLoader#loadInjectionMetadata(Class)}
+     * 
+     * @param type
+     *            Type
+     * @param path
+     *            Variables in the generated code that hold the field access
+     *            for the fields that lead to this type
+     * @param visiting
+     *            Types currently being visited, used to detect cycles
+     * @param body
+     *            Generated method body
+     * @param literals
+     *            Generated annotation implementations
+     * @throws UnsupportedCommandException
+     *             Thrown if the type uses unsupported constructs
+     */
+    private void collect(TypeElement type, List<String> path, List<TypeElement> visiting, Body body,
+            AnnotationLiterals literals) throws UnsupportedCommandException {
+        if (type.getKind().isInterface())
+            return;
+        if (visiting.contains(type))
+            throw new UnsupportedCommandException(
+                    String.format("Type %s is injected into itself", type.getQualifiedName()));
+        visiting.add(type);
+
+        for (TypeElement cls = type; !isObject(cls); cls = superclass(cls)) {
+            for (VariableElement field : ElementFilter.fieldsIn(cls.getEnclosedElements())) {
+                collectField(field, path, visiting, body, literals);
+            }
+        }
+
+        visiting.remove(type);
+    }
+
+    private void collectField(VariableElement field, List<String> path, List<TypeElement> visiting, Body body,
+            AnnotationLiterals literals) throws UnsupportedCommandException {
+        boolean inject = hasAnnotation(field, JAVAX_INJECT);
+        boolean guiceInject = hasAnnotation(field, GUICE_INJECT);
+        Option option = field.getAnnotation(Option.class);
+        boolean defaultOption = field.getAnnotation(DefaultOption.class) != null;
+        Arguments arguments = field.getAnnotation(Arguments.class);
+        if (!inject && !guiceInject && option == null && !defaultOption && arguments == null)
+            return;
+
+        String fieldName = field.getSimpleName().toString();
+        List<String> fieldPath = new ArrayList<>(path);
+        fieldPath.add(body.fieldAccess(field));
+
+        TypeMirror fieldType = types.erasure(field.asType());
+
+        // The reflective loader processes both kinds of injection
+        // independently so we do likewise
+        for (int i = 0; i < (inject ? 1 : 0) + (guiceInject ? 1 : 0); i++) {
+            if (fieldType.getKind() == TypeKind.ARRAY)
+                continue;
+            if (fieldType.getKind() != TypeKind.DECLARED)
+                throw new UnsupportedCommandException(
+                        String.format("Field %s injects a non-class type %s", fieldName, fieldType));
+            TypeElement injectedType = (TypeElement) types.asElement(fieldType);
+            if (METADATA_TYPES.contains(injectedType.getQualifiedName().toString())) {
+                body.line("injection.addMetadataInjection(%s);", accessor(fieldPath, field, body.names));
+            } else {
+                collect(injectedType, fieldPath, visiting, body, literals);
+            }
+        }
+
+        if (option != null) {
+            String title = option.title().isEmpty() ? fieldName : option.title();
+
+            int arity = option.arity();
+            if (arity < 0 && arity != Integer.MIN_VALUE)
+                throw new UnsupportedCommandException(String.format("Invalid arity for option %s", title));
+            if (arity < 0) {
+                boolean flag = fieldType.getKind() == TypeKind.BOOLEAN || (fieldType.getKind() == TypeKind.DECLARED
+                        && ((TypeElement) types.asElement(fieldType)).getQualifiedName()
+                                .contentEquals(Boolean.class.getCanonicalName()));
+                arity = flag ? 0 : 1;
+            }
+
+            String provider;
+            try {
+                option.typeConverterProvider();
+                throw new UnsupportedCommandException("Unable to determine type converter provider");
+            } catch (MirroredTypeException e) {
+                provider = providerExpression(e.getTypeMirror(), body.names);
+            }
+
+            //@formatter:off
+            body.line("injection.addOption(new com.github.rvesse.airline.model.OptionMetadata(%s, %s, %s, %s, %d, %b, %b, %b, %b, %s, %s, %s), %b);",
+                      "com.github.rvesse.airline.annotations.OptionType." + option.type().name(),
+                      stringArray(option.name()),
+                      literal(title),
+                      literal(option.description()),
+                      arity,
+                      option.hidden(),
+                      option.override(),
+                      option.sealed(),
+                      option.valueSources(),
+                      restrictions("loadOptionRestrictions", field, literals),
+                      provider,
+                      accessor(fieldPath, field, body.names),
+                      defaultOption);
+            //@formatter:on
+        } else if (defaultOption) {
+            throw new UnsupportedCommandException(
+                    String.format("Field %s has @DefaultOption without @Option", fieldName));
+        }
+
+        if (arguments != null) {
+            String[] titles = arguments.title();
+            if (titles.length == 1 && titles[0].equals("")) {
+                titles = new String[] { fieldName };
+            }
+
+            String provider;
+            try {
+                arguments.typeConverterProvider();
+                throw new UnsupportedCommandException("Unable to determine type converter provider");
+            } catch (MirroredTypeException e) {
+                provider = providerExpression(e.getTypeMirror(), body.names);
+            }
+
+            //@formatter:off
+            body.line("injection.addArguments(new com.github.rvesse.airline.model.ArgumentsMetadata(%s, %s, %s, %s, %s));",
+                      stringArray(titles),
+                      literal(arguments.description()),
+                      restrictions("loadArgumentsRestrictions", field, literals),
+                      provider,
+                      accessor(fieldPath, field, body.names));
+            //@formatter:on
+        }
+    }
+
+    private boolean hasAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (qualifiedName(mirror).equals(annotationType))
+                return true;
+        }
+        return false;
+    }
+
+    private static String qualifiedName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private static boolean isObject(TypeElement type) {
+        return type == null || type.getQualifiedName().contentEquals(Object.class.getCanonicalName());
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superType = type.getSuperclass();
+        if (superType.getKind() != TypeKind.DECLARED)
+            return null;
+        return (TypeElement) types.asElement(superType);
+    }
+
+    /**
+     * Gets an expression that loads the restrictions for a field from the
+     * annotations declared upon it
+     */
+    private String restrictions(String method, VariableElement field, AnnotationLiterals literals)
+            throws UnsupportedCommandException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("com.github.rvesse.airline.model.MetadataLoader.").append(method).append('(');
+        boolean first = true;
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            if (!AnnotationLiterals.isRuntime(mirror) || FIELD_ANNOTATIONS.contains(qualifiedName(mirror)))
+                continue;
+            if (!first)
+                builder.append(", ");
+            builder.append(literals.expression(mirror));
+            first = false;
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Gets an expression that creates the accessor for a field path, this
+     * mirrors the item type logic of {@link com.github.rvesse.airline.Accessor}
+     */
+    private String accessor(List<String> path, VariableElement field, TypeNames names)
+            throws UnsupportedCommandException {
+        TypeMirror type = field.asType();
+        TypeMirror erasure = types.erasure(type);
+        TypeMirror itemType;
+        Option option = field.getAnnotation(Option.class);
+        if (erasure.getKind() == TypeKind.ARRAY
+                && ((ArrayType) erasure).getComponentType().getKind().isPrimitive() && option != null
+                && option.valueSources()) {
+            itemType = ((ArrayType) erasure).getComponentType();
+        } else if (isType(erasure, Iterator.class) || isType(erasure, ArgumentStream.class)) {
+            itemType = exactTypeArgument(type, Iterator.class, field);
+        } else if (erasure.getKind() == TypeKind.DECLARED && types.isAssignable(erasure,
+                types.erasure(elements.getTypeElement(Collection.class.getCanonicalName()).asType()))) {
+            itemType = exactTypeArgument(type, Collection.class, field);
+        } else {
+            itemType = erasure;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(
+                "new com.github.rvesse.airline.Accessor(java.util.Arrays.<com.github.rvesse.airline.FieldAccess> asList(");
+        for (int i = 0; i < path.size(); i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(path.get(i));
+        }
+        builder.append("), ").append(names.classLiteral(itemType)).append(')');
+        return builder.toString();
+    }
+
+    private boolean isType(TypeMirror type, Class<?> cls) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) types.asElement(type)).getQualifiedName().contentEquals(cls.getCanonicalName());
+    }
+
+    private TypeMirror exactTypeArgument(TypeMirror type, Class<?> desiredType, VariableElement field)
+            throws UnsupportedCommandException {
+        DeclaredType supertype = findSupertype(type, desiredType);
+        if (supertype == null || supertype.getTypeArguments().size() != 1)
+            throw new UnsupportedCommandException(
+                    String.format("Unable to get the item type of field %s", field.getSimpleName()));
+        TypeMirror itemType = supertype.getTypeArguments().get(0);
+        if (itemType.getKind() != TypeKind.DECLARED || !((DeclaredType) itemType).getTypeArguments().isEmpty())
+            throw new UnsupportedCommandException(
+                    String.format("Item type of field %s must be an exact type", field.getSimpleName()));
+        return itemType;
+    }
+
+    private DeclaredType findSupertype(TypeMirror type, Class<?> desiredType) {
+        if (isType(type, desiredType))
+            return (DeclaredType) type;
+        for (TypeMirror supertype : types.directSupertypes(type)) {
+            DeclaredType found = findSupertype(supertype, desiredType);
+            if (found != null)
+                return found;
+        }
+        return null;
+    }
+
+    private String providerExpression(TypeMirror providerType, TypeNames names) throws UnsupportedCommandException {
+        TypeElement provider = (TypeElement) types.asElement(providerType);
+        if (provider == null || !names.isAccessible(provider))
+            throw new UnsupportedCommandException(
+                    String.format("Type converter provider %s is not accessible", providerType));
+
+        if (!provider.getQualifiedName().contentEquals(DefaultTypeConverterProvider.class.getCanonicalName())
+                && !provider.getModifiers().contains(Modifier.ABSTRACT)
+                && (provider.getNestingKind() == NestingKind.TOP_LEVEL
+                        || provider.getModifiers().contains(Modifier.STATIC))) {
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(provider.getEnclosedElements())) {
+                if (constructor.getParameters().isEmpty() && names.isMemberAccessible(constructor))
+                    return String.format("new %s()", names.name(providerType));
+            }
+        }
+        return String.format("com.github.rvesse.airline.model.MetadataLoader.loadTypeConverterProvider(%s)",
+                names.classLiteral(providerType));
+    }
+
+    private static String stringArray(String[] values) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("com.github.rvesse.airline.utils.AirlineUtils.arrayToList(new java.lang.String[] { ");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(literal(values[i]));
+        }
+        builder.append(" })");
+        return builder.toString();
+    }
+
+    /**
+     * Converts a string into a Java string literal
+     * 
+     * @param value
+     *            Value
+     * @return String literal
+     */
+    static String literal(String value) {
+        StringBuilder builder = new StringBuilder();
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        builder.append('"');
+        return builder.toString();
+    }
+
+    /**
+     * Accumulates the body of the generated {@code load()} method and the
+     * fields that it accesses
+     */
+    private static class Body {
+        static final String FIELDS_CLASS = "Fields";
+
+        private final TypeNames names;
+        private final StringBuilder builder = new StringBuilder();
+        private final Map<VariableElement, String> variables = new HashMap<>();
+        private final List<VariableElement> directFields = new ArrayList<>();
+
+        Body(TypeNames names) {
+            this.names = names;
+        }
+
+        /**
+         * Gets the variable holding the access for a field, fields that the
+         * generated class can access are read and written directly, other
+         * fields are resolved reflectively the first time they are used
+         */
+        String fieldAccess(VariableElement field) throws UnsupportedCommandException {
+            String var = variables.get(field);
+            if (var != null)
+                return var;
+
+            TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+            String declaringClass = names.classLiteral(declaringType.asType());
+            String fieldType = names.classLiteral(field.asType());
+            var = "f" + variables.size();
+            variables.put(field, var);
+
+            if (names.isMemberAccessible(field) && !field.getModifiers().contains(Modifier.FINAL)) {
+                line("com.github.rvesse.airline.FieldAccess %s = new %s(%d, %s, %s, %s);", var, FIELDS_CLASS,
+                        directFields.size(), declaringClass, literal(field.getSimpleName().toString()), fieldType);
+                directFields.add(field);
+            } else {
+                line("com.github.rvesse.airline.FieldAccess %s = com.github.rvesse.airline.FieldAccess.reflective(%s, %s, %s);",
+                        var, declaringClass, literal(field.getSimpleName().toString()), fieldType);
+            }
+            return var;
+        }
+
+        void line(String format, Object... args) {
+            builder.append("        ").append(String.format(format, args)).append('\n');
+        }
+
+        /**
+         * Gets the source of the class that directly accesses fields, empty if
+         * there are no such fields
+         */
+        String fieldsSource() throws UnsupportedCommandException {
+            if (directFields.isEmpty())
+                return "";
+
+            StringBuilder source = new StringBuilder();
+            source.append("\n");
+            source.append("    private static final class ").append(FIELDS_CLASS)
+                    .append(" extends com.github.rvesse.airline.FieldAccess {\n");
+            source.append("        private final int index;\n\n");
+            source.append("        ").append(FIELDS_CLASS)
+                    .append("(int index, java.lang.Class<?> declaringClass, java.lang.String name, java.lang.Class<?> type) {\n");
+            source.append("            super(declaringClass, name, type);\n");
+            source.append("            this.index = index;\n");
+            source.append("        }\n\n");
+
+            source.append("        @Override\n");
+            source.append("        public java.lang.Object get(java.lang.Object instance) {\n");
+            source.append("            switch (index) {\n");
+            for (int i = 0; i < directFields.size(); i++) {
+                VariableElement field = directFields.get(i);
+                source.append("            case ").append(i).append(":\n");
+                source.append("                return ((").append(names.name(field.getEnclosingElement().asType()))
+                        .append(") instance).").append(field.getSimpleName()).append(";\n");
+            }
+            source.append("            default:\n");
+            source.append("                throw new java.lang.IllegalStateException();\n");
+            source.append("            }\n");
+            source.append("        }\n\n");
+
+            source.append("        @Override\n");
+            source.append("        @SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+            source.append("        public void set(java.lang.Object instance, java.lang.Object value) {\n");
+            source.append("            switch (index) {\n");
+            for (int i = 0; i < directFields.size(); i++) {
+                VariableElement field = directFields.get(i);
+                source.append("            case ").append(i).append(":\n");
+                source.append("                ((").append(names.name(field.getEnclosingElement().asType()))
+                        .append(") instance).").append(field.getSimpleName()).append(" = (")
+                        .append(names.boxedName(field.asType())).append(") value;\n");
+                source.append("                return;\n");
+            }
+            source.append("            default:\n");
+            source.append("                throw new java.lang.IllegalStateException();\n");
+            source.append("            }\n");
+            source.append("        }\n");
+            source.append("    }\n");
+            return source.toString();
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+}
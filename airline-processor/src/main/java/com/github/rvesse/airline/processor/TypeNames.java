@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the names of types as they must appear in the source of a class
+ * generated into a given package
+ */
+class TypeNames {
+
+    private final Elements elements;
+    private final Types types;
+    private final PackageElement pkg;
+
+    TypeNames(Elements elements, Types types, PackageElement pkg) {
+        this.elements = elements;
+        this.types = types;
+        this.pkg = pkg;
+    }
+
+    Types getTypes() {
+        return types;
+    }
+
+    /**
+     * Gets whether a type can be referenced by name from the package
+     * 
+     * @param type
+     *            Type
+     * @return True if accessible, false otherwise
+     */
+    boolean isAccessible(TypeElement type) {
+        boolean samePackage = elements.getPackageOf(type).equals(pkg);
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            if (t.getNestingKind() != NestingKind.TOP_LEVEL && t.getNestingKind() != NestingKind.MEMBER)
+                return false;
+            if (t.getModifiers().contains(Modifier.PRIVATE))
+                return false;
+            if (!samePackage && !t.getModifiers().contains(Modifier.PUBLIC))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets whether a member of a type can be accessed from the package
+     * 
+     * @param member
+     *            Member
+     * @return True if accessible, false otherwise
+     */
+    boolean isMemberAccessible(Element member) {
+        TypeElement owner = (TypeElement) member.getEnclosingElement();
+        if (!isAccessible(owner) || member.getModifiers().contains(Modifier.PRIVATE))
+            return false;
+        return member.getModifiers().contains(Modifier.PUBLIC) || elements.getPackageOf(owner).equals(pkg);
+    }
+
+    /**
+     * Gets the name of the erasure of a type
+     * 
+     * @param type
+     *            Type
+     * @return Type name
+     * @throws UnsupportedCommandException
+     *             Thrown if the type cannot be named from the package
+     */
+    String name(TypeMirror type) throws UnsupportedCommandException {
+        TypeMirror erasure = types.erasure(type);
+        if (erasure.getKind().isPrimitive() || erasure.getKind() == TypeKind.VOID)
+            return erasure.toString();
+        if (erasure.getKind() == TypeKind.ARRAY)
+            return name(((ArrayType) erasure).getComponentType()) + "[]";
+        if (erasure.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) types.asElement(erasure);
+            if (isAccessible(element))
+                return element.getQualifiedName().toString();
+        }
+        throw new UnsupportedCommandException(String.format("Type %s is not accessible from package %s", type,
+                pkg.getQualifiedName()));
+    }
+
+    /**
+     * Gets the full generic name of a type
+     * 
+     * @param type
+     *            Type
+     * @return Type name
+     * @throws UnsupportedCommandException
+     *             Thrown if the type cannot be named from the package
+     */
+    String genericName(TypeMirror type) throws UnsupportedCommandException {
+        switch (type.getKind()) {
+        case ARRAY:
+            return genericName(((ArrayType) type).getComponentType()) + "[]";
+        case WILDCARD:
+            WildcardType wildcard = (WildcardType) type;
+            if (wildcard.getExtendsBound() != null)
+                return "? extends " + genericName(wildcard.getExtendsBound());
+            if (wildcard.getSuperBound() != null)
+                return "? super " + genericName(wildcard.getSuperBound());
+            return "?";
+        case DECLARED:
+            DeclaredType declared = (DeclaredType) type;
+            if (declared.getTypeArguments().isEmpty())
+                return name(type);
+            StringBuilder builder = new StringBuilder();
+            builder.append(name(type)).append('<');
+            for (int i = 0; i < declared.getTypeArguments().size(); i++) {
+                if (i > 0)
+                    builder.append(", ");
+                builder.append(genericName(declared.getTypeArguments().get(i)));
+            }
+            return builder.append('>').toString();
+        default:
+            return name(type);
+        }
+    }
+
+    /**
+     * Gets a class literal for the erasure of a type
+     * 
+     * @param type
+     *            Type
+     * @return Class literal
+     * @throws UnsupportedCommandException
+     *             Thrown if the type cannot be named from the package
+     */
+    String classLiteral(TypeMirror type) throws UnsupportedCommandException {
+        return name(type) + ".class";
+    }
+
+    /**
+     * Gets the name of the boxed type for a primitive type, or the name of the
+     * type itself if not primitive
+     * 
+     * @param type
+     *            Type
+     * @return Boxed type name
+     * @throws UnsupportedCommandException
+     *             Thrown if the type cannot be named from the package
+     */
+    String boxedName(TypeMirror type) throws UnsupportedCommandException {
+        if (type.getKind().isPrimitive())
+            return types.boxedClass(types.getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        return name(type);
+    }
+}
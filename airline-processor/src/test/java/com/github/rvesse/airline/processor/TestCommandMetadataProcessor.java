@@ -0,0 +1,273 @@
+/**
+ * Copyright (C) 2010-16 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.rvesse.airline.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.rvesse.airline.FieldAccess;
+import com.github.rvesse.airline.SingleCommand;
+import com.github.rvesse.airline.model.CommandMetadata;
+import com.github.rvesse.airline.model.GeneratedCommandMetadata;
+import com.github.rvesse.airline.model.MetadataLoader;
+import com.github.rvesse.airline.model.OptionMetadata;
+
+public class TestCommandMetadataProcessor {
+
+    //@formatter:off
+    private static final String BASE_SOURCE = 
+            "package sample;\n" +
+            "import com.github.rvesse.airline.annotations.*;\n" +
+            "import com.github.rvesse.airline.annotations.restrictions.*;\n" +
+            "import com.github.rvesse.airline.annotations.help.*;\n" +
+            "import java.util.List;\n" +
+            "@Copyright(startYear = 2010, holder = \"Base\")\n" +
+            "public abstract class Base {\n" +
+            "    @Option(name = { \"-v\", \"--verbose\" }, description = \"Verbose \\\"quoted\\\"\")\n" +
+            "    private boolean verbose;\n" +
+            "    @Arguments(title = { \"first\", \"rest\" })\n" +
+            "    @Required\n" +
+            "    @NotBlank\n" +
+            "    @Partial(appliesTo = { 1 }, restriction = NotBlank.class)\n" +
+            "    protected List<String> args;\n" +
+            "}\n";
+    
+    private static final String MODULE_SOURCE = 
+            "package sample;\n" +
+            "import com.github.rvesse.airline.annotations.*;\n" +
+            "import com.github.rvesse.airline.annotations.restrictions.*;\n" +
+            "public class Module {\n" +
+            "    @Option(name = \"--level\", type = OptionType.GLOBAL, arity = 1)\n" +
+            "    @AllowedRawValues(allowedValues = { \"1\", \"2\" })\n" +
+            "    public int level;\n" +
+            "    @javax.inject.Inject\n" +
+            "    public com.github.rvesse.airline.model.CommandMetadata metadata;\n" +
+            "}\n";
+    
+    private static final String COMMAND_SOURCE = 
+            "package sample;\n" +
+            "import com.github.rvesse.airline.annotations.*;\n" +
+            "import com.github.rvesse.airline.annotations.restrictions.*;\n" +
+            "import com.github.rvesse.airline.annotations.help.*;\n" +
+            "@Command(name = \"sample\", description = \"Sample command\")\n" +
+            "@Group(name = \"samples\", description = \"Samples\", commands = { Sample.class })\n" +
+            "@Discussion(paragraphs = { \"First\", \"Second\" })\n" +
+            "public class Sample extends Base {\n" +
+            "    @javax.inject.Inject\n" +
+            "    private Module module = new Module();\n" +
+            "    @Option(name = { \"-n\", \"--name\" }, title = \"Name\", hidden = true)\n" +
+            "    @NotBlank\n" +
+            "    String name;\n" +
+            "    public static class Nested {\n" +
+            "        @Command(name = \"nested\")\n" +
+            "        public static class Inner {\n" +
+            "            @Option(name = \"-x\", arity = 2)\n" +
+            "            java.util.List<Integer> x;\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n";
+    //@formatter:on
+
+    private File compile(boolean process) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull(compiler, "Tests require a JDK");
+
+        File dir = Files.createTempDirectory("airline-processor").toFile();
+        File src = new File(dir, "src/sample");
+        Assert.assertTrue(src.mkdirs());
+        File out = new File(dir, "classes");
+        Assert.assertTrue(out.mkdirs());
+
+        List<String> args = new ArrayList<>();
+        args.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", out.getAbsolutePath(),
+                "-s", out.getAbsolutePath()));
+        if (process) {
+            args.add("-processor");
+            args.add(CommandMetadataProcessor.class.getCanonicalName());
+        } else {
+            args.add("-proc:none");
+        }
+        args.add(write(src, "Base.java", BASE_SOURCE));
+        args.add(write(src, "Module.java", MODULE_SOURCE));
+        args.add(write(src, "Sample.java", COMMAND_SOURCE));
+
+        Assert.assertEquals(compiler.run(null, null, null, args.toArray(new String[args.size()])), 0,
+                "Compilation failed");
+        return out;
+    }
+
+    private String write(File dir, String name, String source) throws IOException {
+        File f = new File(dir, name);
+        try (Writer writer = Files.newBufferedWriter(f.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(source);
+        }
+        return f.getAbsolutePath();
+    }
+
+    private CommandMetadata load(File classes, String className, boolean expectGenerated) throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toURI().toURL() },
+                getClass().getClassLoader())) {
+            Class<?> commandType = loader.loadClass(className);
+            File generated = new File(classes,
+                    className.replace('.', '/') + GeneratedCommandMetadata.CLASS_NAME_SUFFIX + ".class");
+            Assert.assertEquals(generated.exists(), expectGenerated);
+            boolean registered = false;
+            for (GeneratedCommandMetadata provider : ServiceLoader.load(GeneratedCommandMetadata.class, loader)) {
+                registered = registered || provider.getCommandType().equals(commandType);
+            }
+            Assert.assertEquals(registered, expectGenerated);
+            return MetadataLoader.loadCommand(commandType);
+        }
+    }
+
+    private void assertSame(CommandMetadata expected, CommandMetadata actual) {
+        Assert.assertEquals(actual.getName(), expected.getName());
+        Assert.assertEquals(actual.getDescription(), expected.getDescription());
+        Assert.assertEquals(actual.getType().getName(), expected.getType().getName());
+        assertSameOptions(actual.getGlobalOptions(), expected.getGlobalOptions());
+        assertSameOptions(actual.getGroupOptions(), expected.getGroupOptions());
+        assertSameOptions(actual.getCommandOptions(), expected.getCommandOptions());
+        Assert.assertEquals(actual.getMetadataInjections().size(), expected.getMetadataInjections().size());
+        if (expected.getArguments() == null) {
+            Assert.assertNull(actual.getArguments());
+        } else {
+            Assert.assertEquals(actual.getArguments().getTitle(), expected.getArguments().getTitle());
+            Assert.assertEquals(typesOf(actual.getArguments().getRestrictions()),
+                    typesOf(expected.getArguments().getRestrictions()));
+        }
+        Assert.assertEquals(typesOf(actual.getHelpSections()), typesOf(expected.getHelpSections()));
+        Assert.assertEquals(actual.getGroups().size(), expected.getGroups().size());
+    }
+
+    private static List<String> typesOf(List<?> objects) {
+        List<String> types = new ArrayList<>();
+        for (Object obj : objects) {
+            types.add(obj.getClass().getName());
+        }
+        Collections.sort(types);
+        return types;
+    }
+
+    private void assertSameOptions(List<OptionMetadata> actual, List<OptionMetadata> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            OptionMetadata e = expected.get(i);
+            OptionMetadata a = actual.get(i);
+            Assert.assertEquals(a.getOptionType(), e.getOptionType());
+            Assert.assertEquals(a.getOptions(), e.getOptions());
+            Assert.assertEquals(a.getTitle(), e.getTitle());
+            Assert.assertEquals(a.getDescription(), e.getDescription());
+            Assert.assertEquals(a.getArity(), e.getArity());
+            Assert.assertEquals(a.isHidden(), e.isHidden());
+            Assert.assertEquals(typesOf(a.getRestrictions()), typesOf(e.getRestrictions()));
+            Assert.assertEquals(a.getAccessors().toString(), e.getAccessors().toString());
+        }
+    }
+
+    @Test
+    public void generated_metadata_matches_reflection() throws Exception {
+        File reflective = compile(false);
+        File generated = compile(true);
+
+        for (String className : new String[] { "sample.Sample", "sample.Sample$Nested$Inner" }) {
+            CommandMetadata expected = load(reflective, className, false);
+            CommandMetadata actual = load(generated, className, true);
+            assertSame(expected, actual);
+        }
+    }
+
+    @Test
+    public void generated_metadata_parses() throws Exception {
+        File generated = compile(true);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { generated.toURI().toURL() },
+                getClass().getClassLoader())) {
+            Class<?> commandType = loader.loadClass("sample.Sample");
+            CommandMetadata expected = MetadataLoader.loadCommand(commandType, null);
+            CommandMetadata actual = MetadataLoader.loadCommand(commandType);
+            assertSame(expected, actual);
+
+            // Generated annotations honour the annotation contract
+            Assert.assertEquals(actual.getGroups(), expected.getGroups());
+            Assert.assertEquals(expected.getGroups(), actual.getGroups());
+            Assert.assertEquals(actual.getGroups().get(0).hashCode(), expected.getGroups().get(0).hashCode());
+            Assert.assertEquals(actual.getHelpSections().size(), 2);
+
+            // Package visible fields are accessed directly
+            OptionMetadata name = null;
+            for (OptionMetadata option : actual.getCommandOptions()) {
+                if (option.getOptions().contains("--name"))
+                    name = option;
+            }
+            Assert.assertNotNull(name);
+            FieldAccess access = name.getAccessors().iterator().next().getFieldAccessPath().get(0);
+            Assert.assertTrue(access.getClass().getName().startsWith("sample.Sample" + GeneratedCommandMetadata.CLASS_NAME_SUFFIX));
+
+            Object cmd = SingleCommand.singleCommand(commandType).parse("-n", "test", "-v", "a", "b");
+            Assert.assertEquals(field(cmd, commandType, "name"), "test");
+            Assert.assertEquals(field(cmd, commandType.getSuperclass(), "verbose"), true);
+            Assert.assertEquals(field(cmd, commandType.getSuperclass(), "args"), Arrays.asList("a", "b"));
+            Object module = field(cmd, commandType, "module");
+            Assert.assertEquals(((CommandMetadata) field(module, module.getClass(), "metadata")).getName(), "sample");
+
+            Class<?> innerType = loader.loadClass("sample.Sample$Nested$Inner");
+            cmd = SingleCommand.singleCommand(innerType).parse("-x", "1", "2");
+            Assert.assertEquals(field(cmd, innerType, "x"), Arrays.asList(1, 2));
+        }
+    }
+
+    private static Object field(Object instance, Class<?> cls, String name) throws Exception {
+        Field field = cls.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(instance);
+    }
+
+    @Test
+    public void generated_metadata_registered() throws Exception {
+        File services = new File(compile(true),
+                "META-INF/services/" + GeneratedCommandMetadata.class.getName());
+        Assert.assertTrue(services.exists());
+        Assert.assertEquals(Files.readAllLines(services.toPath(), StandardCharsets.UTF_8),
+                Arrays.asList("sample.Sample$Nested$Inner" + GeneratedCommandMetadata.CLASS_NAME_SUFFIX,
+                        "sample.Sample" + GeneratedCommandMetadata.CLASS_NAME_SUFFIX));
+
+        Assert.assertFalse(new File(compile(false), "META-INF/services/" + GeneratedCommandMetadata.class.getName())
+                .exists());
+    }
+
+    @Test
+    public void generated_metadata_literals() {
+        Assert.assertEquals(CommandMetadataProcessor.literal("plain"), "\"plain\"");
+        Assert.assertEquals(CommandMetadataProcessor.literal("a \"b\" \\ c\n"), "\"a \\\"b\\\" \\\\ c\\n\"");
+        Assert.assertEquals(CommandMetadataProcessor.literal("caf\u00e9"), "\"caf\\u00e9\"");
+    }
+}